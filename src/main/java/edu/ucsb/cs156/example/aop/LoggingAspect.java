@@ -1,14 +1,17 @@
 package edu.ucsb.cs156.example.aop;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
@@ -17,6 +20,10 @@ import org.springframework.web.context.request.ServletRequestAttributes;
  * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
  * {@code @DeleteMapping}, or {@code @PatchMapping}.
  *
+ * <p>It runs on every request, so it does as little as it can on the request thread: the part of
+ * the message that names the handler is built once per method, and the message is handed to an
+ * asynchronous appender (see {@code logback-spring.xml}) that writes it on a background thread.
+ *
  * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
  * JoinPoint} is, refer to <a
  * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
@@ -36,9 +43,11 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist =
-      new ArrayList<String>(
-          Arrays.asList("edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  private static final Set<String> stoplist =
+      Set.of("edu.ucsb.cs156.example.controllers.FrontendProxyController");
+
+  // "handled by <method> in <class>" for each controller method, or "" for those not logged
+  private final Map<Method, String> handlers = new ConcurrentHashMap<>();
 
   /**
    * This method is called before any controller method that is annotated with
@@ -49,32 +58,37 @@ public class LoggingAspect {
    */
   @Before(pointcut)
   public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest()
-        .ifPresent(
-            request -> {
-              String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-              if (!stoplist.contains(declaringTypeName)) {
-                log.info(
-                    "===== %s %s handled by %s in %s"
-                        .formatted(
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            joinPoint.getSignature().getName(),
-                            declaringTypeName));
-              }
-            });
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    HttpServletRequest request = getCurrentHttpRequest();
+    if (request == null) {
+      return;
+    }
+    MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+    String handler = handlers.computeIfAbsent(signature.getMethod(), method -> handler(signature));
+    if (!handler.isEmpty()) {
+      log.info("===== {} {} {}", request.getMethod(), request.getRequestURI(), handler);
+    }
+  }
+
+  private static String handler(MethodSignature signature) {
+    String declaringTypeName = signature.getDeclaringTypeName();
+    if (stoplist.contains(declaringTypeName)) {
+      return "";
+    }
+    return "handled by %s in %s".formatted(signature.getName(), declaringTypeName);
   }
 
   /**
-   * The function `getCurrentHttpRequest` returns an `Optional` containing the current
-   * `HttpServletRequest` if available.
+   * The function `getCurrentHttpRequest` returns the current `HttpServletRequest` if available.
    *
-   * @return An Optional object containing the current HttpServletRequest, if available.
+   * @return the current HttpServletRequest, or null if there is none
    */
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+  private static HttpServletRequest getCurrentHttpRequest() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes instanceof ServletRequestAttributes servletRequestAttributes
+        ? servletRequestAttributes.getRequest()
+        : null;
   }
 }
@@ -0,0 +1,61 @@
+package edu.ucsb.cs156.example.aop;
+
+import edu.ucsb.cs156.example.services.metrics.RepositoryMetricsService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class is an Aspect that times every call to a method of a Spring Data repository, including
+ * the methods that repositories inherit such as {@code save} and {@code findById}, with the
+ * RepositoryMetricsService.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+  @Autowired private RepositoryMetricsService repositoryMetricsService;
+
+  // the name of the repository interface that each repository proxy class implements
+  private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+  /**
+   * This method is called around every call to a repository method.
+   *
+   * @param joinPoint the join point (injected by Spring framework)
+   * @return what the repository method returned
+   * @throws Throwable whatever the repository method threw
+   */
+  @Around("target(org.springframework.data.repository.Repository)")
+  public Object timeRepositoryCall(ProceedingJoinPoint joinPoint) throws Throwable {
+    RepositoryMetricsService.Call call =
+        repositoryMetricsService.start(
+            repositoryName(joinPoint.getThis().getClass()), joinPoint.getSignature().getName());
+    Object result = null;
+    try {
+      result = joinPoint.proceed();
+      return result;
+    } finally {
+      call.stop(result, joinPoint.getArgs());
+    }
+  }
+
+  private String repositoryName(Class<?> proxyClass) {
+    return repositoryNames.computeIfAbsent(
+        proxyClass,
+        type -> {
+          for (Class<?> implemented : type.getInterfaces()) {
+            if (Repository.class.isAssignableFrom(implemented)
+                && implemented != Repository.class) {
+              return implemented.getSimpleName();
+            }
+          }
+          return type.getSimpleName();
+        });
+  }
+}
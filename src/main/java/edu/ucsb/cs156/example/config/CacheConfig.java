@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.cache.ResponseCacheFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `CacheConfig` class enables Spring's annotation-driven caching ({@code @Cacheable}).
+ *
+ * <p>Caches are named after the JPA entity name of what they hold (e.g. "articles") so that the
+ * CacheInvalidationService can evict entries when entities change on this or another instance.
+ * They are Caffeine caches whose entries also expire, as set by {@code spring.cache.caffeine.spec}.
+ *
+ * <p>It also registers the ResponseCacheFilter, which keeps the encoded responses of endpoints
+ * marked with {@code @CachedResponse}, unless {@code app.response-cache.enabled} is false.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+  @Bean
+  @ConditionalOnProperty(name = "app.response-cache.enabled", matchIfMissing = true)
+  public ResponseCacheFilter responseCacheFilter() {
+    return new ResponseCacheFilter();
+  }
+}
@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.metrics.QueryBudgetInterceptor;
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsInterceptor;
+import edu.ucsb.cs156.example.services.metrics.RequestMetricsService;
+import edu.ucsb.cs156.example.services.metrics.SqlStatementCounter;
+import edu.ucsb.cs156.example.services.metrics.SqlTraceService;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+/**
+ * The `MetricsConfig` class times the requests to the API with the RequestMetricsInterceptor, and
+ * checks the SQL statements they run against their {@code @QueryBudget} with the
+ * QueryBudgetInterceptor. The statements are counted, and sampled for the SqlTraceService, by the
+ * SqlStatementCounter, which is given to Hibernate as its StatementInspector.
+ *
+ * <p>The interceptors are registered as {@code MappedInterceptor} beans, which Spring MVC picks up
+ * by itself, rather than through a {@code WebMvcConfigurer}, so that {@code @WebMvcTest} tests do
+ * not need a MeterRegistry.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public MappedInterceptor requestMetricsInterceptor(RequestMetricsService requestMetricsService) {
+    return new MappedInterceptor(
+        new String[] {"/api/**"}, new RequestMetricsInterceptor(requestMetricsService));
+  }
+
+  @Bean
+  public QueryBudgetInterceptor queryBudgetInterceptor() {
+    return new QueryBudgetInterceptor();
+  }
+
+  @Bean
+  public MappedInterceptor queryBudgetMappedInterceptor(
+      QueryBudgetInterceptor queryBudgetInterceptor) {
+    return new MappedInterceptor(new String[] {"/api/**"}, queryBudgetInterceptor);
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer sqlStatementCounter(SqlTraceService sqlTraceService) {
+    return properties ->
+        properties.put(
+            AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter(sqlTraceService));
+  }
+}
@@ -1,20 +1,42 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.models.CurrentUser;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.repository.CrudRepository;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.multipart.MultipartFile;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +56,256 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method publishes an EntityChangedEvent, so that caches and in-memory indexes of the entity
+   * can be kept in sync with the database.
+   *
+   * @param action what happened to the entity
+   * @param id the id of the entity
+   * @param entity the entity as it is after the change
+   */
+  protected void publishEntityChange(EntityChangedEvent.Action action, Object id, Object entity) {
+    applicationEventPublisher.publishEvent(
+        EntityChangedEvent.builder()
+            .entityType(entity.getClass())
+            .entityId(id.toString())
+            .action(action)
+            .entity(entity)
+            .build());
+  }
+
+  /**
+   * This method creates many entities with one call to saveAll, so that Hibernate can batch the
+   * inserts. It should be called from a {@code @Transactional} handler.
+   *
+   * @param repository the repository of the entities
+   * @param incoming the entities to create
+   * @param prepare returns the entity to save for an incoming one, or throws an
+   *     IllegalArgumentException if it is invalid
+   * @param idOf returns the id of a saved entity
+   * @return the result for each incoming entity, in order
+   */
+  protected <T, ID> List<BulkItemResult> bulkCreate(
+      CrudRepository<T, ID> repository,
+      List<T> incoming,
+      UnaryOperator<T> prepare,
+      Function<T, ID> idOf) {
+    BulkItemResult[] results = new BulkItemResult[incoming.size()];
+    Map<Integer, T> entities = prepareAll(incoming, prepare, results);
+    return saveCreated(repository, entities, idOf, results);
+  }
+
+  /**
+   * This method creates many entities whose ids are given by the client, such as codes, with one
+   * call to saveAll. Since saveAll would overwrite an existing entity with the same id, entities
+   * whose id already exists, or was given earlier in the request, are reported as conflicts and not
+   * saved. It should be called from a {@code @Transactional} handler.
+   *
+   * @param repository the repository of the entities
+   * @param entityType the class of the entities, for conflict messages
+   * @param incoming the entities to create
+   * @param prepare returns the entity to save for an incoming one, or throws an
+   *     IllegalArgumentException if it is invalid; the entity it returns must have an id
+   * @param idOf returns the id of an entity
+   * @return the result for each incoming entity, in order
+   */
+  protected <T, ID> List<BulkItemResult> bulkCreateWithAssignedIds(
+      CrudRepository<T, ID> repository,
+      Class<T> entityType,
+      List<T> incoming,
+      UnaryOperator<T> prepare,
+      Function<T, ID> idOf) {
+    BulkItemResult[] results = new BulkItemResult[incoming.size()];
+    Map<Integer, T> entities = prepareAll(incoming, prepare, results);
+
+    Set<ID> taken =
+        new HashSet<>(
+            findAllById(repository, entities.values().stream().map(idOf).toList(), idOf).keySet());
+    entities
+        .entrySet()
+        .removeIf(
+            entry -> {
+              ID id = idOf.apply(entry.getValue());
+              if (taken.add(id)) {
+                return false;
+              }
+              results[entry.getKey()] = conflict(entry.getKey(), entityType, id);
+              return true;
+            });
+    return saveCreated(repository, entities, idOf, results);
+  }
+
+  /**
+   * This method updates many entities, loading them with one call to findAllById. An id given more
+   * than once is only updated by its first entity; the later ones are reported as invalid. It
+   * should be called from a {@code @Transactional} handler, so that the changes are flushed as one
+   * batch.
+   *
+   * @param repository the repository of the entities
+   * @param entityType the class of the entities, for not-found messages
+   * @param incoming the new contents of the entities, with their ids
+   * @param idOf returns the id of an entity
+   * @param update copies an incoming entity onto the existing one, or throws an
+   *     IllegalArgumentException if it is invalid
+   * @return the result for each incoming entity, in order
+   */
+  protected <T, ID> List<BulkItemResult> bulkUpdate(
+      CrudRepository<T, ID> repository,
+      Class<T> entityType,
+      List<T> incoming,
+      Function<T, ID> idOf,
+      BiConsumer<T, T> update) {
+    Map<ID, T> existing = findAllById(repository, incoming.stream().map(idOf).toList(), idOf);
+    List<BulkItemResult> results = new ArrayList<>();
+    List<T> updated = new ArrayList<>();
+    Set<ID> seen = new HashSet<>();
+
+    for (int i = 0; i < incoming.size(); i++) {
+      ID id = idOf.apply(incoming.get(i));
+      if (id == null) {
+        results.add(bulkItemResult(i, BulkItemResult.Status.INVALID, null, "id is required"));
+        continue;
+      }
+      if (!seen.add(id)) {
+        String message = "id %s is given more than once".formatted(id);
+        results.add(bulkItemResult(i, BulkItemResult.Status.INVALID, id, message));
+        continue;
+      }
+      T entity = existing.get(id);
+      if (entity == null) {
+        results.add(notFound(i, entityType, id));
+        continue;
+      }
+      try {
+        update.accept(entity, incoming.get(i));
+      } catch (IllegalArgumentException e) {
+        results.add(bulkItemResult(i, BulkItemResult.Status.INVALID, id, e.getMessage()));
+        continue;
+      }
+      updated.add(entity);
+      results.add(bulkItemResult(i, BulkItemResult.Status.UPDATED, id, null));
+      publishEntityChange(EntityChangedEvent.Action.UPDATED, id, entity);
+    }
+
+    repository.saveAll(updated);
+    return results;
+  }
+
+  /**
+   * This method deletes many entities, loading them with one call to findAllById. It should be
+   * called from a {@code @Transactional} handler, so that the deletes are flushed as one batch.
+   *
+   * @param repository the repository of the entities
+   * @param entityType the class of the entities, for not-found messages
+   * @param ids the ids of the entities to delete
+   * @param idOf returns the id of an entity
+   * @return the result for each id, in order
+   */
+  protected <T, ID> List<BulkItemResult> bulkDelete(
+      CrudRepository<T, ID> repository, Class<T> entityType, List<ID> ids, Function<T, ID> idOf) {
+    Map<ID, T> existing = findAllById(repository, ids, idOf);
+    List<BulkItemResult> results = new ArrayList<>();
+    List<T> deleted = new ArrayList<>();
+
+    for (int i = 0; i < ids.size(); i++) {
+      ID id = ids.get(i);
+      if (id == null) {
+        results.add(bulkItemResult(i, BulkItemResult.Status.INVALID, null, "id is required"));
+        continue;
+      }
+      // remove, so that an id given twice is only deleted once
+      T entity = existing.remove(id);
+      if (entity == null) {
+        results.add(notFound(i, entityType, id));
+        continue;
+      }
+      deleted.add(entity);
+      results.add(bulkItemResult(i, BulkItemResult.Status.DELETED, id, null));
+      publishEntityChange(EntityChangedEvent.Action.DELETED, id, entity);
+    }
+
+    repository.deleteAll(deleted);
+    return results;
+  }
+
+  /**
+   * This method copies an uploaded file to a temporary file, so that a job can read it after the
+   * request has completed. Whoever reads the file is responsible for deleting it.
+   *
+   * @param upload the uploaded file
+   * @return the path of the copy
+   * @throws IOException if the copy cannot be written
+   */
+  protected Path saveUpload(MultipartFile upload) throws IOException {
+    Path file = Files.createTempFile("upload-", ".tmp");
+    upload.transferTo(file);
+    return file;
+  }
+
+  // the prepared entities by their index in the request; invalid ones are reported in results
+  private <T> Map<Integer, T> prepareAll(
+      List<T> incoming, UnaryOperator<T> prepare, BulkItemResult[] results) {
+    Map<Integer, T> entities = new LinkedHashMap<>();
+    for (int i = 0; i < incoming.size(); i++) {
+      try {
+        entities.put(i, prepare.apply(incoming.get(i)));
+      } catch (IllegalArgumentException e) {
+        results[i] = bulkItemResult(i, BulkItemResult.Status.INVALID, null, e.getMessage());
+      }
+    }
+    return entities;
+  }
+
+  private <T, ID> List<BulkItemResult> saveCreated(
+      CrudRepository<T, ID> repository,
+      Map<Integer, T> entities,
+      Function<T, ID> idOf,
+      BulkItemResult[] results) {
+    Iterator<T> saved = repository.saveAll(List.copyOf(entities.values())).iterator();
+    for (int i : entities.keySet()) {
+      T entity = saved.next();
+      ID id = idOf.apply(entity);
+      results[i] = bulkItemResult(i, BulkItemResult.Status.CREATED, id, null);
+      publishEntityChange(EntityChangedEvent.Action.CREATED, id, entity);
+    }
+    return Arrays.asList(results);
+  }
+
+  private <T, ID> Map<ID, T> findAllById(
+      CrudRepository<T, ID> repository, List<ID> ids, Function<T, ID> idOf) {
+    Map<ID, T> entities = new HashMap<>();
+    repository
+        .findAllById(ids.stream().filter(Objects::nonNull).toList())
+        .forEach(entity -> entities.put(idOf.apply(entity), entity));
+    return entities;
+  }
+
+  private BulkItemResult notFound(int index, Class<?> entityType, Object id) {
+    return bulkItemResult(
+        index,
+        BulkItemResult.Status.NOT_FOUND,
+        id,
+        new EntityNotFoundException(entityType, id).getMessage());
+  }
+
+  private BulkItemResult conflict(int index, Class<?> entityType, Object id) {
+    return bulkItemResult(
+        index,
+        BulkItemResult.Status.CONFLICT,
+        id,
+        "%s with id %s already exists".formatted(entityType.getSimpleName(), id));
+  }
+
+  private BulkItemResult bulkItemResult(
+      int index, BulkItemResult.Status status, Object id, String message) {
+    return BulkItemResult.builder()
+        .index(index)
+        .status(status)
+        .id(id == null ? null : id.toString())
+        .message(message)
+        .build();
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -47,4 +319,18 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles the IllegalArgumentException thrown for invalid parameters.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({IllegalArgumentException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleIllegalArgumentException(IllegalArgumentException e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
@@ -3,16 +3,24 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.ArticleSearchResult;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.services.articles.ArticleSearchService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,8 +37,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class ArticlesController extends ApiController {
 
+  private static final int MAX_SEARCH_RESULTS = 100;
+
   @Autowired ArticleRepository articleRepository;
 
+  @Autowired ArticleSearchService articleSearchService;
+
   /**
    * List all Articles
    *
@@ -39,11 +51,35 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "List all articles")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<Article> allArticles() {
     Iterable<Article> articles = articleRepository.findAll();
     return articles;
   }
 
+  /**
+   * Search the articles by the words in their titles, urls and explanations. Articles that contain
+   * more of the words, and rarer words, rank higher, as do articles added more recently.
+   *
+   * @param q the words to search for
+   * @param limit the most articles to return, at most 100
+   * @return the matching articles with their scores, most relevant first
+   */
+  @Operation(summary = "Search articles")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/search")
+  public List<ArticleSearchResult> searchArticles(
+      @Parameter(name = "q") @RequestParam String q,
+      @Parameter(name = "limit") @RequestParam(defaultValue = "20") int limit) {
+    if (q.isBlank()) {
+      throw new IllegalArgumentException("q must not be blank");
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    return articleSearchService.search(q, Math.min(limit, MAX_SEARCH_RESULTS));
+  }
+
   /**
    * Create a new article
    *
@@ -84,12 +120,14 @@ public class ArticlesController extends ApiController {
     article.setDateAdded(dateAdded);
 
     Article savedArticle = articleRepository.save(article);
+    publishEntityChange(EntityChangedEvent.Action.CREATED, savedArticle.getId(), savedArticle);
 
     return savedArticle;
   }
 
   /**
-   * Get a single article by id
+   * Get a single article by id. Results are cached in the "articles" cache, which is evicted on
+   * every instance when an article is updated or deleted.
    *
    * @param id the id of the article
    * @return a article
@@ -97,6 +135,7 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Get a single article")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
+  @Cacheable(cacheNames = "articles", key = "#p0.toString()")
   public Article getById(@Parameter(name = "id") @RequestParam Long id) {
     Article article =
         articleRepository
@@ -124,13 +163,10 @@ public class ArticlesController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
-    article.setTitle(incoming.getTitle());
-    article.setUrl(incoming.getUrl());
-    article.setExplanation(incoming.getExplanation());
-    article.setEmail(incoming.getEmail());
-    article.setDateAdded(incoming.getDateAdded());
+    update(article, incoming);
 
     articleRepository.save(article);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, article);
 
     return article;
   }
@@ -151,6 +187,64 @@ public class ArticlesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
     articleRepository.delete(article);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, article);
     return genericMessage("Article with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many articles at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the articles to create; ids are ignored
+   * @return the result for each article, in the order given
+   */
+  @Operation(summary = "Create many articles")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postArticlesBulk(@RequestBody List<Article> incoming) {
+    return bulkCreate(
+        articleRepository,
+        incoming,
+        article -> {
+          article.setId(0);
+          return article;
+        },
+        Article::getId);
+  }
+
+  /**
+   * Update many articles at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the articles, each with the id of the one to update
+   * @return the result for each article, in the order given
+   */
+  @Operation(summary = "Update many articles")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateArticlesBulk(@RequestBody List<Article> incoming) {
+    return bulkUpdate(articleRepository, Article.class, incoming, Article::getId, this::update);
+  }
+
+  /**
+   * Delete many articles at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the articles to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many articles")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteArticlesBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(articleRepository, Article.class, ids, Article::getId);
+  }
+
+  private void update(Article article, Article incoming) {
+    article.setTitle(incoming.getTitle());
+    article.setUrl(incoming.getUrl());
+    article.setExplanation(incoming.getExplanation());
+    article.setEmail(incoming.getEmail());
+    article.setDateAdded(incoming.getDateAdded());
+  }
 }
@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.services.export.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * This is a REST controller for exporting entity tables to files and downloading them.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.export.ExportService
+ */
+@Tag(name = "Exports (admin only)")
+@RequestMapping("/api/exports")
+@RestController
+public class ExportsController extends ApiController {
+
+  /** Set by Tomcat on requests that can be answered with sendfile. */
+  static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+  static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  @Autowired private ExportService exportService;
+
+  /**
+   * This method starts a job that exports every row of an entity table.
+   *
+   * @param entity the JPA entity name, e.g. "articles"
+   * @param format the format of the file
+   * @return the job that runs the export
+   */
+  @Operation(summary = "Export an entity table to a compressed file, as a job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("")
+  public Job launchExport(
+      @Parameter(name = "entity", description = "JPA entity name, e.g. articles") @RequestParam
+          String entity,
+      @Parameter(name = "format") @RequestParam FileFormat format) {
+    return exportService.launchExport(entity, format);
+  }
+
+  /**
+   * This method lists the export files that can be downloaded.
+   *
+   * @return the file names
+   * @throws IOException if the export directory cannot be read
+   */
+  @Operation(summary = "List export files")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public List<String> listExports() throws IOException {
+    return exportService.listExports();
+  }
+
+  /**
+   * This method sends an export file. When the servlet container supports it, the file is handed
+   * to the container to send with sendfile, so that it is not copied through the JVM.
+   *
+   * @param fileName the name of the file
+   * @param request the request
+   * @param response the response
+   * @throws IOException if the file cannot be read
+   */
+  @Operation(summary = "Download an export file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/{fileName}")
+  public void downloadExport(
+      @Parameter(name = "fileName") @PathVariable String fileName,
+      HttpServletRequest request,
+      HttpServletResponse response)
+      throws IOException {
+    Path file =
+        exportService
+            .findExport(fileName)
+            .orElseThrow(
+                () ->
+                    new ResponseStatusException(
+                        HttpStatus.NOT_FOUND, "Export %s not found".formatted(fileName)));
+
+    long size = Files.size(file);
+    response.setContentType("application/gzip");
+    response.setHeader(
+        HttpHeaders.CONTENT_DISPOSITION,
+        ContentDisposition.attachment().filename(fileName).build().toString());
+    response.setContentLengthLong(size);
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, size);
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+      long position = 0;
+      while (position < size) {
+        position += channel.transferTo(position, size - position, out);
+      }
+    }
+  }
+}
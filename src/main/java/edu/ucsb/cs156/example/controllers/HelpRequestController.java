@@ -3,15 +3,25 @@ package edu.ucsb.cs156.example.controllers; // not sure if i need this
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.helprequests.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.helprequests.HelpRequestStreamService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,6 +30,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /** This is a REST controller for HelpRequest */
 @Tag(name = "HelpRequests")
@@ -32,6 +43,12 @@ public class HelpRequestController extends ApiController {
   HelpRequestRepository
       helpRequestRepository; // Uppercase = class, lowercase = variable (convention)
 
+  @Autowired HelpRequestQueueService helpRequestQueueService;
+
+  @Autowired HelpRequestStreamService helpRequestStreamService;
+
+  private static final int MAX_QUEUE_SIZE = 1000;
+
   /**
    * List all HelpRequests
    *
@@ -40,6 +57,7 @@ public class HelpRequestController extends ApiController {
   @Operation(summary = "List all help requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<HelpRequest> allHelpRequests() {
     Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
     return helpRequests;
@@ -86,6 +104,7 @@ public class HelpRequestController extends ApiController {
     helpRequest.setSolved(solved);
 
     HelpRequest saved = helpRequestRepository.save(helpRequest);
+    publishEntityChange(EntityChangedEvent.Action.CREATED, saved.getId(), saved);
     return saved;
   }
 
@@ -125,14 +144,10 @@ public class HelpRequestController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
-    helpRequest.setRequesterEmail(incoming.getRequesterEmail());
-    helpRequest.setTeamId(incoming.getTeamId());
-    helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-    helpRequest.setRequestTime(incoming.getRequestTime());
-    helpRequest.setExplanation(incoming.getExplanation());
-    helpRequest.setSolved(incoming.getSolved());
+    update(helpRequest, incoming);
 
     helpRequestRepository.save(helpRequest);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, helpRequest);
 
     return helpRequest;
   }
@@ -153,6 +168,139 @@ public class HelpRequestController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
     helpRequestRepository.delete(helpRequest);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, helpRequest);
     return genericMessage("HelpRequest with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many help requests at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the help requests to create; ids are ignored
+   * @return the result for each help request, in the order given
+   */
+  @Operation(summary = "Create many help requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postHelpRequestsBulk(@RequestBody List<HelpRequest> incoming) {
+    return bulkCreate(
+        helpRequestRepository,
+        incoming,
+        helpRequest -> {
+          helpRequest.setId(0);
+          return helpRequest;
+        },
+        HelpRequest::getId);
+  }
+
+  /**
+   * Update many help requests at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the help requests, each with the id of the one to update
+   * @return the result for each help request, in the order given
+   */
+  @Operation(summary = "Update many help requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateHelpRequestsBulk(@RequestBody List<HelpRequest> incoming) {
+    return bulkUpdate(
+        helpRequestRepository,
+        HelpRequest.class,
+        incoming,
+        HelpRequest::getId,
+        this::update);
+  }
+
+  /**
+   * Delete many help requests at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the help requests to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many help requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteHelpRequestsBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(helpRequestRepository, HelpRequest.class, ids, HelpRequest::getId);
+  }
+
+  /**
+   * List the unsolved help requests, oldest first
+   *
+   * @param limit the most requests to return, at least 1
+   * @return the unsolved help requests, with who is helping each claimed one
+   */
+  @Operation(summary = "List the unsolved help requests, oldest first")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/queue")
+  public List<HelpRequest> queue(
+      @Parameter(name = "limit") @RequestParam(defaultValue = "100") int limit) {
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    return helpRequestQueueService.queue(Math.min(limit, MAX_QUEUE_SIZE));
+  }
+
+  /**
+   * Claim the oldest unsolved help request that nobody has claimed. Accessible only to users with
+   * the role "ROLE_ADMIN".
+   *
+   * @param fair if true, teams that are not already being helped go first
+   * @return the claimed help request, or no content if there is none to claim
+   */
+  @Operation(summary = "Claim the next unsolved help request")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/claim")
+  public ResponseEntity<HelpRequest> claimNext(
+      @Parameter(name = "fair") @RequestParam(defaultValue = "false") boolean fair) {
+    String email = getCurrentUser().getUser().getEmail();
+    Optional<HelpRequest> claimed = helpRequestQueueService.claimNext(email, fair);
+    claimed.ifPresent(
+        helpRequest ->
+            publishEntityChange(
+                EntityChangedEvent.Action.UPDATED, helpRequest.getId(), helpRequest));
+    return claimed
+        .map(ResponseEntity::ok)
+        .orElseGet(() -> ResponseEntity.noContent().build());
+  }
+
+  /**
+   * Put a claimed help request back in the queue. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param id the id of the help request
+   * @return the released help request
+   */
+  @Operation(summary = "Put a claimed help request back in the queue")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/release")
+  public HelpRequest release(@Parameter(name = "id") @RequestParam Long id) {
+    HelpRequest helpRequest = helpRequestQueueService.release(id);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, helpRequest);
+    return helpRequest;
+  }
+
+  /**
+   * Subscribe to changes to help requests, as server-sent events named "created", "updated" or
+   * "deleted", each with a HelpRequestChange as its data
+   *
+   * @return the stream of events
+   */
+  @Operation(summary = "Subscribe to changes to help requests")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter stream() {
+    return helpRequestStreamService.subscribe();
+  }
+
+  private void update(HelpRequest helpRequest, HelpRequest incoming) {
+    helpRequest.setRequesterEmail(incoming.getRequesterEmail());
+    helpRequest.setTeamId(incoming.getTeamId());
+    helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
+    helpRequest.setRequestTime(incoming.getRequestTime());
+    helpRequest.setExplanation(incoming.getExplanation());
+    helpRequest.setSolved(incoming.getSolved());
+  }
 }
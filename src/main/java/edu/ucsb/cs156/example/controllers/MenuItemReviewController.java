@@ -1,17 +1,36 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.ratings.MenuItemRatingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -20,6 +39,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 /** This is a REST controller for MenuItemReview */
 @Tag(name = "MenuItemReview")
@@ -28,8 +48,19 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class MenuItemReviewController extends ApiController {
 
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  // newest first; matches the (ITEM_ID | REVIEWER_EMAIL, DATE_REVIEWED DESC, ID DESC) indexes
+  private static final Sort NEWEST_FIRST = Sort.by("dateReviewed", "id").descending();
+
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired JobService jobService;
+
+  @Autowired MenuItemRatingService menuItemRatingService;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
   /**
    * List all menu item reviews
    *
@@ -38,6 +69,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "List all menu item reviews")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<MenuItemReview> allMenuItemReviews() {
     Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
     return reviews;
@@ -61,6 +93,42 @@ public class MenuItemReviewController extends ApiController {
     return review;
   }
 
+  /**
+   * Get the reviews of a menu item, newest first, a page at a time
+   *
+   * @param itemId the id of the menu item
+   * @param page the page number, starting at 0
+   * @param size the number of reviews per page
+   * @return a page of reviews
+   */
+  @Operation(summary = "Get the reviews of a menu item, newest first, a page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byItem")
+  public Page<MenuItemReview> getByItem(
+      @Parameter(name = "itemId") @RequestParam long itemId,
+      @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+      @Parameter(name = "size") @RequestParam(defaultValue = "20") int size) {
+    return menuItemReviewRepository.findByItemId(itemId, newestFirst(page, size));
+  }
+
+  /**
+   * Get the reviews written by a reviewer, newest first, a page at a time
+   *
+   * @param reviewerEmail the email of the reviewer
+   * @param page the page number, starting at 0
+   * @param size the number of reviews per page
+   * @return a page of reviews
+   */
+  @Operation(summary = "Get the reviews written by a reviewer, newest first, a page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byReviewer")
+  public Page<MenuItemReview> getByReviewer(
+      @Parameter(name = "reviewerEmail") @RequestParam String reviewerEmail,
+      @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+      @Parameter(name = "size") @RequestParam(defaultValue = "20") int size) {
+    return menuItemReviewRepository.findByReviewerEmail(reviewerEmail, newestFirst(page, size));
+  }
+
   /**
    * Create a new menu item review
    *
@@ -74,6 +142,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Create a new menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/post")
+  @Transactional
   public MenuItemReview postMenuItemReview(
       @Parameter(name = "itemId") @RequestParam long itemId,
       @Parameter(name = "reviewerEmail") @RequestParam String reviewerEmail,
@@ -90,9 +159,7 @@ public class MenuItemReviewController extends ApiController {
 
     log.info("dateReviewed={}", dateReviewed);
 
-    if (stars < 0 || stars > 5) {
-      throw new IllegalArgumentException("Stars must be between 0 and 5");
-    }
+    checkStars(stars);
 
     MenuItemReview review = new MenuItemReview();
     review.setItemId(itemId);
@@ -102,6 +169,7 @@ public class MenuItemReviewController extends ApiController {
     review.setComments(comments);
 
     MenuItemReview savedReview = menuItemReviewRepository.save(review);
+    menuItemRatingService.reviewsAdded(List.of(savedReview));
 
     return savedReview;
   }
@@ -116,25 +184,22 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Update a single menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PutMapping("")
+  @Transactional
   public MenuItemReview updateMenuItemReview(
       @Parameter(name = "id") @RequestParam Long id, @RequestBody MenuItemReview incoming) {
 
-    if (incoming.getStars() < 0 || incoming.getStars() > 5) {
-      throw new IllegalArgumentException("Stars must be between 0 and 5");
-    }
+    checkStars(incoming.getStars());
 
     MenuItemReview review =
         menuItemReviewRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-    review.setItemId(incoming.getItemId());
-    review.setReviewerEmail(incoming.getReviewerEmail());
-    review.setStars(incoming.getStars());
-    review.setDateReviewed(incoming.getDateReviewed());
-    review.setComments(incoming.getComments());
+    MenuItemReview before = ratingOf(review);
+    update(review, incoming);
 
     menuItemReviewRepository.save(review);
+    menuItemRatingService.reviewsChanged(List.of(before), List.of(review));
 
     return review;
   }
@@ -148,6 +213,7 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Delete a menu item review")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("")
+  @Transactional
   public Object deleteMenuItemReview(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview review =
         menuItemReviewRepository
@@ -155,6 +221,176 @@ public class MenuItemReviewController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
     menuItemReviewRepository.delete(review);
+    menuItemRatingService.reviewsRemoved(List.of(review));
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many menu item reviews at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the menu item reviews to create; ids are ignored
+   * @return the result for each menu item review, in the order given
+   */
+  @Operation(summary = "Create many menu item reviews")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postMenuItemReviewsBulk(@RequestBody List<MenuItemReview> incoming) {
+    List<MenuItemReview> added = new ArrayList<>();
+    List<BulkItemResult> results =
+        bulkCreate(
+            menuItemReviewRepository,
+            incoming,
+            review -> {
+              added.add(prepareNew(review));
+              return review;
+            },
+            MenuItemReview::getId);
+    menuItemRatingService.reviewsAdded(added);
+    return results;
+  }
+
+  /**
+   * Update many menu item reviews at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents, each with the id of the entry to update
+   * @return the result for each menu item review, in the order given
+   */
+  @Operation(summary = "Update many menu item reviews")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateMenuItemReviewsBulk(
+      @RequestBody List<MenuItemReview> incoming) {
+    List<MenuItemReview> before = new ArrayList<>();
+    List<MenuItemReview> after = new ArrayList<>();
+    List<BulkItemResult> results =
+        bulkUpdate(
+            menuItemReviewRepository,
+            MenuItemReview.class,
+            incoming,
+            MenuItemReview::getId,
+            (review, changes) -> {
+              checkStars(changes.getStars());
+              before.add(ratingOf(review));
+              update(review, changes);
+              after.add(ratingOf(review));
+            });
+    menuItemRatingService.reviewsChanged(before, after);
+    return results;
+  }
+
+  /**
+   * Delete many menu item reviews at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the menu item reviews to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many menu item reviews")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteMenuItemReviewsBulk(@RequestBody List<Long> ids) {
+    List<MenuItemReview> removed = new ArrayList<>();
+    menuItemReviewRepository
+        .findAllById(ids.stream().filter(Objects::nonNull).toList())
+        .forEach(removed::add);
+    List<BulkItemResult> results =
+        bulkDelete(menuItemReviewRepository, MenuItemReview.class, ids, MenuItemReview::getId);
+    menuItemRatingService.reviewsRemoved(removed);
+    return results;
+  }
+
+  /**
+   * Import menu item reviews from a CSV or NDJSON file, as a job. Accessible only to users with the
+   * role "ROLE_ADMIN".
+   *
+   * @param format the format of the file
+   * @param file a CSV file with a header row naming the fields, or one JSON object per line
+   * @return the job that runs the import
+   * @throws IOException if the upload cannot be saved
+   */
+  @Operation(summary = "Import menu item reviews from a CSV or NDJSON file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importMenuItemReviews(
+      @Parameter(name = "format") @RequestParam FileFormat format,
+      @Parameter(name = "file") @RequestParam MultipartFile file)
+      throws IOException {
+    ImportJob<MenuItemReview> importJob =
+        ImportJob.<MenuItemReview>builder()
+            .file(saveUpload(file))
+            .format(format)
+            .type(MenuItemReview.class)
+            .repository(menuItemReviewRepository)
+            .prepare(MenuItemReviewController::prepareNew)
+            .afterSave(menuItemRatingService::reviewsAdded)
+            .transaction(new TransactionTemplate(transactionManager))
+            .build();
+    return jobService.runAsJob(importJob);
+  }
+
+  /**
+   * Get the rating statistics of a menu item
+   *
+   * @param itemId the id of the menu item
+   * @return the rating; the count is zero if the item has no reviews
+   */
+  @Operation(summary = "Get the rating statistics of a menu item")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/ratings")
+  public MenuItemRating getRating(@Parameter(name = "itemId") @RequestParam long itemId) {
+    return menuItemRatingService.getRating(itemId);
+  }
+
+  /**
+   * Get the rating statistics of the reviewed menu items, a page at a time
+   *
+   * @param page the page number, starting at 0
+   * @param size the number of items per page
+   * @return a page of ratings, in order of item id
+   */
+  @Operation(summary = "Get the rating statistics of the reviewed menu items, a page at a time")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/ratings/all")
+  public Page<MenuItemRating> getRatings(
+      @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+      @Parameter(name = "size") @RequestParam(defaultValue = "20") int size) {
+    return menuItemRatingService.getRatings(
+        PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), Sort.by("itemId")));
+  }
+
+  private static PageRequest newestFirst(int page, int size) {
+    return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), NEWEST_FIRST);
+  }
+
+  private static MenuItemReview prepareNew(MenuItemReview review) {
+    checkStars(review.getStars());
+    review.setId(0);
+    return review;
+  }
+
+  private static void checkStars(int stars) {
+    if (stars < 0 || stars > 5) {
+      throw new IllegalArgumentException("Stars must be between 0 and 5");
+    }
+  }
+
+  // a copy of the fields of a review that its item's rating depends on, which later changes to the
+  // review do not alter
+  private static MenuItemReview ratingOf(MenuItemReview review) {
+    return MenuItemReview.builder()
+        .itemId(review.getItemId())
+        .stars(review.getStars())
+        .dateReviewed(review.getDateReviewed())
+        .build();
+  }
+
+  private void update(MenuItemReview review, MenuItemReview incoming) {
+    review.setItemId(incoming.getItemId());
+    review.setReviewerEmail(incoming.getReviewerEmail());
+    review.setStars(incoming.getStars());
+    review.setDateReviewed(incoming.getDateReviewed());
+    review.setComments(incoming.getComments());
+  }
 }
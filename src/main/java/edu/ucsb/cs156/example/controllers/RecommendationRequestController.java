@@ -3,16 +3,26 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.recommendationrequests.OverdueRecommendationRequestService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -29,8 +39,15 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class RecommendationRequestController extends ApiController {
 
+  private static final int MAX_PAGE_SIZE = 1000;
+
+  // soonest deadline first; matches the (PROFESSOR_EMAIL, DONE, DATE_NEEDED) index
+  private static final Sort BY_DEADLINE = Sort.by("dateNeeded", "id");
+
   @Autowired RecommendationRequestRepository recommendationRequestRepository;
 
+  @Autowired OverdueRecommendationRequestService overdueRecommendationRequestService;
+
   /**
    * List all Recommendation Requests
    *
@@ -39,12 +56,70 @@ public class RecommendationRequestController extends ApiController {
   @Operation(summary = "List all recommendation requests")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<RecommendationRequest> allRecommendationRequests() {
     Iterable<RecommendationRequest> recommendationRequests =
         recommendationRequestRepository.findAll();
     return recommendationRequests;
   }
 
+  /**
+   * Get the requests made of a professor, soonest deadline first, a page at a time
+   *
+   * @param professorEmail the email of the professor
+   * @param done true for the requests that are done, false for those that are pending
+   * @param page the page number, starting at 0
+   * @param size the number of requests per page
+   * @return a page of recommendation requests
+   */
+  @Operation(summary = "Get the requests made of a professor, soonest deadline first")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byProfessor")
+  public Page<RecommendationRequest> getByProfessor(
+      @Parameter(name = "professorEmail") @RequestParam String professorEmail,
+      @Parameter(name = "done") @RequestParam(defaultValue = "false") boolean done,
+      @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+      @Parameter(name = "size") @RequestParam(defaultValue = "20") int size) {
+    return recommendationRequestRepository.findByProfessorEmailAndDone(
+        professorEmail, done, byDeadline(page, size));
+  }
+
+  /**
+   * Get the pending requests made of a professor that are needed in the next few days, soonest
+   * deadline first, a page at a time
+   *
+   * @param professorEmail the email of the professor
+   * @param days the number of days from now
+   * @param page the page number, starting at 0
+   * @param size the number of requests per page
+   * @return a page of recommendation requests
+   */
+  @Operation(summary = "Get the pending requests made of a professor that are due soon")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/dueSoon")
+  public Page<RecommendationRequest> getDueSoon(
+      @Parameter(name = "professorEmail") @RequestParam String professorEmail,
+      @Parameter(name = "days") @RequestParam(defaultValue = "7") int days,
+      @Parameter(name = "page") @RequestParam(defaultValue = "0") int page,
+      @Parameter(name = "size") @RequestParam(defaultValue = "20") int size) {
+    ZonedDateTime now = ZonedDateTime.now();
+    return recommendationRequestRepository.findByProfessorEmailAndDoneFalseAndDateNeededBetween(
+        professorEmail, now, now.plusDays(days), byDeadline(page, size));
+  }
+
+  /**
+   * Get the number of overdue requests of each professor: those that are pending and whose
+   * deadline has passed
+   *
+   * @return the counts by professor email
+   */
+  @Operation(summary = "Get the number of overdue requests of each professor")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/overdueCounts")
+  public Map<String, Long> getOverdueCounts() {
+    return overdueRecommendationRequestService.overdueCounts();
+  }
+
   /**
    * Create a new recommendation request
    *
@@ -90,6 +165,10 @@ public class RecommendationRequestController extends ApiController {
 
     RecommendationRequest savedRecommendationRequest =
         recommendationRequestRepository.save(recommendationRequest);
+    publishEntityChange(
+        EntityChangedEvent.Action.CREATED,
+        savedRecommendationRequest.getId(),
+        savedRecommendationRequest);
 
     return savedRecommendationRequest;
   }
@@ -131,14 +210,10 @@ public class RecommendationRequestController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
-    recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
-    recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
-    recommendationRequest.setExplanation(incoming.getExplanation());
-    recommendationRequest.setDateRequested(incoming.getDateRequested());
-    recommendationRequest.setDateNeeded(incoming.getDateNeeded());
-    recommendationRequest.setDone(incoming.getDone());
+    update(recommendationRequest, incoming);
 
     recommendationRequestRepository.save(recommendationRequest);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, recommendationRequest);
 
     return recommendationRequest;
   }
@@ -159,6 +234,83 @@ public class RecommendationRequestController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
     recommendationRequestRepository.delete(recommendationRequest);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, recommendationRequest);
     return genericMessage("Recommendation request with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many recommendation requests at once. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param incoming the recommendation requests to create; ids are ignored
+   * @return the result for each recommendation request, in the order given
+   */
+  @Operation(summary = "Create many recommendation requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postRecommendationRequestsBulk(
+      @RequestBody List<RecommendationRequest> incoming) {
+    return bulkCreate(
+        recommendationRequestRepository,
+        incoming,
+        recommendationRequest -> {
+          recommendationRequest.setId(0);
+          return recommendationRequest;
+        },
+        RecommendationRequest::getId);
+  }
+
+  /**
+   * Update many recommendation requests at once. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param incoming the new contents, each with the id of the entry to update
+   * @return the result for each recommendation request, in the order given
+   */
+  @Operation(summary = "Update many recommendation requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateRecommendationRequestsBulk(
+      @RequestBody List<RecommendationRequest> incoming) {
+    return bulkUpdate(
+        recommendationRequestRepository,
+        RecommendationRequest.class,
+        incoming,
+        RecommendationRequest::getId,
+        this::update);
+  }
+
+  /**
+   * Delete many recommendation requests at once. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param ids the ids of the recommendation requests to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many recommendation requests")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteRecommendationRequestsBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(
+        recommendationRequestRepository,
+        RecommendationRequest.class,
+        ids,
+        RecommendationRequest::getId);
+  }
+
+  private static PageRequest byDeadline(int page, int size) {
+    return PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE), BY_DEADLINE);
+  }
+
+  private void update(RecommendationRequest recommendationRequest, RecommendationRequest incoming) {
+    recommendationRequest.setRequesterEmail(incoming.getRequesterEmail());
+    recommendationRequest.setProfessorEmail(incoming.getProfessorEmail());
+    recommendationRequest.setExplanation(incoming.getExplanation());
+    recommendationRequest.setDateRequested(incoming.getDateRequested());
+    recommendationRequest.setDateNeeded(incoming.getDateNeeded());
+    recommendationRequest.setDone(incoming.getDone());
+  }
 }
@@ -2,13 +2,20 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.RestaurantSearchResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.restaurants.RestaurantSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -24,8 +31,12 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class RestaurantsController extends ApiController {
 
+  private static final int MAX_SEARCH_RESULTS = 100;
+
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired RestaurantSearchService restaurantSearchService;
+
   /**
    * This method returns a list of all restaurants.
    *
@@ -34,6 +45,7 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "List all restaurants")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<Restaurant> allRestaurants() {
     Iterable<Restaurant> restaurants = restaurantRepository.findAll();
     return restaurants;
@@ -76,6 +88,8 @@ public class RestaurantsController extends ApiController {
     restaurant.setDescription(description);
 
     Restaurant savedrestaurant = restaurantRepository.save(restaurant);
+    publishEntityChange(
+        EntityChangedEvent.Action.CREATED, savedrestaurant.getId(), savedrestaurant);
     return savedrestaurant;
   }
 
@@ -95,6 +109,7 @@ public class RestaurantsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
     restaurantRepository.delete(restaurant);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, restaurant);
     return genericMessage("Restaurant with id %s deleted".formatted(id));
   }
 
@@ -116,11 +131,92 @@ public class RestaurantsController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-    restaurant.setName(incoming.getName());
-    restaurant.setDescription(incoming.getDescription());
+    update(restaurant, incoming);
 
     restaurantRepository.save(restaurant);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, restaurant);
 
     return restaurant;
   }
+
+  /**
+   * Create many restaurants at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the restaurants to create; ids are ignored
+   * @return the result for each restaurant, in the order given
+   */
+  @Operation(summary = "Create many restaurants")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postRestaurantsBulk(@RequestBody List<Restaurant> incoming) {
+    return bulkCreate(
+        restaurantRepository,
+        incoming,
+        restaurant -> {
+          restaurant.setId(0);
+          return restaurant;
+        },
+        Restaurant::getId);
+  }
+
+  /**
+   * Update many restaurants at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the restaurants, each with the id of the one to update
+   * @return the result for each restaurant, in the order given
+   */
+  @Operation(summary = "Update many restaurants")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateRestaurantsBulk(@RequestBody List<Restaurant> incoming) {
+    return bulkUpdate(
+        restaurantRepository,
+        Restaurant.class,
+        incoming,
+        Restaurant::getId,
+        this::update);
+  }
+
+  /**
+   * Delete many restaurants at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the restaurants to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many restaurants")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteRestaurantsBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(restaurantRepository, Restaurant.class, ids, Restaurant::getId);
+  }
+
+  /**
+   * Search the restaurants by name and description, tolerating misspellings.
+   *
+   * @param q the name or description to search for
+   * @param limit the most restaurants to return, at most 100
+   * @return the matching restaurants with their similarity to the search, most similar first
+   */
+  @Operation(summary = "Search restaurants by name and description, tolerating typos")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/search")
+  public List<RestaurantSearchResult> searchRestaurants(
+      @Parameter(name = "q") @RequestParam String q,
+      @Parameter(name = "limit") @RequestParam(defaultValue = "20") int limit) {
+    if (q.isBlank()) {
+      throw new IllegalArgumentException("q must not be blank");
+    }
+    if (limit < 1) {
+      throw new IllegalArgumentException("limit must be at least 1");
+    }
+    return restaurantSearchService.search(q, Math.min(limit, MAX_SEARCH_RESULTS));
+  }
+
+  private void update(Restaurant restaurant, Restaurant incoming) {
+    restaurant.setName(incoming.getName());
+    restaurant.setDescription(incoming.getDescription());
+  }
 }
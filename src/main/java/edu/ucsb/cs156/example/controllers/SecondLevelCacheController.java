@@ -0,0 +1,52 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.SecondLevelCacheStatistics;
+import edu.ucsb.cs156.example.services.cache.SecondLevelCacheService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for inspecting the Hibernate second-level cache.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.cache.SecondLevelCacheService
+ */
+@Tag(name = "Second-level cache (admin only)")
+@RequestMapping("/api/admin/cache/secondlevel")
+@RestController
+public class SecondLevelCacheController extends ApiController {
+
+  @Autowired private SecondLevelCacheService secondLevelCacheService;
+
+  /**
+   * This method returns the second-level and query cache statistics.
+   *
+   * @return the statistics, overall and per region
+   */
+  @Operation(summary = "Get second-level cache statistics")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public SecondLevelCacheStatistics getStatistics() {
+    return secondLevelCacheService.getStatistics();
+  }
+
+  /**
+   * This method empties the second-level cache and resets its statistics.
+   *
+   * @return a message confirming the eviction
+   */
+  @Operation(summary = "Evict all second-level cache regions and reset the statistics")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object evictAll() {
+    secondLevelCacheService.evictAll();
+    return genericMessage("Second-level cache evicted");
+  }
+}
@@ -0,0 +1,64 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.SqlTraceSettings;
+import edu.ucsb.cs156.example.services.metrics.SqlTraceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * This is a REST controller for turning the sampled SQL tracing on and off while the application
+ * runs.
+ *
+ * <p>These endpoints are only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see edu.ucsb.cs156.example.services.metrics.SqlTraceService
+ */
+@Tag(name = "SQL tracing (admin only)")
+@RequestMapping("/api/admin/sqltrace")
+@RestController
+public class SqlTraceController extends ApiController {
+
+  @Autowired private SqlTraceService sqlTraceService;
+
+  /**
+   * This method returns the SQL tracing settings.
+   *
+   * @return the settings, and how many statements have been logged and dropped
+   */
+  @Operation(summary = "Get the SQL tracing settings")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("")
+  public SqlTraceSettings getSettings() {
+    return sqlTraceService.getSettings();
+  }
+
+  /**
+   * This method changes the SQL tracing settings.
+   *
+   * @param sampleEvery log 1 in this many statements, or none if 0
+   * @param maxPerSecond the most statements to log in any one second
+   * @return the new settings
+   */
+  @Operation(summary = "Change the SQL tracing settings")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("")
+  public SqlTraceSettings setSettings(
+      @Parameter(name = "sampleEvery") @RequestParam int sampleEvery,
+      @Parameter(name = "maxPerSecond") @RequestParam(defaultValue = "10") int maxPerSecond) {
+    if (sampleEvery < 0) {
+      throw new IllegalArgumentException("sampleEvery must not be negative");
+    }
+    if (maxPerSecond < 1) {
+      throw new IllegalArgumentException("maxPerSecond must be at least 1");
+    }
+    return sqlTraceService.setSettings(sampleEvery, maxPerSecond);
+  }
+}
@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.models.SystemInfo;
 import edu.ucsb.cs156.example.services.SystemInfoService;
+import edu.ucsb.cs156.example.services.cache.CachedResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,6 +35,7 @@ public class SystemInfoController extends ApiController {
    */
   @Operation(summary = "Get global information about the application")
   @GetMapping("")
+  @CachedResponse
   public SystemInfo getSystemInfo() {
     return systemInfoService.getSystemInfo();
   }
@@ -1,18 +1,33 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.ucsbdates.AcademicCalendarService;
+import edu.ucsb.cs156.example.services.ucsbdates.QuarterSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -21,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 /** This is a REST controller for UCSBDates */
 @Tag(name = "UCSBDates")
@@ -31,6 +47,14 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired JobService jobService;
+
+  @Autowired AcademicCalendarService academicCalendarService;
+
+  @Autowired QuarterSnapshotService quarterSnapshotService;
+
+  private static final int MAX_UPCOMING = 100;
+
   /**
    * List all UCSB dates
    *
@@ -39,11 +63,92 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "List all ucsb dates")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<UCSBDate> allUCSBDates() {
     Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
     return dates;
   }
 
+  /**
+   * List the dates of a quarter. The JSON of each quarter is kept in memory until one of its dates
+   * changes, so most requests neither query the database nor serialize any dates.
+   *
+   * @param quarterYYYYQ the quarter in the format YYYYQ, e.g. 20241 for Winter 2024
+   * @return the dates of the quarter, as JSON
+   * @throws JsonProcessingException if the dates cannot be encoded
+   */
+  @Operation(summary = "List the dates of a quarter")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byQuarter")
+  public ResponseEntity<byte[]> datesByQuarter(
+      @Parameter(name = "quarterYYYYQ", description = "quarter, e.g. 20241 for Winter 2024")
+          @RequestParam
+          String quarterYYYYQ)
+      throws JsonProcessingException {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(quarterSnapshotService.quarter(quarterYYYYQ));
+  }
+
+  /**
+   * List the dates in a range, from the in-memory academic calendar
+   *
+   * @param from the start of the range, inclusive
+   * @param to the end of the range, inclusive
+   * @return the dates in the range, earliest first
+   */
+  @Operation(summary = "List the dates in a range")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/between")
+  public List<UCSBDate> datesBetween(
+      @Parameter(name = "from", description = "start of the range, in iso format, inclusive")
+          @RequestParam
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime from,
+      @Parameter(name = "to", description = "end of the range, in iso format, inclusive")
+          @RequestParam
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          LocalDateTime to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException("from must not be after to");
+    }
+    return academicCalendarService.between(from, to);
+  }
+
+  /**
+   * List the next dates from now, from the in-memory academic calendar
+   *
+   * @param n the number of dates to return, at most 100
+   * @return up to n dates at or after the current time, earliest first
+   */
+  @Operation(summary = "List the next upcoming dates")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/upcoming")
+  public List<UCSBDate> upcomingDates(
+      @Parameter(name = "n") @RequestParam(defaultValue = "10") int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("n must be at least 1");
+    }
+    return academicCalendarService.upcoming(Math.min(n, MAX_UPCOMING));
+  }
+
+  /**
+   * List the dates on a day, from the in-memory academic calendar
+   *
+   * @param date the day
+   * @return the dates on that day, earliest first
+   */
+  @Operation(summary = "List the dates on a day")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/onDay")
+  public List<UCSBDate> datesOnDay(
+      @Parameter(name = "date", description = "the day, in iso format, e.g. YYYY-mm-dd")
+          @RequestParam
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+          LocalDate date) {
+    return academicCalendarService.onDay(date);
+  }
+
   /**
    * Get a single date by id
    *
@@ -96,6 +201,7 @@ public class UCSBDatesController extends ApiController {
     ucsbDate.setLocalDateTime(localDateTime);
 
     UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
+    publishEntityChange(EntityChangedEvent.Action.CREATED, savedUcsbDate.getId(), savedUcsbDate);
 
     return savedUcsbDate;
   }
@@ -116,6 +222,7 @@ public class UCSBDatesController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
     ucsbDateRepository.delete(ucsbDate);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, ucsbDate);
     return genericMessage("UCSBDate with id %s deleted".formatted(id));
   }
 
@@ -137,12 +244,96 @@ public class UCSBDatesController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-    ucsbDate.setName(incoming.getName());
-    ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+    update(ucsbDate, incoming);
 
     ucsbDateRepository.save(ucsbDate);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, ucsbDate);
 
     return ucsbDate;
   }
+
+  /**
+   * Create many UCSB dates at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the UCSB dates to create; ids are ignored
+   * @return the result for each UCSB date, in the order given
+   */
+  @Operation(summary = "Create many UCSB dates")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postUCSBDatesBulk(@RequestBody List<UCSBDate> incoming) {
+    return bulkCreate(
+        ucsbDateRepository,
+        incoming,
+        UCSBDatesController::prepareNew,
+        UCSBDate::getId);
+  }
+
+  /**
+   * Update many UCSB dates at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the UCSB dates, each with the id of the one to update
+   * @return the result for each UCSB date, in the order given
+   */
+  @Operation(summary = "Update many UCSB dates")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateUCSBDatesBulk(@RequestBody List<UCSBDate> incoming) {
+    return bulkUpdate(ucsbDateRepository, UCSBDate.class, incoming, UCSBDate::getId, this::update);
+  }
+
+  /**
+   * Delete many UCSB dates at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the UCSB dates to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many UCSB dates")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteUCSBDatesBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(ucsbDateRepository, UCSBDate.class, ids, UCSBDate::getId);
+  }
+
+  /**
+   * Import UCSB dates from a CSV or NDJSON file, as a job. Accessible only to users with the role
+   * "ROLE_ADMIN".
+   *
+   * @param format the format of the file
+   * @param file a CSV file with a header row naming the fields, or one JSON object per line
+   * @return the job that runs the import
+   * @throws IOException if the upload cannot be saved
+   */
+  @Operation(summary = "Import UCSB dates from a CSV or NDJSON file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importUCSBDates(
+      @Parameter(name = "format") @RequestParam FileFormat format,
+      @Parameter(name = "file") @RequestParam MultipartFile file)
+      throws IOException {
+    ImportJob<UCSBDate> importJob =
+        ImportJob.<UCSBDate>builder()
+            .file(saveUpload(file))
+            .format(format)
+            .type(UCSBDate.class)
+            .repository(ucsbDateRepository)
+            .prepare(UCSBDatesController::prepareNew)
+            .afterSave(quarterSnapshotService::datesSaved)
+            .build();
+    return jobService.runAsJob(importJob);
+  }
+
+  private static UCSBDate prepareNew(UCSBDate ucsbDate) {
+    ucsbDate.setId(0);
+    return ucsbDate;
+  }
+
+  private void update(UCSBDate ucsbDate, UCSBDate incoming) {
+    ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
+    ucsbDate.setName(incoming.getName());
+    ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+  }
 }
@@ -2,14 +2,22 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.cache.CachedResponse;
+import edu.ucsb.cs156.example.services.diningcommons.NearestDiningCommonsService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,8 +34,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
 
+  private static final int MAX_NEAREST = 50;
+
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired NearestDiningCommonsService nearestDiningCommonsService;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
@@ -36,6 +48,8 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @CachedResponse(evictOn = UCSBDiningCommons.class)
+  @QueryBudget(1)
   public Iterable<UCSBDiningCommons> allCommonss() {
     Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
     return commons;
@@ -59,6 +73,35 @@ public class UCSBDiningCommonsController extends ApiController {
     return commons;
   }
 
+  /**
+   * This method returns the dining commons nearest a point.
+   *
+   * @param lat latitude of the point, in degrees
+   * @param lon longitude of the point, in degrees
+   * @param k the most dining commons to return
+   * @param hasSackMeal if given, only commons that do or do not have sack meals
+   * @param hasTakeOutMeal if given, only commons that do or do not have take out meals
+   * @return up to k dining commons with their distances in meters, nearest first
+   */
+  @Operation(summary = "Get the dining commons nearest a point")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/nearest")
+  public List<NearbyDiningCommons> nearest(
+      @Parameter(name = "lat") @RequestParam double lat,
+      @Parameter(name = "lon") @RequestParam double lon,
+      @Parameter(name = "k") @RequestParam(defaultValue = "3") int k,
+      @Parameter(name = "hasSackMeal") @RequestParam(required = false) Boolean hasSackMeal,
+      @Parameter(name = "hasTakeOutMeal") @RequestParam(required = false) Boolean hasTakeOutMeal) {
+    if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+      throw new IllegalArgumentException("lat must be in [-90, 90] and lon in [-180, 180]");
+    }
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be at least 1");
+    }
+    return nearestDiningCommonsService.nearest(
+        lat, lon, Math.min(k, MAX_NEAREST), hasSackMeal, hasTakeOutMeal);
+  }
+
   /**
    * This method creates a new diningcommons. Accessible only to users with the role "ROLE_ADMIN".
    *
@@ -93,6 +136,7 @@ public class UCSBDiningCommonsController extends ApiController {
     commons.setLongitude(longitude);
 
     UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+    publishEntityChange(EntityChangedEvent.Action.CREATED, savedCommons.getCode(), savedCommons);
 
     return savedCommons;
   }
@@ -113,6 +157,7 @@ public class UCSBDiningCommonsController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
     ucsbDiningCommonsRepository.delete(commons);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, code, commons);
     return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
   }
 
@@ -135,15 +180,78 @@ public class UCSBDiningCommonsController extends ApiController {
             .findById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
+    update(commons, incoming);
+
+    ucsbDiningCommonsRepository.save(commons);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, code, commons);
+
+    return commons;
+  }
+
+  /**
+   * Create many dining commons at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the dining commons to create; each needs a code that is not taken yet
+   * @return the result for each dining commons, in the order given
+   */
+  @Operation(summary = "Create many dining commons")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postCommonsBulk(@RequestBody List<UCSBDiningCommons> incoming) {
+    return bulkCreateWithAssignedIds(
+        ucsbDiningCommonsRepository,
+        UCSBDiningCommons.class,
+        incoming,
+        commons -> {
+          if (commons.getCode() == null) {
+            throw new IllegalArgumentException("code is required");
+          }
+          return commons;
+        },
+        UCSBDiningCommons::getCode);
+  }
+
+  /**
+   * Update many dining commons at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the dining commons, each with the id of the one to update
+   * @return the result for each dining commons, in the order given
+   */
+  @Operation(summary = "Update many dining commons")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateCommonsBulk(@RequestBody List<UCSBDiningCommons> incoming) {
+    return bulkUpdate(
+        ucsbDiningCommonsRepository,
+        UCSBDiningCommons.class,
+        incoming,
+        UCSBDiningCommons::getCode,
+        this::update);
+  }
+
+  /**
+   * Delete many dining commons at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the dining commons to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many dining commons")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteCommonsBulk(@RequestBody List<String> ids) {
+    return bulkDelete(
+        ucsbDiningCommonsRepository, UCSBDiningCommons.class, ids, UCSBDiningCommons::getCode);
+  }
+
+  private void update(UCSBDiningCommons commons, UCSBDiningCommons incoming) {
     commons.setName(incoming.getName());
     commons.setHasSackMeal(incoming.getHasSackMeal());
     commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
     commons.setHasDiningCam(incoming.getHasDiningCam());
     commons.setLatitude(incoming.getLatitude());
     commons.setLongitude(incoming.getLongitude());
-
-    ucsbDiningCommonsRepository.save(commons);
-
-    return commons;
   }
 }
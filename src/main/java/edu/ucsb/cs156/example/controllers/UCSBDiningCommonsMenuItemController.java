@@ -1,16 +1,29 @@
 package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.ratings.MenuItemLeaderboardService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -19,6 +32,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
 
 /** This is a REST controller for UCSBDiningCommonsMenuItem */
 @Tag(name = "UCSBDiningCommonsMenuItem")
@@ -26,8 +40,14 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController {
+  private static final int MAX_TOP_N = 100;
+
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+  @Autowired JobService jobService;
+
+  @Autowired MenuItemLeaderboardService menuItemLeaderboardService;
+
   /**
    * List all UCSB Dining Commons Menu Items
    *
@@ -36,6 +56,7 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "List all ucsb Dining Commons Menu Items")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @QueryBudget(1)
   public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItem() {
     Iterable<UCSBDiningCommonsMenuItem> ucsbDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemRepository.findAll();
@@ -70,6 +91,10 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
     UCSBDiningCommonsMenuItem savedUCSBDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+    publishEntityChange(
+        EntityChangedEvent.Action.CREATED,
+        savedUCSBDiningCommonsMenuItem.getId(),
+        savedUCSBDiningCommonsMenuItem);
 
     return savedUCSBDiningCommonsMenuItem;
   }
@@ -111,11 +136,10 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
-    ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-    ucsbDiningCommonsMenuItem.setName(incoming.getName());
-    ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
+    update(ucsbDiningCommonsMenuItem, incoming);
 
     ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, id, ucsbDiningCommonsMenuItem);
 
     return ucsbDiningCommonsMenuItem;
   }
@@ -136,6 +160,122 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
     ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, id, ucsbDiningCommonsMenuItem);
     return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many menu items at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the menu items to create; ids are ignored
+   * @return the result for each menu item, in the order given
+   */
+  @Operation(summary = "Create many menu items")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postUCSBDiningCommonsMenuItemsBulk(
+      @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+    return bulkCreate(
+        ucsbDiningCommonsMenuItemRepository,
+        incoming,
+        UCSBDiningCommonsMenuItemController::prepareNew,
+        UCSBDiningCommonsMenuItem::getId);
+  }
+
+  /**
+   * Update many menu items at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the menu items, each with the id of the one to update
+   * @return the result for each menu item, in the order given
+   */
+  @Operation(summary = "Update many menu items")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateUCSBDiningCommonsMenuItemsBulk(
+      @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+    return bulkUpdate(
+        ucsbDiningCommonsMenuItemRepository,
+        UCSBDiningCommonsMenuItem.class,
+        incoming,
+        UCSBDiningCommonsMenuItem::getId,
+        this::update);
+  }
+
+  /**
+   * Delete many menu items at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the menu items to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many menu items")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteUCSBDiningCommonsMenuItemsBulk(@RequestBody List<Long> ids) {
+    return bulkDelete(
+        ucsbDiningCommonsMenuItemRepository,
+        UCSBDiningCommonsMenuItem.class,
+        ids,
+        UCSBDiningCommonsMenuItem::getId);
+  }
+
+  /**
+   * Import dining commons menu items from a CSV or NDJSON file, as a job. Accessible only to users
+   * with the role "ROLE_ADMIN".
+   *
+   * @param format the format of the file
+   * @param file a CSV file with a header row naming the fields, or one JSON object per line
+   * @return the job that runs the import
+   * @throws IOException if the upload cannot be saved
+   */
+  @Operation(summary = "Import dining commons menu items from a CSV or NDJSON file")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Job importUCSBDiningCommonsMenuItems(
+      @Parameter(name = "format") @RequestParam FileFormat format,
+      @Parameter(name = "file") @RequestParam MultipartFile file)
+      throws IOException {
+    ImportJob<UCSBDiningCommonsMenuItem> importJob =
+        ImportJob.<UCSBDiningCommonsMenuItem>builder()
+            .file(saveUpload(file))
+            .format(format)
+            .type(UCSBDiningCommonsMenuItem.class)
+            .repository(ucsbDiningCommonsMenuItemRepository)
+            .prepare(UCSBDiningCommonsMenuItemController::prepareNew)
+            .build();
+    return jobService.runAsJob(importJob);
+  }
+
+  /**
+   * List the top-rated menu items of a dining commons, or of one station of a dining commons
+   *
+   * @param diningCommonsCode the code of the dining commons, e.g. "ortega"
+   * @param station the station; if omitted, items from all stations are ranked together
+   * @param n the number of items to list
+   * @return the top-rated items with at least one review, best first
+   */
+  @Operation(summary = "List the top-rated menu items of a dining commons or station")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/top")
+  public List<RankedMenuItem> topRated(
+      @Parameter(name = "diningCommonsCode") @RequestParam String diningCommonsCode,
+      @Parameter(name = "station") @RequestParam(required = false) String station,
+      @Parameter(name = "n") @RequestParam(defaultValue = "10") int n) {
+    return menuItemLeaderboardService.top(diningCommonsCode, station, Math.min(n, MAX_TOP_N));
+  }
+
+  private static UCSBDiningCommonsMenuItem prepareNew(
+      UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem) {
+    ucsbDiningCommonsMenuItem.setId(0);
+    return ucsbDiningCommonsMenuItem;
+  }
+
+  private void update(
+      UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem, UCSBDiningCommonsMenuItem incoming) {
+    ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
+    ucsbDiningCommonsMenuItem.setName(incoming.getName());
+    ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
+  }
 }
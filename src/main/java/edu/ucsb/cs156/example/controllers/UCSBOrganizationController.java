@@ -2,14 +2,22 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.cache.CachedResponse;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.organizations.OrganizationTypeaheadService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -26,8 +34,12 @@ import org.springframework.web.bind.annotation.RestController;
 @Slf4j
 public class UCSBOrganizationController extends ApiController {
 
+  private static final int MAX_SUGGESTIONS = 50;
+
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired OrganizationTypeaheadService organizationTypeaheadService;
+
   /**
    * This method returns a list of all UCSB organizations.
    *
@@ -36,11 +48,40 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "List all ucsb organizations")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
+  @CachedResponse(evictOn = UCSBOrganization.class)
+  @QueryBudget(1)
   public Iterable<UCSBOrganization> allUCSBOrganizations() {
     Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
     return organizations;
   }
 
+  /**
+   * This method suggests ucsb organizations as their code or name is typed.
+   *
+   * @param prefix what has been typed so far
+   * @param k the most organizations to return, at most 50
+   * @param includeInactive whether to suggest inactive organizations
+   * @return up to k organizations whose code or name, or a word of their name, starts with the
+   *     prefix; matches on the code first, then on the short name, then on the full name
+   */
+  @Operation(summary = "Suggest ucsb organizations starting with a prefix")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/typeahead")
+  public List<UCSBOrganization> typeahead(
+      @Parameter(name = "prefix") @RequestParam String prefix,
+      @Parameter(name = "k") @RequestParam(defaultValue = "10") int k,
+      @Parameter(name = "includeInactive") @RequestParam(defaultValue = "false")
+          boolean includeInactive) {
+    if (prefix.isBlank()) {
+      throw new IllegalArgumentException("prefix must not be blank");
+    }
+    if (k < 1) {
+      throw new IllegalArgumentException("k must be at least 1");
+    }
+    return organizationTypeaheadService.suggest(
+        prefix, Math.min(k, MAX_SUGGESTIONS), includeInactive);
+  }
+
   /**
    * This method creates a new ucsb organization. Accessible only to users with the role
    * "ROLE_ADMIN".
@@ -67,12 +108,15 @@ public class UCSBOrganizationController extends ApiController {
     organization.setInactive(inactive);
 
     UCSBOrganization savedOrganization = ucsbOrganizationRepository.save(organization);
+    publishEntityChange(
+        EntityChangedEvent.Action.CREATED, savedOrganization.getOrgCode(), savedOrganization);
 
     return savedOrganization;
   }
 
   /**
-   * This method returns a single organization.
+   * This method returns a single organization. Results are cached in the "ucsborganizations" cache,
+   * which is evicted on every instance when an organization is updated or deleted.
    *
    * @param orgCode org code of the organization
    * @return a single organization
@@ -80,6 +124,7 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
+  @Cacheable(cacheNames = "ucsborganizations", key = "#p0.toString()")
   public UCSBOrganization getById(@Parameter(name = "orgCode") @RequestParam String orgCode) {
     UCSBOrganization organization =
         ucsbOrganizationRepository
@@ -108,11 +153,10 @@ public class UCSBOrganizationController extends ApiController {
             .findById(orgCode)
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
-    organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
-    organization.setOrgTranslation(incoming.getOrgTranslation());
-    organization.setInactive(incoming.getInactive());
+    update(organization, incoming);
 
     ucsbOrganizationRepository.save(organization);
+    publishEntityChange(EntityChangedEvent.Action.UPDATED, orgCode, organization);
 
     return organization;
   }
@@ -133,6 +177,72 @@ public class UCSBOrganizationController extends ApiController {
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgCode));
 
     ucsbOrganizationRepository.delete(organization);
+    publishEntityChange(EntityChangedEvent.Action.DELETED, orgCode, organization);
     return genericMessage("UCSBOrganization with id %s deleted".formatted(orgCode));
   }
+
+  /**
+   * Create many organizations at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the organizations to create; each needs an orgCode that is not taken yet
+   * @return the result for each organization, in the order given
+   */
+  @Operation(summary = "Create many organizations")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> postOrganizationsBulk(@RequestBody List<UCSBOrganization> incoming) {
+    return bulkCreateWithAssignedIds(
+        ucsbOrganizationRepository,
+        UCSBOrganization.class,
+        incoming,
+        organization -> {
+          if (organization.getOrgCode() == null) {
+            throw new IllegalArgumentException("orgCode is required");
+          }
+          return organization;
+        },
+        UCSBOrganization::getOrgCode);
+  }
+
+  /**
+   * Update many organizations at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param incoming the new contents of the organizations, each with the id of the one to update
+   * @return the result for each organization, in the order given
+   */
+  @Operation(summary = "Update many organizations")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> updateOrganizationsBulk(
+      @RequestBody List<UCSBOrganization> incoming) {
+    return bulkUpdate(
+        ucsbOrganizationRepository,
+        UCSBOrganization.class,
+        incoming,
+        UCSBOrganization::getOrgCode,
+        this::update);
+  }
+
+  /**
+   * Delete many organizations at once. Accessible only to users with the role "ROLE_ADMIN".
+   *
+   * @param ids the ids of the organizations to delete
+   * @return the result for each id, in the order given
+   */
+  @Operation(summary = "Delete many organizations")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  @Transactional
+  public List<BulkItemResult> deleteOrganizationsBulk(@RequestBody List<String> ids) {
+    return bulkDelete(
+        ucsbOrganizationRepository, UCSBOrganization.class, ids, UCSBOrganization::getOrgCode);
+  }
+
+  private void update(UCSBOrganization organization, UCSBOrganization incoming) {
+    organization.setOrgTranslationShort(incoming.getOrgTranslationShort());
+    organization.setOrgTranslation(incoming.getOrgTranslation());
+    organization.setInactive(incoming.getInactive());
+  }
 }
@@ -0,0 +1,40 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents one row of the cache invalidation change-log.
+ *
+ * <p>Every instance of the application appends a row when one of its controllers changes a cached
+ * entity, and polls the table for rows written by other instances.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "cacheinvalidations")
+public class CacheInvalidation {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String entityType; // fully qualified class name, e.g. edu.ucsb.cs156...Article
+  private String entityId;
+
+  @Enumerated(EnumType.STRING)
+  private EntityChangedEvent.Action action;
+
+  private String originNode;
+  private LocalDateTime createdAt;
+}
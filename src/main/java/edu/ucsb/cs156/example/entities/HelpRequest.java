@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,7 +21,11 @@ import lombok.NoArgsConstructor;
         "HelpRequests") // modified from "HelpRequests" to "help_requests" on tues oct 28 12:44 pm
 public class HelpRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "HELP_REQUESTS_SEQ")
+  @SequenceGenerator(
+      name = "HELP_REQUESTS_SEQ",
+      sequenceName = "HELP_REQUESTS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String requesterEmail;
@@ -29,4 +34,8 @@ public class HelpRequest {
   private LocalDateTime requestTime;
   private String explanation;
   private boolean solved;
+
+  // the email of the staff member helping, set when the request is claimed from the queue
+  private String claimedBy;
+  private LocalDateTime claimedAt;
 }
@@ -0,0 +1,49 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that holds the rating statistics of one menu item.
+ *
+ * <p>There is one row per reviewed menu item, kept up to date by the MenuItemRatingService every
+ * time a MenuItemReview is created, updated or deleted, so that the average rating of an item can
+ * be read without reading its reviews.
+ *
+ * @see edu.ucsb.cs156.example.services.ratings.MenuItemRatingService
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemratings")
+public class MenuItemRating {
+  @Id private long itemId;
+
+  private long reviewCount;
+  private long starsSum;
+
+  // number of reviews with each number of stars
+  private long zeroStars;
+  private long oneStar;
+  private long twoStars;
+  private long threeStars;
+  private long fourStars;
+  private long fiveStars;
+
+  private LocalDateTime lastReviewed; // latest dateReviewed of any review counted
+
+  /**
+   * This method returns the average number of stars.
+   *
+   * @return the average, or null if the item has no reviews
+   */
+  public Double getAverage() {
+    return reviewCount == 0 ? null : (double) starsSum / reviewCount;
+  }
+}
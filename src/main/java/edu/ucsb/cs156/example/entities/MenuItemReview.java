@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,7 +23,11 @@ import lombok.NoArgsConstructor;
 @Entity(name = "menuitemreviews")
 public class MenuItemReview {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "MENUITEMREVIEWS_SEQ")
+  @SequenceGenerator(
+      name = "MENUITEMREVIEWS_SEQ",
+      sequenceName = "MENUITEMREVIEWS_SEQ",
+      allocationSize = 50)
   private long id;
 
   private long itemId;
@@ -4,6 +4,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,7 +18,11 @@ import lombok.NoArgsConstructor;
 @Entity(name = "ucsbdiningcommonsmenuitem")
 public class UCSBDiningCommonsMenuItem {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "UCSBDININGCOMMONSMENUITEM_SEQ")
+  @SequenceGenerator(
+      name = "UCSBDININGCOMMONSMENUITEM_SEQ",
+      sequenceName = "UCSBDININGCOMMONSMENUITEM_SEQ",
+      allocationSize = 50)
   private long id;
 
   private String diningCommonsCode;
@@ -0,0 +1,78 @@
+package edu.ucsb.cs156.example.events;
+
+import jakarta.persistence.Entity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import org.springframework.data.repository.CrudRepository;
+
+/**
+ * This is an application event that is published whenever an entity is created, updated or deleted
+ * through one of the API controllers.
+ *
+ * <p>Caches and in-memory indexes listen for these events to stay in sync with the database. Events
+ * with {@code remote} set to true were written by another instance of the application and relayed
+ * by the CacheInvalidationService; for those events {@code entity} is null.
+ *
+ * @see edu.ucsb.cs156.example.services.cache.CacheInvalidationService
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class EntityChangedEvent {
+
+  /** The kind of change that was made to the entity */
+  public enum Action {
+    CREATED,
+    UPDATED,
+    DELETED
+  }
+
+  private Class<?> entityType;
+  private String entityId;
+  private Action action;
+  private Object entity;
+  private boolean remote;
+
+  /**
+   * This method returns the entity as it is after the change: null if it was deleted, the entity
+   * from the event for local changes, and the entity read again from the repository for changes
+   * relayed from another instance, which do not carry it.
+   *
+   * @param <T> the type of the entity
+   * @param repository the repository of the entity, whose ids are longs
+   * @return the entity, or null if it no longer exists
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T resolve(CrudRepository<T, Long> repository) {
+    if (action == Action.DELETED) {
+      return null;
+    }
+    return remote ? repository.findById(Long.parseLong(entityId)).orElse(null) : (T) entity;
+  }
+
+  /**
+   * This method returns the JPA entity name of the entity that changed, e.g. "articles". Caches of
+   * an entity are named after its entity name.
+   *
+   * @return the entity name
+   */
+  public String getEntityName() {
+    return entityName(entityType);
+  }
+
+  /**
+   * This method returns the JPA entity name of a class, falling back to the simple class name when
+   * the class does not declare one.
+   *
+   * @param entityType the class of the entity, e.g. Article.class
+   * @return the entity name, e.g. "articles"
+   */
+  public static String entityName(Class<?> entityType) {
+    Entity entity = entityType.getAnnotation(Entity.class);
+    if (entity == null || entity.name().isEmpty()) {
+      return entityType.getSimpleName();
+    }
+    return entity.name();
+  }
+}
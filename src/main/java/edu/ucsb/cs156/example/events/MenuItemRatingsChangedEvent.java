@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.events;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * This is an application event that is published by the MenuItemRatingService whenever the
+ * ratings of some menu items change, with the ratings as they are after the change.
+ *
+ * <p>It is published inside the transaction that changes the ratings; listeners that keep copies
+ * of the ratings should listen with {@code @TransactionalEventListener}, so that they only see
+ * changes that were committed.
+ *
+ * @see edu.ucsb.cs156.example.services.ratings.MenuItemRatingService
+ */
+@Data
+@AllArgsConstructor
+public class MenuItemRatingsChangedEvent {
+  private List<MenuItemRating> ratings;
+}
@@ -0,0 +1,122 @@
+package edu.ucsb.cs156.example.jobs;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import lombok.Builder;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * This job exports every row of an entity table to a gzip compressed CSV or NDJSON file.
+ *
+ * <p>Rows are read through a forward-only cursor, written and then detached from the persistence
+ * context, so memory use does not grow with the size of the table. The cursor is read inside
+ * {@code readTransaction}; progress is logged inside {@code logTransaction}, which should start a
+ * new transaction so that the progress can be seen before the export ends.
+ *
+ * <p>The file is written as {@code <name>.part} and renamed when it is complete, so a file without
+ * that suffix is always whole.
+ */
+@Builder
+public class ExportJob implements JobContextConsumer {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private String entityName;
+  private Class<?> type;
+  private FileFormat format;
+  private Path file;
+  private EntityManager entityManager;
+  private TransactionOperations readTransaction;
+  private TransactionOperations logTransaction;
+
+  @Builder.Default private int fetchSize = 1000;
+
+  @Builder.Default private int progressInterval = 100_000;
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    ctx.log("Exporting %s to %s".formatted(entityName, file.getFileName()));
+
+    Files.createDirectories(file.getParent());
+    Path part = file.resolveSibling(file.getFileName() + ".part");
+
+    long rows;
+    try (FileChannel channel =
+            FileChannel.open(
+                part,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        SequenceWriter writer = writer().writeValues(out)) {
+      rows = readTransaction.execute(status -> write(ctx, writer));
+    } catch (Exception e) {
+      Files.deleteIfExists(part);
+      throw e;
+    }
+    Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    ctx.log("Done: %d rows exported, %d bytes".formatted(rows, Files.size(file)));
+  }
+
+  private long write(JobContext ctx, SequenceWriter writer) {
+    long rows = 0;
+    try (Stream<?> stream =
+        entityManager
+            .createQuery("select e from %s e".formatted(entityName), type)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+            .setHint(HibernateHints.HINT_READ_ONLY, true)
+            .getResultStream()) {
+      Iterator<?> iterator = stream.iterator();
+      while (iterator.hasNext()) {
+        Object row = iterator.next();
+        writer.write(row);
+        entityManager.detach(row);
+        rows++;
+        if (rows % progressInterval == 0) {
+          String message = "%d rows exported".formatted(rows);
+          logTransaction.executeWithoutResult(status -> ctx.log(message));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return rows;
+  }
+
+  private ObjectWriter writer() {
+    if (format == FileFormat.CSV) {
+      CsvMapper mapper =
+          CsvMapper.builder()
+              .findAndAddModules()
+              .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+              .build();
+      return mapper.writerFor(type).with(mapper.schemaFor(type).withHeader());
+    }
+    JsonMapper mapper =
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    return mapper.writerFor(type).withRootValueSeparator("\n");
+  }
+}
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.jobs;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/** The file formats that entities can be imported from and exported to. */
+@Getter
+@AllArgsConstructor
+public enum FileFormat {
+  /** Comma separated values, with a header row naming the fields. */
+  CSV("csv"),
+  /** One JSON object per line. */
+  NDJSON("ndjson");
+
+  /** The file name extension, without the dot. */
+  private final String extension;
+}
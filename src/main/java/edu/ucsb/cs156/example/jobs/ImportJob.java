@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.jobs;
+
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import lombok.Builder;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.support.TransactionOperations;
+
+/**
+ * This job imports entities from an uploaded CSV or NDJSON file.
+ *
+ * <p>Rows are read one at a time and saved in batches, each in its own transaction together with
+ * {@code afterSave}, so memory use does not grow with the size of the file. A row that cannot be
+ * read as the entity type, or that {@code prepare} rejects, is skipped and logged; the rest of the
+ * file is still imported. The file is deleted when the job ends.
+ *
+ * @param <T> the type of entity to import
+ */
+@Builder
+public class ImportJob<T> implements JobContextConsumer {
+
+  /** Only this many rejected rows are logged one by one; the rest are only counted. */
+  static final int MAX_LOGGED_REJECTIONS = 100;
+
+  private Path file;
+  private FileFormat format;
+  private Class<T> type;
+  private CrudRepository<T, ?> repository;
+
+  /** Returns the entity to save for a row, or throws an IllegalArgumentException to reject it. */
+  @Builder.Default private UnaryOperator<T> prepare = UnaryOperator.identity();
+
+  /** Called with each batch after it has been saved, e.g. to update aggregates of the entities. */
+  @Builder.Default private Consumer<List<T>> afterSave = batch -> {};
+
+  /** Runs the save and afterSave of each batch, so that they commit or roll back together. */
+  @Builder.Default
+  private TransactionOperations transaction = TransactionOperations.withoutTransaction();
+
+  @Builder.Default private int batchSize = 1000;
+
+  @Builder.Default private int progressInterval = 100_000;
+
+  @Override
+  public void accept(JobContext ctx) throws Exception {
+    ctx.log("Importing %s rows from %s".formatted(type.getSimpleName(), format));
+
+    long rows = 0;
+    long imported = 0;
+    long rejected = 0;
+    List<T> batch = new ArrayList<>(batchSize);
+
+    try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        MappingIterator<T> values = reader().readValues(in)) {
+      while (values.hasNextValue()) {
+        rows++;
+        try {
+          batch.add(prepare.apply(values.nextValue()));
+        } catch (DatabindException | IllegalArgumentException e) {
+          rejected++;
+          if (rejected <= MAX_LOGGED_REJECTIONS) {
+            ctx.log("Row %d rejected: %s".formatted(rows, e.getMessage()));
+          }
+        }
+
+        if (batch.size() == batchSize) {
+          save(batch);
+          imported += batch.size();
+          batch = new ArrayList<>(batchSize);
+        }
+        if (rows % progressInterval == 0) {
+          ctx.log("%d rows read, %d imported, %d rejected".formatted(rows, imported, rejected));
+        }
+      }
+      if (!batch.isEmpty()) {
+        save(batch);
+        imported += batch.size();
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+
+    ctx.log("Done: %d rows read, %d imported, %d rejected".formatted(rows, imported, rejected));
+  }
+
+  private void save(List<T> batch) {
+    transaction.executeWithoutResult(
+        status -> {
+          repository.saveAll(batch);
+          afterSave.accept(batch);
+        });
+  }
+
+  private ObjectReader reader() {
+    if (format == FileFormat.CSV) {
+      CsvMapper mapper =
+          CsvMapper.builder()
+              .findAndAddModules()
+              .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+              .build();
+      return mapper.readerFor(type).with(CsvSchema.emptySchema().withHeader());
+    }
+    JsonMapper mapper =
+        JsonMapper.builder()
+            .findAndAddModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    return mapper.readerFor(type);
+  }
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Article;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/** This is a model class for an article that matched a search, with its relevance score. */
+@Data
+@AllArgsConstructor
+@Builder
+public class ArticleSearchResult {
+  private Article article;
+  private double score;
+}
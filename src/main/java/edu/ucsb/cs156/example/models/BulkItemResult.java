@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the outcome of one item of a bulk create, update or delete
+ * request.
+ *
+ * <p>Bulk endpoints return one result per item, in the order the items were given.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BulkItemResult {
+  /** What happened to the item. */
+  public enum Status {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    CONFLICT, // an entity with the same id already exists
+    INVALID
+  }
+
+  private int index; // position of the item in the request
+  private Status status;
+  private String id; // id of the entity, if known
+  private String message; // reason the item was not processed, if it was not
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * This is a model class for a change to a help request, as pushed to the subscribers of
+ * /api/helprequests/stream. helpRequest is null when the request was deleted.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class HelpRequestChange {
+  private EntityChangedEvent.Action action;
+  private long id;
+  private HelpRequest helpRequest;
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/** This is a model class for a dining commons found near a point, with its distance from it. */
+@Data
+@AllArgsConstructor
+@Builder
+public class NearbyDiningCommons {
+  private UCSBDiningCommons diningCommons;
+  private double distanceMeters;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * This is a model class that represents a menu item on the top-rated leaderboard.
+ *
+ * <p>Items are ranked by {@code score}, a Bayesian average that pulls the average rating of items
+ * with few reviews towards a prior mean, so that one five-star review does not put an item at the
+ * top.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class RankedMenuItem {
+  private long itemId;
+  private String name;
+  private String diningCommonsCode;
+  private String station;
+  private long reviewCount;
+  private double average;
+  private double score;
+}
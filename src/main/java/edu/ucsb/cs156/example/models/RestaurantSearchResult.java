@@ -0,0 +1,18 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * This is a model class for a restaurant that matched a search, with the fraction of the trigrams
+ * of the search that it contains.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class RestaurantSearchResult {
+  private Restaurant restaurant;
+  private double similarity;
+}
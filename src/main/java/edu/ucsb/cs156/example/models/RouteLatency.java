@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * This is a model class for the latency and throughput of one route, e.g. "GET
+ * /api/ucsbdates/between". Percentiles and the maximum are over the last few minutes; counts are
+ * since the application started.
+ */
+@Data
+@AllArgsConstructor
+@Builder
+public class RouteLatency {
+  private String route;
+  private String handler; // e.g. "UCSBDatesController.between"
+  private long count;
+  private Map<String, Long> statuses; // number of responses with each status code
+  private int active; // requests being handled now
+  private double meanMs;
+  private double maxMs;
+  private double p50Ms;
+  private double p95Ms;
+  private double p99Ms;
+  private double p999Ms;
+}
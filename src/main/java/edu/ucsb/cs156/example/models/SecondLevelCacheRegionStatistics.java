@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** This is a model class that represents the statistics for one second-level cache region. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SecondLevelCacheRegionStatistics {
+  private String region;
+  private long hitCount;
+  private long missCount;
+  private long putCount;
+  private long elementCountInMemory;
+  private double hitRatio; // hits / (hits + misses), or 0 before the first lookup
+}
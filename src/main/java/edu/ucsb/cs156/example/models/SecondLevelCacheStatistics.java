@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the Hibernate second-level and query cache statistics.
+ *
+ * <p>The counts are only collected when {@code statisticsEnabled} is true (HIBERNATE_STATISTICS).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SecondLevelCacheStatistics {
+  private boolean secondLevelCacheEnabled;
+  private boolean queryCacheEnabled;
+  private boolean statisticsEnabled;
+  private long hitCount;
+  private long missCount;
+  private long putCount;
+  private double hitRatio; // hits / (hits + misses), or 0 before the first lookup
+  private long queryCacheHitCount;
+  private long queryCacheMissCount;
+  private long queryCachePutCount;
+  private List<SecondLevelCacheRegionStatistics> regions;
+}
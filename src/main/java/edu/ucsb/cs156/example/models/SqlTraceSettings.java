@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the settings of the sampled SQL tracing, and what it has
+ * logged since the application started.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SqlTraceSettings {
+  private int sampleEvery; // log 1 in this many statements, or none if 0
+  private int maxPerSecond; // the most statements logged in any one second
+  private long logged;
+  private long dropped; // sampled statements that were not logged because of maxPerSecond
+}
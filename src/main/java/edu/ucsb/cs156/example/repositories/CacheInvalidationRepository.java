@@ -0,0 +1,37 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.CacheInvalidation;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The CacheInvalidationRepository is a repository for CacheInvalidation entities. */
+@Repository
+public interface CacheInvalidationRepository extends CrudRepository<CacheInvalidation, Long> {
+  /**
+   * This method returns all invalidations with an id greater than a given one.
+   *
+   * @param id only rows with an id strictly greater than this are returned
+   * @return the matching invalidations ordered by id
+   */
+  List<CacheInvalidation> findByIdGreaterThanOrderByIdAsc(long id);
+
+  /**
+   * This method returns the invalidation with the highest id.
+   *
+   * @return the newest invalidation, or empty if there are none
+   */
+  Optional<CacheInvalidation> findFirstByOrderByIdDesc();
+
+  /**
+   * This method deletes all invalidations written before a given time.
+   *
+   * @param createdAt rows created strictly before this time are deleted
+   * @return the number of rows deleted
+   */
+  @Transactional
+  long deleteByCreatedAtBefore(LocalDateTime createdAt);
+}
@@ -1,10 +1,65 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+/**
+ * The HelpRequestRepository is a repository for HelpRequest entities.
+ *
+ * <p>The queue queries read unsolved requests in order of request time from the index on (SOLVED,
+ * REQUEST_TIME, ID). The claim queries lock the rows they return and skip rows that another
+ * transaction has locked, so concurrent claims return different requests instead of waiting for
+ * each other. On a database whose dialect has no SKIP LOCKED the second claim waits for the first
+ * to commit instead, and then returns the next request. HelpRequestQueueIT covers both.
+ */
 @Repository
 public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
-  // Add custom query methods here later if needed
+
+  // a lock timeout of -2 asks Hibernate for FOR UPDATE SKIP LOCKED
+  String SKIP_LOCKED = "-2";
+
+  /**
+   * This method returns the unsolved help requests, oldest first.
+   *
+   * @param limit the most requests to return
+   * @return the unsolved requests, claimed or not
+   */
+  List<HelpRequest> findBySolvedFalseOrderByRequestTimeAscIdAsc(Limit limit);
+
+  /**
+   * This method locks and returns the oldest unsolved help requests that nobody has claimed.
+   *
+   * @param limit the most requests to return
+   * @return the requests, oldest first
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+  @Query(
+      "select h from HelpRequests h where h.solved = false and h.claimedBy is null"
+          + " order by h.requestTime, h.id")
+  List<HelpRequest> findUnclaimedForUpdate(Limit limit);
+
+  /**
+   * This method locks and returns the oldest unsolved help requests that nobody has claimed, from
+   * teams that are not already being helped. Requests without a team are always included.
+   *
+   * @param limit the most requests to return
+   * @return the requests, oldest first
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = SKIP_LOCKED))
+  @Query(
+      "select h from HelpRequests h where h.solved = false and h.claimedBy is null"
+          + " and (h.teamId is null or h.teamId not in (select c.teamId from HelpRequests c"
+          + " where c.solved = false and c.claimedBy is not null and c.teamId is not null))"
+          + " order by h.requestTime, h.id")
+  List<HelpRequest> findUnclaimedFromWaitingTeamsForUpdate(Limit limit);
 }
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import jakarta.persistence.LockModeType;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.stereotype.Repository;
+
+/** The MenuItemRatingRepository is a repository for MenuItemRating entities. */
+@Repository
+public interface MenuItemRatingRepository
+    extends CrudRepository<MenuItemRating, Long>, PagingAndSortingRepository<MenuItemRating, Long> {
+  /**
+   * This method loads the rating of a menu item and locks its row until the end of the
+   * transaction, so that concurrent reviews of the same item are counted one after the other.
+   *
+   * @param itemId the id of the menu item
+   * @return the rating, or empty if the item has no rating row yet
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  Optional<MenuItemRating> findWithLockByItemId(long itemId);
+}
@@ -1,9 +1,36 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
-/** The MenuItemReviewRepository is a repository for MenuItemReview entities. */
+/**
+ * The MenuItemReviewRepository is a repository for MenuItemReview entities.
+ *
+ * <p>Reviews by item and by reviewer, newest first, are read from the indexes on (ITEM_ID,
+ * DATE_REVIEWED DESC, ID DESC) and (REVIEWER_EMAIL, DATE_REVIEWED DESC, ID DESC); pages should be
+ * sorted by dateReviewed and then id, both descending, to match them.
+ */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {
+
+  /**
+   * This method returns a page of the reviews of a menu item.
+   *
+   * @param itemId the id of the menu item
+   * @param pageable the page to return, and its order
+   * @return the page of reviews
+   */
+  Page<MenuItemReview> findByItemId(long itemId, Pageable pageable);
+
+  /**
+   * This method returns a page of the reviews written by a reviewer.
+   *
+   * @param reviewerEmail the email of the reviewer
+   * @param pageable the page to return, and its order
+   * @return the page of reviews
+   */
+  Page<MenuItemReview> findByReviewerEmail(String reviewerEmail, Pageable pageable);
+}
@@ -1,10 +1,62 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
-/** The RecommendationRequestRepository is a repository for RecommendationRequest entities */
+/**
+ * The RecommendationRequestRepository is a repository for RecommendationRequest entities
+ *
+ * <p>Queries by professor are read from the index on (PROFESSOR_EMAIL, DONE, DATE_NEEDED), and
+ * queries of pending requests by deadline from the index on (DONE, DATE_NEEDED).
+ */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends CrudRepository<RecommendationRequest, Long> {
+
+  /**
+   * This method returns a page of the requests made of a professor.
+   *
+   * @param professorEmail the email of the professor
+   * @param done whether to return the requests that are done, or those that are pending
+   * @param pageable the page to return, and its order
+   * @return the page of requests
+   */
+  Page<RecommendationRequest> findByProfessorEmailAndDone(
+      String professorEmail, boolean done, Pageable pageable);
+
+  /**
+   * This method returns a page of the pending requests made of a professor that are needed within
+   * a window of time.
+   *
+   * @param professorEmail the email of the professor
+   * @param from the start of the window, inclusive
+   * @param to the end of the window, inclusive
+   * @param pageable the page to return, and its order
+   * @return the page of requests
+   */
+  Page<RecommendationRequest> findByProfessorEmailAndDoneFalseAndDateNeededBetween(
+      String professorEmail, ZonedDateTime from, ZonedDateTime to, Pageable pageable);
+
+  /**
+   * This method returns the pending requests that were needed by a time.
+   *
+   * @param to the time
+   * @return the requests with a dateNeeded at or before it
+   */
+  List<RecommendationRequest> findByDoneFalseAndDateNeededLessThanEqual(ZonedDateTime to);
+
+  /**
+   * This method returns the pending requests that were needed within a window of time.
+   *
+   * @param from the start of the window, exclusive
+   * @param to the end of the window, inclusive
+   * @return the requests with a dateNeeded after from and at or before to
+   */
+  List<RecommendationRequest> findByDoneFalseAndDateNeededGreaterThanAndDateNeededLessThanEqual(
+      ZonedDateTime from, ZonedDateTime to);
+}
@@ -1,6 +1,9 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,9 +13,20 @@ public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   /**
    * This method returns all UCSBDate entities with a given quarterYYYYQ.
    *
+   * <p>The results are kept in the query cache when the second-level cache is enabled.
+   *
    * @param quarterYYYYQ quarter in the format YYYYQ (e.g. 20241 for Winter 2024, 20242 for Spring
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+
+  /**
+   * This method returns all UCSBDate entities that have a date, in order of the index on
+   * (localDateTime, id).
+   *
+   * @return the UCSBDate entities with a date, earliest first
+   */
+  Iterable<UCSBDate> findByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc();
 }
@@ -0,0 +1,225 @@
+package edu.ucsb.cs156.example.services.articles;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.ArticleSearchResult;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service keeps an in-memory inverted index of the words in the title, url and explanation
+ * of each article, and searches it.
+ *
+ * <p>Articles are ranked by BM25, with each word of the title counting as {@value #TITLE_WEIGHT}
+ * words, and the score is then boosted by recency: an article added now scores {@code 1 +
+ * app.articles.search.recency-weight} times as much as an old one, and the boost halves every
+ * {@code app.articles.search.half-life-days}.
+ *
+ * <p>Articles are indexed from {@link EntityChangedEvent}s once their transactions commit. Articles
+ * are listed in {@code app.cache.invalidation.entities}, so changes made on other instances arrive
+ * as events too, and the article is then read again from the database. The rebuild every {@code
+ * app.articles.search.rebuild-ms} is only a backstop for changes made outside the application.
+ *
+ * <p>Any number of searches can run at once. Adding or removing an article, and swapping in a
+ * rebuilt index, wait for them to finish; the rebuilt index itself is filled without the lock.
+ */
+@Slf4j
+@Service
+public class ArticleSearchService {
+
+  static final int TITLE_WEIGHT = 3;
+
+  // the usual BM25 parameters: how quickly repeated words stop counting, and how much long
+  // articles are penalized
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  @Autowired private ArticleRepository articleRepository;
+
+  @Value("${app.articles.search.recency-weight:0.5}")
+  private double recencyWeight;
+
+  @Value("${app.articles.search.half-life-days:365}")
+  private double halfLifeDays;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Index index = new Index();
+
+  /**
+   * This method searches the articles.
+   *
+   * @param query the words to search for; an article matches if it contains any of them
+   * @param limit the most articles to return
+   * @return up to limit matching articles, most relevant first
+   */
+  public List<ArticleSearchResult> search(String query, int limit) {
+    Set<String> terms = new LinkedHashSet<>(tokenize(query));
+    LocalDateTime now = LocalDateTime.now(clock);
+    lock.readLock().lock();
+    try {
+      return index.score(terms).entrySet().stream()
+          .map(
+              entry -> {
+                Article article = index.documents.get(entry.getKey()).article();
+                return new ArticleSearchResult(
+                    article, entry.getValue() * recency(article.getDateAdded(), now));
+              })
+          .sorted(
+              Comparator.comparingDouble(ArticleSearchResult::getScore)
+                  .reversed()
+                  .thenComparingLong(result -> -result.getArticle().getId()))
+          .limit(limit)
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method indexes an article that was created or changed, or removes one that was deleted.
+   * For changes relayed from another instance the article is read again from the database.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != Article.class) {
+      return;
+    }
+    long id = Long.parseLong(event.getEntityId());
+    Article article = event.resolve(articleRepository);
+    lock.writeLock().lock();
+    try {
+      index.remove(id);
+      if (article != null) {
+        index.add(article);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** This method rebuilds the index from the articles in the database. */
+  @Scheduled(fixedDelayString = "${app.articles.search.rebuild-ms:600000}")
+  public synchronized void rebuild() {
+    Index fresh = new Index();
+    articleRepository.findAll().forEach(fresh::add);
+    lock.writeLock().lock();
+    try {
+      index = fresh;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.debug(
+        "rebuilt the article index with {} articles and {} words",
+        fresh.documents.size(),
+        fresh.postings.size());
+  }
+
+  /**
+   * Splits text into lower case words of letters and digits.
+   *
+   * @param text the text, which may be null
+   * @return the words, in order, with repeats
+   */
+  static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+      if (!word.isEmpty()) {
+        words.add(word);
+      }
+    }
+    return words;
+  }
+
+  private double recency(LocalDateTime dateAdded, LocalDateTime now) {
+    if (dateAdded == null) {
+      return 1;
+    }
+    // articles dated in the future count as new
+    double ageDays = Math.max(0, Duration.between(dateAdded, now).toMinutes() / (24.0 * 60));
+    return 1 + recencyWeight * Math.pow(0.5, ageDays / halfLifeDays);
+  }
+
+  private record Document(Article article, Map<String, Integer> termFrequencies, int length) {}
+
+  /** The articles by id, and for each word the number of times it occurs in each article. */
+  private static class Index {
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+    private long totalLength;
+
+    void add(Article article) {
+      Map<String, Integer> termFrequencies = new HashMap<>();
+      tokenize(article.getTitle())
+          .forEach(word -> termFrequencies.merge(word, TITLE_WEIGHT, Integer::sum));
+      tokenize(article.getUrl()).forEach(word -> termFrequencies.merge(word, 1, Integer::sum));
+      tokenize(article.getExplanation())
+          .forEach(word -> termFrequencies.merge(word, 1, Integer::sum));
+      int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+
+      documents.put(article.getId(), new Document(article, termFrequencies, length));
+      totalLength += length;
+      termFrequencies.forEach(
+          (word, frequency) ->
+              postings.computeIfAbsent(word, w -> new HashMap<>()).put(article.getId(), frequency));
+    }
+
+    void remove(long id) {
+      Document document = documents.remove(id);
+      if (document == null) {
+        return;
+      }
+      totalLength -= document.length();
+      for (String word : document.termFrequencies().keySet()) {
+        Map<Long, Integer> posting = postings.get(word);
+        posting.remove(id);
+        if (posting.isEmpty()) {
+          postings.remove(word);
+        }
+      }
+    }
+
+    /** The BM25 score of each article that contains at least one of the words. */
+    Map<Long, Double> score(Set<String> words) {
+      Map<Long, Double> scores = new HashMap<>();
+      int n = documents.size();
+      // only articles with at least one word are scored, so this is never zero when it is used
+      double averageLength = (double) totalLength / n;
+      for (String word : words) {
+        Map<Long, Integer> posting = postings.getOrDefault(word, Map.of());
+        double idf = Math.log(1 + (n - posting.size() + 0.5) / (posting.size() + 0.5));
+        posting.forEach(
+            (id, frequency) -> {
+              double norm = K1 * (1 - B + B * documents.get(id).length() / averageLength);
+              scores.merge(id, idf * frequency * (K1 + 1) / (frequency + norm), Double::sum);
+            });
+      }
+      return scores;
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import edu.ucsb.cs156.example.entities.CacheInvalidation;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.CacheInvalidationRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service keeps the in-process caches of several instances of the application coherent.
+ *
+ * <p>When a controller on this instance changes an entity, the entry is evicted from the local
+ * cache named after the entity (e.g. "articles") and, if the entity type is listed in {@code
+ * app.cache.invalidation.entities}, a row is appended to the CACHEINVALIDATIONS change-log table.
+ * The row is written in the transaction that made the change, so it is only seen if the change is
+ * committed. The entry is evicted once the transaction has committed; evicting it earlier would let
+ * a concurrent read put the old entity back in the cache, where nothing would evict it again.
+ * Every instance polls that table and relays rows written by other instances as {@link
+ * EntityChangedEvent}s with {@code remote} set to true, so that the same listeners run on every
+ * node.
+ *
+ * <p>Rows are read by id, starting after the highest id read so far, so no clock is compared
+ * across instances. Ids from concurrent transactions can become visible out of order, so an id that
+ * is skipped is remembered as a gap and read again on later polls until its row appears. A gap that
+ * stays empty for {@code app.cache.invalidation.gap-timeout-seconds} is given up on, since a rolled
+ * back insert leaves one behind for good. The caches also expire their entries (see {@code
+ * spring.cache.caffeine.spec}), as a backstop for an invalidation that is missed anyway.
+ */
+@Slf4j
+@Service
+public class CacheInvalidationService {
+
+  @Autowired private CacheInvalidationRepository cacheInvalidationRepository;
+
+  @Autowired private CacheManager cacheManager;
+
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+  @Value("${app.cache.invalidation.entities:articles,ucsborganizations}")
+  private List<String> broadcastEntities = new ArrayList<>();
+
+  @Value("${app.cache.invalidation.gap-timeout-seconds:300}")
+  private long gapTimeoutSeconds;
+
+  @Value("${app.cache.invalidation.retention-minutes:60}")
+  private long retentionMinutes;
+
+  @Getter private final String nodeId = UUID.randomUUID().toString();
+
+  // a jump in ids larger than this is not tracked as gaps, e.g. after the sequence was reset
+  static final long MAX_TRACKED_GAP = 10_000;
+
+  // the highest id read so far, or null before the first poll
+  private Long lastId;
+
+  // ids below lastId whose rows were not visible yet, with when each was first missed
+  private final Map<Long, LocalDateTime> gaps = new HashMap<>();
+
+  /**
+   * This method evicts the changed entity from the local cache, after the transaction that changed
+   * it has committed.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    evict(event.getEntityName(), event.getEntityId());
+  }
+
+  /**
+   * This method records local changes to broadcast entity types, in the transaction that made them,
+   * so that other instances can evict them too.
+   *
+   * @param event the change that was made
+   */
+  @EventListener
+  public void recordEntityChange(EntityChangedEvent event) {
+    if (event.getRemote() || !broadcastEntities.contains(event.getEntityName())) {
+      return;
+    }
+
+    CacheInvalidation invalidation =
+        CacheInvalidation.builder()
+            .entityType(event.getEntityType().getName())
+            .entityId(event.getEntityId())
+            .action(event.getAction())
+            .originNode(nodeId)
+            .createdAt(LocalDateTime.now())
+            .build();
+    cacheInvalidationRepository.save(invalidation);
+  }
+
+  /** This method relays invalidations written by other instances since the previous poll. */
+  @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-ms:1000}")
+  public synchronized void pollRemoteInvalidations() {
+    if (lastId == null) {
+      // start at the end of the log; nothing was cached here before this instance started
+      lastId =
+          cacheInvalidationRepository
+              .findFirstByOrderByIdDesc()
+              .map(CacheInvalidation::getId)
+              .orElse(0L);
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+
+    if (!gaps.isEmpty()) {
+      for (CacheInvalidation invalidation :
+          cacheInvalidationRepository.findAllById(List.copyOf(gaps.keySet()))) {
+        gaps.remove(invalidation.getId());
+        relayIfRemote(invalidation);
+      }
+    }
+
+    for (CacheInvalidation invalidation :
+        cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(lastId)) {
+      long id = invalidation.getId();
+      if (id - lastId - 1 <= MAX_TRACKED_GAP) {
+        for (long missing = lastId + 1; missing < id; missing++) {
+          gaps.put(missing, now);
+        }
+      } else {
+        log.warn("not tracking the {} ids between {} and {}", id - lastId - 1, lastId, id);
+      }
+      lastId = id;
+      relayIfRemote(invalidation);
+    }
+
+    LocalDateTime giveUp = now.minusSeconds(gapTimeoutSeconds);
+    gaps.values().removeIf(missedAt -> missedAt.isBefore(giveUp));
+  }
+
+  /** This method deletes change-log rows that are older than the retention period. */
+  @Scheduled(fixedDelayString = "${app.cache.invalidation.purge-ms:600000}")
+  public void purgeOldInvalidations() {
+    long deleted =
+        cacheInvalidationRepository.deleteByCreatedAtBefore(
+            LocalDateTime.now().minusMinutes(retentionMinutes));
+    log.info("purged {} cache invalidations", deleted);
+  }
+
+  private void relayIfRemote(CacheInvalidation invalidation) {
+    if (nodeId.equals(invalidation.getOriginNode())) {
+      return;
+    }
+    Class<?> entityType;
+    try {
+      entityType = Class.forName(invalidation.getEntityType());
+    } catch (ClassNotFoundException e) {
+      log.warn("ignoring invalidation for unknown entity type {}", invalidation.getEntityType());
+      return;
+    }
+
+    applicationEventPublisher.publishEvent(
+        EntityChangedEvent.builder()
+            .entityType(entityType)
+            .entityId(invalidation.getEntityId())
+            .action(invalidation.getAction())
+            .remote(true)
+            .build());
+  }
+
+  private void evict(String cacheName, String entityId) {
+    Cache cache = cacheManager.getCache(cacheName);
+    if (cache != null) {
+      cache.evict(entityId);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a GET endpoint whose encoded responses are kept by the {@link ResponseCacheFilter}.
+ *
+ * <p>Only use it on endpoints whose successful response is fully described by its body and content
+ * type, and whose authorization depends only on the roles of the user, since cached responses are
+ * shared by every user with the same roles. Only the query parameters that the endpoint binds
+ * with {@code @RequestParam} are part of the key, so the response must not depend on any others.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface CachedResponse {
+
+  /**
+   * The entities whose changes invalidate the responses, e.g. {@code UCSBOrganization.class}. Leave
+   * it empty for responses that do not change while the application runs.
+   *
+   * @return the entity types
+   */
+  Class<?>[] evictOn() default {};
+}
@@ -0,0 +1,277 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+/**
+ * This filter keeps the encoded bodies of successful responses from GET endpoints marked with
+ * {@link CachedResponse}, and writes them straight to the response the next time they are asked
+ * for, without running the controller or Jackson.
+ *
+ * <p>Responses are keyed by path, the values of the query parameters that the handler declares with
+ * {@code @RequestParam} and the roles of the user, so other parameters cannot fill the cache with
+ * copies of one response. It runs after Spring Security, so a response is only shared by users
+ * whose roles would have let them see it. Bodies of at least {@code
+ * app.response-cache.gzip-min-bytes} are also kept gzipped, and sent that way to clients that
+ * accept it; Tomcat does not compress them again. At most {@code app.response-cache.max-entries}
+ * responses are kept, the least used ones being dropped to make room, and each is dropped after
+ * {@code app.response-cache.ttl-minutes}.
+ *
+ * <p>Responses are dropped once a change to one of the entities in {@link CachedResponse#evictOn()}
+ * commits, on this instance or, through the CacheInvalidationService, on another. A response
+ * produced across a change is sent but not kept.
+ *
+ * <p>It is registered by CacheConfig unless {@code app.response-cache.enabled} is false.
+ */
+@Slf4j
+public class ResponseCacheFilter extends OncePerRequestFilter {
+
+  private static final ParameterNameDiscoverer PARAMETER_NAMES =
+      new DefaultParameterNameDiscoverer();
+
+  @Autowired private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+  @Value("${app.response-cache.max-entries:1000}")
+  private int maxEntries;
+
+  @Value("${app.response-cache.gzip-min-bytes:1024}")
+  private int gzipMinBytes;
+
+  @Value("${app.response-cache.ttl-minutes:60}")
+  private long ttlMinutes;
+
+  private Ticker ticker = Ticker.systemTicker();
+
+  private Cache<Key, Entry> entries;
+
+  // the names of the @RequestParam parameters of each handler method
+  private final Map<Method, Set<String>> declaredParameters = new ConcurrentHashMap<>();
+
+  // counts the changes, so that a response produced across a change is not kept
+  private long generation;
+
+  private record Key(String path, SortedMap<String, List<String>> parameters, Set<String> roles) {}
+
+  private record Entry(Set<Class<?>> evictOn, String contentType, byte[] body, byte[] gzipped) {}
+
+  @Override
+  protected void initFilterBean() {
+    entries =
+        Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .ticker(ticker)
+            .build();
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !"GET".equals(request.getMethod());
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+      throws ServletException, IOException {
+    HandlerMethod handlerMethod = handlerMethod(request);
+    CachedResponse cachedResponse =
+        handlerMethod == null ? null : handlerMethod.getMethodAnnotation(CachedResponse.class);
+    if (cachedResponse == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    Key key = key(request, declaredParameters(handlerMethod));
+    Entry entry = entries.getIfPresent(key);
+    if (entry != null) {
+      write(entry, request, response);
+      return;
+    }
+
+    long before = generation();
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    filterChain.doFilter(request, wrapper);
+    if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+      store(key, cachedResponse, wrapper, before);
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  /**
+   * This method drops the responses that depend on an entity that changed.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    generation++;
+    entries.asMap().values().removeIf(entry -> entry.evictOn().contains(event.getEntityType()));
+  }
+
+  /**
+   * Returns whether an Accept-Encoding header allows gzip.
+   *
+   * @param acceptEncoding the header, which may be null
+   * @return true if gzip is listed without a quality of zero
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      if (parts[0].strip().equalsIgnoreCase("gzip")) {
+        return parts.length == 1 || !parts[1].strip().matches("q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  // the handler method for the request, or null if the request is not for a handler method
+  private HandlerMethod handlerMethod(HttpServletRequest request) {
+    if (!ServletRequestPathUtils.hasParsedRequestPath(request)) {
+      ServletRequestPathUtils.parseAndCache(request);
+    }
+    try {
+      HandlerExecutionChain chain = requestMappingHandlerMapping.getHandler(request);
+      if (chain != null && chain.getHandler() instanceof HandlerMethod handlerMethod) {
+        return handlerMethod;
+      }
+    } catch (Exception e) {
+      log.debug("no handler for {}: {}", request.getRequestURI(), e.getMessage());
+    }
+    return null;
+  }
+
+  private Set<String> declaredParameters(HandlerMethod handlerMethod) {
+    return declaredParameters.computeIfAbsent(
+        handlerMethod.getMethod(),
+        method -> {
+          Set<String> declared = new HashSet<>();
+          for (MethodParameter parameter : handlerMethod.getMethodParameters()) {
+            RequestParam requestParam = parameter.getParameterAnnotation(RequestParam.class);
+            if (requestParam != null) {
+              parameter.initParameterNameDiscovery(PARAMETER_NAMES);
+              String name = requestParam.name();
+              declared.add(name.isEmpty() ? parameter.getParameterName() : name);
+            }
+          }
+          return Set.copyOf(declared);
+        });
+  }
+
+  private static Key key(HttpServletRequest request, Set<String> declaredParameters) {
+    SortedMap<String, List<String>> parameters = new TreeMap<>();
+    request
+        .getParameterMap()
+        .forEach(
+            (name, values) -> {
+              if (declaredParameters.contains(name)) {
+                parameters.put(name, List.of(values));
+              }
+            });
+    SortedSet<String> roles = new TreeSet<>();
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication != null) {
+      for (GrantedAuthority authority : authentication.getAuthorities()) {
+        roles.add(authority.getAuthority());
+      }
+    }
+    return new Key(request.getRequestURI(), parameters, roles);
+  }
+
+  private synchronized long generation() {
+    return generation;
+  }
+
+  private void store(
+      Key key, CachedResponse cachedResponse, ContentCachingResponseWrapper wrapper, long before)
+      throws IOException {
+    byte[] body = wrapper.getContentAsByteArray();
+    Entry entry =
+        new Entry(
+            Set.copyOf(Arrays.asList(cachedResponse.evictOn())),
+            wrapper.getContentType(),
+            body,
+            body.length >= gzipMinBytes ? gzip(body) : null);
+    synchronized (this) {
+      if (generation == before) {
+        entries.put(key, entry);
+      }
+    }
+  }
+
+  // compressed once and sent many times, so worth the best and slowest level, unlike Tomcat's
+  // compression of each response at the default level
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+    try (GZIPOutputStream gzip = new BestCompressionGzipOutputStream(out)) {
+      gzip.write(body);
+    }
+    return out.toByteArray();
+  }
+
+  private static class BestCompressionGzipOutputStream extends GZIPOutputStream {
+    BestCompressionGzipOutputStream(OutputStream out) throws IOException {
+      super(out);
+      def.setLevel(Deflater.BEST_COMPRESSION);
+    }
+  }
+
+  private static void write(Entry entry, HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    byte[] body = entry.body();
+    if (entry.gzipped() != null) {
+      response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        body = entry.gzipped();
+      }
+    }
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setContentType(entry.contentType());
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+}
@@ -0,0 +1,131 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.SecondLevelCacheRegionStatistics;
+import edu.ucsb.cs156.example.models.SecondLevelCacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service manages the Hibernate second-level cache.
+ *
+ * <p>Hibernate keeps the second-level cache of this instance up to date when entities change
+ * through this instance. Changes made through other instances arrive as remote {@link
+ * EntityChangedEvent}s (see CacheInvalidationService); for those, the entity and the cached query
+ * results are evicted here.
+ *
+ * <p>When the second-level cache is disabled, Hibernate's cache is a no-op and so is this service.
+ */
+@Slf4j
+@Service
+public class SecondLevelCacheService {
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * This method evicts an entity changed by another instance from the second-level cache, along
+   * with any cached query results, which may include it.
+   *
+   * @param event the change that was made
+   */
+  @EventListener
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (!event.getRemote()) {
+      return;
+    }
+
+    Cache cache = sessionFactory().getCache();
+    Object id = toId(event.getEntityType(), event.getEntityId());
+    cache.evictEntityData(event.getEntityType(), id);
+    cache.evictDefaultQueryRegion();
+    log.debug("evicted {} {} from the second-level cache", event.getEntityName(), id);
+  }
+
+  /**
+   * This method returns the current second-level and query cache statistics.
+   *
+   * @return the statistics, overall and per region
+   */
+  public SecondLevelCacheStatistics getStatistics() {
+    SessionFactory sessionFactory = sessionFactory();
+    SessionFactoryOptions options = sessionFactory.getSessionFactoryOptions();
+    Statistics statistics = sessionFactory.getStatistics();
+
+    List<SecondLevelCacheRegionStatistics> regions = new ArrayList<>();
+    for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+      CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+      if (region != null) {
+        regions.add(
+            SecondLevelCacheRegionStatistics.builder()
+                .region(regionName)
+                .hitCount(region.getHitCount())
+                .missCount(region.getMissCount())
+                .putCount(region.getPutCount())
+                .elementCountInMemory(region.getElementCountInMemory())
+                .hitRatio(hitRatio(region.getHitCount(), region.getMissCount()))
+                .build());
+      }
+    }
+
+    return SecondLevelCacheStatistics.builder()
+        .secondLevelCacheEnabled(options.isSecondLevelCacheEnabled())
+        .queryCacheEnabled(options.isQueryCacheEnabled())
+        .statisticsEnabled(statistics.isStatisticsEnabled())
+        .hitCount(statistics.getSecondLevelCacheHitCount())
+        .missCount(statistics.getSecondLevelCacheMissCount())
+        .putCount(statistics.getSecondLevelCachePutCount())
+        .hitRatio(
+            hitRatio(
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount()))
+        .queryCacheHitCount(statistics.getQueryCacheHitCount())
+        .queryCacheMissCount(statistics.getQueryCacheMissCount())
+        .queryCachePutCount(statistics.getQueryCachePutCount())
+        .regions(regions)
+        .build();
+  }
+
+  /** This method empties every second-level cache region and resets the statistics. */
+  public void evictAll() {
+    SessionFactory sessionFactory = sessionFactory();
+    sessionFactory.getCache().evictAllRegions();
+    sessionFactory.getStatistics().clear();
+    log.info("evicted all second-level cache regions");
+  }
+
+  /**
+   * This method converts an entity id, as carried by an EntityChangedEvent, back to the id type of
+   * the entity.
+   *
+   * @param entityType the entity class
+   * @param entityId the id as a string
+   * @return the id as a Long for numeric ids, otherwise the string itself
+   */
+  Object toId(Class<?> entityType, String entityId) {
+    Class<?> idType =
+        entityManagerFactory.getMetamodel().entity(entityType).getIdType().getJavaType();
+    if (idType == Long.class || idType == long.class) {
+      return Long.valueOf(entityId);
+    }
+    return entityId;
+  }
+
+  static double hitRatio(long hits, long misses) {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+
+  private SessionFactory sessionFactory() {
+    return entityManagerFactory.unwrap(SessionFactory.class);
+  }
+}
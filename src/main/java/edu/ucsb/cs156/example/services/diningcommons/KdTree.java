@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.services.diningcommons;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An immutable k-d tree of items at points on the Earth, for finding the items nearest a point.
+ *
+ * <p>Each point is stored as a unit vector in three dimensions. The straight-line distance between
+ * two unit vectors grows with the great-circle distance between their points, so the nearest
+ * vectors are the nearest points, with no special cases at the poles or the antimeridian. A query
+ * for the k nearest of n items visits O(log n + k) nodes on average.
+ *
+ * @param <T> the type of the items
+ */
+class KdTree<T> {
+
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  /** An item found near the query point, with its great-circle distance from it. */
+  record Neighbor<T>(T item, double distanceMeters) {}
+
+  private record Entry<T>(T item, double[] point) {}
+
+  private record Node<T>(Entry<T> entry, Node<T> left, Node<T> right) {}
+
+  private record Candidate<T>(T item, double distanceSquared) {}
+
+  private final Node<T> root;
+
+  /**
+   * This constructor builds a balanced tree of the items.
+   *
+   * @param items the items
+   * @param latitude the latitude of an item, in degrees
+   * @param longitude the longitude of an item, in degrees
+   */
+  KdTree(Collection<T> items, ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude) {
+    List<Entry<T>> entries = new ArrayList<>();
+    for (T item : items) {
+      entries.add(
+          new Entry<>(item, toPoint(latitude.applyAsDouble(item), longitude.applyAsDouble(item))));
+    }
+    root = build(entries, 0);
+  }
+
+  // splits on x, y and z in turn, at the median, so that the tree is balanced
+  private static <T> Node<T> build(List<Entry<T>> entries, int depth) {
+    if (entries.isEmpty()) {
+      return null;
+    }
+    int axis = depth % 3;
+    entries.sort(Comparator.comparingDouble(entry -> entry.point()[axis]));
+    int median = entries.size() / 2;
+    return new Node<>(
+        entries.get(median),
+        build(new ArrayList<>(entries.subList(0, median)), depth + 1),
+        build(new ArrayList<>(entries.subList(median + 1, entries.size())), depth + 1));
+  }
+
+  /**
+   * This method finds the items nearest a point.
+   *
+   * @param latitude the latitude of the point, in degrees
+   * @param longitude the longitude of the point, in degrees
+   * @param k the most items to return, at least 1
+   * @param filter the items to consider
+   * @return up to k items that pass the filter, nearest first
+   */
+  List<Neighbor<T>> nearest(double latitude, double longitude, int k, Predicate<T> filter) {
+    PriorityQueue<Candidate<T>> best =
+        new PriorityQueue<>(
+            Comparator.comparingDouble((Candidate<T> candidate) -> candidate.distanceSquared())
+                .reversed());
+    search(root, toPoint(latitude, longitude), 0, k, filter, best);
+
+    List<Candidate<T>> nearestFirst = new ArrayList<>(best);
+    nearestFirst.sort(Comparator.comparingDouble(Candidate::distanceSquared));
+    return nearestFirst.stream()
+        .map(
+            candidate ->
+                new Neighbor<>(candidate.item(), toMeters(Math.sqrt(candidate.distanceSquared()))))
+        .toList();
+  }
+
+  // best holds the k nearest items found so far, farthest at the head
+  private static <T> void search(
+      Node<T> node,
+      double[] query,
+      int depth,
+      int k,
+      Predicate<T> filter,
+      PriorityQueue<Candidate<T>> best) {
+    if (node == null) {
+      return;
+    }
+    Entry<T> entry = node.entry();
+    double distanceSquared = distanceSquared(entry.point(), query);
+    if (filter.test(entry.item())
+        && (best.size() < k || distanceSquared < best.peek().distanceSquared())) {
+      best.add(new Candidate<>(entry.item(), distanceSquared));
+      if (best.size() > k) {
+        best.poll();
+      }
+    }
+
+    int axis = depth % 3;
+    double offset = query[axis] - entry.point()[axis];
+    Node<T> near = offset < 0 ? node.left() : node.right();
+    Node<T> far = offset < 0 ? node.right() : node.left();
+    search(near, query, depth + 1, k, filter, best);
+    // the far side can only hold nearer items if the splitting plane is nearer than the farthest
+    if (best.size() < k || offset * offset < best.peek().distanceSquared()) {
+      search(far, query, depth + 1, k, filter, best);
+    }
+  }
+
+  private static double[] toPoint(double latitude, double longitude) {
+    double phi = Math.toRadians(latitude);
+    double lambda = Math.toRadians(longitude);
+    return new double[] {
+      Math.cos(phi) * Math.cos(lambda), Math.cos(phi) * Math.sin(lambda), Math.sin(phi)
+    };
+  }
+
+  private static double distanceSquared(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  // the great-circle distance subtended by a chord between two unit vectors
+  static double toMeters(double chord) {
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, chord / 2));
+  }
+}
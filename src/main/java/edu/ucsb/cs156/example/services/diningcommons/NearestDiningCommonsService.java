@@ -0,0 +1,76 @@
+package edu.ucsb.cs156.example.services.diningcommons;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service finds the dining commons nearest a point, from a k-d tree of their locations kept
+ * in memory.
+ *
+ * <p>The tree is built when it is first needed, and built again whenever a dining commons is
+ * created, changed or deleted, on this instance or, through the CacheInvalidationService, on
+ * another. Dining commons without a latitude and longitude are left out.
+ */
+@Service
+public class NearestDiningCommonsService {
+
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private volatile KdTree<UCSBDiningCommons> tree;
+
+  /**
+   * This method returns the dining commons nearest a point.
+   *
+   * @param latitude the latitude of the point, in degrees
+   * @param longitude the longitude of the point, in degrees
+   * @param k the most dining commons to return, at least 1
+   * @param hasSackMeal if not null, only dining commons that do or do not have sack meals
+   * @param hasTakeOutMeal if not null, only dining commons that do or do not have take out meals
+   * @return up to k dining commons, nearest first
+   */
+  public List<NearbyDiningCommons> nearest(
+      double latitude, double longitude, int k, Boolean hasSackMeal, Boolean hasTakeOutMeal) {
+    KdTree<UCSBDiningCommons> current = tree;
+    if (current == null) {
+      current = rebuild();
+    }
+    Predicate<UCSBDiningCommons> filter =
+        commons ->
+            (hasSackMeal == null || commons.getHasSackMeal() == hasSackMeal)
+                && (hasTakeOutMeal == null || commons.getHasTakeOutMeal() == hasTakeOutMeal);
+    return current.nearest(latitude, longitude, k, filter).stream()
+        .map(neighbor -> new NearbyDiningCommons(neighbor.item(), neighbor.distanceMeters()))
+        .toList();
+  }
+
+  /**
+   * This method rebuilds the tree when a dining commons changes.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() == UCSBDiningCommons.class) {
+      rebuild();
+    }
+  }
+
+  synchronized KdTree<UCSBDiningCommons> rebuild() {
+    List<UCSBDiningCommons> located = new ArrayList<>();
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      if (commons.getLatitude() != null && commons.getLongitude() != null) {
+        located.add(commons);
+      }
+    }
+    tree = new KdTree<>(located, UCSBDiningCommons::getLatitude, UCSBDiningCommons::getLongitude);
+    return tree;
+  }
+}
@@ -0,0 +1,164 @@
+package edu.ucsb.cs156.example.services.export;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.ExportJob;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This service exports entity tables to compressed files in {@code app.export.directory}, and
+ * finds those files again for download.
+ *
+ * <p>Each export runs as an {@link ExportJob}. The entity types listed in {@code
+ * app.export.nightly} are exported every night on the {@code app.export.cron} schedule, after
+ * exports older than {@code app.export.retention-days} have been deleted.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+  private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  /** The names of complete export files; anything else in the directory is never served. */
+  private static final Pattern EXPORT_FILE_NAME =
+      Pattern.compile("[a-z0-9_]+-\\d{8}-\\d{6}\\.(csv|ndjson)\\.gz");
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private JobService jobService;
+
+  @Value("${app.export.directory}")
+  private Path directory;
+
+  @Value("${app.export.nightly:}")
+  private List<String> nightlyEntities = new ArrayList<>();
+
+  @Value("${app.export.retention-days:7}")
+  private long retentionDays;
+
+  /**
+   * This method starts a job that exports every row of an entity table.
+   *
+   * @param entityName the JPA entity name, e.g. "articles"; case is ignored
+   * @param format the format of the file
+   * @return the job that runs the export
+   * @throws IllegalArgumentException if there is no entity with that name
+   */
+  public Job launchExport(String entityName, FileFormat format) {
+    EntityType<?> entityType = findEntityType(entityName);
+    String name = entityType.getName().toLowerCase();
+    String fileName =
+        "%s-%s.%s.gz".formatted(name, LocalDateTime.now().format(TIMESTAMP), format.getExtension());
+
+    TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setReadOnly(true);
+    TransactionTemplate logTransaction = new TransactionTemplate(transactionManager);
+    logTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    ExportJob exportJob =
+        ExportJob.builder()
+            .entityName(entityType.getName())
+            .type(entityType.getJavaType())
+            .format(format)
+            .file(directory.resolve(fileName))
+            .entityManager(entityManager)
+            .readTransaction(readTransaction)
+            .logTransaction(logTransaction)
+            .build();
+    return jobService.runAsJob(exportJob);
+  }
+
+  /**
+   * This method lists the complete export files.
+   *
+   * @return the file names, oldest first for each entity
+   * @throws IOException if the directory cannot be read
+   */
+  public List<String> listExports() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> file.getFileName().toString())
+          .filter(fileName -> EXPORT_FILE_NAME.matcher(fileName).matches())
+          .sorted()
+          .toList();
+    }
+  }
+
+  /**
+   * This method finds a complete export file by name.
+   *
+   * @param fileName the name of the file, as returned by {@link #listExports()}
+   * @return the path of the file, or empty if there is no such export
+   */
+  public Optional<Path> findExport(String fileName) {
+    if (!EXPORT_FILE_NAME.matcher(fileName).matches()) {
+      return Optional.empty();
+    }
+    Path file = directory.resolve(fileName);
+    return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+  }
+
+  /**
+   * This method deletes old exports and starts an NDJSON export of each of the nightly entity
+   * types.
+   *
+   * @throws IOException if old exports cannot be deleted
+   */
+  @Scheduled(cron = "${app.export.cron:0 0 3 * * *}")
+  public void exportNightly() throws IOException {
+    deleteOldExports();
+    for (String entityName : nightlyEntities) {
+      try {
+        launchExport(entityName, FileFormat.NDJSON);
+      } catch (IllegalArgumentException e) {
+        log.warn("skipping nightly export: {}", e.getMessage());
+      }
+    }
+  }
+
+  void deleteOldExports() throws IOException {
+    FileTime cutoff = FileTime.from(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+    for (String fileName : listExports()) {
+      Path file = directory.resolve(fileName);
+      if (Files.getLastModifiedTime(file).compareTo(cutoff) < 0) {
+        Files.delete(file);
+        log.info("deleted old export {}", fileName);
+      }
+    }
+  }
+
+  private EntityType<?> findEntityType(String entityName) {
+    return entityManager.getMetamodel().getEntities().stream()
+        .filter(entityType -> entityType.getName().equalsIgnoreCase(entityName))
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unknown entity " + entityName));
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.services.helprequests;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This service hands out unsolved help requests to course staff, oldest first.
+ *
+ * <p>A request is claimed by setting claimedBy while its row is locked, so no two staff members
+ * are given the same request. Claimed requests stay in the queue, marked with who is helping, until
+ * they are solved or released.
+ *
+ * <p>With fairness on, a team that is already being helped waits until every other waiting team
+ * has been helped, even if its request is older; if every waiting team is already being helped,
+ * the oldest request is claimed as usual.
+ */
+@Service
+public class HelpRequestQueueService {
+
+  @Autowired private HelpRequestRepository helpRequestRepository;
+
+  private static final Limit ONE = Limit.of(1);
+
+  /**
+   * This method returns the unsolved help requests, oldest first.
+   *
+   * @param limit the most requests to return
+   * @return the unsolved requests, claimed or not
+   */
+  public List<HelpRequest> queue(int limit) {
+    return helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc(Limit.of(limit));
+  }
+
+  /**
+   * This method claims the next unsolved help request that nobody has claimed.
+   *
+   * @param claimedBy the email of the staff member claiming it
+   * @param fair whether teams that are not already being helped go first
+   * @return the claimed request, or empty if there are none to claim
+   */
+  @Transactional
+  public Optional<HelpRequest> claimNext(String claimedBy, boolean fair) {
+    List<HelpRequest> next =
+        fair ? helpRequestRepository.findUnclaimedFromWaitingTeamsForUpdate(ONE) : List.of();
+    if (next.isEmpty()) {
+      next = helpRequestRepository.findUnclaimedForUpdate(ONE);
+    }
+    if (next.isEmpty()) {
+      return Optional.empty();
+    }
+    HelpRequest helpRequest = next.get(0);
+    helpRequest.setClaimedBy(claimedBy);
+    helpRequest.setClaimedAt(LocalDateTime.now());
+    return Optional.of(helpRequestRepository.save(helpRequest));
+  }
+
+  /**
+   * This method puts a claimed help request back in the queue for someone else to claim.
+   *
+   * @param id the id of the help request
+   * @return the released request
+   */
+  @Transactional
+  public HelpRequest release(long id) {
+    HelpRequest helpRequest =
+        helpRequestRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+    helpRequest.setClaimedBy(null);
+    helpRequest.setClaimedAt(null);
+    return helpRequestRepository.save(helpRequest);
+  }
+}
@@ -0,0 +1,163 @@
+package edu.ucsb.cs156.example.services.helprequests;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestChange;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * This service pushes changes to help requests to subscribers as server-sent events, so that
+ * dashboards do not have to poll for them.
+ *
+ * <p>Each change is serialized once and offered to every subscriber's buffer of {@code
+ * app.helprequests.stream.buffer} events; a subscriber's events are written by its own virtual
+ * thread, so a slow client never holds up the others or the request that made the change. A
+ * subscriber whose buffer is full, or whose connection fails, is dropped; its EventSource
+ * reconnects and should read the queue again.
+ *
+ * <p>Changes made on other instances are relayed by the CacheInvalidationService, as long as
+ * "HelpRequests" is listed in {@code app.cache.invalidation.entities}.
+ */
+@Slf4j
+@Service
+public class HelpRequestStreamService {
+
+  @Autowired private HelpRequestRepository helpRequestRepository;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  @Value("${app.helprequests.stream.buffer:64}")
+  private int bufferSize;
+
+  @Value("${app.helprequests.stream.timeout-ms:1800000}")
+  private long timeoutMs;
+
+  private Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * This method subscribes a client to changes to help requests.
+   *
+   * @return the emitter that the client's events are written to
+   */
+  public SseEmitter subscribe() {
+    SseEmitter emitter = new SseEmitter(timeoutMs);
+    register(emitter);
+    return emitter;
+  }
+
+  void register(SseEmitter emitter) {
+    Subscriber subscriber = new Subscriber(emitter);
+    subscribers.add(subscriber);
+    emitter.onCompletion(() -> subscribers.remove(subscriber));
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(e -> subscribers.remove(subscriber));
+  }
+
+  int subscriberCount() {
+    return subscribers.size();
+  }
+
+  /**
+   * This method pushes a help request that was created, changed or deleted. For changes relayed
+   * from another instance the help request is read again from the database.
+   *
+   * @param event the change that was made
+   * @throws JsonProcessingException if the change cannot be serialized
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) throws JsonProcessingException {
+    if (event.getEntityType() != HelpRequest.class || subscribers.isEmpty()) {
+      return;
+    }
+    long id = Long.parseLong(event.getEntityId());
+    HelpRequest helpRequest = event.resolve(helpRequestRepository);
+    HelpRequestChange change =
+        HelpRequestChange.builder()
+            .action(event.getAction())
+            .id(id)
+            .helpRequest(helpRequest)
+            .build();
+
+    broadcast(
+        SseEmitter.event()
+            .name(event.getAction().name().toLowerCase())
+            .data(objectMapper.writeValueAsString(change))
+            .build());
+  }
+
+  /** This method sends a comment to every subscriber, so that idle connections stay open. */
+  @Scheduled(fixedDelayString = "${app.helprequests.stream.heartbeat-ms:15000}")
+  public void heartbeat() {
+    broadcast(SseEmitter.event().comment("heartbeat").build());
+  }
+
+  private void broadcast(Set<DataWithMediaType> event) {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(event);
+    }
+  }
+
+  /** A client, with the events that have not been written to it yet. */
+  private class Subscriber {
+    private final SseEmitter emitter;
+    private final BlockingQueue<Set<DataWithMediaType>> buffer;
+    // events offered but not yet written; whoever raises it from 0 starts the writer
+    private final AtomicInteger pending = new AtomicInteger();
+
+    Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+      this.buffer = new ArrayBlockingQueue<>(bufferSize);
+    }
+
+    void offer(Set<DataWithMediaType> event) {
+      if (!buffer.offer(event)) {
+        log.info("dropping a help request subscriber that is {} events behind", bufferSize);
+        drop();
+        return;
+      }
+      if (pending.getAndIncrement() == 0) {
+        executor.execute(this::write);
+      }
+    }
+
+    private void write() {
+      do {
+        try {
+          emitter.send(buffer.poll());
+        } catch (IOException | IllegalStateException e) {
+          log.debug("dropping a help request subscriber: {}", e.toString());
+          drop();
+          return;
+        }
+      } while (pending.decrementAndGet() > 0);
+    }
+
+    private void drop() {
+      // once removed it is offered no more events, so its writer stops when the buffer is empty
+      if (subscribers.remove(this)) {
+        // completing may wait for a write in progress, so it is not done on the caller's thread
+        executor.execute(emitter::complete);
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import edu.ucsb.cs156.example.models.RouteLatency;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * This is the {@code latency} actuator endpoint, at {@code /actuator/latency}, which shows the
+ * latency percentiles, status codes and active requests of each route.
+ *
+ * <p>Like the other actuator endpoints it is only accessible to users with the role "ROLE_ADMIN".
+ *
+ * @see RequestMetricsService
+ */
+@Component
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+  @Autowired private RequestMetricsService requestMetricsService;
+
+  /**
+   * This method returns the latency and throughput of every route that has had a request.
+   *
+   * @return the routes, in order of route
+   */
+  @ReadOperation
+  public List<RouteLatency> latency() {
+    return requestMetricsService.getLatencies();
+  }
+}
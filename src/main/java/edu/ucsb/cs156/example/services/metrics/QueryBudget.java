@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the most SQL statements that one request to an endpoint should run, including those run
+ * while its response is written, such as the loading of lazy associations. A request that runs more
+ * is reported by the {@link QueryBudgetInterceptor}.
+ *
+ * <p>Use it on endpoints whose number of statements should not grow with the number of rows they
+ * return, e.g. {@code @QueryBudget(1)} on an endpoint that lists a table.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface QueryBudget {
+
+  /**
+   * The most SQL statements that a request may run.
+   *
+   * @return the budget
+   */
+  int value();
+}
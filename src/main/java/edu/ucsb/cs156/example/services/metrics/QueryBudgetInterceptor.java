@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * This interceptor counts the SQL statements run by each request to an endpoint with a {@link
+ * QueryBudget}, from just before its controller method is called until the request has completed,
+ * and logs a warning for the requests that run more statements than the budget.
+ *
+ * <p>The count is checked once the response has been written, so that statements run while the
+ * body is serialized are counted. By then the response has usually been committed, so a request
+ * over its budget cannot be failed. Instead the most recent violations are also kept, and the
+ * integration tests fail when a request they made is in {@link #violations()}.
+ *
+ * <p>It is registered by MetricsConfig.
+ */
+@Slf4j
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+  static final String START_ATTRIBUTE = QueryBudgetInterceptor.class.getName() + ".start";
+
+  /** Only this many of the most recent violations are kept. */
+  static final int MAX_VIOLATIONS = 100;
+
+  /**
+   * A request that ran more SQL statements than its budget.
+   *
+   * @param method the HTTP method of the request
+   * @param uri the URI of the request
+   * @param statements the number of statements it ran
+   * @param budget its budget
+   */
+  public record Violation(String method, String uri, long statements, int budget) {}
+
+  private final Deque<Violation> violations = new ArrayDeque<>();
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (budget(handler) != null) {
+      request.setAttribute(START_ATTRIBUTE, SqlStatementCounter.count());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    Long start = (Long) request.getAttribute(START_ATTRIBUTE);
+    if (start == null) {
+      return;
+    }
+    long statements = SqlStatementCounter.count() - start;
+    int budget = budget(handler).value();
+    if (statements > budget) {
+      log.warn(
+          "{} {} ran {} SQL statements, over its budget of {}",
+          request.getMethod(),
+          request.getRequestURI(),
+          statements,
+          budget);
+      record(new Violation(request.getMethod(), request.getRequestURI(), statements, budget));
+    }
+  }
+
+  /**
+   * Returns the most recent requests that ran more SQL statements than their budget.
+   *
+   * @return the violations, oldest first
+   */
+  public synchronized List<Violation> violations() {
+    return List.copyOf(violations);
+  }
+
+  /** Forgets the violations recorded so far. */
+  public synchronized void clearViolations() {
+    violations.clear();
+  }
+
+  private synchronized void record(Violation violation) {
+    violations.addLast(violation);
+    if (violations.size() > MAX_VIOLATIONS) {
+      violations.removeFirst();
+    }
+  }
+
+  private static QueryBudget budget(Object handler) {
+    return handler instanceof HandlerMethod handlerMethod
+        ? handlerMethod.getMethodAnnotation(QueryBudget.class)
+        : null;
+  }
+}
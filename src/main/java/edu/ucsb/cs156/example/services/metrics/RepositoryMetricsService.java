@@ -0,0 +1,240 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.Entity;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * This service records the calls to each repository method as Micrometer meters, tagged with the
+ * repository and the method:
+ *
+ * <ul>
+ *   <li>{@code app.repository.calls}, a timer that publishes the 50th, 95th and 99th percentiles
+ *   <li>{@code app.repository.rows}, a distribution of the number of rows returned, for methods
+ *       that return entities, lists, pages or optionals
+ *   <li>{@code app.repository.slow-calls}, a counter of calls that took at least {@code
+ *       app.repository-metrics.slow-call-ms}; each is also logged, with a summary of its arguments
+ *   <li>{@code app.repository.n-plus-one}, a counter of requests that called the method at least
+ *       {@code app.repository-metrics.n-plus-one-threshold} times, which usually means it is called
+ *       once for each item of a list; each is also logged
+ * </ul>
+ *
+ * <p>Arguments are summarized by type, with strings shown only by their length, so that email
+ * addresses and other personal data are not logged.
+ *
+ * <p>Calls are timed by the RepositoryMetricsAspect.
+ */
+@Slf4j
+@Service
+public class RepositoryMetricsService {
+
+  static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+  static final String CALLS_ATTRIBUTE = RepositoryMetricsService.class.getName() + ".calls";
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Value("${app.repository-metrics.slow-call-ms:200}")
+  private long slowCallMs;
+
+  @Value("${app.repository-metrics.n-plus-one-threshold:20}")
+  private int nPlusOneThreshold;
+
+  private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+  /**
+   * This method records that a repository method has been called.
+   *
+   * @param repository the name of the repository, e.g. "UserRepository"
+   * @param method the name of the method, e.g. "findByEmail"
+   * @return the call to stop when the method returns
+   */
+  public Call start(String repository, String method) {
+    Meters calledMeters =
+        meters.computeIfAbsent(
+            repository + "." + method, name -> new Meters(name, repository, method));
+    countInRequest(calledMeters);
+    return new Call(calledMeters, clock().monotonicTime());
+  }
+
+  /** A call to a repository method that has started. */
+  public final class Call {
+    private final Meters meters;
+    private final long startNanos;
+
+    private Call(Meters meters, long startNanos) {
+      this.meters = meters;
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * This method records that the call has returned or thrown.
+     *
+     * @param result what the method returned, or null if it threw
+     * @param args the arguments of the call
+     */
+    public void stop(Object result, Object[] args) {
+      long nanos = clock().monotonicTime() - startNanos;
+      meters.timer.record(nanos, TimeUnit.NANOSECONDS);
+      long rows = rows(result);
+      if (rows >= 0) {
+        meters.rows.record(rows);
+      }
+      if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowCallMs)) {
+        meters.slowCalls.increment();
+        log.warn(
+            "slow repository call: {}({}) took {} ms{}",
+            meters.name,
+            summarize(args),
+            TimeUnit.NANOSECONDS.toMillis(nanos),
+            rows < 0 ? "" : " and returned " + rows + " rows");
+      }
+    }
+  }
+
+  // counts the calls to each method in the current request, and reports a method once per request
+  // when it reaches the threshold
+  private void countInRequest(Meters calledMeters) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Map<String, Integer> calls =
+        (Map<String, Integer>)
+            attributes.getAttribute(CALLS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    if (calls == null) {
+      calls = new HashMap<>();
+      attributes.setAttribute(CALLS_ATTRIBUTE, calls, RequestAttributes.SCOPE_REQUEST);
+    }
+    if (calls.merge(calledMeters.name, 1, Integer::sum) == nPlusOneThreshold) {
+      calledMeters.nPlusOne.increment();
+      log.warn(
+          "possible N+1 queries: {} was called {} times while handling {}",
+          calledMeters.name,
+          nPlusOneThreshold,
+          attributes instanceof ServletRequestAttributes servletRequestAttributes
+              ? servletRequestAttributes.getRequest().getMethod()
+                  + " "
+                  + servletRequestAttributes.getRequest().getRequestURI()
+              : "a request");
+    }
+  }
+
+  /**
+   * Returns the number of rows in what a repository method returned.
+   *
+   * @param result what the method returned
+   * @return the number of rows, or -1 if it is not a number of rows, e.g. a count or a stream
+   */
+  static long rows(Object result) {
+    if (result instanceof Optional<?> optional) {
+      return optional.isPresent() ? 1 : 0;
+    }
+    if (result instanceof Slice<?> slice) {
+      return slice.getNumberOfElements();
+    }
+    if (result instanceof Collection<?> collection) {
+      return collection.size();
+    }
+    if (result != null && result.getClass().isAnnotationPresent(Entity.class)) {
+      return 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Summarizes the arguments of a call for the log. Numbers, booleans, enums, times and pages are
+   * shown; strings only by their length, and collections by their size.
+   *
+   * @param args the arguments
+   * @return the summary, e.g. "String(17), 3"
+   */
+  static String summarize(Object[] args) {
+    StringJoiner summary = new StringJoiner(", ");
+    for (Object arg : args) {
+      summary.add(summarize(arg));
+    }
+    return summary.toString();
+  }
+
+  private static String summarize(Object arg) {
+    if (arg == null
+        || arg instanceof Number
+        || arg instanceof Boolean
+        || arg instanceof Enum<?>
+        || arg instanceof Temporal
+        || arg instanceof Pageable
+        || arg instanceof Sort) {
+      return String.valueOf(arg);
+    }
+    if (arg instanceof CharSequence text) {
+      return "String(" + text.length() + ")";
+    }
+    if (arg instanceof Collection<?> collection) {
+      return arg.getClass().getSimpleName() + "[" + collection.size() + "]";
+    }
+    return arg.getClass().getSimpleName();
+  }
+
+  private Clock clock() {
+    return meterRegistry.config().clock();
+  }
+
+  private class Meters {
+    private final String name;
+    private final Timer timer;
+    private final DistributionSummary rows;
+    private final Counter slowCalls;
+    private final Counter nPlusOne;
+
+    Meters(String name, String repository, String method) {
+      this.name = name;
+      Tags tags = Tags.of("repository", repository, "method", method);
+      timer =
+          Timer.builder("app.repository.calls")
+              .description("Time taken by repository methods")
+              .tags(tags)
+              .publishPercentiles(PERCENTILES)
+              .percentilePrecision(2)
+              .register(meterRegistry);
+      rows =
+          DistributionSummary.builder("app.repository.rows")
+              .description("Rows returned by repository methods")
+              .tags(tags)
+              .register(meterRegistry);
+      slowCalls =
+          Counter.builder("app.repository.slow-calls")
+              .description("Repository calls of app.repository-metrics.slow-call-ms or more")
+              .tags(tags)
+              .register(meterRegistry);
+      nPlusOne =
+          Counter.builder("app.repository.n-plus-one")
+              .description("Requests that called a repository method many times")
+              .tags(tags)
+              .register(meterRegistry);
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Objects;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * This interceptor times each request to a controller method with the RequestMetricsService, from
+ * just before the method is called until the response has been written.
+ *
+ * <p>Requests that go on asynchronously, such as streams of Server-Sent Events, are counted as
+ * active until the controller method returns, but are not timed.
+ *
+ * <p>It is registered by MetricsConfig.
+ */
+public class RequestMetricsInterceptor implements AsyncHandlerInterceptor {
+
+  static final String SAMPLE_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".sample";
+
+  private final RequestMetricsService requestMetricsService;
+
+  /**
+   * This constructor creates an interceptor that records into a RequestMetricsService.
+   *
+   * @param requestMetricsService the service to record into
+   */
+  public RequestMetricsInterceptor(RequestMetricsService requestMetricsService) {
+    this.requestMetricsService = requestMetricsService;
+  }
+
+  @Override
+  public boolean preHandle(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (handler instanceof HandlerMethod handlerMethod
+        && request.getDispatcherType() != DispatcherType.ASYNC) {
+      String pattern =
+          Objects.toString(
+              request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE), "UNKNOWN");
+      request.setAttribute(
+          SAMPLE_ATTRIBUTE,
+          requestMetricsService.start(request.getMethod(), pattern, handlerMethod));
+    }
+    return true;
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(
+      HttpServletRequest request, HttpServletResponse response, Object handler) {
+    RequestMetricsService.Sample sample = takeSample(request);
+    if (sample != null) {
+      sample.abandon();
+    }
+  }
+
+  @Override
+  public void afterCompletion(
+      HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    RequestMetricsService.Sample sample = takeSample(request);
+    if (sample != null) {
+      // an exception that no handler resolved becomes a 500 after this
+      sample.stop(ex == null ? response.getStatus() : HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+  }
+
+  private static RequestMetricsService.Sample takeSample(HttpServletRequest request) {
+    RequestMetricsService.Sample sample =
+        (RequestMetricsService.Sample) request.getAttribute(SAMPLE_ATTRIBUTE);
+    request.removeAttribute(SAMPLE_ATTRIBUTE);
+    return sample;
+  }
+}
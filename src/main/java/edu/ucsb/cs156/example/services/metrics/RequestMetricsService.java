@@ -0,0 +1,173 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import edu.ucsb.cs156.example.models.RouteLatency;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValuePercentile;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.method.HandlerMethod;
+
+/**
+ * This service records the latency of each route, the number of its responses with each status
+ * code, and the number of its requests being handled, as Micrometer meters tagged with the route
+ * and its handler:
+ *
+ * <ul>
+ *   <li>{@code app.requests}, a timer that publishes the 50th, 95th, 99th and 99.9th percentiles
+ *   <li>{@code app.requests.status}, a counter for each status code
+ *   <li>{@code app.requests.active}, a gauge
+ * </ul>
+ *
+ * <p>Micrometer keeps the timings in HdrHistogram recorders, which threads write to without
+ * locking, and computes the percentiles over a window of the last few minutes. Routes are request
+ * patterns such as "GET /api/ucsbdates/between" rather than paths, so the number of meters is
+ * bounded by the number of endpoints.
+ *
+ * <p>Requests are timed by the RequestMetricsInterceptor, and the {@code latency} actuator endpoint
+ * shows the meters of every route.
+ */
+@Service
+public class RequestMetricsService {
+
+  static final double[] PERCENTILES = {0.5, 0.95, 0.99, 0.999};
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+  /**
+   * This method records that a request has started.
+   *
+   * @param method the HTTP method, e.g. "GET"
+   * @param pattern the pattern that the request matched, e.g. "/api/ucsbdates/between"
+   * @param handler the controller method that handles the request
+   * @return the sample to stop when the request completes
+   */
+  public Sample start(String method, String pattern, HandlerMethod handler) {
+    Route route =
+        routes.computeIfAbsent(
+            method + " " + pattern,
+            name ->
+                new Route(
+                    name,
+                    handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName()));
+    route.active.incrementAndGet();
+    return new Sample(route, meterRegistry.config().clock().monotonicTime());
+  }
+
+  /**
+   * This method returns the latency and throughput of every route that has had a request.
+   *
+   * @return the routes, in order of route
+   */
+  public List<RouteLatency> getLatencies() {
+    return routes.values().stream()
+        .sorted(Comparator.comparing(route -> route.name))
+        .map(Route::latency)
+        .toList();
+  }
+
+  /** A request that has started. */
+  public final class Sample {
+    private final Route route;
+    private final long startNanos;
+
+    private Sample(Route route, long startNanos) {
+      this.route = route;
+      this.startNanos = startNanos;
+    }
+
+    /**
+     * This method records that the request has completed.
+     *
+     * @param status the status code of the response
+     */
+    public void stop(int status) {
+      route.timer.record(
+          meterRegistry.config().clock().monotonicTime() - startNanos, TimeUnit.NANOSECONDS);
+      route.statusCounter(status).increment();
+      route.active.decrementAndGet();
+    }
+
+    /**
+     * This method records that the request is no longer being handled, without timing it, e.g. when
+     * it goes on asynchronously as a stream of events.
+     */
+    public void abandon() {
+      route.active.decrementAndGet();
+    }
+  }
+
+  private class Route {
+    private final String name;
+    private final String handler;
+    private final Tags tags;
+    private final Timer timer;
+    private final AtomicInteger active = new AtomicInteger();
+    private final Map<Integer, Counter> statuses = new ConcurrentHashMap<>();
+
+    Route(String name, String handler) {
+      this.name = name;
+      this.handler = handler;
+      tags = Tags.of("route", name, "handler", handler);
+      timer =
+          Timer.builder("app.requests")
+              .description("Time to handle requests")
+              .tags(tags)
+              .publishPercentiles(PERCENTILES)
+              .percentilePrecision(2)
+              .register(meterRegistry);
+      Gauge.builder("app.requests.active", active, AtomicInteger::get)
+          .description("Requests being handled")
+          .tags(tags)
+          .register(meterRegistry);
+    }
+
+    Counter statusCounter(int status) {
+      return statuses.computeIfAbsent(
+          status,
+          key ->
+              Counter.builder("app.requests.status")
+                  .description("Responses by status code")
+                  .tags(tags.and("status", String.valueOf(status)))
+                  .register(meterRegistry));
+    }
+
+    RouteLatency latency() {
+      HistogramSnapshot snapshot = timer.takeSnapshot();
+      Map<Double, Double> percentiles = new HashMap<>();
+      for (ValuePercentile percentile : snapshot.percentileValues()) {
+        percentiles.put(percentile.percentile(), percentile.value(TimeUnit.MILLISECONDS));
+      }
+      Map<String, Long> statusCounts = new TreeMap<>();
+      statuses.forEach(
+          (status, counter) -> statusCounts.put(String.valueOf(status), (long) counter.count()));
+      return RouteLatency.builder()
+          .route(name)
+          .handler(handler)
+          .count(snapshot.count())
+          .statuses(statusCounts)
+          .active(active.get())
+          .meanMs(snapshot.mean(TimeUnit.MILLISECONDS))
+          .maxMs(snapshot.max(TimeUnit.MILLISECONDS))
+          .p50Ms(percentiles.get(0.5))
+          .p95Ms(percentiles.get(0.95))
+          .p99Ms(percentiles.get(0.99))
+          .p999Ms(percentiles.get(0.999))
+          .build();
+    }
+  }
+}
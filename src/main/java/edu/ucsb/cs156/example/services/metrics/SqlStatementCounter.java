@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * This Hibernate StatementInspector counts the SQL statements that Hibernate prepares on each
+ * thread, for the {@link QueryBudgetInterceptor}, and passes them to the {@link SqlTraceService}.
+ * It does not change the statements.
+ *
+ * <p>It is given to Hibernate by {@code MetricsConfig}. The counts are static, so that the
+ * interceptor can read them without a reference to the inspector.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+  private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+  private final SqlTraceService sqlTraceService;
+
+  public SqlStatementCounter(SqlTraceService sqlTraceService) {
+    this.sqlTraceService = sqlTraceService;
+  }
+
+  /**
+   * Returns the number of SQL statements prepared on this thread so far.
+   *
+   * @return the number of statements
+   */
+  public static long count() {
+    return COUNT.get()[0];
+  }
+
+  @Override
+  public String inspect(String sql) {
+    COUNT.get()[0]++;
+    sqlTraceService.trace(sql);
+    return sql;
+  }
+}
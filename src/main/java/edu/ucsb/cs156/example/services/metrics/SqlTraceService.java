@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import edu.ucsb.cs156.example.models.SqlTraceSettings;
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * This service logs a sample of the SQL statements that Hibernate prepares, in place of logging
+ * every statement with {@code logging.level.sql=DEBUG}.
+ *
+ * <p>One in every {@code sampleEvery} statements is logged, and no more than {@code maxPerSecond}
+ * of them in any one second, so tracing costs little even under load. Sampling is off when {@code
+ * sampleEvery} is 0. The settings start from {@code app.sql-trace.sample-every} and {@code
+ * app.sql-trace.max-per-second} and can be changed while the application runs with {@code PUT
+ * /api/admin/sqltrace}.
+ *
+ * <p>Statements are passed to it by the {@link SqlStatementCounter}.
+ */
+@Slf4j
+@Service
+public class SqlTraceService {
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  @Value("${app.sql-trace.sample-every:0}")
+  private volatile int sampleEvery;
+
+  @Value("${app.sql-trace.max-per-second:10}")
+  private volatile int maxPerSecond;
+
+  private final AtomicLong statements = new AtomicLong();
+  private final AtomicLong logged = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+
+  private long currentSecond = -1;
+  private int loggedThisSecond;
+
+  /**
+   * This method logs the statement if it is sampled and the rate limit allows.
+   *
+   * @param sql the SQL statement, with ? for its parameters
+   */
+  public void trace(String sql) {
+    int every = sampleEvery;
+    if (every == 0 || statements.incrementAndGet() % every != 0) {
+      return;
+    }
+    if (!withinRateLimit()) {
+      dropped.incrementAndGet();
+      return;
+    }
+    logged.incrementAndGet();
+    log.info("SQL (1 in {}): {}", every, sql);
+  }
+
+  // only sampled statements get this far, so the lock is rarely contended
+  private synchronized boolean withinRateLimit() {
+    long second = clock.millis() / 1000;
+    if (second != currentSecond) {
+      currentSecond = second;
+      loggedThisSecond = 0;
+    }
+    return ++loggedThisSecond <= maxPerSecond;
+  }
+
+  /**
+   * This method returns the settings, and what has been logged so far.
+   *
+   * @return the settings
+   */
+  public SqlTraceSettings getSettings() {
+    return SqlTraceSettings.builder()
+        .sampleEvery(sampleEvery)
+        .maxPerSecond(maxPerSecond)
+        .logged(logged.get())
+        .dropped(dropped.get())
+        .build();
+  }
+
+  /**
+   * This method changes the settings. The counts of logged and dropped statements are kept.
+   *
+   * @param sampleEvery log 1 in this many statements, or none if 0
+   * @param maxPerSecond the most statements to log in any one second
+   * @return the new settings
+   */
+  public SqlTraceSettings setSettings(int sampleEvery, int maxPerSecond) {
+    this.sampleEvery = sampleEvery;
+    this.maxPerSecond = maxPerSecond;
+    log.info(
+        "SQL tracing set to 1 in {} statements, at most {} per second", sampleEvery, maxPerSecond);
+    return getSettings();
+  }
+}
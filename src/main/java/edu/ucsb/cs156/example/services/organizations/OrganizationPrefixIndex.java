@@ -0,0 +1,136 @@
+package edu.ucsb.cs156.example.services.organizations;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index of UCSB organizations by the prefixes of their code, short name and full
+ * name.
+ *
+ * <p>Each field is normalized to lower case words separated by single spaces, and indexed once
+ * from the start of each of its words, so both "computer sc" and "sci" find "Computer Science".
+ * The keys are kept in one sorted array; a lookup is a binary search for the first key with
+ * the prefix followed by a scan of the keys that have it.
+ */
+class OrganizationPrefixIndex {
+
+  // the fields of an organization, in the order their matches are ranked
+  private static final int CODE = 0;
+  private static final int SHORT_NAME = 1;
+  private static final int FULL_NAME = 2;
+
+  /**
+   * A key and the organization it was taken from. Rank orders the matches of a prefix: first by
+   * field, then matches at the start of the field before those at a later word.
+   */
+  private record Entry(String key, int rank, UCSBOrganization organization) {}
+
+  private record Match(int rank, UCSBOrganization organization) {}
+
+  private static final Comparator<Match> MATCH_ORDER =
+      Comparator.comparingInt(Match::rank)
+          .thenComparing(match -> match.organization().getOrgCode());
+
+  private final String[] keys;
+  private final Entry[] entries;
+
+  /**
+   * This constructor builds the index.
+   *
+   * @param organizations the organizations to index
+   */
+  OrganizationPrefixIndex(Collection<UCSBOrganization> organizations) {
+    List<Entry> all = new ArrayList<>();
+    for (UCSBOrganization organization : organizations) {
+      addField(all, organization.getOrgCode(), CODE, organization);
+      addField(all, organization.getOrgTranslationShort(), SHORT_NAME, organization);
+      addField(all, organization.getOrgTranslation(), FULL_NAME, organization);
+    }
+    all.sort(Comparator.comparing(Entry::key));
+    entries = all.toArray(new Entry[0]);
+    keys = all.stream().map(Entry::key).toArray(String[]::new);
+  }
+
+  private static void addField(
+      List<Entry> all, String field, int fieldOrder, UCSBOrganization organization) {
+    String normalized = normalize(field);
+    if (normalized.isEmpty()) {
+      return;
+    }
+    all.add(new Entry(normalized, fieldOrder * 2, organization));
+    for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+      all.add(new Entry(normalized.substring(i + 1), fieldOrder * 2 + 1, organization));
+    }
+  }
+
+  /**
+   * Lower cases text and collapses each run of characters other than letters and digits into a
+   * single space.
+   *
+   * @param text the text, which may be null
+   * @return the normalized text, with no leading or trailing space
+   */
+  static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+  }
+
+  /**
+   * This method finds the organizations with a field, or a word of a field, that starts with a
+   * prefix.
+   *
+   * @param prefix the prefix, which is normalized first
+   * @param k the most organizations to return
+   * @param includeInactive whether to return inactive organizations
+   * @return up to k organizations, or none if the prefix is blank; those matching on their code
+   *     first, then on their short name, then on their full name, and within each those matching
+   *     at the start of the field first
+   */
+  List<UCSBOrganization> find(String prefix, int k, boolean includeInactive) {
+    String normalized = normalize(prefix);
+    if (normalized.isEmpty()) {
+      return List.of();
+    }
+    Map<String, Match> best = new HashMap<>();
+    for (int i = lowerBound(normalized);
+        i < keys.length && keys[i].startsWith(normalized);
+        i++) {
+      Entry entry = entries[i];
+      UCSBOrganization organization = entry.organization();
+      if (includeInactive || !organization.getInactive()) {
+        best.merge(
+            organization.getOrgCode(),
+            new Match(entry.rank(), organization),
+            (a, b) -> a.rank() <= b.rank() ? a : b);
+      }
+    }
+    return best.values().stream()
+        .sorted(MATCH_ORDER)
+        .limit(k)
+        .map(Match::organization)
+        .toList();
+  }
+
+  // the index of the first key that is not less than the prefix
+  private int lowerBound(String prefix) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (keys[middle].compareTo(prefix) < 0) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,62 @@
+package edu.ucsb.cs156.example.services.organizations;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service suggests UCSB organizations as a name is typed, from a prefix index of their codes
+ * and names kept in memory.
+ *
+ * <p>The index is built when it is first needed, and built again whenever an organization is
+ * created, changed or deleted, on this instance or, through the CacheInvalidationService, on
+ * another.
+ */
+@Service
+public class OrganizationTypeaheadService {
+
+  @Autowired private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  private volatile OrganizationPrefixIndex index;
+
+  /**
+   * This method returns the organizations whose code or name, or a word of their name, starts
+   * with a prefix.
+   *
+   * @param prefix the prefix, compared without regard to case or punctuation
+   * @param k the most organizations to return
+   * @param includeInactive whether to return inactive organizations
+   * @return up to k organizations, best matches first
+   */
+  public List<UCSBOrganization> suggest(String prefix, int k, boolean includeInactive) {
+    OrganizationPrefixIndex current = index;
+    if (current == null) {
+      current = rebuild();
+    }
+    return current.find(prefix, k, includeInactive);
+  }
+
+  /**
+   * This method rebuilds the index when an organization changes.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() == UCSBOrganization.class) {
+      rebuild();
+    }
+  }
+
+  synchronized OrganizationPrefixIndex rebuild() {
+    List<UCSBOrganization> organizations = new ArrayList<>();
+    ucsbOrganizationRepository.findAll().forEach(organizations::add);
+    index = new OrganizationPrefixIndex(organizations);
+    return index;
+  }
+}
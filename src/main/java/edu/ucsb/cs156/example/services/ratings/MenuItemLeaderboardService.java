@@ -0,0 +1,189 @@
+package edu.ucsb.cs156.example.services.ratings;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.events.MenuItemRatingsChangedEvent;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service keeps an in-memory leaderboard of the top-rated menu items of each dining commons,
+ * and of each station of each dining commons.
+ *
+ * <p>Each ranking is a skip list ordered by score, so the top n items are read in O(log m + n) for
+ * m ranked items, and an item whose rating changes is moved in O(log m). Ratings are taken from
+ * {@link MenuItemRatingsChangedEvent}s and menu items from {@link EntityChangedEvent}s once their
+ * transactions commit. Changes that this instance does not see, such as those made by other
+ * instances or by imports, are picked up when the leaderboard is rebuilt from the database every
+ * {@code app.leaderboard.rebuild-ms}.
+ *
+ * <p>The score of an item is the Bayesian average {@code (w * m + starsSum) / (w + reviewCount)},
+ * where the prior mean {@code m} and weight {@code w} are fixed by configuration rather than taken
+ * from the current reviews, so that one review only ever moves its own item.
+ *
+ * <p>Readers never lock. Writers, including rebuilds, are serialized; a rebuild fills a new
+ * leaderboard and then replaces the old one, so readers never see it half filled.
+ */
+@Slf4j
+@Service
+public class MenuItemLeaderboardService {
+
+  /** Highest score first; ties go to the item with more reviews, then the lower id. */
+  static final Comparator<RankedMenuItem> RANK_ORDER =
+      Comparator.comparingDouble(RankedMenuItem::getScore)
+          .thenComparingLong(RankedMenuItem::getReviewCount)
+          .reversed()
+          .thenComparingLong(RankedMenuItem::getItemId);
+
+  @Autowired private UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired private MenuItemRatingRepository menuItemRatingRepository;
+
+  @Value("${app.leaderboard.prior-mean:3.0}")
+  private double priorMean;
+
+  @Value("${app.leaderboard.prior-weight:5}")
+  private double priorWeight;
+
+  private volatile Leaderboard leaderboard = new Leaderboard();
+
+  /**
+   * This method returns the top-rated menu items of a dining commons, or of one of its stations.
+   *
+   * @param diningCommonsCode the code of the dining commons, e.g. "ortega"
+   * @param station the station, or null for the whole dining commons
+   * @param n the number of items to return
+   * @return up to n items with at least one review, best first
+   */
+  public List<RankedMenuItem> top(String diningCommonsCode, String station, int n) {
+    NavigableSet<RankedMenuItem> ranking =
+        leaderboard.rankings.get(new RankingKey(diningCommonsCode, station));
+    if (ranking == null) {
+      return List.of();
+    }
+    return ranking.stream().limit(n).toList();
+  }
+
+  /**
+   * This method moves the items whose ratings changed.
+   *
+   * @param event the new ratings
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onRatingsChanged(MenuItemRatingsChangedEvent event) {
+    for (MenuItemRating rating : event.getRatings()) {
+      leaderboard.putRating(rating);
+    }
+  }
+
+  /**
+   * This method moves a menu item that was created, changed or deleted. For changes relayed from
+   * another instance the menu item is read again from the database.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != UCSBDiningCommonsMenuItem.class) {
+      return;
+    }
+    long itemId = Long.parseLong(event.getEntityId());
+    UCSBDiningCommonsMenuItem menuItem = event.resolve(ucsbDiningCommonsMenuItemRepository);
+    if (menuItem == null) {
+      leaderboard.removeMenuItem(itemId);
+    } else {
+      leaderboard.putMenuItem(menuItem);
+    }
+  }
+
+  /** This method rebuilds the leaderboard from the menu items and ratings in the database. */
+  @Scheduled(fixedDelayString = "${app.leaderboard.rebuild-ms:600000}")
+  public synchronized void rebuild() {
+    Leaderboard fresh = new Leaderboard();
+    ucsbDiningCommonsMenuItemRepository.findAll().forEach(fresh::putMenuItem);
+    menuItemRatingRepository.findAll().forEach(fresh::putRating);
+    leaderboard = fresh;
+    log.debug("rebuilt the menu item leaderboard with {} ranked items", fresh.ranked.size());
+  }
+
+  double score(long reviewCount, long starsSum) {
+    return (priorWeight * priorMean + starsSum) / (priorWeight + reviewCount);
+  }
+
+  /** One ranking: a whole dining commons when station is null, or one station of it. */
+  private record RankingKey(String diningCommonsCode, String station) {}
+
+  /**
+   * The menu items, their ratings and the rankings. Only one thread may change it at a time, but
+   * any number may read the rankings meanwhile.
+   */
+  private class Leaderboard {
+    private final Map<Long, UCSBDiningCommonsMenuItem> menuItems = new ConcurrentHashMap<>();
+    private final Map<Long, MenuItemRating> ratings = new ConcurrentHashMap<>();
+    private final Map<Long, RankedMenuItem> ranked = new ConcurrentHashMap<>();
+    private final Map<RankingKey, NavigableSet<RankedMenuItem>> rankings =
+        new ConcurrentHashMap<>();
+
+    void putMenuItem(UCSBDiningCommonsMenuItem menuItem) {
+      menuItems.put(menuItem.getId(), menuItem);
+      rerank(menuItem.getId());
+    }
+
+    void removeMenuItem(long itemId) {
+      menuItems.remove(itemId);
+      rerank(itemId);
+    }
+
+    void putRating(MenuItemRating rating) {
+      ratings.put(rating.getItemId(), rating);
+      rerank(rating.getItemId());
+    }
+
+    private void rerank(long itemId) {
+      RankedMenuItem previous = ranked.remove(itemId);
+      if (previous != null) {
+        ranking(previous.getDiningCommonsCode(), null).remove(previous);
+        ranking(previous.getDiningCommonsCode(), previous.getStation()).remove(previous);
+      }
+
+      UCSBDiningCommonsMenuItem menuItem = menuItems.get(itemId);
+      MenuItemRating rating = ratings.get(itemId);
+      if (menuItem == null || rating == null || rating.getReviewCount() == 0) {
+        return;
+      }
+      RankedMenuItem current =
+          RankedMenuItem.builder()
+              .itemId(itemId)
+              .name(menuItem.getName())
+              .diningCommonsCode(menuItem.getDiningCommonsCode())
+              .station(menuItem.getStation())
+              .reviewCount(rating.getReviewCount())
+              .average(rating.getAverage())
+              .score(score(rating.getReviewCount(), rating.getStarsSum()))
+              .build();
+      ranked.put(itemId, current);
+      ranking(current.getDiningCommonsCode(), null).add(current);
+      ranking(current.getDiningCommonsCode(), current.getStation()).add(current);
+    }
+
+    private NavigableSet<RankedMenuItem> ranking(String diningCommonsCode, String station) {
+      return rankings.computeIfAbsent(
+          new RankingKey(diningCommonsCode, station),
+          key -> new ConcurrentSkipListSet<>(RANK_ORDER));
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package edu.ucsb.cs156.example.services.ratings;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemRatingsChangedEvent;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * This service maintains the MenuItemRating of each menu item as reviews are created, updated and
+ * deleted, and reads them back.
+ *
+ * <p>Each change adds or subtracts the reviews from the rating row of their item, which is locked
+ * for the rest of the transaction; the reviews are never read again. Callers should change the
+ * reviews and the ratings in one transaction. When several items change at once their rows are
+ * locked in order of item id, so that two bulk changes cannot deadlock.
+ *
+ * <p>Rating rows are created by the first review of an item. If two transactions add the first
+ * review of the same item at the same time, one of them fails on the primary key and is rolled
+ * back.
+ *
+ * <p>Every change publishes a {@link MenuItemRatingsChangedEvent} with the new ratings.
+ */
+@Service
+public class MenuItemRatingService {
+
+  @Autowired private MenuItemRatingRepository menuItemRatingRepository;
+
+  @Autowired private ApplicationEventPublisher applicationEventPublisher;
+
+  /**
+   * This method counts new reviews in the ratings of their items.
+   *
+   * @param reviews the reviews that were created
+   */
+  @Transactional
+  public void reviewsAdded(Collection<MenuItemReview> reviews) {
+    reviewsChanged(List.of(), reviews);
+  }
+
+  /**
+   * This method removes deleted reviews from the ratings of their items.
+   *
+   * @param reviews the reviews that were deleted
+   */
+  @Transactional
+  public void reviewsRemoved(Collection<MenuItemReview> reviews) {
+    reviewsChanged(reviews, List.of());
+  }
+
+  /**
+   * This method moves changed reviews from the ratings as they were to the ratings as they are. The
+   * item or the stars of a review may have changed.
+   *
+   * @param before the reviews as they were before they were changed
+   * @param after the same reviews as they are now
+   */
+  @Transactional
+  public void reviewsChanged(Collection<MenuItemReview> before, Collection<MenuItemReview> after) {
+    SortedSet<Long> itemIds = new TreeSet<>();
+    before.forEach(review -> itemIds.add(review.getItemId()));
+    after.forEach(review -> itemIds.add(review.getItemId()));
+
+    Map<Long, MenuItemRating> ratings = new HashMap<>();
+    for (long itemId : itemIds) {
+      ratings.put(
+          itemId,
+          menuItemRatingRepository
+              .findWithLockByItemId(itemId)
+              .orElseGet(() -> emptyRating(itemId)));
+    }
+
+    before.forEach(review -> count(ratings.get(review.getItemId()), review, -1));
+    after.forEach(review -> count(ratings.get(review.getItemId()), review, 1));
+    menuItemRatingRepository.saveAll(ratings.values());
+    applicationEventPublisher.publishEvent(
+        new MenuItemRatingsChangedEvent(List.copyOf(ratings.values())));
+  }
+
+  /**
+   * This method returns the rating of a menu item.
+   *
+   * @param itemId the id of the menu item
+   * @return the rating, with a count of zero if the item has no reviews
+   */
+  public MenuItemRating getRating(long itemId) {
+    return menuItemRatingRepository.findById(itemId).orElseGet(() -> emptyRating(itemId));
+  }
+
+  /**
+   * This method returns a page of the ratings of the reviewed menu items.
+   *
+   * @param pageable the page to return, and its order
+   * @return the page of ratings
+   */
+  public Page<MenuItemRating> getRatings(Pageable pageable) {
+    return menuItemRatingRepository.findAll(pageable);
+  }
+
+  private static void count(MenuItemRating rating, MenuItemReview review, int sign) {
+    rating.setReviewCount(rating.getReviewCount() + sign);
+    rating.setStarsSum(rating.getStarsSum() + sign * review.getStars());
+    switch (review.getStars()) {
+      case 0 -> rating.setZeroStars(rating.getZeroStars() + sign);
+      case 1 -> rating.setOneStar(rating.getOneStar() + sign);
+      case 2 -> rating.setTwoStars(rating.getTwoStars() + sign);
+      case 3 -> rating.setThreeStars(rating.getThreeStars() + sign);
+      case 4 -> rating.setFourStars(rating.getFourStars() + sign);
+      default -> rating.setFiveStars(rating.getFiveStars() + sign);
+    }
+    // the latest review time is not moved back when a review is removed
+    if (sign > 0
+        && review.getDateReviewed() != null
+        && (rating.getLastReviewed() == null
+            || review.getDateReviewed().isAfter(rating.getLastReviewed()))) {
+      rating.setLastReviewed(review.getDateReviewed());
+    }
+  }
+
+  private static MenuItemRating emptyRating(long itemId) {
+    return MenuItemRating.builder().itemId(itemId).build();
+  }
+}
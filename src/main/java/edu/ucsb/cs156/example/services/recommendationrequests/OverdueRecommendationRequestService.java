@@ -0,0 +1,117 @@
+package edu.ucsb.cs156.example.services.recommendationrequests;
+
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import java.time.Clock;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service counts the overdue recommendation requests of each professor: those that are not
+ * done and whose dateNeeded has passed.
+ *
+ * <p>The counts are kept up to date incrementally. Every {@code
+ * app.recommendationrequests.overdue-ms} only the pending requests that became due since the
+ * previous check are read, from the index on (DONE, DATE_NEEDED); requests that are created,
+ * changed or deleted through the API are moved as their transactions commit. Changes made by other
+ * instances are picked up when the counts are rebuilt every {@code
+ * app.recommendationrequests.overdue-rebuild-ms}.
+ */
+@Slf4j
+@Service
+public class OverdueRecommendationRequestService {
+
+  @Autowired private RecommendationRequestRepository recommendationRequestRepository;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  // the professor of each overdue request, by request id
+  private final Map<Long, String> overdue = new HashMap<>();
+
+  private final Map<String, Long> counts = new HashMap<>();
+
+  // requests due at or before this time have been counted; null until the first check
+  private ZonedDateTime checkedUpTo;
+
+  /**
+   * This method returns the number of overdue requests of each professor.
+   *
+   * @return the counts by professor email, without professors that have none
+   */
+  public synchronized Map<String, Long> overdueCounts() {
+    return new TreeMap<>(counts);
+  }
+
+  /** This method counts the pending requests that have become due since the previous check. */
+  @Scheduled(fixedDelayString = "${app.recommendationrequests.overdue-ms:60000}")
+  public synchronized void checkOverdue() {
+    ZonedDateTime now = ZonedDateTime.now(clock);
+    List<RecommendationRequest> due =
+        checkedUpTo == null
+            ? recommendationRequestRepository.findByDoneFalseAndDateNeededLessThanEqual(now)
+            : recommendationRequestRepository
+                .findByDoneFalseAndDateNeededGreaterThanAndDateNeededLessThanEqual(
+                    checkedUpTo, now);
+    due.forEach(this::add);
+    checkedUpTo = now;
+  }
+
+  /** This method counts the overdue requests again from scratch. */
+  @Scheduled(fixedDelayString = "${app.recommendationrequests.overdue-rebuild-ms:3600000}")
+  public synchronized void rebuild() {
+    overdue.clear();
+    counts.clear();
+    checkedUpTo = null;
+    checkOverdue();
+    log.debug("counted {} overdue recommendation requests", overdue.size());
+  }
+
+  /**
+   * This method moves a request that was created, changed or deleted. For changes relayed from
+   * another instance the request is read again from the database.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    // before the first check, that check will count everything
+    if (event.getEntityType() != RecommendationRequest.class || checkedUpTo == null) {
+      return;
+    }
+    long id = Long.parseLong(event.getEntityId());
+    remove(id);
+    RecommendationRequest request = event.resolve(recommendationRequestRepository);
+    // a request due later is counted by the check that passes its dateNeeded
+    if (request != null
+        && !request.getDone()
+        && request.getDateNeeded() != null
+        && !request.getDateNeeded().isAfter(checkedUpTo)) {
+      add(request);
+    }
+  }
+
+  private void add(RecommendationRequest request) {
+    if (request.getProfessorEmail() == null) {
+      return;
+    }
+    remove(request.getId());
+    overdue.put(request.getId(), request.getProfessorEmail());
+    counts.merge(request.getProfessorEmail(), 1L, Long::sum);
+  }
+
+  private void remove(long id) {
+    String professorEmail = overdue.remove(id);
+    if (professorEmail != null) {
+      counts.computeIfPresent(professorEmail, (email, count) -> count == 1 ? null : count - 1);
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package edu.ucsb.cs156.example.services.restaurants;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.RestaurantSearchResult;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service finds restaurants by name and description even when the search is misspelled,
+ * from an in-memory index of the trigrams (three letter sequences) of each restaurant.
+ *
+ * <p>The similarity of a restaurant to a search is the fraction of the trigrams of the search that
+ * are in its name, or, scaled by {@value #DESCRIPTION_WEIGHT}, in its description, whichever is
+ * higher. Restaurants below {@code app.restaurants.search.min-similarity} are left out. Trigrams
+ * are taken both from each word and from the words run together, so "tacobel" finds "Taco Bell"
+ * and "taco bel" does too. Only the restaurants that share a trigram with the search are looked at.
+ *
+ * <p>The index follows {@link EntityChangedEvent}s once their transactions commit. Changes made on
+ * other instances arrive as events while "restaurants" is listed in {@code
+ * app.cache.invalidation.entities}, as it is in application.properties, and the restaurant is then
+ * read again from the database. Anything else, such as a row edited through the H2 console, is
+ * picked up when the index is rebuilt every {@code app.restaurants.search.rebuild-ms}.
+ *
+ * <p>A search holds the read lock while it scores candidates. Each change re-indexes one restaurant
+ * under the write lock, and a rebuild builds its index unlocked and only takes the write lock to
+ * swap it in.
+ */
+@Slf4j
+@Service
+public class RestaurantSearchService {
+
+  static final double DESCRIPTION_WEIGHT = 0.8;
+
+  @Autowired private RestaurantRepository restaurantRepository;
+
+  @Value("${app.restaurants.search.min-similarity:0.5}")
+  private double minSimilarity;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private Index index = new Index();
+
+  /**
+   * This method searches the restaurants.
+   *
+   * @param query the name or description to search for, possibly misspelled
+   * @param limit the most restaurants to return
+   * @return up to limit restaurants, most similar first; ties go to the restaurant whose name is
+   *     closest in length to the search, then to the lower id
+   */
+  public List<RestaurantSearchResult> search(String query, int limit) {
+    Set<String> queryTrigrams = trigrams(query);
+    lock.readLock().lock();
+    try {
+      List<Match> matches = new ArrayList<>();
+      index
+          .hits(queryTrigrams)
+          .forEach(
+              (id, hits) -> {
+                Document document = index.documents.get(id);
+                double similarity =
+                    Math.max(
+                        (double) hits.name() / queryTrigrams.size(),
+                        DESCRIPTION_WEIGHT * hits.description() / queryTrigrams.size());
+                if (similarity >= minSimilarity) {
+                  int extra = Math.abs(document.nameTrigrams().size() - queryTrigrams.size());
+                  matches.add(new Match(document.restaurant(), similarity, extra));
+                }
+              });
+      return matches.stream()
+          .sorted(
+              Comparator.comparingDouble(Match::similarity)
+                  .reversed()
+                  .thenComparingInt(Match::extra)
+                  .thenComparingLong(match -> match.restaurant().getId()))
+          .limit(limit)
+          .map(match -> new RestaurantSearchResult(match.restaurant(), match.similarity()))
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * This method indexes a restaurant that was created or changed, or removes one that was deleted.
+   * For changes relayed from another instance the restaurant is read again from the database.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != Restaurant.class) {
+      return;
+    }
+    long id = Long.parseLong(event.getEntityId());
+    Restaurant restaurant = event.resolve(restaurantRepository);
+    lock.writeLock().lock();
+    try {
+      index.remove(id);
+      if (restaurant != null) {
+        index.add(restaurant);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** This method rebuilds the index from the restaurants in the database. */
+  @Scheduled(fixedDelayString = "${app.restaurants.search.rebuild-ms:600000}")
+  public synchronized void rebuild() {
+    Index fresh = new Index();
+    restaurantRepository.findAll().forEach(fresh::add);
+    lock.writeLock().lock();
+    try {
+      index = fresh;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.debug(
+        "rebuilt the restaurant index with {} restaurants and {} trigrams",
+        fresh.documents.size(),
+        fresh.postings.size());
+  }
+
+  /**
+   * Returns the trigrams of text, after lower casing it and splitting it into words of letters and
+   * digits. Like pg_trgm, each word is padded with two spaces before and one after, so that short
+   * words have trigrams and the start of a word counts for more; the words are also run together
+   * and padded the same way, so that searches need not split words where the text does.
+   *
+   * @param text the text, which may be null
+   * @return the trigrams
+   */
+  static Set<String> trigrams(String text) {
+    Set<String> trigrams = new HashSet<>();
+    if (text == null) {
+      return trigrams;
+    }
+    String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+    for (String word : words) {
+      addTrigrams(trigrams, word);
+    }
+    addTrigrams(trigrams, String.join("", words));
+    return trigrams;
+  }
+
+  private static void addTrigrams(Set<String> trigrams, String word) {
+    if (word.isEmpty()) {
+      return;
+    }
+    String padded = "  " + word + " ";
+    for (int i = 0; i + 3 <= padded.length(); i++) {
+      trigrams.add(padded.substring(i, i + 3));
+    }
+  }
+
+  private record Document(
+      Restaurant restaurant, Set<String> nameTrigrams, Set<String> descriptionTrigrams) {}
+
+  private record Hits(int name, int description) {}
+
+  private record Match(Restaurant restaurant, double similarity, int extra) {}
+
+  /** The restaurants by id, and for each trigram the restaurants that have it. */
+  private static class Index {
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+
+    void add(Restaurant restaurant) {
+      Document document =
+          new Document(
+              restaurant, trigrams(restaurant.getName()), trigrams(restaurant.getDescription()));
+      documents.put(restaurant.getId(), document);
+      Set<String> all = new HashSet<>(document.nameTrigrams());
+      all.addAll(document.descriptionTrigrams());
+      for (String trigram : all) {
+        postings.computeIfAbsent(trigram, t -> new HashSet<>()).add(restaurant.getId());
+      }
+    }
+
+    void remove(long id) {
+      Document document = documents.remove(id);
+      if (document == null) {
+        return;
+      }
+      Set<String> all = new HashSet<>(document.nameTrigrams());
+      all.addAll(document.descriptionTrigrams());
+      for (String trigram : all) {
+        Set<Long> ids = postings.get(trigram);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+          postings.remove(trigram);
+        }
+      }
+    }
+
+    /** The number of trigrams each restaurant shares with the search, in each field. */
+    Map<Long, Hits> hits(Set<String> queryTrigrams) {
+      Map<Long, Hits> hits = new HashMap<>();
+      for (String trigram : queryTrigrams) {
+        for (long id : postings.getOrDefault(trigram, Set.of())) {
+          Document document = documents.get(id);
+          Hits found =
+              new Hits(
+                  document.nameTrigrams().contains(trigram) ? 1 : 0,
+                  document.descriptionTrigrams().contains(trigram) ? 1 : 0);
+          hits.merge(
+              id,
+              found,
+              (a, b) -> new Hits(a.name() + b.name(), a.description() + b.description()));
+        }
+      }
+      return hits;
+    }
+  }
+}
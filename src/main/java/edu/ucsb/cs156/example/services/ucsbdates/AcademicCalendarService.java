@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.services.ucsbdates;
+
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service keeps the academic calendar, i.e. the UCSBDates that have a date, in memory in date
+ * order, and answers range queries from it without reading the table.
+ *
+ * <p>The dates are kept in a skip list ordered by (localDateTime, id), so the dates in a range are
+ * found in O(log n + k) for k dates in it. Dates are taken from {@link EntityChangedEvent}s once
+ * their transactions commit, including changes relayed from other instances, for which the date is
+ * read again from the database. Changes that no event is published for, such as imports, are
+ * picked up when the calendar is reloaded from the database every {@code
+ * app.ucsbdates.calendar.rebuild-ms}.
+ *
+ * <p>Readers never lock. Writers, including reloads, are serialized; a reload fills a new calendar
+ * and then replaces the old one, so readers never see it half filled.
+ */
+@Slf4j
+@Service
+public class AcademicCalendarService {
+
+  /** Earliest first; dates at the same time are ordered by id. */
+  static final Comparator<UCSBDate> CALENDAR_ORDER =
+      Comparator.comparing(UCSBDate::getLocalDateTime).thenComparingLong(UCSBDate::getId);
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  private Clock clock = Clock.systemDefaultZone();
+
+  private volatile Calendar calendar = new Calendar();
+
+  /**
+   * This method returns the dates in a range.
+   *
+   * @param from the start of the range, inclusive
+   * @param to the end of the range, inclusive
+   * @return the dates from {@code from} to {@code to}, earliest first
+   */
+  public List<UCSBDate> between(LocalDateTime from, LocalDateTime to) {
+    return List.copyOf(
+        calendar.dates.subSet(bound(from, Long.MIN_VALUE), true, bound(to, Long.MAX_VALUE), true));
+  }
+
+  /**
+   * This method returns the next dates from now.
+   *
+   * @param n the number of dates to return
+   * @return up to n dates at or after the current time, earliest first
+   */
+  public List<UCSBDate> upcoming(int n) {
+    return calendar.dates.tailSet(bound(LocalDateTime.now(clock), Long.MIN_VALUE), true).stream()
+        .limit(n)
+        .toList();
+  }
+
+  /**
+   * This method returns the dates on a day.
+   *
+   * @param day the day
+   * @return the dates on that day, earliest first
+   */
+  public List<UCSBDate> onDay(LocalDate day) {
+    return List.copyOf(
+        calendar.dates.subSet(
+            bound(day.atStartOfDay(), Long.MIN_VALUE),
+            true,
+            bound(day.plusDays(1).atStartOfDay(), Long.MIN_VALUE),
+            false));
+  }
+
+  /**
+   * This method moves a date that was created, changed or deleted. For changes relayed from another
+   * instance the date is read again from the database.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != UCSBDate.class) {
+      return;
+    }
+    long id = Long.parseLong(event.getEntityId());
+    UCSBDate date = event.resolve(ucsbDateRepository);
+    calendar.remove(id);
+    if (date != null) {
+      calendar.put(date);
+    }
+  }
+
+  /** This method reloads the calendar from the database. */
+  @Scheduled(fixedDelayString = "${app.ucsbdates.calendar.rebuild-ms:3600000}")
+  public synchronized void rebuild() {
+    Calendar fresh = new Calendar();
+    ucsbDateRepository.findByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc().forEach(fresh::put);
+    calendar = fresh;
+    log.debug("loaded {} dates into the academic calendar", fresh.byId.size());
+  }
+
+  // a key that sorts before or after every date at the same time, for the ends of a range
+  private static UCSBDate bound(LocalDateTime localDateTime, long id) {
+    return UCSBDate.builder().id(id).localDateTime(localDateTime).build();
+  }
+
+  /**
+   * The dates by id and in calendar order. Only one thread may change it at a time, but any number
+   * may read it meanwhile.
+   */
+  private static class Calendar {
+    private final Map<Long, UCSBDate> byId = new ConcurrentHashMap<>();
+    private final NavigableSet<UCSBDate> dates = new ConcurrentSkipListSet<>(CALENDAR_ORDER);
+
+    // dates without a time are not on the calendar
+    void put(UCSBDate date) {
+      if (date.getLocalDateTime() != null) {
+        byId.put(date.getId(), date);
+        dates.add(date);
+      }
+    }
+
+    void remove(long id) {
+      UCSBDate previous = byId.remove(id);
+      if (previous != null) {
+        dates.remove(previous);
+      }
+    }
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.services.ucsbdates;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * This service keeps the UCSBDates of each quarter in memory as the JSON that is sent to clients,
+ * so that reading a quarter again needs no query, no entities and no serialization.
+ *
+ * <p>A quarter is encoded the first time it is asked for, and dropped when one of its dates is
+ * created, changed or deleted, so that it is encoded again the next time. A date that moves to
+ * another quarter drops both quarters. Changes relayed from another instance drop every quarter,
+ * since they do not say which quarter the date was in. Imports drop the quarters of each batch of
+ * dates as it is saved.
+ *
+ * <p>A quarter encoded while one of its dates was being changed is returned but not kept, so the
+ * JSON that is kept is never older than the last change.
+ */
+@Service
+public class QuarterSnapshotService {
+
+  @Autowired private UCSBDateRepository ucsbDateRepository;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+  // counts the changes, so that a quarter encoded across a change is not kept
+  private long generation;
+
+  /** The JSON of a quarter, and the ids of its dates. */
+  private record Snapshot(byte[] json, Set<Long> ids) {}
+
+  /**
+   * This method returns the dates of a quarter as JSON.
+   *
+   * @param quarterYYYYQ the quarter in the format YYYYQ, e.g. 20241 for Winter 2024
+   * @return a JSON array of the dates of the quarter, as returned by findAllByQuarterYYYYQ; callers
+   *     must not change it
+   * @throws JsonProcessingException if the dates cannot be encoded
+   */
+  public byte[] quarter(String quarterYYYYQ) throws JsonProcessingException {
+    Snapshot snapshot = snapshots.get(quarterYYYYQ);
+    if (snapshot != null) {
+      return snapshot.json();
+    }
+
+    long before = generation();
+    List<UCSBDate> dates = new ArrayList<>();
+    ucsbDateRepository.findAllByQuarterYYYYQ(quarterYYYYQ).forEach(dates::add);
+    Snapshot fresh =
+        new Snapshot(
+            objectMapper.writeValueAsBytes(dates),
+            dates.stream().map(UCSBDate::getId).collect(Collectors.toSet()));
+    synchronized (this) {
+      if (generation == before) {
+        snapshots.put(quarterYYYYQ, fresh);
+      }
+    }
+    return fresh.json();
+  }
+
+  /**
+   * This method drops the quarters of a date that was created, changed or deleted.
+   *
+   * @param event the change that was made
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onEntityChanged(EntityChangedEvent event) {
+    if (event.getEntityType() != UCSBDate.class) {
+      return;
+    }
+    generation++;
+    if (event.getRemote()) {
+      snapshots.clear();
+      return;
+    }
+    UCSBDate date = (UCSBDate) event.getEntity();
+    // the quarter the date was in, which differs from its quarter now if it moved
+    snapshots.values().removeIf(snapshot -> snapshot.ids().contains(date.getId()));
+    drop(date.getQuarterYYYYQ());
+  }
+
+  /**
+   * This method drops the quarters of dates that were saved without an event, e.g. by an import.
+   *
+   * @param dates the dates that were saved
+   */
+  public synchronized void datesSaved(Collection<UCSBDate> dates) {
+    generation++;
+    dates.forEach(date -> drop(date.getQuarterYYYYQ()));
+  }
+
+  private synchronized long generation() {
+    return generation;
+  }
+
+  private void drop(String quarterYYYYQ) {
+    if (quarterYYYYQ != null) {
+      snapshots.remove(quarterYYYYQ);
+    }
+  }
+}
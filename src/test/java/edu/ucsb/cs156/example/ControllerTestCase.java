@@ -2,6 +2,7 @@ package edu.ucsb.cs156.example;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.models.BulkItemResult;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
@@ -33,4 +34,9 @@ public abstract class ControllerTestCase {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
   }
+
+  protected BulkItemResult bulkItemResult(
+      int index, BulkItemResult.Status status, String id, String message) {
+    return BulkItemResult.builder().index(index).status(status).id(id).message(message).build();
+  }
 }
@@ -0,0 +1,97 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.metrics.RepositoryMetricsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Optional;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.repository.Repository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RepositoryMetricsAspectTests {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private RepositoryMetricsAspect repositoryMetricsAspect;
+
+  private final ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+
+  /** A repository that implements only the Repository marker interface. */
+  static class BareRepository implements Runnable, Repository<User, Long> {
+    @Override
+    public void run() {}
+  }
+
+  @BeforeEach
+  public void setup() {
+    RepositoryMetricsService repositoryMetricsService = new RepositoryMetricsService();
+    ReflectionTestUtils.setField(repositoryMetricsService, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(repositoryMetricsService, "slowCallMs", 200L);
+    ReflectionTestUtils.setField(repositoryMetricsService, "nPlusOneThreshold", 20);
+    repositoryMetricsAspect = new RepositoryMetricsAspect();
+    ReflectionTestUtils.setField(
+        repositoryMetricsAspect, "repositoryMetricsService", repositoryMetricsService);
+
+    Signature signature = mock(Signature.class);
+    when(signature.getName()).thenReturn("findByEmail");
+    when(joinPoint.getSignature()).thenReturn(signature);
+    when(joinPoint.getArgs()).thenReturn(new Object[] {"phtcon@ucsb.edu"});
+  }
+
+  private long calls(String repository) {
+    return meterRegistry
+        .get("app.repository.calls")
+        .tags("repository", repository, "method", "findByEmail")
+        .timer()
+        .count();
+  }
+
+  @Test
+  public void calls_are_recorded_under_the_repository_interface() throws Throwable {
+    Optional<User> user = Optional.of(User.builder().build());
+    when(joinPoint.getThis()).thenReturn(mock(UserRepository.class));
+    when(joinPoint.proceed()).thenReturn(user);
+
+    assertEquals(user, repositoryMetricsAspect.timeRepositoryCall(joinPoint));
+    assertEquals(user, repositoryMetricsAspect.timeRepositoryCall(joinPoint));
+
+    assertEquals(2, calls("UserRepository"));
+    assertEquals(
+        2,
+        meterRegistry
+            .get("app.repository.rows")
+            .tags("repository", "UserRepository")
+            .summary()
+            .totalAmount());
+  }
+
+  @Test
+  public void calls_that_throw_are_recorded() throws Throwable {
+    when(joinPoint.getThis()).thenReturn(mock(UserRepository.class));
+    when(joinPoint.proceed()).thenThrow(new IllegalStateException("connection closed"));
+
+    assertThrows(
+        IllegalStateException.class, () -> repositoryMetricsAspect.timeRepositoryCall(joinPoint));
+
+    assertEquals(1, calls("UserRepository"));
+  }
+
+  @Test
+  public void a_repository_without_its_own_interface_is_named_after_its_class() throws Throwable {
+    when(joinPoint.getThis()).thenReturn(new BareRepository());
+    when(joinPoint.proceed()).thenReturn(null);
+
+    repositoryMetricsAspect.timeRepositoryCall(joinPoint);
+
+    assertEquals(1, calls("BareRepository"));
+  }
+}
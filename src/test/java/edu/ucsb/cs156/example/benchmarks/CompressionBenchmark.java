@@ -0,0 +1,174 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures how much gzip shrinks responses shaped like the application's, and how long it takes,
+ * at the levels used by Tomcat (6) and the response cache (9). The results are in
+ * docs/compression.md.
+ *
+ * <p>It is not a test, and only needs the JDK. Run it from the project directory with {@code java
+ * src/test/java/edu/ucsb/cs156/example/benchmarks/CompressionBenchmark.java}.
+ */
+public class CompressionBenchmark {
+
+  private static final int[] LEVELS = {1, 6, 9};
+
+  private static final String[] WORDS = {
+    "ALPHA", "ASSOCIATION", "BIOLOGY", "CLUB", "COMPUTER", "DANCE", "ENGINEERING", "FILM",
+    "GAUCHO", "GRADUATE", "HISTORY", "KAPPA", "LEAGUE", "MARINE", "MUSIC", "OUTDOORS", "PHI",
+    "SCIENCE", "SIGMA", "SOCIETY", "STUDENT", "SURF", "THETA", "UNION", "WOMEN", "ZETA"
+  };
+
+  private static final String[] DATE_NAMES = {
+    "First day of classes", "Last day of classes", "Finals week begins", "Pass time 1",
+    "Pass time 2", "Pass time 3", "Drop deadline", "Grades due", "Holiday"
+  };
+
+  /** A payload to compress. */
+  record Payload(String name, byte[] body) {}
+
+  public static void main(String[] args) throws IOException {
+    Random random = new Random(156);
+    List<Payload> payloads =
+        List.of(
+            new Payload("5,000 organizations", organizations(random, 5_000)),
+            new Payload("20,000 UCSB dates", dates(random, 20_000)),
+            new Payload("job log, 10,000 lines", jobLog(random, 10_000)),
+            new Payload("5 organizations", organizations(random, 5)));
+
+    System.out.printf("%s, %s%n", System.getProperty("java.vm.name"), Runtime.version());
+    System.out.println(
+        "| Payload | Size | Level 1 | Level 6 (Tomcat) | Level 9 (response cache) |\n"
+            + "|---------|-----:|---------|------------------|--------------------------|");
+    for (Payload payload : payloads) {
+      StringBuilder row =
+          new StringBuilder("| %s | %s |".formatted(payload.name(), size(payload.body().length)));
+      for (int level : LEVELS) {
+        double ratio = 100.0 * gzip(payload.body(), level).length / payload.body().length;
+        row.append(" %.1f%%, %.2f ms |".formatted(ratio, medianMillis(payload, level)));
+      }
+      System.out.println(row);
+    }
+  }
+
+  // the median of several runs, after enough runs for the JIT to compile the compressor
+  private static double medianMillis(Payload payload, int level) throws IOException {
+    long deadline = System.nanoTime() + 2_000_000_000L;
+    while (System.nanoTime() < deadline) {
+      gzip(payload.body(), level);
+    }
+    long[] runs = new long[21];
+    for (int i = 0; i < runs.length; i++) {
+      long start = System.nanoTime();
+      gzip(payload.body(), level);
+      runs[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(runs);
+    return runs[runs.length / 2] / 1e6;
+  }
+
+  static byte[] gzip(byte[] body, int level) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+    try (OutputStream out =
+        new GZIPOutputStream(compressed, 8192) {
+          {
+            def.setLevel(level);
+          }
+        }) {
+      out.write(body);
+    }
+    return compressed.toByteArray();
+  }
+
+  // compact JSON, as Jackson writes GET /api/ucsborganization/all
+  static byte[] organizations(Random random, int count) {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < count; i++) {
+      String shortName = words(random, 2 + random.nextInt(3));
+      String name = random.nextBoolean() ? shortName : shortName + " AT UCSB";
+      json.append(i == 0 ? "" : ",")
+          .append("{\"orgCode\":\"")
+          .append(initials(shortName))
+          .append(i)
+          .append("\",\"orgTranslationShort\":\"")
+          .append(shortName)
+          .append("\",\"orgTranslation\":\"")
+          .append(name)
+          .append("\",\"inactive\":")
+          .append(random.nextInt(5) == 0)
+          .append('}');
+    }
+    return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  // compact JSON, as Jackson writes GET /api/ucsbdates/all
+  static byte[] dates(Random random, int count) {
+    StringBuilder json = new StringBuilder("[");
+    LocalDate start = LocalDate.of(2000, 1, 1);
+    for (int i = 0; i < count; i++) {
+      LocalDate date = start.plusDays(random.nextInt(365 * 30));
+      int quarter = 1 + (date.getMonthValue() - 1) / 3;
+      json.append(i == 0 ? "" : ",")
+          .append("{\"id\":")
+          .append(i + 1)
+          .append(",\"quarterYYYYQ\":\"")
+          .append(date.getYear())
+          .append(quarter)
+          .append("\",\"name\":\"")
+          .append(DATE_NAMES[random.nextInt(DATE_NAMES.length)])
+          .append("\",\"localDateTime\":\"")
+          .append(date)
+          .append("T%02d:00:00\"}".formatted(random.nextInt(24)));
+    }
+    return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  // the log of an import job, as GET /api/jobs/logs/{id} returns it
+  static byte[] jobLog(Random random, int lines) {
+    StringBuilder log = new StringBuilder("Importing UCSBOrganization rows from CSV\n");
+    int rejected = 0;
+    for (int row = 1; row <= lines; row++) {
+      if (random.nextInt(20) == 0) {
+        rejected++;
+        log.append("Row %d rejected: orgCode is required%n".formatted(row));
+      } else {
+        log.append("Row %d imported: %s%n".formatted(row, words(random, 2)));
+      }
+    }
+    log.append("Done: %d rows imported, %d rejected%n".formatted(lines - rejected, rejected));
+    return log.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String words(Random random, int count) {
+    StringBuilder words = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      words.append(i == 0 ? "" : " ").append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return words.toString();
+  }
+
+  private static String initials(String words) {
+    StringBuilder initials = new StringBuilder();
+    for (String word : words.split(" ")) {
+      initials.append(word.charAt(0));
+    }
+    return initials.toString();
+  }
+
+  private static String size(int bytes) {
+    return bytes < 1024
+        ? "%d B".formatted(bytes)
+        : bytes < 1024 * 1024
+            ? "%d KB".formatted(bytes / 1024)
+            : "%.1f MB".formatted(bytes / (1024.0 * 1024));
+  }
+}
@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -14,26 +15,39 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.ArticleSearchResult;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.articles.ArticleSearchService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = ArticlesController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class ArticlesControllerTests extends ControllerTestCase {
   @MockBean ArticleRepository articleRepository;
   @MockBean UserRepository userRepository;
+  @MockBean ArticleSearchService articleSearchService;
+
+  @Autowired ApplicationEvents applicationEvents;
 
   // Authorization tests for /api/articles/admin/all
 
@@ -126,6 +140,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // assert
     verify(articleRepository, times(1)).save(eq(article1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("0", event.getEntityId());
+    assertEquals(article1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(article1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -238,6 +256,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
     // assert
     verify(articleRepository, times(1)).findById(67L);
     verify(articleRepository, times(1)).save(editedArticle); // should be saved with correct user
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
+    assertEquals(editedArticle, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -308,6 +330,10 @@ public class ArticlesControllerTests extends ControllerTestCase {
     // assert
     verify(articleRepository, times(1)).findById(15L);
     verify(articleRepository, times(1)).delete(eq(article1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
+    assertEquals(article1, event.getEntity());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 deleted", json.get("message"));
@@ -330,7 +356,332 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
     // assert
     verify(articleRepository, times(1)).findById(15L);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
     Map<String, Object> json = responseToJson(response);
     assertEquals("Article with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_articles_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_articles_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    Article first =
+        Article.builder()
+            .id(7)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    Article second =
+        Article.builder()
+            .id(8)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+    Article firstToSave =
+        Article.builder()
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    Article secondToSave =
+        Article.builder()
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+    Article savedFirst =
+        Article.builder()
+            .id(1)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    Article savedSecond =
+        Article.builder()
+            .id(2)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+
+    when(articleRepository.saveAll(any())).thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(2, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_articles_in_bulk() throws Exception {
+    // arrange
+
+    Article original =
+        Article.builder()
+            .id(67)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    Article edited =
+        Article.builder()
+            .id(67)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+    Article missing =
+        Article.builder()
+            .id(68)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+
+    when(articleRepository.findAllById(List.of(67L, 68L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.NOT_FOUND, "68", "Article with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_article_given_twice_is_only_edited_once_in_bulk() throws Exception {
+    // arrange
+
+    Article original =
+        Article.builder()
+            .id(67)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    Article first =
+        Article.builder()
+            .id(67)
+            .title("Article 2")
+            .url("https://example.org/2")
+            .explanation("Explanation 2")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+    Article second =
+        Article.builder()
+            .id(67)
+            .title("Article 3")
+            .url("https://example.org/3")
+            .explanation("Explanation 3")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+
+    when(articleRepository.findAllById(List.of(67L, 67L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).saveAll(List.of(first));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.INVALID, "67", "id 67 is given more than once"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_articles_in_bulk() throws Exception {
+    // arrange
+
+    Article existing =
+        Article.builder()
+            .id(15)
+            .title("Article 1")
+            .url("https://example.org/1")
+            .explanation("Explanation 1")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+
+    when(articleRepository.findAllById(List.of(15L, 16L, 15L))).thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/articles/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(articleRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "Article with id 16 not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "15", "Article with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  // Tests for GET /api/articles/search
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/articles/search?q=java")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_search() throws Exception {
+    // arrange
+    Article article =
+        Article.builder()
+            .id(1L)
+            .title("Java records")
+            .url("https://openjdk.org/jeps/395")
+            .explanation("JEP 395")
+            .email("phtcon@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    List<ArticleSearchResult> results = List.of(new ArticleSearchResult(article, 2.5));
+    when(articleSearchService.search("java records", 20)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/search").param("q", "java records"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_limits_the_number_of_results() throws Exception {
+    when(articleSearchService.search("java", 100)).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/articles/search?q=java&limit=1000")).andExpect(status().isOk());
+
+    verify(articleSearchService).search("java", 100);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_rejects_a_blank_query() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/search").param("q", " "))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "q must not be blank"),
+        responseToJson(response));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_rejects_a_limit_below_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/articles/search?q=java&limit=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("limit must be at least 1", responseToJson(response).get("message"));
+  }
 }
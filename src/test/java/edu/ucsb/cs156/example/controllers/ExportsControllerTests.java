@@ -0,0 +1,196 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.export.ExportService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = ExportsController.class)
+@Import(TestConfig.class)
+public class ExportsControllerTests extends ControllerTestCase {
+
+  @MockBean ExportService exportService;
+
+  @MockBean UserRepository userRepository;
+
+  @TempDir Path tempDir;
+
+  // Authorization tests for /api/exports
+
+  @Test
+  public void logged_out_users_cannot_list_exports() throws Exception {
+    mockMvc.perform(get("/api/exports")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_list_exports() throws Exception {
+    mockMvc.perform(get("/api/exports")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_launch_exports() throws Exception {
+    mockMvc
+        .perform(post("/api/exports?entity=articles&format=CSV").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_download_exports() throws Exception {
+    mockMvc
+        .perform(get("/api/exports/articles-20220103-030000.csv.gz"))
+        .andExpect(status().is(403));
+  }
+
+  // Tests with mocks for the admin user
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_launch_an_export() throws Exception {
+    // arrange
+
+    Job job = Job.builder().id(17L).status("running").build();
+    when(exportService.launchExport("articles", FileFormat.NDJSON)).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/exports?entity=articles&format=NDJSON").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(exportService).launchExport("articles", FileFormat.NDJSON);
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_gets_a_bad_request_for_an_unknown_entity() throws Exception {
+    // arrange
+
+    when(exportService.launchExport("nope", FileFormat.CSV))
+        .thenThrow(new IllegalArgumentException("Unknown entity nope"));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/exports?entity=nope&format=CSV").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    Map<String, Object> expectedJson =
+        Map.of("type", "IllegalArgumentException", "message", "Unknown entity nope");
+    assertEquals(expectedJson, responseToJson(response));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_list_exports() throws Exception {
+    // arrange
+
+    List<String> fileNames =
+        List.of("articles-20220103-030000.csv.gz", "articles-20220104-030000.ndjson.gz");
+    when(exportService.listExports()).thenReturn(fileNames);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/exports")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(fileNames), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_download_an_export() throws Exception {
+    // arrange
+
+    String fileName = "articles-20220103-030000.csv.gz";
+    byte[] contents = new byte[200_000];
+    for (int i = 0; i < contents.length; i++) {
+      contents[i] = (byte) i;
+    }
+    Path file = Files.write(tempDir.resolve(fileName), contents);
+    when(exportService.findExport(fileName)).thenReturn(Optional.of(file));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/exports/" + fileName)).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals("application/gzip", response.getResponse().getContentType());
+    assertEquals(
+        "attachment; filename=\"articles-20220103-030000.csv.gz\"",
+        response.getResponse().getHeader("Content-Disposition"));
+    assertEquals(contents.length, response.getResponse().getContentLength());
+    assertArrayEquals(contents, response.getResponse().getContentAsByteArray());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_download_is_sent_with_sendfile_when_supported() throws Exception {
+    // arrange
+
+    String fileName = "articles-20220103-030000.csv.gz";
+    Path file = Files.write(tempDir.resolve(fileName), new byte[] {1, 2, 3});
+    when(exportService.findExport(fileName)).thenReturn(Optional.of(file));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/exports/" + fileName)
+                    .requestAttr(ExportsController.SENDFILE_SUPPORT, Boolean.TRUE))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(3, response.getResponse().getContentLength());
+    assertEquals(0, response.getResponse().getContentAsByteArray().length);
+    assertEquals(
+        file.toAbsolutePath().toString(),
+        response.getRequest().getAttribute(ExportsController.SENDFILE_FILENAME));
+    assertEquals(0L, response.getRequest().getAttribute(ExportsController.SENDFILE_START));
+    assertEquals(3L, response.getRequest().getAttribute(ExportsController.SENDFILE_END));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_gets_not_found_for_a_missing_export() throws Exception {
+    // arrange
+
+    when(exportService.findExport("articles-20220103-030000.csv.gz")).thenReturn(Optional.empty());
+
+    // act
+    mockMvc
+        .perform(get("/api/exports/articles-20220103-030000.csv.gz"))
+        .andExpect(status().isNotFound());
+  }
+}
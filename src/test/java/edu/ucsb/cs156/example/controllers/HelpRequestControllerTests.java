@@ -1,8 +1,11 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,29 +18,46 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.helprequests.HelpRequestQueueService;
+import edu.ucsb.cs156.example.services.helprequests.HelpRequestStreamService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @WebMvcTest(controllers = HelpRequestController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class HelpRequestControllerTests extends ControllerTestCase {
 
   @MockBean HelpRequestRepository helpRequestRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean HelpRequestQueueService helpRequestQueueService;
+
+  @MockBean HelpRequestStreamService helpRequestStreamService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -143,6 +163,10 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
     // assert
     verify(helpRequestRepository, times(1)).save(eq(helpRequest1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("0", event.getEntityId());
+    assertEquals(helpRequest1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(helpRequest1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -235,6 +259,9 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     // assert
     verify(helpRequestRepository, times(1)).findById(15L);
     verify(helpRequestRepository, times(1)).delete(any());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 15 deleted", json.get("message"));
@@ -308,6 +335,9 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     // assert
     verify(helpRequestRepository, times(1)).findById(67L);
     verify(helpRequestRepository, times(1)).save(helpRequestEdited);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
     String expectedJson = mapper.writeValueAsString(helpRequestEdited);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -351,4 +381,355 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("HelpRequest with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_help_requests_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequests/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_help_requests_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    HelpRequest first =
+        HelpRequest.builder()
+            .id(7)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-1")
+            .tableOrBreakoutRoom("1")
+            .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .explanation("Need help 1")
+            .solved(false)
+            .build();
+    HelpRequest second =
+        HelpRequest.builder()
+            .id(8)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-2")
+            .tableOrBreakoutRoom("2")
+            .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .explanation("Need help 2")
+            .solved(true)
+            .build();
+    HelpRequest firstToSave =
+        HelpRequest.builder()
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-1")
+            .tableOrBreakoutRoom("1")
+            .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .explanation("Need help 1")
+            .solved(false)
+            .build();
+    HelpRequest secondToSave =
+        HelpRequest.builder()
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-2")
+            .tableOrBreakoutRoom("2")
+            .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .explanation("Need help 2")
+            .solved(true)
+            .build();
+    HelpRequest savedFirst =
+        HelpRequest.builder()
+            .id(1)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-1")
+            .tableOrBreakoutRoom("1")
+            .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .explanation("Need help 1")
+            .solved(false)
+            .build();
+    HelpRequest savedSecond =
+        HelpRequest.builder()
+            .id(2)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-2")
+            .tableOrBreakoutRoom("2")
+            .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .explanation("Need help 2")
+            .solved(true)
+            .build();
+
+    when(helpRequestRepository.saveAll(any())).thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_help_requests_in_bulk() throws Exception {
+    // arrange
+
+    HelpRequest original =
+        HelpRequest.builder()
+            .id(67)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-1")
+            .tableOrBreakoutRoom("1")
+            .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .explanation("Need help 1")
+            .solved(false)
+            .build();
+    HelpRequest edited =
+        HelpRequest.builder()
+            .id(67)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-2")
+            .tableOrBreakoutRoom("2")
+            .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .explanation("Need help 2")
+            .solved(true)
+            .build();
+    HelpRequest missing =
+        HelpRequest.builder()
+            .id(68)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-2")
+            .tableOrBreakoutRoom("2")
+            .requestTime(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .explanation("Need help 2")
+            .solved(true)
+            .build();
+
+    when(helpRequestRepository.findAllById(List.of(67L, 68L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.NOT_FOUND, "68", "HelpRequest with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_help_requests_in_bulk() throws Exception {
+    // arrange
+
+    HelpRequest existing =
+        HelpRequest.builder()
+            .id(15)
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId("s22-5pm-1")
+            .tableOrBreakoutRoom("1")
+            .requestTime(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .explanation("Need help 1")
+            .solved(false)
+            .build();
+
+    when(helpRequestRepository.findAllById(List.of(15L, 16L, 15L))).thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequests/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "HelpRequest with id 16 not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "15", "HelpRequest with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  // Tests for the queue: /api/helprequests/queue, /claim and /release
+
+  private HelpRequest waiting() {
+    return HelpRequest.builder()
+        .id(15)
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId("s22-5pm-3")
+        .tableOrBreakoutRoom("7")
+        .requestTime(LocalDateTime.parse("2022-04-20T17:35:00"))
+        .explanation("Need help with Swagger-ui")
+        .solved(false)
+        .build();
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_the_queue() throws Exception {
+    mockMvc.perform(get("/api/helprequests/queue")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_queue() throws Exception {
+    // arrange
+    HelpRequest claimed = waiting();
+    claimed.setClaimedBy("ta@ucsb.edu");
+    claimed.setClaimedAt(LocalDateTime.parse("2022-04-20T17:40:00"));
+    when(helpRequestQueueService.queue(100)).thenReturn(List.of(claimed));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/helprequests/queue")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(claimed)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_length_of_the_queue_is_limited() throws Exception {
+    when(helpRequestQueueService.queue(1000)).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/helprequests/queue?limit=1000000")).andExpect(status().isOk());
+
+    verify(helpRequestQueueService).queue(1000);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_queue_rejects_a_limit_below_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequests/queue").param("limit", "-1"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "limit must be at least 1"),
+        responseToJson(response));
+    verify(helpRequestQueueService, never()).queue(anyInt());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_claim() throws Exception {
+    mockMvc.perform(post("/api/helprequests/claim").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_can_claim_the_next_request() throws Exception {
+    // arrange
+    HelpRequest claimed = waiting();
+    claimed.setClaimedBy("user@example.org");
+    when(helpRequestQueueService.claimNext("user@example.org", true))
+        .thenReturn(Optional.of(claimed));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/helprequests/claim?fair=true").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(claimed), response.getResponse().getContentAsString());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("15", event.getEntityId());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void claiming_from_an_empty_queue_returns_no_content() throws Exception {
+    when(helpRequestQueueService.claimNext("user@example.org", false))
+        .thenReturn(Optional.empty());
+
+    mockMvc
+        .perform(post("/api/helprequests/claim").with(csrf()))
+        .andExpect(status().isNoContent());
+
+    verify(helpRequestQueueService).claimNext("user@example.org", false);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_can_release_a_claimed_request() throws Exception {
+    // arrange
+    HelpRequest released = waiting();
+    when(helpRequestQueueService.release(15L)).thenReturn(released);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/helprequests/release?id=15").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(released), response.getResponse().getContentAsString());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals(released, event.getEntity());
+  }
+
+  // Tests for /api/helprequests/stream
+
+  @Test
+  public void logged_out_users_cannot_subscribe() throws Exception {
+    mockMvc.perform(get("/api/helprequests/stream")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_subscribe() throws Exception {
+    when(helpRequestStreamService.subscribe()).thenReturn(new SseEmitter());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequests/stream").accept(MediaType.TEXT_EVENT_STREAM))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(helpRequestStreamService).subscribe();
+    assertTrue(response.getRequest().isAsyncStarted());
+  }
 }
@@ -177,6 +177,25 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_of_an_unknown_job_is_a_bad_request() throws Exception {
+    // Arrange
+    when(jobsRepository.findById(3L)).thenReturn(Optional.empty());
+
+    // Act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/logs/{id}", 3L))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // Assert
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "Job not found"),
+        responseToJson(response));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
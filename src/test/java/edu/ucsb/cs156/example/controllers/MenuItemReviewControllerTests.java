@@ -9,27 +9,43 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.ratings.MenuItemRatingService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
 @Import(TestConfig.class)
@@ -39,6 +55,12 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
   @MockBean UserRepository userRepository;
 
+  @MockBean JobService jobService;
+
+  @MockBean MenuItemRatingService menuItemRatingService;
+
+  @MockBean PlatformTransactionManager transactionManager;
+
   // Authorization tests for /api/menuitemreview/all
 
   @Test
@@ -195,6 +217,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     // assert
     verify(menuItemReviewRepository, times(1)).save(review1);
+    verify(menuItemRatingService, times(1)).reviewsAdded(List.of(review1));
     String expectedJson = mapper.writeValueAsString(review1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -270,32 +293,40 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   @Test
   public void an_admin_user_cannot_post_a_menuitemreview_with_stars_greater_than_5()
       throws Exception {
-    // act - expecting IllegalArgumentException to be thrown
-    try {
-      mockMvc.perform(
-          post("/api/menuitemreview/post?itemId=27&reviewerEmail=cgaucho@ucsb.edu&stars=6&dateReviewed=2022-01-03T00:00:00&comments=Great!")
-              .with(csrf()));
-    } catch (Exception e) {
-      // Expected exception due to validation
-    }
-
-    // assert - save should never be called because validation fails
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/post?itemId=27&reviewerEmail=cgaucho@ucsb.edu&stars=6&dateReviewed=2022-01-03T00:00:00&comments=Great!")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "Stars must be between 0 and 5"),
+        responseToJson(response));
+    // save should never be called because validation fails
     verify(menuItemReviewRepository, times(0)).save(any());
   }
 
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_cannot_post_a_menuitemreview_with_negative_stars() throws Exception {
-    // act - expecting IllegalArgumentException to be thrown
-    try {
-      mockMvc.perform(
-          post("/api/menuitemreview/post?itemId=27&reviewerEmail=cgaucho@ucsb.edu&stars=-1&dateReviewed=2022-01-03T00:00:00&comments=Bad!")
-              .with(csrf()));
-    } catch (Exception e) {
-      // Expected exception due to validation
-    }
-
-    // assert - save should never be called because validation fails
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/post?itemId=27&reviewerEmail=cgaucho@ucsb.edu&stars=-1&dateReviewed=2022-01-03T00:00:00&comments=Bad!")
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "Stars must be between 0 and 5"),
+        responseToJson(response));
+    // save should never be called because validation fails
     verify(menuItemReviewRepository, times(0)).save(any());
   }
 
@@ -344,6 +375,10 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     // assert
     verify(menuItemReviewRepository, times(1)).findById(67L);
     verify(menuItemReviewRepository, times(1)).save(reviewEdited);
+    MenuItemReview ratingBefore =
+        MenuItemReview.builder().itemId(27L).stars(5).dateReviewed(ldt1).build();
+    verify(menuItemRatingService, times(1))
+        .reviewsChanged(List.of(ratingBefore), List.of(reviewEdited));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -365,19 +400,23 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(reviewWithInvalidStars);
 
-    // act - expecting IllegalArgumentException to be thrown
-    try {
-      mockMvc.perform(
-          put("/api/menuitemreview?id=67")
-              .contentType(MediaType.APPLICATION_JSON)
-              .characterEncoding("utf-8")
-              .content(requestBody)
-              .with(csrf()));
-    } catch (Exception e) {
-      // Expected exception due to validation
-    }
-
-    // assert - should not call findById or save because validation fails first
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "Stars must be between 0 and 5"),
+        responseToJson(response));
+    // should not call findById or save because validation fails first
     verify(menuItemReviewRepository, times(0)).findById(any());
     verify(menuItemReviewRepository, times(0)).save(any());
   }
@@ -399,19 +438,23 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
     String requestBody = mapper.writeValueAsString(reviewWithInvalidStars);
 
-    // act - expecting IllegalArgumentException to be thrown
-    try {
-      mockMvc.perform(
-          put("/api/menuitemreview?id=67")
-              .contentType(MediaType.APPLICATION_JSON)
-              .characterEncoding("utf-8")
-              .content(requestBody)
-              .with(csrf()));
-    } catch (Exception e) {
-      // Expected exception due to validation
-    }
-
-    // assert - should not call findById or save because validation fails first
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview?id=67")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(requestBody)
+                    .with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "Stars must be between 0 and 5"),
+        responseToJson(response));
+    // should not call findById or save because validation fails first
     verify(menuItemReviewRepository, times(0)).findById(any());
     verify(menuItemReviewRepository, times(0)).save(any());
   }
@@ -578,6 +621,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     // assert
     verify(menuItemReviewRepository, times(1)).findById(15L);
     verify(menuItemReviewRepository, times(1)).delete(any());
+    verify(menuItemRatingService, times(1)).reviewsRemoved(List.of(review1));
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 deleted", json.get("message"));
@@ -603,4 +647,645 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_menu_item_reviews_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreview/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    MenuItemReview first =
+        MenuItemReview.builder()
+            .id(7)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview second =
+        MenuItemReview.builder()
+            .id(8)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+    MenuItemReview firstToSave =
+        MenuItemReview.builder()
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview secondToSave =
+        MenuItemReview.builder()
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+    MenuItemReview savedFirst =
+        MenuItemReview.builder()
+            .id(1)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview savedSecond =
+        MenuItemReview.builder()
+            .id(2)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+
+    when(menuItemReviewRepository.saveAll(any())).thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    verify(menuItemRatingService, times(1)).reviewsAdded(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+
+    MenuItemReview original =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview edited =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+    MenuItemReview missing =
+        MenuItemReview.builder()
+            .id(68)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+
+    when(menuItemReviewRepository.findAllById(List.of(67L, 68L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(edited));
+    MenuItemReview ratingBefore =
+        MenuItemReview.builder()
+            .itemId(27)
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    MenuItemReview ratingAfter =
+        MenuItemReview.builder()
+            .itemId(28)
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .build();
+    verify(menuItemRatingService, times(1))
+        .reviewsChanged(List.of(ratingBefore), List.of(ratingAfter));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.NOT_FOUND, "68", "MenuItemReview with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_review_given_twice_moves_its_rating_only_once_in_bulk() throws Exception {
+    // arrange
+
+    MenuItemReview original =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Okay")
+            .build();
+    MenuItemReview four =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(4)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Good")
+            .build();
+    MenuItemReview five =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+
+    when(menuItemReviewRepository.findAllById(List.of(67L, 67L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(four, five)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert - the rating moves from 3 stars to 4 once, and the repeated id is not applied
+    MenuItemReview ratingBefore =
+        MenuItemReview.builder()
+            .itemId(27)
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    MenuItemReview ratingAfter =
+        MenuItemReview.builder()
+            .itemId(27)
+            .stars(4)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .build();
+    verify(menuItemRatingService, times(1))
+        .reviewsChanged(List.of(ratingBefore), List.of(ratingAfter));
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(four));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.INVALID, "67", "id 67 is given more than once"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_menu_item_reviews_in_bulk() throws Exception {
+    // arrange
+
+    MenuItemReview existing =
+        MenuItemReview.builder()
+            .id(15)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+
+    when(menuItemReviewRepository.findAllById(List.of(15L, 16L, 15L)))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).deleteAll(List.of(existing));
+    verify(menuItemRatingService, times(1)).reviewsRemoved(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "MenuItemReview with id 16 not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "15", "MenuItemReview with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void posting_in_bulk_skips_reviews_with_invalid_stars() throws Exception {
+    // arrange
+
+    MenuItemReview valid =
+        MenuItemReview.builder()
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview invalid =
+        MenuItemReview.builder()
+            .stars(6)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+    MenuItemReview saved =
+        MenuItemReview.builder()
+            .id(1)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+
+    when(menuItemReviewRepository.saveAll(any())).thenReturn(List.of(saved));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(invalid, valid)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of(valid));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.INVALID, null, "Stars must be between 0 and 5"),
+            bulkItemResult(1, Status.CREATED, "1", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void editing_in_bulk_skips_reviews_with_invalid_stars() throws Exception {
+    // arrange
+
+    MenuItemReview original =
+        MenuItemReview.builder()
+            .id(67)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    MenuItemReview invalid =
+        MenuItemReview.builder()
+            .id(67)
+            .stars(-1)
+            .itemId(28)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .dateReviewed(LocalDateTime.parse("2022-01-02T00:00:00"))
+            .comments("Okay")
+            .build();
+
+    when(menuItemReviewRepository.findAllById(List.of(67L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreview/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(invalid)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).saveAll(List.of());
+    List<BulkItemResult> expected =
+        List.of(bulkItemResult(0, Status.INVALID, "67", "Stars must be between 0 and 5"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_import_menu_item_reviews() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "reviews.csv", "text/csv", new byte[0]);
+    mockMvc
+        .perform(
+            multipart("/api/menuitemreview/import").file(file).param("format", "CSV").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_menu_item_reviews_as_a_job() throws Exception {
+    // arrange
+
+    // the ids in the file are ignored
+    MockMultipartFile file =
+        new MockMultipartFile(
+            "file",
+            "reviews.csv",
+            "text/csv",
+            """
+            id,itemId,reviewerEmail,stars,dateReviewed,comments
+            7,27,cgaucho@ucsb.edu,5,2022-01-01T00:00:00,Great!
+            """
+                .getBytes());
+    Job job = Job.builder().id(17L).status("running").build();
+    when(jobService.runAsJob(any(ImportJob.class))).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/menuitemreview/import")
+                    .file(file)
+                    .param("format", "CSV")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture());
+    importJob.getValue().accept(new JobContext(null, job));
+
+    MenuItemReview expected =
+        MenuItemReview.builder()
+            .id(0)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-01T00:00:00"))
+            .comments("Great!")
+            .build();
+    verify(menuItemReviewRepository).saveAll(List.of(expected));
+    verify(menuItemRatingService).reviewsAdded(List.of(expected));
+    // the batch and its ratings are committed together
+    verify(transactionManager, times(1)).commit(any());
+  }
+
+  // Tests for /api/menuitemreview/ratings
+
+  @Test
+  public void logged_out_users_cannot_get_ratings() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/ratings?itemId=27")).andExpect(status().is(403));
+    mockMvc.perform(get("/api/menuitemreview/ratings/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_rating_of_an_item() throws Exception {
+    // arrange
+
+    MenuItemRating rating =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(3)
+            .starsSum(12)
+            .threeStars(1)
+            .fourStars(1)
+            .fiveStars(1)
+            .lastReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .build();
+    when(menuItemRatingService.getRating(27L)).thenReturn(rating);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/ratings?itemId=27"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(27, json.get("itemId"));
+    assertEquals(3, json.get("reviewCount"));
+    assertEquals(4.0, json.get("average"));
+    assertEquals(mapper.writeValueAsString(rating), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_a_page_of_ratings() throws Exception {
+    // arrange
+
+    MenuItemRating first = MenuItemRating.builder().itemId(27).reviewCount(1).starsSum(5).build();
+    MenuItemRating second = MenuItemRating.builder().itemId(28).reviewCount(1).starsSum(3).build();
+    PageRequest pageRequest = PageRequest.of(1, 2, Sort.by("itemId"));
+    when(menuItemRatingService.getRatings(pageRequest))
+        .thenReturn(new PageImpl<>(List.of(first, second), pageRequest, 5));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/ratings/all?page=1&size=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        List.of(
+            mapper.readValue(mapper.writeValueAsString(first), Map.class),
+            mapper.readValue(mapper.writeValueAsString(second), Map.class)),
+        json.get("content"));
+    assertEquals(
+        Map.of("size", 2, "number", 1, "totalElements", 5, "totalPages", 3), json.get("page"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_page_size_of_ratings_is_limited() throws Exception {
+    // arrange
+
+    PageRequest pageRequest = PageRequest.of(0, 1000, Sort.by("itemId"));
+    when(menuItemRatingService.getRatings(pageRequest))
+        .thenReturn(new PageImpl<>(List.of(), pageRequest, 0));
+
+    // act
+    mockMvc.perform(get("/api/menuitemreview/ratings/all?size=1000000")).andExpect(status().isOk());
+
+    // assert
+    verify(menuItemRatingService).getRatings(pageRequest);
+  }
+
+  // Tests for /api/menuitemreview/byItem and /byReviewer
+
+  private static final Sort NEWEST_FIRST =
+      Sort.by(Sort.Order.desc("dateReviewed"), Sort.Order.desc("id"));
+
+  @Test
+  public void logged_out_users_cannot_get_reviews_by_item() throws Exception {
+    mockMvc.perform(get("/api/menuitemreview/byItem?itemId=27")).andExpect(status().is(403));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_reviews_by_reviewer() throws Exception {
+    mockMvc
+        .perform(get("/api/menuitemreview/byReviewer?reviewerEmail=cgaucho@ucsb.edu"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_reviews_of_an_item_newest_first() throws Exception {
+    // arrange
+
+    MenuItemReview newer =
+        MenuItemReview.builder()
+            .id(2)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-04T00:00:00"))
+            .comments("great")
+            .build();
+    MenuItemReview older =
+        MenuItemReview.builder()
+            .id(1)
+            .itemId(27)
+            .reviewerEmail("ldelplaya@ucsb.edu")
+            .stars(3)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .comments("fine")
+            .build();
+    PageRequest pageRequest = PageRequest.of(1, 2, NEWEST_FIRST);
+    when(menuItemReviewRepository.findByItemId(27L, pageRequest))
+        .thenReturn(new PageImpl<>(List.of(newer, older), pageRequest, 5));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/byItem?itemId=27&page=1&size=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        List.of(
+            mapper.readValue(mapper.writeValueAsString(newer), Map.class),
+            mapper.readValue(mapper.writeValueAsString(older), Map.class)),
+        json.get("content"));
+    assertEquals(
+        Map.of("size", 2, "number", 1, "totalElements", 5, "totalPages", 3), json.get("page"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_reviews_of_a_reviewer_newest_first() throws Exception {
+    // arrange
+
+    MenuItemReview review =
+        MenuItemReview.builder()
+            .id(1)
+            .itemId(27)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(5)
+            .dateReviewed(LocalDateTime.parse("2022-01-04T00:00:00"))
+            .comments("great")
+            .build();
+    PageRequest pageRequest = PageRequest.of(0, 20, NEWEST_FIRST);
+    when(menuItemReviewRepository.findByReviewerEmail("cgaucho@ucsb.edu", pageRequest))
+        .thenReturn(new PageImpl<>(List.of(review), pageRequest, 1));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreview/byReviewer?reviewerEmail=cgaucho@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        List.of(mapper.readValue(mapper.writeValueAsString(review), Map.class)),
+        json.get("content"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_page_size_of_reviews_is_limited() throws Exception {
+    // arrange
+
+    PageRequest pageRequest = PageRequest.of(0, 1000, NEWEST_FIRST);
+    when(menuItemReviewRepository.findByItemId(27L, pageRequest))
+        .thenReturn(new PageImpl<>(List.of(), pageRequest, 0));
+
+    // act
+    mockMvc
+        .perform(get("/api/menuitemreview/byItem?itemId=27&size=1000000"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(menuItemReviewRepository).findByItemId(27L, pageRequest);
+  }
 }
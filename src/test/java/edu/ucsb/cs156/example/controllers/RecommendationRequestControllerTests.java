@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -14,29 +16,46 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.recommendationrequests.OverdueRecommendationRequestService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = RecommendationRequestController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class RecommendationRequestControllerTests extends ControllerTestCase {
 
   @MockBean RecommendationRequestRepository recommendationRequestRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean OverdueRecommendationRequestService overdueRecommendationRequestService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -134,6 +153,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
 
     // assert
     verify(recommendationRequestRepository, times(1)).save(eq(recommendationRequest1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals(recommendationRequest1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(recommendationRequest1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -256,6 +278,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     verify(recommendationRequestRepository, times(1)).findById(67L);
     verify(recommendationRequestRepository, times(1))
         .save(editedRecommendationRequest); // should be saved with correct user
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -331,6 +356,9 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     // assert
     verify(recommendationRequestRepository, times(1)).findById(15L);
     verify(recommendationRequestRepository, times(1)).delete(eq(recommendationRequest1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Recommendation request with id 15 deleted", json.get("message"));
@@ -357,4 +385,339 @@ public class RecommendationRequestControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_recommendation_requests_in_bulk()
+      throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequest/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    RecommendationRequest first =
+        RecommendationRequest.builder()
+            .id(7)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor1@gmail.com")
+            .explanation("Please 1")
+            .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-01T00:00:00Z"))
+            .done(false)
+            .build();
+    RecommendationRequest second =
+        RecommendationRequest.builder()
+            .id(8)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor2@gmail.com")
+            .explanation("Please 2")
+            .dateRequested(ZonedDateTime.parse("2022-01-02T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-02T00:00:00Z"))
+            .done(true)
+            .build();
+    RecommendationRequest firstToSave =
+        RecommendationRequest.builder()
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor1@gmail.com")
+            .explanation("Please 1")
+            .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-01T00:00:00Z"))
+            .done(false)
+            .build();
+    RecommendationRequest secondToSave =
+        RecommendationRequest.builder()
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor2@gmail.com")
+            .explanation("Please 2")
+            .dateRequested(ZonedDateTime.parse("2022-01-02T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-02T00:00:00Z"))
+            .done(true)
+            .build();
+    RecommendationRequest savedFirst =
+        RecommendationRequest.builder()
+            .id(1)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor1@gmail.com")
+            .explanation("Please 1")
+            .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-01T00:00:00Z"))
+            .done(false)
+            .build();
+    RecommendationRequest savedSecond =
+        RecommendationRequest.builder()
+            .id(2)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor2@gmail.com")
+            .explanation("Please 2")
+            .dateRequested(ZonedDateTime.parse("2022-01-02T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-02T00:00:00Z"))
+            .done(true)
+            .build();
+
+    when(recommendationRequestRepository.saveAll(any()))
+        .thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+
+    RecommendationRequest original =
+        RecommendationRequest.builder()
+            .id(67)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor1@gmail.com")
+            .explanation("Please 1")
+            .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-01T00:00:00Z"))
+            .done(false)
+            .build();
+    RecommendationRequest edited =
+        RecommendationRequest.builder()
+            .id(67)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor2@gmail.com")
+            .explanation("Please 2")
+            .dateRequested(ZonedDateTime.parse("2022-01-02T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-02T00:00:00Z"))
+            .done(true)
+            .build();
+    RecommendationRequest missing =
+        RecommendationRequest.builder()
+            .id(68)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor2@gmail.com")
+            .explanation("Please 2")
+            .dateRequested(ZonedDateTime.parse("2022-01-02T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-02T00:00:00Z"))
+            .done(true)
+            .build();
+
+    when(recommendationRequestRepository.findAllById(List.of(67L, 68L)))
+        .thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(
+                1, Status.NOT_FOUND, "68", "RecommendationRequest with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_recommendation_requests_in_bulk() throws Exception {
+    // arrange
+
+    RecommendationRequest existing =
+        RecommendationRequest.builder()
+            .id(15)
+            .requesterEmail("requester@gmail.com")
+            .professorEmail("professor1@gmail.com")
+            .explanation("Please 1")
+            .dateRequested(ZonedDateTime.parse("2022-01-01T00:00:00Z"))
+            .dateNeeded(ZonedDateTime.parse("2023-01-01T00:00:00Z"))
+            .done(false)
+            .build();
+
+    when(recommendationRequestRepository.findAllById(List.of(15L, 16L, 15L)))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequest/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "RecommendationRequest with id 16 not found"),
+            bulkItemResult(
+                2, Status.NOT_FOUND, "15", "RecommendationRequest with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  // Tests for /byProfessor, /dueSoon and /overdueCounts
+
+  private static final Sort BY_DEADLINE = Sort.by("dateNeeded", "id");
+
+  private RecommendationRequest pending() {
+    return RecommendationRequest.builder()
+        .id(7)
+        .requesterEmail("requester@gmail.com")
+        .professorEmail("professor@gmail.com")
+        .explanation("Please")
+        .dateRequested(ZonedDateTime.parse("2022-01-03T00:00:00Z"))
+        .dateNeeded(ZonedDateTime.parse("2022-02-03T00:00:00Z"))
+        .done(false)
+        .build();
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_requests_by_professor() throws Exception {
+    mockMvc
+        .perform(get("/api/recommendationrequest/byProfessor?professorEmail=professor@gmail.com"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_pending_requests_of_a_professor() throws Exception {
+    // arrange
+    PageRequest pageRequest = PageRequest.of(0, 20, BY_DEADLINE);
+    RecommendationRequest pending = pending();
+    when(recommendationRequestRepository.findByProfessorEmailAndDone(
+            "professor@gmail.com", false, pageRequest))
+        .thenReturn(new PageImpl<>(List.of(pending), pageRequest, 1));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/recommendationrequest/byProfessor?professorEmail=professor@gmail.com"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        List.of(mapper.readValue(mapper.writeValueAsString(pending), Map.class)),
+        json.get("content"));
+    assertEquals(
+        Map.of("size", 20, "number", 0, "totalElements", 1, "totalPages", 1), json.get("page"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_page_size_of_requests_by_professor_is_limited() throws Exception {
+    // arrange
+    PageRequest pageRequest = PageRequest.of(2, 1000, BY_DEADLINE);
+    when(recommendationRequestRepository.findByProfessorEmailAndDone(
+            "professor@gmail.com", true, pageRequest))
+        .thenReturn(new PageImpl<>(List.of(), pageRequest, 0));
+
+    // act
+    mockMvc
+        .perform(
+            get("/api/recommendationrequest/byProfessor?professorEmail=professor@gmail.com"
+                    + "&done=true&page=2&size=1000000"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(recommendationRequestRepository)
+        .findByProfessorEmailAndDone("professor@gmail.com", true, pageRequest);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_requests_due_soon() throws Exception {
+    // arrange
+    PageRequest pageRequest = PageRequest.of(0, 20, BY_DEADLINE);
+    RecommendationRequest pending = pending();
+    when(recommendationRequestRepository.findByProfessorEmailAndDoneFalseAndDateNeededBetween(
+            eq("professor@gmail.com"), any(), any(), eq(pageRequest)))
+        .thenReturn(new PageImpl<>(List.of(pending), pageRequest, 1));
+
+    // act
+    ZonedDateTime before = ZonedDateTime.now();
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/recommendationrequest/dueSoon?professorEmail=professor@gmail.com&days=3"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    ArgumentCaptor<ZonedDateTime> from = ArgumentCaptor.forClass(ZonedDateTime.class);
+    ArgumentCaptor<ZonedDateTime> to = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(recommendationRequestRepository)
+        .findByProfessorEmailAndDoneFalseAndDateNeededBetween(
+            eq("professor@gmail.com"), from.capture(), to.capture(), eq(pageRequest));
+    assertFalse(from.getValue().isBefore(before));
+    assertEquals(from.getValue().plusDays(3), to.getValue());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(
+        List.of(mapper.readValue(mapper.writeValueAsString(pending), Map.class)),
+        json.get("content"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_overdue_counts() throws Exception {
+    mockMvc
+        .perform(get("/api/recommendationrequest/overdueCounts"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_overdue_counts() throws Exception {
+    when(overdueRecommendationRequestService.overdueCounts())
+        .thenReturn(Map.of("professor@gmail.com", 2L));
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequest/overdueCounts"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals(Map.of("professor@gmail.com", 2), responseToJson(response));
+  }
 }
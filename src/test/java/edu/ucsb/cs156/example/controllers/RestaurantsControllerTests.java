@@ -15,29 +15,43 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
+import edu.ucsb.cs156.example.models.RestaurantSearchResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.restaurants.RestaurantSearchService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = RestaurantsController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockBean RestaurantRepository restaurantRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean RestaurantSearchService restaurantSearchService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   // Authorization tests for /api/phones/admin/all
 
   @Test
@@ -166,6 +180,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).save(restaurant1);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("0", event.getEntityId());
+    assertEquals(restaurant1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(restaurant1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -190,6 +208,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     // assert
     verify(restaurantRepository, times(1)).findById(15L);
     verify(restaurantRepository, times(1)).delete(any());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
+    assertEquals(restaurant, event.getEntity());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 deleted", json.get("message"));
@@ -212,6 +234,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
     // assert
     verify(restaurantRepository, times(1)).findById(15L);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 15 not found", json.get("message"));
   }
@@ -247,6 +270,10 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     verify(restaurantRepository, times(1)).findById(67L);
     verify(restaurantRepository, times(1))
         .save(restaurantEdited); // should be saved with correct user
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
+    assertEquals(restaurantEdited, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -280,4 +307,218 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_restaurants_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_restaurants_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    Restaurant first = Restaurant.builder().id(7).name("Chipotle").description("Mexican").build();
+    Restaurant second =
+        Restaurant.builder().id(8).name("Panda Express").description("Chinese").build();
+    Restaurant firstToSave = Restaurant.builder().name("Chipotle").description("Mexican").build();
+    Restaurant secondToSave =
+        Restaurant.builder().name("Panda Express").description("Chinese").build();
+    Restaurant savedFirst =
+        Restaurant.builder().id(1).name("Chipotle").description("Mexican").build();
+    Restaurant savedSecond =
+        Restaurant.builder().id(2).name("Panda Express").description("Chinese").build();
+
+    when(restaurantRepository.saveAll(any())).thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(2, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_restaurants_in_bulk() throws Exception {
+    // arrange
+
+    Restaurant original =
+        Restaurant.builder().id(67).name("Chipotle").description("Mexican").build();
+    Restaurant edited =
+        Restaurant.builder().id(67).name("Panda Express").description("Chinese").build();
+    Restaurant missing =
+        Restaurant.builder().id(68).name("Panda Express").description("Chinese").build();
+
+    when(restaurantRepository.findAllById(List.of(67L, 68L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.NOT_FOUND, "68", "Restaurant with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_restaurants_in_bulk() throws Exception {
+    // arrange
+
+    Restaurant existing =
+        Restaurant.builder().id(15).name("Chipotle").description("Mexican").build();
+
+    when(restaurantRepository.findAllById(List.of(15L, 16L, 15L))).thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "Restaurant with id 16 not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "15", "Restaurant with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void deleting_in_bulk_reports_null_ids_as_invalid() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[null]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(restaurantRepository, times(1)).findAllById(List.of());
+    verify(restaurantRepository, times(1)).deleteAll(List.of());
+    List<BulkItemResult> expected =
+        List.of(bulkItemResult(0, Status.INVALID, null, "id is required"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  // Tests for GET /api/restaurants/search
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/restaurants/search?q=tacobel")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_search() throws Exception {
+    // arrange
+    Restaurant tacoBell =
+        Restaurant.builder().id(1L).name("Taco Bell").description("Fast food").build();
+    List<RestaurantSearchResult> results = List.of(new RestaurantSearchResult(tacoBell, 0.875));
+    when(restaurantSearchService.search("tacobel", 20)).thenReturn(results);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/search?q=tacobel"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(results), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_limits_the_number_of_results() throws Exception {
+    when(restaurantSearchService.search("taco", 100)).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/restaurants/search?q=taco&limit=1000")).andExpect(status().isOk());
+
+    verify(restaurantSearchService).search("taco", 100);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_rejects_a_blank_query() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/search").param("q", " "))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "q must not be blank"),
+        responseToJson(response));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_rejects_a_limit_below_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/restaurants/search?q=taco&limit=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("limit must be at least 1", responseToJson(response).get("message"));
+  }
 }
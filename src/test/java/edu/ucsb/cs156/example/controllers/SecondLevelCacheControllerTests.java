@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.SecondLevelCacheRegionStatistics;
+import edu.ucsb.cs156.example.models.SecondLevelCacheStatistics;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.cache.SecondLevelCacheService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = SecondLevelCacheController.class)
+@Import(TestConfig.class)
+public class SecondLevelCacheControllerTests extends ControllerTestCase {
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean SecondLevelCacheService secondLevelCacheService;
+
+  @Test
+  public void logged_out_users_cannot_get_statistics() throws Exception {
+    mockMvc.perform(get("/api/admin/cache/secondlevel")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_get_statistics() throws Exception {
+    mockMvc.perform(get("/api/admin/cache/secondlevel")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_get_statistics() throws Exception {
+    // arrange
+
+    SecondLevelCacheStatistics statistics =
+        SecondLevelCacheStatistics.builder()
+            .secondLevelCacheEnabled(true)
+            .queryCacheEnabled(true)
+            .statisticsEnabled(true)
+            .hitCount(9)
+            .missCount(1)
+            .putCount(1)
+            .hitRatio(0.9)
+            .regions(
+                List.of(
+                    SecondLevelCacheRegionStatistics.builder()
+                        .region("restaurants")
+                        .hitCount(9)
+                        .missCount(1)
+                        .putCount(1)
+                        .elementCountInMemory(1)
+                        .hitRatio(0.9)
+                        .build()))
+            .build();
+    when(secondLevelCacheService.getStatistics()).thenReturn(statistics);
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/cache/secondlevel")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    String expectedJson = mapper.writeValueAsString(statistics);
+    assertEquals(expectedJson, response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_evict() throws Exception {
+    mockMvc
+        .perform(delete("/api/admin/cache/secondlevel").with(csrf()))
+        .andExpect(status().is(403));
+    verify(secondLevelCacheService, never()).evictAll();
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_evict() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/admin/cache/secondlevel").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(secondLevelCacheService, times(1)).evictAll();
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Second-level cache evicted", json.get("message"));
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.SqlTraceSettings;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.metrics.SqlTraceService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = SqlTraceController.class)
+@Import(TestConfig.class)
+public class SqlTraceControllerTests extends ControllerTestCase {
+
+  @MockBean UserRepository userRepository;
+
+  @MockBean SqlTraceService sqlTraceService;
+
+  private final SqlTraceSettings settings =
+      SqlTraceSettings.builder().sampleEvery(100).maxPerSecond(10).logged(7).dropped(2).build();
+
+  @Test
+  public void logged_out_users_cannot_get_settings() throws Exception {
+    mockMvc.perform(get("/api/admin/sqltrace")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_change_settings() throws Exception {
+    mockMvc
+        .perform(put("/api/admin/sqltrace?sampleEvery=1").with(csrf()))
+        .andExpect(status().is(403));
+
+    verify(sqlTraceService, never()).setSettings(anyInt(), anyInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_get_settings() throws Exception {
+    when(sqlTraceService.getSettings()).thenReturn(settings);
+
+    MvcResult response =
+        mockMvc.perform(get("/api/admin/sqltrace")).andExpect(status().isOk()).andReturn();
+
+    assertEquals(mapper.writeValueAsString(settings), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_change_settings() throws Exception {
+    when(sqlTraceService.setSettings(100, 10)).thenReturn(settings);
+
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/admin/sqltrace?sampleEvery=100").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    verify(sqlTraceService).setSettings(100, 10);
+    assertEquals(mapper.writeValueAsString(settings), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_negative_sampleEvery_is_rejected() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/admin/sqltrace?sampleEvery=-1").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "sampleEvery must not be negative"),
+        responseToJson(response));
+    verify(sqlTraceService, never()).setSettings(anyInt(), anyInt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void a_maxPerSecond_below_one_is_rejected() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/admin/sqltrace?sampleEvery=0&maxPerSecond=0").with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "maxPerSecond must be at least 1"),
+        responseToJson(response));
+  }
+}
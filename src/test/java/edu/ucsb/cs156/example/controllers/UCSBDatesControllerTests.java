@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.controllers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
@@ -9,36 +10,63 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.ucsbdates.AcademicCalendarService;
+import edu.ucsb.cs156.example.services.ucsbdates.QuarterSnapshotService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDateRepository ucsbDateRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean JobService jobService;
+
+  @MockBean AcademicCalendarService academicCalendarService;
+
+  @MockBean QuarterSnapshotService quarterSnapshotService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -194,6 +222,10 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDateRepository, times(1)).save(ucsbDate1);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("0", event.getEntityId());
+    assertEquals(ucsbDate1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(ucsbDate1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -225,6 +257,10 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDateRepository, times(1)).findById(15L);
     verify(ucsbDateRepository, times(1)).delete(any());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
+    assertEquals(ucsbDate1, event.getEntity());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 deleted", json.get("message"));
@@ -247,6 +283,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDateRepository, times(1)).findById(15L);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 15 not found", json.get("message"));
   }
@@ -292,6 +329,10 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDateRepository, times(1)).findById(67L);
     verify(ucsbDateRepository, times(1)).save(ucsbDateEdited); // should be saved with correct user
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
+    assertEquals(ucsbDateEdited, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -331,4 +372,350 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_ucsb_dates_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    UCSBDate first =
+        UCSBDate.builder()
+            .id(7)
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-03T00:00:00"))
+            .build();
+    UCSBDate second =
+        UCSBDate.builder()
+            .id(8)
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+    UCSBDate firstToSave =
+        UCSBDate.builder()
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-03T00:00:00"))
+            .build();
+    UCSBDate secondToSave =
+        UCSBDate.builder()
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+    UCSBDate savedFirst =
+        UCSBDate.builder()
+            .id(1)
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-03T00:00:00"))
+            .build();
+    UCSBDate savedSecond =
+        UCSBDate.builder()
+            .id(2)
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+
+    when(ucsbDateRepository.saveAll(any())).thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(2, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDate original =
+        UCSBDate.builder()
+            .id(67)
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-03T00:00:00"))
+            .build();
+    UCSBDate edited =
+        UCSBDate.builder()
+            .id(67)
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+    UCSBDate missing =
+        UCSBDate.builder()
+            .id(68)
+            .quarterYYYYQ("20222")
+            .name("lastDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-06-03T00:00:00"))
+            .build();
+
+    when(ucsbDateRepository.findAllById(List.of(67L, 68L))).thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(1, Status.NOT_FOUND, "68", "UCSBDate with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_ucsb_dates_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDate existing =
+        UCSBDate.builder()
+            .id(15)
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-03-03T00:00:00"))
+            .build();
+
+    when(ucsbDateRepository.findAllById(List.of(15L, 16L, 15L))).thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdates/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(1, Status.NOT_FOUND, "16", "UCSBDate with id 16 not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "15", "UCSBDate with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_import_ucsb_dates() throws Exception {
+    MockMultipartFile file = new MockMultipartFile("file", "dates.csv", "text/csv", new byte[0]);
+    mockMvc
+        .perform(multipart("/api/ucsbdates/import").file(file).param("format", "CSV").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_ucsb_dates_as_a_job() throws Exception {
+    // arrange
+
+    // the ids in the file are ignored
+    MockMultipartFile file =
+        new MockMultipartFile(
+            "file",
+            "dates.csv",
+            "text/csv",
+            """
+            id,quarterYYYYQ,name,localDateTime
+            7,20222,firstDayOfClasses,2022-04-03T00:00:00
+            """
+                .getBytes());
+    Job job = Job.builder().id(17L).status("running").build();
+    when(jobService.runAsJob(any(ImportJob.class))).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/ucsbdates/import").file(file).param("format", "CSV").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture());
+    importJob.getValue().accept(new JobContext(null, job));
+
+    UCSBDate expected =
+        UCSBDate.builder()
+            .id(0)
+            .quarterYYYYQ("20222")
+            .name("firstDayOfClasses")
+            .localDateTime(LocalDateTime.parse("2022-04-03T00:00:00"))
+            .build();
+    verify(ucsbDateRepository).saveAll(List.of(expected));
+    verify(quarterSnapshotService).datesSaved(List.of(expected));
+  }
+
+  // Tests for GET /api/ucsbdates/byQuarter
+
+  @Test
+  public void logged_out_users_cannot_get_a_quarter() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/byQuarter?quarterYYYYQ=20241")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_get_the_encoded_quarter() throws Exception {
+    // arrange
+    byte[] json = "[{\"id\":1,\"quarterYYYYQ\":\"20241\"}]".getBytes(StandardCharsets.UTF_8);
+    when(quarterSnapshotService.quarter("20241")).thenReturn(json);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/byQuarter?quarterYYYYQ=20241"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(MediaType.APPLICATION_JSON_VALUE, response.getResponse().getContentType());
+    assertArrayEquals(json, response.getResponse().getContentAsByteArray());
+  }
+
+  // Tests for the academic calendar: /between, /upcoming and /onDay
+
+  @Test
+  public void logged_out_users_cannot_read_the_calendar() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/upcoming")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_dates_between_two_times() throws Exception {
+    // arrange
+    UCSBDate firstDay =
+        UCSBDate.builder()
+            .id(1L)
+            .quarterYYYYQ("20241")
+            .name("First day of classes")
+            .localDateTime(LocalDateTime.parse("2024-01-08T08:00:00"))
+            .build();
+    when(academicCalendarService.between(
+            LocalDateTime.parse("2024-01-01T00:00:00"), LocalDateTime.parse("2024-01-31T00:00:00")))
+        .thenReturn(List.of(firstDay));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdates/between?from=2024-01-01T00:00:00&to=2024-01-31T00:00:00"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(firstDay)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void between_rejects_a_range_that_ends_before_it_starts() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                get("/api/ucsbdates/between?from=2024-01-31T00:00:00&to=2024-01-01T00:00:00"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "from must not be after to"),
+        responseToJson(response));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_upcoming_dates() throws Exception {
+    when(academicCalendarService.upcoming(10)).thenReturn(List.of());
+    when(academicCalendarService.upcoming(100)).thenReturn(List.of());
+
+    mockMvc.perform(get("/api/ucsbdates/upcoming")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/ucsbdates/upcoming?n=1000")).andExpect(status().isOk());
+
+    verify(academicCalendarService).upcoming(10);
+    verify(academicCalendarService).upcoming(100);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void upcoming_rejects_n_below_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/upcoming?n=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("n must be at least 1", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_dates_on_a_day() throws Exception {
+    when(academicCalendarService.onDay(LocalDate.parse("2024-01-15"))).thenReturn(List.of());
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/onDay?date=2024-01-15"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    assertEquals("[]", response.getResponse().getContentAsString());
+    verify(academicCalendarService).onDay(LocalDate.parse("2024-01-15"));
+  }
 }
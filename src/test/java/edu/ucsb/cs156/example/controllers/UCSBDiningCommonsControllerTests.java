@@ -2,7 +2,10 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,29 +18,43 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.diningcommons.NearestDiningCommonsService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean NearestDiningCommonsService nearestDiningCommonsService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   // Authorization tests for /api/ucsbdiningcommons/admin/all
 
   @Test
@@ -209,6 +226,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).save(ortega);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("ortega", event.getEntityId());
+    assertEquals(ortega, event.getEntity());
     String expectedJson = mapper.writeValueAsString(ortega);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -242,6 +263,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("portola");
     verify(ucsbDiningCommonsRepository, times(1)).delete(any());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("portola", event.getEntityId());
+    assertEquals(portola, event.getEntity());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id portola deleted", json.get("message"));
@@ -264,6 +289,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbDiningCommonsRepository, times(1)).findById("munger-hall");
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
@@ -316,6 +342,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     verify(ucsbDiningCommonsRepository, times(1)).findById("carrillo");
     verify(ucsbDiningCommonsRepository, times(1))
         .save(carrilloEdited); // should be saved with updated info
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("carrillo", event.getEntityId());
+    assertEquals(carrilloEdited, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -357,4 +387,346 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_commons_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_commons_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommons first =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+    UCSBDiningCommons second =
+        UCSBDiningCommons.builder()
+            .code("carrillo")
+            .name("Carrillo")
+            .hasSackMeal(false)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409953)
+            .longitude(-119.85277)
+            .build();
+
+    when(ucsbDiningCommonsRepository.saveAll(any())).thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(first, second));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "ortega", null),
+            bulkItemResult(1, Status.CREATED, "carrillo", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(2, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void commons_whose_code_is_taken_are_conflicts_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommons existing =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+
+    when(ucsbDiningCommonsRepository.findAllById(List.of("ortega")))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(existing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of());
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(
+                0, Status.CONFLICT, "ortega", "UCSBDiningCommons with id ortega already exists"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_commons_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommons original =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+    UCSBDiningCommons edited =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Carrillo")
+            .hasSackMeal(false)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409953)
+            .longitude(-119.85277)
+            .build();
+    UCSBDiningCommons missing =
+        UCSBDiningCommons.builder()
+            .code("munger-hall")
+            .name("Carrillo")
+            .hasSackMeal(false)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.409953)
+            .longitude(-119.85277)
+            .build();
+
+    when(ucsbDiningCommonsRepository.findAllById(List.of("ortega", "munger-hall")))
+        .thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "ortega", null),
+            bulkItemResult(
+                1,
+                Status.NOT_FOUND,
+                "munger-hall",
+                "UCSBDiningCommons with id munger-hall not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_commons_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommons existing =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+
+    when(ucsbDiningCommonsRepository.findAllById(List.of("ortega", "munger-hall", "ortega")))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[\"ortega\",\"munger-hall\",\"ortega\"]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "ortega", null),
+            bulkItemResult(
+                1,
+                Status.NOT_FOUND,
+                "munger-hall",
+                "UCSBDiningCommons with id munger-hall not found"),
+            bulkItemResult(
+                2, Status.NOT_FOUND, "ortega", "UCSBDiningCommons with id ortega not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void commons_without_a_code_are_invalid_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommons withoutCode =
+        UCSBDiningCommons.builder()
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+
+    when(ucsbDiningCommonsRepository.saveAll(any())).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(withoutCode)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).saveAll(List.of());
+    List<BulkItemResult> expected =
+        List.of(bulkItemResult(0, Status.INVALID, null, "code is required"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  // Tests for /api/ucsbdiningcommons/nearest
+
+  @Test
+  public void logged_out_users_cannot_get_the_nearest_commons() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_nearest_commons() throws Exception {
+    // arrange
+    UCSBDiningCommons ortega =
+        UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(true)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build();
+    List<NearbyDiningCommons> nearest = List.of(new NearbyDiningCommons(ortega, 12.5));
+    when(nearestDiningCommonsService.nearest(34.41, -119.85, 3, null, null)).thenReturn(nearest);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(nearest), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_nearest_commons_can_be_filtered_and_k_is_limited() throws Exception {
+    when(nearestDiningCommonsService.nearest(34.41, -119.85, 50, true, false))
+        .thenReturn(List.of());
+
+    mockMvc
+        .perform(
+            get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85&k=1000"
+                    + "&hasSackMeal=true&hasTakeOutMeal=false"))
+        .andExpect(status().isOk());
+
+    verify(nearestDiningCommonsService).nearest(34.41, -119.85, 50, true, false);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void points_off_the_map_are_rejected() throws Exception {
+    for (String query :
+        List.of("lat=90.1&lon=0", "lat=-90.1&lon=0", "lat=0&lon=180.1", "lat=0&lon=-180.1")) {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/ucsbdiningcommons/nearest?" + query))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+
+      assertEquals(
+          Map.of(
+              "type", "IllegalArgumentException",
+              "message", "lat must be in [-90, 90] and lon in [-180, 180]"),
+          responseToJson(response));
+    }
+    verify(nearestDiningCommonsService, never())
+        .nearest(anyDouble(), anyDouble(), anyInt(), any(), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void k_must_be_at_least_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?lat=90&lon=-180&k=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("k must be at least 1", responseToJson(response).get("message"));
+  }
 }
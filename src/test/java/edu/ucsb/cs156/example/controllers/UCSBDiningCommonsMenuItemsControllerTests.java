@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -8,34 +9,58 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.jobs.ImportJob;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.services.ratings.MenuItemLeaderboardService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCase {
 
   @MockBean UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean JobService jobService;
+
+  @MockBean MenuItemLeaderboardService menuItemLeaderboardService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   @Test
   public void logged_out_users_cannot_get_all() throws Exception {
     mockMvc
@@ -123,6 +148,10 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
 
     // assert
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(eq(ucsbDiningCommonsMenuItem1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("0", event.getEntityId());
+    assertEquals(ucsbDiningCommonsMenuItem1, event.getEntity());
     String expectedJson = mapper.writeValueAsString(ucsbDiningCommonsMenuItem1);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -226,6 +255,10 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     // assert
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(67L);
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).save(editeducsbDiningCommonsMenuItem);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("67", event.getEntityId());
+    assertEquals(editeducsbDiningCommonsMenuItem, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -289,6 +322,9 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     // assert
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).findById(15L);
     verify(ucsbDiningCommonsMenuItemRepository, times(1)).delete(eq(ucsbDiningCommonsMenuItem1));
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("15", event.getEntityId());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 deleted", json.get("message"));
@@ -315,4 +351,301 @@ public class UCSBDiningCommonsMenuItemsControllerTests extends ControllerTestCas
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommonsMenuItem with id 15 not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_menu_items_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/UCSBDiningCommonsMenuItem/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_menu_items_in_bulk() throws Exception {
+    // arrange
+
+    // the ids in the request are ignored
+    UCSBDiningCommonsMenuItem first =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(7)
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta")
+            .station("Entree Specials")
+            .build();
+    UCSBDiningCommonsMenuItem second =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(8)
+            .diningCommonsCode("carrillo")
+            .name("Tofu Banh Mi")
+            .station("Grill")
+            .build();
+    UCSBDiningCommonsMenuItem firstToSave =
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta")
+            .station("Entree Specials")
+            .build();
+    UCSBDiningCommonsMenuItem secondToSave =
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("carrillo")
+            .name("Tofu Banh Mi")
+            .station("Grill")
+            .build();
+    UCSBDiningCommonsMenuItem savedFirst =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(1)
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta")
+            .station("Entree Specials")
+            .build();
+    UCSBDiningCommonsMenuItem savedSecond =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(2)
+            .diningCommonsCode("carrillo")
+            .name("Tofu Banh Mi")
+            .station("Grill")
+            .build();
+
+    when(ucsbDiningCommonsMenuItemRepository.saveAll(any()))
+        .thenReturn(List.of(savedFirst, savedSecond));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/UCSBDiningCommonsMenuItem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemRepository, times(1))
+        .saveAll(List.of(firstToSave, secondToSave));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "1", null),
+            bulkItemResult(1, Status.CREATED, "2", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_menu_items_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommonsMenuItem original =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(67)
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta")
+            .station("Entree Specials")
+            .build();
+    UCSBDiningCommonsMenuItem edited =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(67)
+            .diningCommonsCode("carrillo")
+            .name("Tofu Banh Mi")
+            .station("Grill")
+            .build();
+    UCSBDiningCommonsMenuItem missing =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(68)
+            .diningCommonsCode("carrillo")
+            .name("Tofu Banh Mi")
+            .station("Grill")
+            .build();
+
+    when(ucsbDiningCommonsMenuItemRepository.findAllById(List.of(67L, 68L)))
+        .thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/UCSBDiningCommonsMenuItem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "67", null),
+            bulkItemResult(
+                1, Status.NOT_FOUND, "68", "UCSBDiningCommonsMenuItem with id 68 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_menu_items_in_bulk() throws Exception {
+    // arrange
+
+    UCSBDiningCommonsMenuItem existing =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(15)
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta")
+            .station("Entree Specials")
+            .build();
+
+    when(ucsbDiningCommonsMenuItemRepository.findAllById(List.of(15L, 16L, 15L)))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/UCSBDiningCommonsMenuItem/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[15,16,15]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsMenuItemRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "15", null),
+            bulkItemResult(
+                1, Status.NOT_FOUND, "16", "UCSBDiningCommonsMenuItem with id 16 not found"),
+            bulkItemResult(
+                2, Status.NOT_FOUND, "15", "UCSBDiningCommonsMenuItem with id 15 not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_import_menu_items() throws Exception {
+    MockMultipartFile file =
+        new MockMultipartFile("file", "menuitems.csv", "text/csv", new byte[0]);
+    mockMvc
+        .perform(
+            multipart("/api/UCSBDiningCommonsMenuItem/import")
+                .file(file)
+                .param("format", "CSV")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_import_menu_items_as_a_job() throws Exception {
+    // arrange
+
+    // the ids in the file are ignored
+    MockMultipartFile file =
+        new MockMultipartFile(
+            "file",
+            "menuitems.csv",
+            "text/csv",
+            """
+            id,diningCommonsCode,name,station
+            7,ortega,Baked Pesto Pasta with Chicken,Entree Specials
+            """
+                .getBytes());
+    Job job = Job.builder().id(17L).status("running").build();
+    when(jobService.runAsJob(any(ImportJob.class))).thenReturn(job);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                multipart("/api/UCSBDiningCommonsMenuItem/import")
+                    .file(file)
+                    .param("format", "CSV")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(job), response.getResponse().getContentAsString());
+
+    ArgumentCaptor<ImportJob> importJob = ArgumentCaptor.forClass(ImportJob.class);
+    verify(jobService).runAsJob(importJob.capture());
+    importJob.getValue().accept(new JobContext(null, job));
+
+    UCSBDiningCommonsMenuItem expected =
+        UCSBDiningCommonsMenuItem.builder()
+            .id(0)
+            .diningCommonsCode("ortega")
+            .name("Baked Pesto Pasta with Chicken")
+            .station("Entree Specials")
+            .build();
+    verify(ucsbDiningCommonsMenuItemRepository).saveAll(List.of(expected));
+  }
+
+  // Tests for /api/UCSBDiningCommonsMenuItem/top
+
+  @Test
+  public void logged_out_users_cannot_get_top_rated_items() throws Exception {
+    mockMvc
+        .perform(get("/api/UCSBDiningCommonsMenuItem/top?diningCommonsCode=ortega"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_top_rated_items_of_a_dining_commons() throws Exception {
+    // arrange
+
+    RankedMenuItem first =
+        RankedMenuItem.builder()
+            .itemId(27)
+            .name("Pesto Pasta")
+            .diningCommonsCode("ortega")
+            .station("Entrees")
+            .reviewCount(10)
+            .average(4.8)
+            .score(4.53)
+            .build();
+    when(menuItemLeaderboardService.top("ortega", null, 10)).thenReturn(List.of(first));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/UCSBDiningCommonsMenuItem/top?diningCommonsCode=ortega"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemLeaderboardService, times(1)).top("ortega", null, 10);
+    assertEquals(
+        mapper.writeValueAsString(List.of(first)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_top_rated_items_of_a_station() throws Exception {
+    // arrange
+
+    when(menuItemLeaderboardService.top("ortega", "Entrees", 100)).thenReturn(List.of());
+
+    // act
+    mockMvc
+        .perform(
+            get("/api/UCSBDiningCommonsMenuItem/top?diningCommonsCode=ortega&station=Entrees&n=5000"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(menuItemLeaderboardService, times(1)).top("ortega", "Entrees", 100);
+  }
 }
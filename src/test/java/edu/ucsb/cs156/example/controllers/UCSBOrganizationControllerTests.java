@@ -15,29 +15,42 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.BulkItemResult;
+import edu.ucsb.cs156.example.models.BulkItemResult.Status;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.organizations.OrganizationTypeaheadService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import org.springframework.test.web.servlet.MvcResult;
 
 @WebMvcTest(controllers = UCSBOrganizationController.class)
 @Import(TestConfig.class)
+@RecordApplicationEvents
 public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
   @MockBean UCSBOrganizationRepository ucsbOrganizationRepository;
 
   @MockBean UserRepository userRepository;
 
+  @MockBean OrganizationTypeaheadService organizationTypeaheadService;
+
+  @Autowired ApplicationEvents applicationEvents;
+
   // Authorization tests for /api/ucsborganization/all
 
   @Test
@@ -126,6 +139,10 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbOrganizationRepository, times(1)).save(zpr);
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.CREATED, event.getAction());
+    assertEquals("ZPR", event.getEntityId());
+    assertEquals(zpr, event.getEntity());
     String expectedJson = mapper.writeValueAsString(zpr);
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
@@ -237,6 +254,10 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     verify(ucsbOrganizationRepository, times(1)).findById("SKY");
     verify(ucsbOrganizationRepository, times(1))
         .save(skyEdited); // should be saved with updated info
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.UPDATED, event.getAction());
+    assertEquals("SKY", event.getEntityId());
+    assertEquals(skyEdited, event.getEntity());
     String responseString = response.getResponse().getContentAsString();
     assertEquals(requestBody, responseString);
   }
@@ -301,6 +322,10 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
     // assert
     verify(ucsbOrganizationRepository, times(1)).findById("SKY");
     verify(ucsbOrganizationRepository, times(1)).delete(any());
+    EntityChangedEvent event = applicationEvents.stream(EntityChangedEvent.class).findFirst().get();
+    assertEquals(EntityChangedEvent.Action.DELETED, event.getAction());
+    assertEquals("SKY", event.getEntityId());
+    assertEquals(sky, event.getEntity());
 
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id SKY deleted", json.get("message"));
@@ -323,7 +348,330 @@ public class UCSBOrganizationControllerTests extends ControllerTestCase {
 
     // assert
     verify(ucsbOrganizationRepository, times(1)).findById("KRC");
+    assertEquals(0, applicationEvents.stream(EntityChangedEvent.class).count());
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBOrganization with id KRC not found", json.get("message"));
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_organizations_in_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]")
+                .with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_organizations_in_bulk() throws Exception {
+    // arrange
+
+    UCSBOrganization first =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build();
+    UCSBOrganization second =
+        UCSBOrganization.builder()
+            .orgCode("SKY")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(true)
+            .build();
+
+    when(ucsbOrganizationRepository.saveAll(any())).thenReturn(List.of(first, second));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(first, second)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(first, second));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.CREATED, "ZPR", null),
+            bulkItemResult(1, Status.CREATED, "SKY", null));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(2, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void organizations_whose_org_code_is_taken_are_conflicts_in_bulk() throws Exception {
+    // arrange
+
+    UCSBOrganization existing =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build();
+    UCSBOrganization fresh =
+        UCSBOrganization.builder()
+            .orgCode("SKY")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(true)
+            .build();
+
+    when(ucsbOrganizationRepository.findAllById(List.of("ZPR", "SKY", "SKY")))
+        .thenReturn(List.of(existing));
+    when(ucsbOrganizationRepository.saveAll(any())).thenReturn(List.of(fresh));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(existing, fresh, fresh)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(fresh));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(
+                0, Status.CONFLICT, "ZPR", "UCSBOrganization with id ZPR already exists"),
+            bulkItemResult(1, Status.CREATED, "SKY", null),
+            bulkItemResult(
+                2, Status.CONFLICT, "SKY", "UCSBOrganization with id SKY already exists"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_edit_organizations_in_bulk() throws Exception {
+    // arrange
+
+    UCSBOrganization original =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build();
+    UCSBOrganization edited =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(true)
+            .build();
+    UCSBOrganization missing =
+        UCSBOrganization.builder()
+            .orgCode("OSLI")
+            .orgTranslationShort("SKYDIVING CLUB")
+            .orgTranslation("SKYDIVING CLUB AT UCSB")
+            .inactive(true)
+            .build();
+
+    when(ucsbOrganizationRepository.findAllById(List.of("ZPR", "OSLI")))
+        .thenReturn(List.of(original));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(edited, missing)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).saveAll(List.of(edited));
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.UPDATED, "ZPR", null),
+            bulkItemResult(1, Status.NOT_FOUND, "OSLI", "UCSBOrganization with id OSLI not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_organizations_in_bulk() throws Exception {
+    // arrange
+
+    UCSBOrganization existing =
+        UCSBOrganization.builder()
+            .orgCode("ZPR")
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build();
+
+    when(ucsbOrganizationRepository.findAllById(List.of("ZPR", "OSLI", "ZPR")))
+        .thenReturn(List.of(existing));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content("[\"ZPR\",\"OSLI\",\"ZPR\"]")
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(1)).deleteAll(List.of(existing));
+    // an id given twice is only deleted once
+    List<BulkItemResult> expected =
+        List.of(
+            bulkItemResult(0, Status.DELETED, "ZPR", null),
+            bulkItemResult(1, Status.NOT_FOUND, "OSLI", "UCSBOrganization with id OSLI not found"),
+            bulkItemResult(2, Status.NOT_FOUND, "ZPR", "UCSBOrganization with id ZPR not found"));
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expected), responseString);
+    assertEquals(1, applicationEvents.stream(EntityChangedEvent.class).count());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void organizations_without_an_org_code_are_invalid_in_bulk() throws Exception {
+    // arrange
+
+    UCSBOrganization withoutCode =
+        UCSBOrganization.builder()
+            .orgTranslationShort("ZETA PHI RHO")
+            .orgTranslation("ZETA PHI RHO")
+            .inactive(false)
+            .build();
+
+    when(ucsbOrganizationRepository.saveAll(any())).thenReturn(List.of());
+    when(ucsbOrganizationRepository.findAllById(List.of())).thenReturn(List.of());
+
+    // act
+    MvcResult postResponse =
+        mockMvc
+            .perform(
+                post("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(withoutCode)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+    MvcResult putResponse =
+        mockMvc
+            .perform(
+                put("/api/ucsborganization/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .characterEncoding("utf-8")
+                    .content(mapper.writeValueAsString(List.of(withoutCode)))
+                    .with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbOrganizationRepository, times(2)).saveAll(List.of());
+    List<BulkItemResult> expectedPost =
+        List.of(bulkItemResult(0, Status.INVALID, null, "orgCode is required"));
+    List<BulkItemResult> expectedPut =
+        List.of(bulkItemResult(0, Status.INVALID, null, "id is required"));
+    String postResponseString = postResponse.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expectedPost), postResponseString);
+    String putResponseString = putResponse.getResponse().getContentAsString();
+    assertEquals(mapper.writeValueAsString(expectedPut), putResponseString);
+  }
+
+  // Tests for GET /api/ucsborganization/typeahead
+
+  @Test
+  public void logged_out_users_cannot_get_suggestions() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsborganization/typeahead?prefix=comp"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_suggestions() throws Exception {
+    // arrange
+    UCSBOrganization cs =
+        UCSBOrganization.builder()
+            .orgCode("CS")
+            .orgTranslationShort("Comp Sci")
+            .orgTranslation("Computer Science")
+            .inactive(false)
+            .build();
+    when(organizationTypeaheadService.suggest("comp", 10, false)).thenReturn(List.of(cs));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/typeahead?prefix=comp"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(cs)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void suggestions_can_include_inactive_organizations_and_k_is_limited() throws Exception {
+    when(organizationTypeaheadService.suggest("comp", 50, true)).thenReturn(List.of());
+
+    mockMvc
+        .perform(get("/api/ucsborganization/typeahead?prefix=comp&k=500&includeInactive=true"))
+        .andExpect(status().isOk());
+
+    verify(organizationTypeaheadService).suggest("comp", 50, true);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void suggestions_need_a_prefix() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/typeahead").param("prefix", " "))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals(
+        Map.of("type", "IllegalArgumentException", "message", "prefix must not be blank"),
+        responseToJson(response));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void suggestions_need_k_of_at_least_one() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization/typeahead?prefix=comp&k=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    assertEquals("k must be at least 1", responseToJson(response).get("message"));
+  }
 }
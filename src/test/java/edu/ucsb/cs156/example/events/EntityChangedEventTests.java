@@ -0,0 +1,74 @@
+package edu.ucsb.cs156.example.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import jakarta.persistence.Entity;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class EntityChangedEventTests {
+
+  @Entity
+  static class UnnamedEntity {}
+
+  static class NotAnEntity {}
+
+  @Test
+  public void entity_name_comes_from_the_entity_annotation() {
+    EntityChangedEvent event =
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.CREATED)
+            .build();
+
+    assertEquals("articles", event.getEntityName());
+  }
+
+  @Test
+  public void resolve_returns_the_entity_as_it_is_after_the_change() {
+    Article local = Article.builder().id(1).title("local").build();
+    Article stored = Article.builder().id(1).title("stored").build();
+    ArticleRepository articleRepository = mock(ArticleRepository.class);
+    when(articleRepository.findById(1L)).thenReturn(Optional.of(stored));
+    when(articleRepository.findById(2L)).thenReturn(Optional.empty());
+
+    assertNull(
+        event("1", EntityChangedEvent.Action.DELETED, local, false).resolve(articleRepository));
+    assertSame(
+        local,
+        event("1", EntityChangedEvent.Action.UPDATED, local, false).resolve(articleRepository));
+    assertSame(
+        stored,
+        event("1", EntityChangedEvent.Action.UPDATED, null, true).resolve(articleRepository));
+    assertNull(
+        event("2", EntityChangedEvent.Action.UPDATED, null, true).resolve(articleRepository));
+  }
+
+  private static EntityChangedEvent event(
+      String entityId, EntityChangedEvent.Action action, Article entity, boolean remote) {
+    return EntityChangedEvent.builder()
+        .entityType(Article.class)
+        .entityId(entityId)
+        .action(action)
+        .entity(entity)
+        .remote(remote)
+        .build();
+  }
+
+  @Test
+  public void entity_name_falls_back_to_simple_name_when_annotation_has_no_name() {
+    assertEquals("UnnamedEntity", EntityChangedEvent.entityName(UnnamedEntity.class));
+  }
+
+  @Test
+  public void entity_name_falls_back_to_simple_name_when_class_is_not_an_entity() {
+    assertEquals("NotAnEntity", EntityChangedEvent.entityName(NotAnEntity.class));
+  }
+}
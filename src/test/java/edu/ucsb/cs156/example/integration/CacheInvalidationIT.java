@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Starts two instances of the application in this JVM, sharing one H2 database, and checks that a
+ * write through one instance evicts the cached copy held by the other.
+ */
+public class CacheInvalidationIT {
+
+  private static final String DB_URL = "jdbc:h2:mem:cacheinvalidationit;DB_CLOSE_DELAY=-1";
+
+  private static ConfigurableApplicationContext nodeA;
+  private static ConfigurableApplicationContext nodeB;
+
+  private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+  @BeforeAll
+  public static void startNodes() {
+    nodeA = startNode();
+    nodeB = startNode();
+  }
+
+  @AfterAll
+  public static void stopNodes() {
+    nodeA.close();
+    nodeB.close();
+  }
+
+  private static ConfigurableApplicationContext startNode() {
+    return new SpringApplicationBuilder(ExampleApplication.class)
+        .run(
+            "--spring.profiles.active=integration",
+            "--server.port=0",
+            "--spring.datasource.url=" + DB_URL,
+            "--app.cache.invalidation.poll-ms=100");
+  }
+
+  private static MockMvc mockMvc(ConfigurableApplicationContext node) {
+    return MockMvcBuilders.webAppContextSetup((WebApplicationContext) node)
+        .apply(springSecurity())
+        .build();
+  }
+
+  private String getTitle(MockMvc mockMvc, long id) throws Exception {
+    String json =
+        mockMvc
+            .perform(get("/api/articles?id=" + id).with(user("user").roles("USER")))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return mapper.readValue(json, Article.class).getTitle();
+  }
+
+  @Test
+  public void an_update_on_one_node_evicts_the_cached_article_on_the_other() throws Exception {
+    // arrange
+
+    Article article =
+        nodeA
+            .getBean(ArticleRepository.class)
+            .save(
+                Article.builder()
+                    .title("Original title")
+                    .url("https://example.org/1")
+                    .explanation("explanation")
+                    .email("user@example.org")
+                    .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                    .build());
+
+    MockMvc mockMvcA = mockMvc(nodeA);
+    MockMvc mockMvcB = mockMvc(nodeB);
+
+    // node B now holds the article in its "articles" cache
+    assertEquals("Original title", getTitle(mockMvcB, article.getId()));
+
+    // act
+
+    article.setTitle("Edited title");
+    mockMvcA
+        .perform(
+            put("/api/articles?id=" + article.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(article))
+                .with(user("admin").roles("ADMIN", "USER"))
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> "Edited title".equals(getTitle(mockMvcB, article.getId())));
+  }
+}
@@ -0,0 +1,225 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.helprequests.HelpRequestQueueService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs the help request claim queries against the database: their order, their filters, how they
+ * treat rows locked by another transaction, and concurrent claims.
+ */
+@ExtendWith({SpringExtension.class, QueryBudgetCheck.class})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class HelpRequestQueueIT {
+
+  private static final LocalDateTime NINE = LocalDateTime.parse("2024-01-08T09:00:00");
+
+  private static final Limit ONE = Limit.of(1);
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired HelpRequestQueueService helpRequestQueueService;
+
+  @Autowired TransactionTemplate transactionTemplate;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @BeforeEach
+  public void setup() {
+    helpRequestRepository.deleteAll();
+  }
+
+  @AfterEach
+  public void teardown() {
+    executor.shutdownNow();
+  }
+
+  private HelpRequest save(String teamId, int minutes, boolean solved, String claimedBy) {
+    return helpRequestRepository.save(
+        HelpRequest.builder()
+            .requesterEmail("student@ucsb.edu")
+            .teamId(teamId)
+            .tableOrBreakoutRoom("7")
+            .requestTime(NINE.plusMinutes(minutes))
+            .explanation("help")
+            .solved(solved)
+            .claimedBy(claimedBy)
+            .build());
+  }
+
+  private static List<Long> ids(List<HelpRequest> helpRequests) {
+    return helpRequests.stream().map(HelpRequest::getId).toList();
+  }
+
+  private List<Long> unclaimed(Limit limit) {
+    return transactionTemplate.execute(
+        status -> ids(helpRequestRepository.findUnclaimedForUpdate(limit)));
+  }
+
+  @Test
+  public void unclaimed_requests_are_returned_oldest_first_then_by_id() {
+    save("s24-5pm-1", 0, true, null); // solved
+    save("s24-5pm-2", 1, false, "staff@ucsb.edu"); // claimed
+    HelpRequest later = save("s24-5pm-3", 10, false, null);
+    HelpRequest first = save("s24-5pm-4", 5, false, null);
+    HelpRequest second = save("s24-5pm-5", 5, false, null);
+
+    assertEquals(List.of(first.getId(), second.getId(), later.getId()), unclaimed(Limit.of(10)));
+    assertEquals(List.of(first.getId()), unclaimed(Limit.of(1)));
+  }
+
+  @Test
+  public void fair_claims_skip_teams_that_are_being_helped() {
+    save("s24-5pm-1", 0, false, "staff@ucsb.edu");
+    save("s24-5pm-1", 1, false, null); // same team, older than the others
+    save("s24-5pm-2", 2, true, "staff@ucsb.edu"); // solved, so the team is not being helped
+    HelpRequest team2 = save("s24-5pm-2", 4, false, null);
+    HelpRequest team3 = save("s24-5pm-3", 3, false, null);
+
+    List<Long> fair =
+        transactionTemplate.execute(
+            status ->
+                ids(helpRequestRepository.findUnclaimedFromWaitingTeamsForUpdate(Limit.of(10))));
+
+    assertEquals(List.of(team3.getId(), team2.getId()), fair);
+  }
+
+  @Test
+  public void fair_claims_include_requests_without_a_team() {
+    save("s24-5pm-1", 0, false, "staff@ucsb.edu"); // a team is being helped
+    HelpRequest noTeam = save(null, 1, false, null);
+
+    List<Long> fair =
+        transactionTemplate.execute(
+            status ->
+                ids(helpRequestRepository.findUnclaimedFromWaitingTeamsForUpdate(Limit.of(10))));
+
+    assertEquals(List.of(noTeam.getId()), fair);
+  }
+
+  @Test
+  public void a_request_locked_by_another_claim_is_not_returned() throws Exception {
+    HelpRequest oldest = save("s24-5pm-1", 0, false, null);
+    HelpRequest next = save("s24-5pm-2", 1, false, null);
+    boolean skipLocked =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices()
+            .getDialect()
+            .supportsSkipLocked();
+
+    // the first claim locks the oldest request and holds the lock until it is released
+    CountDownLatch locked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<List<Long>> first =
+        executor.submit(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                      List<HelpRequest> claimed = helpRequestRepository.findUnclaimedForUpdate(ONE);
+                      claimed.forEach(helpRequest -> helpRequest.setClaimedBy("first@ucsb.edu"));
+                      locked.countDown();
+                      await(release);
+                      return ids(claimed);
+                    }));
+    assertTrue(locked.await(10, TimeUnit.SECONDS));
+
+    Future<List<Long>> second = executor.submit(() -> unclaimed(ONE));
+    List<Long> secondIds;
+    if (skipLocked) {
+      // with SKIP LOCKED the second claim does not wait for the first
+      secondIds = second.get(10, TimeUnit.SECONDS);
+      release.countDown();
+    } else {
+      // otherwise it waits, and once the first commits it must not return the claimed request
+      assertFalse(waitsLessThan(second, 1));
+      release.countDown();
+      secondIds = second.get(10, TimeUnit.SECONDS);
+    }
+
+    assertEquals(List.of(oldest.getId()), first.get(10, TimeUnit.SECONDS));
+    assertEquals(List.of(next.getId()), secondIds);
+  }
+
+  @Test
+  public void concurrent_claims_never_return_the_same_request() throws Exception {
+    int claims = 4;
+    List<Long> expected = new ArrayList<>();
+    for (int i = 0; i < claims; i++) {
+      expected.add(save("s24-5pm-" + i, i, false, null).getId());
+    }
+
+    CyclicBarrier start = new CyclicBarrier(claims);
+    List<Future<Long>> futures = new ArrayList<>();
+    for (int i = 0; i < claims; i++) {
+      String staff = "staff%d@ucsb.edu".formatted(i);
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await(10, TimeUnit.SECONDS);
+                return helpRequestQueueService.claimNext(staff, false).orElseThrow().getId();
+              }));
+    }
+
+    Set<Long> claimed = new HashSet<>();
+    for (Future<Long> future : futures) {
+      claimed.add(future.get(30, TimeUnit.SECONDS));
+    }
+    assertEquals(Set.copyOf(expected), claimed);
+    assertTrue(helpRequestQueueService.claimNext("late@ucsb.edu", false).isEmpty());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static boolean waitsLessThan(Future<?> future, int seconds) throws Exception {
+    try {
+      future.get(seconds, TimeUnit.SECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      return false;
+    }
+  }
+}
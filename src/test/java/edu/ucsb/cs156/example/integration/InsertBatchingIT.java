@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the throughput of {@code saveAll} with JDBC batching off and on.
+ *
+ * <p>With {@code batch_size=1} every insert is its own statement, which is what IDENTITY ids forced
+ * before ids came from pooled sequences. The number of prepared statements is asserted; the
+ * throughput is only logged, since it depends on the machine running the test.
+ */
+@Slf4j
+public class InsertBatchingIT {
+
+  private static final int WARMUP_ROWS = 500;
+  private static final int MEASURED_ROWS = 5000;
+
+  private record Result(double rowsPerSecond, long statements, Set<Long> ids) {}
+
+  private Result run(int batchSize) {
+    try (ConfigurableApplicationContext node =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--spring.profiles.active=integration",
+                "--server.port=0",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--HIBERNATE_STATISTICS=true")) {
+
+      RestaurantRepository restaurantRepository = node.getBean(RestaurantRepository.class);
+      Statistics statistics =
+          node.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+      restaurantRepository.saveAll(restaurants(WARMUP_ROWS));
+      statistics.clear();
+
+      long start = System.nanoTime();
+      Iterable<Restaurant> saved = restaurantRepository.saveAll(restaurants(MEASURED_ROWS));
+      long elapsed = System.nanoTime() - start;
+
+      Set<Long> ids = new HashSet<>();
+      saved.forEach(restaurant -> ids.add(restaurant.getId()));
+      return new Result(MEASURED_ROWS * 1e9 / elapsed, statistics.getPrepareStatementCount(), ids);
+    }
+  }
+
+  private List<Restaurant> restaurants(int count) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      restaurants.add(
+          Restaurant.builder().name("Restaurant " + i).description("Description " + i).build());
+    }
+    return restaurants;
+  }
+
+  @Test
+  public void saveAll_sends_inserts_in_batches_when_batching_is_enabled() {
+    Result unbatched = run(1);
+    Result batched = run(50);
+
+    log.info(
+        "saveAll of {} restaurants: {} rows/s in {} statements unbatched,"
+            + " {} rows/s in {} statements with batch_size=50",
+        MEASURED_ROWS,
+        String.format("%.0f", unbatched.rowsPerSecond()),
+        unbatched.statements(),
+        String.format("%.0f", batched.rowsPerSecond()),
+        batched.statements());
+
+    assertEquals(MEASURED_ROWS, unbatched.ids().size());
+    assertEquals(MEASURED_ROWS, batched.ids().size());
+    assertTrue(unbatched.statements() >= MEASURED_ROWS);
+    // one insert per batch of 50 plus one sequence call per block of 50 ids
+    assertTrue(batched.statements() <= 2 * MEASURED_ROWS / 50 + 2);
+  }
+}
@@ -0,0 +1,35 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.services.metrics.QueryBudgetInterceptor;
+import java.util.List;
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Fails an integration test if any request it made ran more SQL statements than its
+ * {@code @QueryBudget}. The interceptor cannot fail the request itself, since its response has
+ * already been written, so the violations it records are checked here after each test.
+ *
+ * <p>Register it after {@link SpringExtension}, which provides the application context.
+ */
+public class QueryBudgetCheck implements BeforeEachCallback, AfterEachCallback {
+
+  @Override
+  public void beforeEach(ExtensionContext context) {
+    interceptor(context).clearViolations();
+  }
+
+  @Override
+  public void afterEach(ExtensionContext context) {
+    List<QueryBudgetInterceptor.Violation> violations = interceptor(context).violations();
+    assertEquals(List.of(), violations, "requests over their @QueryBudget");
+  }
+
+  private static QueryBudgetInterceptor interceptor(ExtensionContext context) {
+    return SpringExtension.getApplicationContext(context).getBean(QueryBudgetInterceptor.class);
+  }
+}
@@ -0,0 +1,209 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.metrics.QueryBudget;
+import edu.ucsb.cs156.example.services.metrics.SqlStatementCounter;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * Checks that every endpoint with a {@code @QueryBudget} stays within it once its table has rows
+ * in it. {@link QueryBudgetCheck} fails each test if any request went over its budget.
+ */
+@ExtendWith({SpringExtension.class, QueryBudgetCheck.class})
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class QueryBudgetIT {
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired ArticleRepository articleRepository;
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired
+  @Qualifier("requestMappingHandlerMapping")
+  RequestMappingHandlerMapping handlerMapping;
+
+  @Autowired public MockMvc mockMvc;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void listing_jobs_runs_one_statement_however_many_users_created_them() throws Exception {
+    // arrange
+
+    for (int i = 0; i < 5; i++) {
+      User user = userRepository.save(User.builder().email("user%d@ucsb.edu".formatted(i)).build());
+      jobsRepository.save(Job.builder().createdBy(user).status("complete").log("done").build());
+    }
+
+    // act
+
+    long before = SqlStatementCounter.count();
+    mockMvc.perform(get("/api/jobs/all")).andExpect(status().isOk());
+
+    // assert
+
+    assertEquals(1, SqlStatementCounter.count() - before);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void every_budgeted_endpoint_stays_within_its_budget() throws Exception {
+    // arrange
+
+    for (int i = 0; i < 3; i++) {
+      seed(i);
+    }
+
+    // act
+
+    List<String> paths = budgetedPaths();
+    for (String path : paths) {
+      mockMvc.perform(get(path)).andExpect(status().isOk());
+    }
+
+    // assert: QueryBudgetCheck fails the test if any request went over its budget
+
+    assertFalse(paths.isEmpty());
+  }
+
+  private List<String> budgetedPaths() {
+    List<String> paths = new ArrayList<>();
+    handlerMapping
+        .getHandlerMethods()
+        .forEach(
+            (RequestMappingInfo info, HandlerMethod method) -> {
+              if (method.hasMethodAnnotation(QueryBudget.class)
+                  && info.getMethodsCondition().getMethods().contains(RequestMethod.GET)) {
+                for (String path : info.getPatternValues()) {
+                  if (!path.contains("{")) {
+                    paths.add(path);
+                  }
+                }
+              }
+            });
+    return paths;
+  }
+
+  private void seed(int i) {
+    LocalDateTime now = LocalDateTime.now();
+    User user = userRepository.save(User.builder().email("user%d@ucsb.edu".formatted(i)).build());
+    jobsRepository.save(Job.builder().createdBy(user).status("complete").log("done").build());
+    articleRepository.save(
+        Article.builder()
+            .title("Article " + i)
+            .url("https://example.org/" + i)
+            .explanation("explanation")
+            .email(user.getEmail())
+            .dateAdded(now)
+            .build());
+    helpRequestRepository.save(
+        HelpRequest.builder()
+            .requesterEmail(user.getEmail())
+            .teamId("team" + i)
+            .tableOrBreakoutRoom("table" + i)
+            .requestTime(now)
+            .explanation("explanation")
+            .build());
+    menuItemReviewRepository.save(
+        MenuItemReview.builder()
+            .itemId(i + 1)
+            .reviewerEmail(user.getEmail())
+            .stars(4)
+            .dateReviewed(now)
+            .comments("good")
+            .build());
+    recommendationRequestRepository.save(
+        RecommendationRequest.builder()
+            .requesterEmail(user.getEmail())
+            .professorEmail("professor@ucsb.edu")
+            .explanation("explanation")
+            .dateRequested(ZonedDateTime.now())
+            .dateNeeded(ZonedDateTime.now().plusWeeks(2))
+            .build());
+    restaurantRepository.save(
+        Restaurant.builder().name("Restaurant " + i).description("description").build());
+    ucsbDateRepository.save(
+        UCSBDate.builder().quarterYYYYQ("20251").name("Date " + i).localDateTime(now).build());
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code("commons" + i).name("Commons " + i).build());
+    ucsbDiningCommonsMenuItemRepository.save(
+        UCSBDiningCommonsMenuItem.builder()
+            .diningCommonsCode("commons" + i)
+            .name("Item " + i)
+            .station("Grill")
+            .build());
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgCode("ORG" + i)
+            .orgTranslationShort("Org " + i)
+            .orgTranslation("Organization " + i)
+            .build());
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.SecondLevelCacheStatistics;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.cache.SecondLevelCacheService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Compares {@code GET /api/restaurants?id=} with the second-level cache off and on.
+ *
+ * <p>The same read workload runs against a fresh instance for each setting. The hit ratio is
+ * asserted; the latencies are only logged, since they depend on the machine running the test.
+ */
+@Slf4j
+public class SecondLevelCacheIT {
+
+  private static final int RESTAURANTS = 20;
+  private static final int WARMUP_READS = 200;
+  private static final int MEASURED_READS = 2000;
+
+  private record Result(double meanMicros, SecondLevelCacheStatistics statistics) {}
+
+  private Result run(boolean secondLevelCache) throws Exception {
+    try (ConfigurableApplicationContext node =
+        new SpringApplicationBuilder(ExampleApplication.class)
+            .run(
+                "--spring.profiles.active=integration",
+                "--server.port=0",
+                "--HIBERNATE_L2_CACHE=" + secondLevelCache,
+                "--HIBERNATE_STATISTICS=true")) {
+
+      List<Long> ids = new ArrayList<>();
+      RestaurantRepository restaurantRepository = node.getBean(RestaurantRepository.class);
+      for (int i = 0; i < RESTAURANTS; i++) {
+        Restaurant restaurant =
+            Restaurant.builder().name("Restaurant " + i).description("Description " + i).build();
+        ids.add(restaurantRepository.save(restaurant).getId());
+      }
+
+      MockMvc mockMvc =
+          MockMvcBuilders.webAppContextSetup((WebApplicationContext) node)
+              .apply(springSecurity())
+              .build();
+      SecondLevelCacheService secondLevelCacheService =
+          node.getBean(SecondLevelCacheService.class);
+
+      // the warm-up loads every restaurant into the cache (when enabled); only then start counting
+      read(mockMvc, ids, WARMUP_READS);
+      node.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics().clear();
+
+      long start = System.nanoTime();
+      read(mockMvc, ids, MEASURED_READS);
+      long elapsed = System.nanoTime() - start;
+
+      return new Result(elapsed / 1000.0 / MEASURED_READS, secondLevelCacheService.getStatistics());
+    }
+  }
+
+  private void read(MockMvc mockMvc, List<Long> ids, int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      mockMvc
+          .perform(
+              get("/api/restaurants?id=" + ids.get(i % ids.size()))
+                  .with(user("user").roles("USER")))
+          .andExpect(status().isOk());
+    }
+  }
+
+  @Test
+  public void getById_is_served_from_the_second_level_cache_when_it_is_enabled()
+      throws Exception {
+    Result withoutCache = run(false);
+    Result withCache = run(true);
+
+    log.info(
+        "GET /api/restaurants?id= over {} reads: {} us/read without the second-level cache,"
+            + " {} us/read with it (hit ratio {})",
+        MEASURED_READS,
+        String.format("%.1f", withoutCache.meanMicros()),
+        String.format("%.1f", withCache.meanMicros()),
+        String.format("%.3f", withCache.statistics().getHitRatio()));
+
+    assertEquals(0, withoutCache.statistics().getHitCount());
+    assertTrue(withCache.statistics().getSecondLevelCacheEnabled());
+    assertEquals(MEASURED_READS, withCache.statistics().getHitCount());
+    assertEquals(1.0, withCache.statistics().getHitRatio());
+  }
+}
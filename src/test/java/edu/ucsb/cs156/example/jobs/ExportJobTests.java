@@ -0,0 +1,166 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.hibernate.jpa.HibernateHints;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionOperations;
+
+public class ExportJobTests {
+
+  @TempDir Path tempDir;
+
+  EntityManager entityManager = mock(EntityManager.class);
+
+  @SuppressWarnings("unchecked")
+  TypedQuery<Article> query = mock(TypedQuery.class);
+
+  Article first =
+      Article.builder()
+          .id(1)
+          .title("First")
+          .url("https://example.org/1")
+          .explanation("about_first")
+          .email("cgaucho@ucsb.edu")
+          .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+          .build();
+
+  Article second =
+      Article.builder()
+          .id(2)
+          .title("Second")
+          .url("https://example.org/2")
+          .explanation("about_second")
+          .email("ldelplaya@ucsb.edu")
+          .dateAdded(LocalDateTime.parse("2022-01-04T00:00:00"))
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    when(entityManager.createQuery("select e from articles e", Article.class)).thenReturn(query);
+    when(query.setHint(anyString(), any())).thenReturn(query);
+  }
+
+  private ExportJob exportJob(Path file, FileFormat format) {
+    return ExportJob.builder()
+        .entityName("articles")
+        .type(Article.class)
+        .format(format)
+        .file(file)
+        .entityManager(entityManager)
+        .readTransaction(TransactionOperations.withoutTransaction())
+        .logTransaction(TransactionOperations.withoutTransaction())
+        .progressInterval(2)
+        .build();
+  }
+
+  private List<String> readLines(Path file) throws Exception {
+    try (BufferedReader reader =
+        new BufferedReader(
+            new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+      return reader.lines().toList();
+    }
+  }
+
+  @Test
+  public void exports_rows_as_compressed_ndjson_through_a_cursor() throws Exception {
+    // arrange
+
+    when(query.getResultStream()).thenReturn(Stream.of(first, second));
+    Path file = tempDir.resolve("exports").resolve("articles-20220103-000000.ndjson.gz");
+    Job job = Job.builder().build();
+
+    // act
+
+    exportJob(file, FileFormat.NDJSON).accept(new JobContext(null, job));
+
+    // assert
+
+    verify(query).setHint(HibernateHints.HINT_FETCH_SIZE, 1000);
+    verify(query).setHint(HibernateHints.HINT_READ_ONLY, true);
+    verify(entityManager).detach(first);
+    verify(entityManager).detach(second);
+
+    JsonMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    List<String> lines = readLines(file);
+    assertEquals(2, lines.size());
+    assertEquals(first, mapper.readValue(lines.get(0), Article.class));
+    assertEquals(second, mapper.readValue(lines.get(1), Article.class));
+
+    String[] log = job.getLog().split("\n");
+    assertEquals("Exporting articles to articles-20220103-000000.ndjson.gz", log[0]);
+    assertEquals("2 rows exported", log[1]);
+    assertTrue(log[2].startsWith("Done: 2 rows exported, "));
+    assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".part")));
+  }
+
+  @Test
+  public void exports_rows_as_compressed_csv_with_a_header() throws Exception {
+    // arrange
+
+    when(query.getResultStream()).thenReturn(Stream.of(first));
+    Path file = tempDir.resolve("articles-20220103-000000.csv.gz");
+    Job job = Job.builder().build();
+
+    // act
+
+    exportJob(file, FileFormat.CSV).accept(new JobContext(null, job));
+
+    // assert
+
+    assertEquals(
+        List.of(
+            "dateAdded,email,explanation,id,title,url",
+            "2022-01-03T00:00:00,cgaucho@ucsb.edu,about_first,1,First,https://example.org/1"),
+        readLines(file));
+  }
+
+  @Test
+  public void removes_the_partial_file_when_the_export_fails() throws Exception {
+    // arrange
+
+    when(query.getResultStream()).thenThrow(new IllegalStateException("connection lost"));
+    Path file = tempDir.resolve("articles-20220103-000000.ndjson.gz");
+    Job job = Job.builder().build();
+
+    // act
+
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class,
+            () -> exportJob(file, FileFormat.NDJSON).accept(new JobContext(null, job)));
+
+    // assert
+
+    assertEquals("connection lost", e.getMessage());
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertEquals(0, files.count());
+    }
+  }
+}
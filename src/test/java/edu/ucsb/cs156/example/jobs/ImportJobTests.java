@@ -0,0 +1,262 @@
+package edu.ucsb.cs156.example.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ImportJobTests {
+
+  @TempDir Path tempDir;
+
+  MenuItemReviewRepository menuItemReviewRepository = mock(MenuItemReviewRepository.class);
+
+  private MenuItemReview review(long itemId, int stars) {
+    return MenuItemReview.builder()
+        .itemId(itemId)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(stars)
+        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .comments("comment " + itemId)
+        .build();
+  }
+
+  private Path write(String contents) throws Exception {
+    Path file = tempDir.resolve("upload.tmp");
+    Files.writeString(file, contents);
+    return file;
+  }
+
+  private ImportJob.ImportJobBuilder<MenuItemReview> importJob(Path file, FileFormat format) {
+    return ImportJob.<MenuItemReview>builder()
+        .file(file)
+        .format(format)
+        .type(MenuItemReview.class)
+        .repository(menuItemReviewRepository);
+  }
+
+  @Test
+  public void imports_csv_rows_in_batches_and_logs_progress() throws Exception {
+    // arrange
+
+    Path file =
+        write(
+            """
+            itemId,reviewerEmail,stars,dateReviewed,comments
+            1,cgaucho@ucsb.edu,5,2022-01-03T00:00:00,comment 1
+            2,cgaucho@ucsb.edu,4,2022-01-03T00:00:00,comment 2
+            3,cgaucho@ucsb.edu,3,2022-01-03T00:00:00,comment 3
+            """);
+    Job job = Job.builder().build();
+
+    // act
+
+    importJob(file, FileFormat.CSV)
+        .batchSize(2)
+        .progressInterval(2)
+        .build()
+        .accept(new JobContext(null, job));
+
+    // assert
+
+    verify(menuItemReviewRepository).saveAll(List.of(review(1, 5), review(2, 4)));
+    verify(menuItemReviewRepository).saveAll(List.of(review(3, 3)));
+    assertEquals(
+        """
+        Importing MenuItemReview rows from CSV
+        2 rows read, 2 imported, 0 rejected
+        Done: 3 rows read, 3 imported, 0 rejected""",
+        job.getLog());
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void skips_ndjson_rows_that_cannot_be_read_or_are_rejected() throws Exception {
+    // arrange
+
+    Path file =
+        write(
+            """
+            {"itemId":1,"reviewerEmail":"cgaucho@ucsb.edu","stars":5,"dateReviewed":"2022-01-03T00:00:00","comments":"comment 1"}
+            {"itemId":2,"stars":"many"}
+            {"itemId":3,"stars":9}
+            {"itemId":4,"reviewerEmail":"cgaucho@ucsb.edu","stars":4,"dateReviewed":"2022-01-03T00:00:00","comments":"comment 4","extra":true}
+            """);
+    Job job = Job.builder().build();
+
+    // act
+
+    importJob(file, FileFormat.NDJSON)
+        .prepare(
+            review -> {
+              if (review.getStars() > 5) {
+                throw new IllegalArgumentException("Stars must be between 0 and 5");
+              }
+              return review;
+            })
+        .build()
+        .accept(new JobContext(null, job));
+
+    // assert
+
+    verify(menuItemReviewRepository).saveAll(List.of(review(1, 5), review(4, 4)));
+    String[] log = job.getLog().split("\n");
+    assertEquals(4, log.length);
+    assertEquals("Importing MenuItemReview rows from NDJSON", log[0]);
+    assertTrue(log[1].startsWith("Row 2 rejected: Cannot deserialize value of type `int`"));
+    assertEquals("Row 3 rejected: Stars must be between 0 and 5", log[2]);
+    assertEquals("Done: 4 rows read, 2 imported, 2 rejected", log[3]);
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void only_the_first_rejections_are_logged() throws Exception {
+    // arrange
+
+    Path file = write("{\"stars\":\"many\"}\n".repeat(ImportJob.MAX_LOGGED_REJECTIONS + 1));
+    Job job = Job.builder().build();
+
+    // act
+
+    importJob(file, FileFormat.NDJSON).build().accept(new JobContext(null, job));
+
+    // assert
+
+    verify(menuItemReviewRepository, never()).saveAll(any());
+    String[] log = job.getLog().split("\n");
+    assertEquals(ImportJob.MAX_LOGGED_REJECTIONS + 2, log.length);
+    assertEquals("Done: 101 rows read, 0 imported, 101 rejected", log[log.length - 1]);
+  }
+
+  @Test
+  public void stops_and_deletes_the_file_when_it_is_not_valid_json() throws Exception {
+    // arrange
+
+    Path file = write("{\"itemId\":1,\"stars\":5}\n{\"itemId\":\n");
+    Job job = Job.builder().build();
+
+    // act
+
+    assertThrows(
+        JsonParseException.class,
+        () ->
+            importJob(file, FileFormat.NDJSON)
+                .batchSize(1)
+                .build()
+                .accept(new JobContext(null, job)));
+
+    // assert
+
+    verify(menuItemReviewRepository, times(1)).saveAll(any());
+    assertFalse(Files.exists(file));
+  }
+
+  @Test
+  public void passes_each_saved_batch_to_afterSave() throws Exception {
+    // arrange
+
+    Path file =
+        write(
+            """
+            itemId,reviewerEmail,stars,dateReviewed,comments
+            1,cgaucho@ucsb.edu,5,2022-01-03T00:00:00,comment 1
+            2,cgaucho@ucsb.edu,4,2022-01-03T00:00:00,comment 2
+            3,cgaucho@ucsb.edu,3,2022-01-03T00:00:00,comment 3
+            """);
+    List<List<MenuItemReview>> saved = new ArrayList<>();
+
+    // act
+
+    importJob(file, FileFormat.CSV)
+        .batchSize(2)
+        .afterSave(saved::add)
+        .build()
+        .accept(new JobContext(null, Job.builder().build()));
+
+    // assert
+
+    assertEquals(List.of(List.of(review(1, 5), review(2, 4)), List.of(review(3, 3))), saved);
+  }
+
+  @Test
+  public void saves_each_batch_and_runs_afterSave_in_one_transaction() throws Exception {
+    // arrange
+
+    Path file =
+        write(
+            """
+            itemId,reviewerEmail,stars,dateReviewed,comments
+            1,cgaucho@ucsb.edu,5,2022-01-03T00:00:00,comment 1
+            2,cgaucho@ucsb.edu,4,2022-01-03T00:00:00,comment 2
+            3,cgaucho@ucsb.edu,3,2022-01-03T00:00:00,comment 3
+            """);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    // act
+
+    importJob(file, FileFormat.CSV)
+        .batchSize(2)
+        .transaction(new TransactionTemplate(transactionManager))
+        .build()
+        .accept(new JobContext(null, Job.builder().build()));
+
+    // assert
+
+    verify(transactionManager, times(2)).getTransaction(any());
+    verify(transactionManager, times(2)).commit(any());
+  }
+
+  @Test
+  public void rolls_back_the_batch_when_afterSave_fails() throws Exception {
+    // arrange
+
+    Path file =
+        write(
+            """
+            itemId,reviewerEmail,stars,dateReviewed,comments
+            1,cgaucho@ucsb.edu,5,2022-01-03T00:00:00,comment 1
+            """);
+    PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    ImportJob<MenuItemReview> job =
+        importJob(file, FileFormat.CSV)
+            .afterSave(
+                batch -> {
+                  throw new IllegalStateException("ratings could not be updated");
+                })
+            .transaction(new TransactionTemplate(transactionManager))
+            .build();
+
+    // act
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> job.accept(new JobContext(null, Job.builder().build())));
+
+    // assert
+
+    verify(menuItemReviewRepository).saveAll(List.of(review(1, 5)));
+    verify(transactionManager).rollback(any());
+    verify(transactionManager, never()).commit(any());
+    assertFalse(Files.exists(file));
+  }
+}
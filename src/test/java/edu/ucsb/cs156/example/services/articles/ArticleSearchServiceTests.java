@@ -0,0 +1,224 @@
+package edu.ucsb.cs156.example.services.articles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.ArticleSearchResult;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ArticleSearchServiceTests {
+
+  @Mock private ArticleRepository articleRepository;
+
+  private ArticleSearchService articleSearchService;
+
+  private static final LocalDateTime NOW = LocalDateTime.parse("2024-01-01T00:00:00");
+
+  private final Article records =
+      article(1, "Java records", "https://openjdk.org/jeps/395", "Records are data classes", NOW);
+  private final Article streams =
+      article(2, "Streams", "https://example.org/streams", "Java streams and records", NOW);
+  private final Article boot =
+      article(3, "Spring Boot", "https://spring.io", "Spring Boot makes Java apps", NOW);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    articleSearchService = new ArticleSearchService();
+    ReflectionTestUtils.setField(articleSearchService, "articleRepository", articleRepository);
+    ReflectionTestUtils.setField(articleSearchService, "recencyWeight", 0.5);
+    ReflectionTestUtils.setField(articleSearchService, "halfLifeDays", 365.0);
+    ReflectionTestUtils.setField(
+        articleSearchService,
+        "clock",
+        Clock.fixed(Instant.parse("2024-01-01T00:00:00Z"), ZoneOffset.UTC));
+
+    when(articleRepository.findAll()).thenReturn(List.of(records, streams, boot));
+    articleSearchService.rebuild();
+  }
+
+  private static Article article(
+      long id, String title, String url, String explanation, LocalDateTime dateAdded) {
+    return Article.builder()
+        .id(id)
+        .title(title)
+        .url(url)
+        .explanation(explanation)
+        .email("phtcon@ucsb.edu")
+        .dateAdded(dateAdded)
+        .build();
+  }
+
+  private List<Long> searchIds(String query) {
+    return articleSearchService.search(query, 10).stream()
+        .map(result -> result.getArticle().getId())
+        .toList();
+  }
+
+  private void changed(Article article, EntityChangedEvent.Action action) {
+    articleSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId(Long.toString(article.getId()))
+            .action(action)
+            .entity(article)
+            .build());
+  }
+
+  @Test
+  public void tokenize_splits_text_into_lower_case_words() {
+    assertEquals(
+        List.of("héllo", "world", "42", "https", "a", "b"),
+        ArticleSearchService.tokenize("  Héllo, WORLD! 42 https://a.b"));
+    assertEquals(List.of(), ArticleSearchService.tokenize(null));
+  }
+
+  @Test
+  public void words_in_the_title_count_more() {
+    // "records" is in the title of 1 but only the explanation of 2
+    assertEquals(List.of(1L, 2L), searchIds("records"));
+  }
+
+  @Test
+  public void articles_matching_more_words_rank_higher() {
+    // "java" is in the title of 1 and the explanation of 2, but only 3 also has "spring"
+    assertEquals(List.of(3L, 1L, 2L), searchIds("spring java"));
+  }
+
+  @Test
+  public void scores_are_bm25() {
+    Article only = article(1, null, null, "spring boot spring", null);
+    when(articleRepository.findAll()).thenReturn(List.of(only));
+    articleSearchService.rebuild();
+
+    List<ArticleSearchResult> results = articleSearchService.search("Spring spring", 10);
+
+    // one article of average length, so the length norm is k1 = 1.2
+    double idf = Math.log(1 + 0.5 / 1.5);
+    assertSame(only, results.get(0).getArticle());
+    assertEquals(idf * 2 * 2.2 / (2 + 1.2), results.get(0).getScore(), 1e-9);
+  }
+
+  @Test
+  public void newer_articles_rank_higher() {
+    Article old = article(4, "Spring", null, null, NOW.minusDays(365));
+    Article future = article(5, "Spring", null, null, NOW.plusDays(30));
+    Article undated = article(6, "Spring", null, null, null);
+    when(articleRepository.findAll()).thenReturn(List.of(old, future, undated));
+    articleSearchService.rebuild();
+
+    List<ArticleSearchResult> results = articleSearchService.search("spring", 10);
+
+    assertEquals(
+        List.of(5L, 4L, 6L), results.stream().map(result -> result.getArticle().getId()).toList());
+    // a year old is half the boost; undated articles get none; future ones get all of it
+    assertEquals(1.25 / 1.5, results.get(1).getScore() / results.get(0).getScore(), 1e-9);
+    assertEquals(1 / 1.5, results.get(2).getScore() / results.get(0).getScore(), 1e-9);
+  }
+
+  @Test
+  public void ties_go_to_the_newer_id() {
+    when(articleRepository.findAll())
+        .thenReturn(
+            List.of(article(4, "Spring", null, null, NOW), article(5, "Spring", null, null, NOW)));
+    articleSearchService.rebuild();
+
+    assertEquals(List.of(5L, 4L), searchIds("spring"));
+  }
+
+  @Test
+  public void search_returns_at_most_limit_articles() {
+    assertEquals(1, articleSearchService.search("java", 1).size());
+  }
+
+  @Test
+  public void search_returns_nothing_for_unknown_words() {
+    assertEquals(List.of(), searchIds("kotlin"));
+  }
+
+  @Test
+  public void a_created_article_is_indexed() {
+    changed(article(4, "Kotlin", null, null, NOW), EntityChangedEvent.Action.CREATED);
+
+    assertEquals(List.of(4L), searchIds("kotlin"));
+  }
+
+  @Test
+  public void an_updated_article_is_indexed_again() {
+    changed(
+        article(3, "Kotlin", "https://kotlinlang.org", "Not Java", NOW),
+        EntityChangedEvent.Action.UPDATED);
+
+    assertEquals(List.of(), searchIds("spring"));
+    assertEquals(List.of(3L), searchIds("kotlin"));
+  }
+
+  @Test
+  public void a_deleted_article_is_removed() {
+    changed(streams, EntityChangedEvent.Action.DELETED);
+
+    assertEquals(List.of(), searchIds("streams"));
+    assertEquals(List.of(1L), searchIds("records"));
+  }
+
+  @Test
+  public void an_article_changed_on_another_instance_is_read_again() {
+    when(articleRepository.findById(3L))
+        .thenReturn(Optional.of(article(3, "Kotlin", null, null, NOW)));
+
+    articleSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("3")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(articleRepository).findById(3L);
+    assertEquals(List.of(3L), searchIds("kotlin"));
+  }
+
+  @Test
+  public void an_article_deleted_on_another_instance_is_removed() {
+    when(articleRepository.findById(3L)).thenReturn(Optional.empty());
+
+    articleSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("3")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    assertEquals(List.of(), searchIds("boot"));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    articleSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new UCSBDate())
+            .build());
+
+    assertEquals(List.of(1L, 2L, 3L), searchIds("java"));
+  }
+}
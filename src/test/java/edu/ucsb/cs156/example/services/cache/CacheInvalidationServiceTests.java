@@ -0,0 +1,234 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.CacheInvalidation;
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.CacheInvalidationRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CacheInvalidationServiceTests {
+
+  @Mock private CacheInvalidationRepository cacheInvalidationRepository;
+
+  @Mock private CacheManager cacheManager;
+
+  @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+  @Mock private Cache articlesCache;
+
+  @InjectMocks private CacheInvalidationService cacheInvalidationService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    ReflectionTestUtils.setField(
+        cacheInvalidationService, "broadcastEntities", List.of("articles", "ucsborganizations"));
+    ReflectionTestUtils.setField(cacheInvalidationService, "gapTimeoutSeconds", 300L);
+    ReflectionTestUtils.setField(cacheInvalidationService, "retentionMinutes", 60L);
+    when(cacheManager.getCache("articles")).thenReturn(articlesCache);
+  }
+
+  private EntityChangedEvent articleEvent(boolean remote) {
+    return EntityChangedEvent.builder()
+        .entityType(Article.class)
+        .entityId("7")
+        .action(EntityChangedEvent.Action.UPDATED)
+        .remote(remote)
+        .build();
+  }
+
+  private CacheInvalidation row(long id, String entityType, String originNode) {
+    return CacheInvalidation.builder()
+        .id(id)
+        .entityType(entityType)
+        .entityId("7")
+        .action(EntityChangedEvent.Action.DELETED)
+        .originNode(originNode)
+        .createdAt(LocalDateTime.now())
+        .build();
+  }
+
+  @Test
+  public void changes_are_evicted() {
+    cacheInvalidationService.onEntityChanged(articleEvent(false));
+
+    verify(articlesCache, times(1)).evict("7");
+    verify(cacheInvalidationRepository, never()).save(any());
+  }
+
+  @Test
+  public void local_change_to_broadcast_entity_is_recorded() {
+    cacheInvalidationService.recordEntityChange(articleEvent(false));
+
+    verify(articlesCache, never()).evict(any());
+    ArgumentCaptor<CacheInvalidation> captor = ArgumentCaptor.forClass(CacheInvalidation.class);
+    verify(cacheInvalidationRepository, times(1)).save(captor.capture());
+    CacheInvalidation saved = captor.getValue();
+    assertEquals(Article.class.getName(), saved.getEntityType());
+    assertEquals("7", saved.getEntityId());
+    assertEquals(EntityChangedEvent.Action.UPDATED, saved.getAction());
+    assertEquals(cacheInvalidationService.getNodeId(), saved.getOriginNode());
+    assertTrue(saved.getCreatedAt() != null);
+  }
+
+  @Test
+  public void remote_change_is_not_recorded_again() {
+    cacheInvalidationService.recordEntityChange(articleEvent(true));
+
+    verify(cacheInvalidationRepository, never()).save(any());
+  }
+
+  @Test
+  public void local_change_to_other_entity_is_not_recorded() {
+    EntityChangedEvent event =
+        EntityChangedEvent.builder()
+            .entityType(Restaurant.class)
+            .entityId("3")
+            .action(EntityChangedEvent.Action.CREATED)
+            .build();
+
+    cacheInvalidationService.recordEntityChange(event);
+    cacheInvalidationService.onEntityChanged(event);
+
+    verify(cacheManager, times(1)).getCache("restaurants");
+    verify(cacheInvalidationRepository, never()).save(any());
+  }
+
+  @Test
+  public void first_poll_starts_at_the_end_of_the_log() {
+    when(cacheInvalidationRepository.findFirstByOrderByIdDesc())
+        .thenReturn(Optional.of(row(5L, Article.class.getName(), "other-node")));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(cacheInvalidationRepository, times(1)).findByIdGreaterThanOrderByIdAsc(5L);
+    verify(applicationEventPublisher, never()).publishEvent(any(EntityChangedEvent.class));
+  }
+
+  @Test
+  public void first_poll_of_an_empty_log_starts_at_zero() {
+    when(cacheInvalidationRepository.findFirstByOrderByIdDesc()).thenReturn(Optional.empty());
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(cacheInvalidationRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0L);
+  }
+
+  @Test
+  public void poll_relays_rows_from_other_nodes_once() {
+    ReflectionTestUtils.setField(cacheInvalidationService, "lastId", 0L);
+    CacheInvalidation remote = row(1L, Article.class.getName(), "other-node");
+    CacheInvalidation local =
+        row(2L, Article.class.getName(), cacheInvalidationService.getNodeId());
+    when(cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(0L))
+        .thenReturn(List.of(remote, local));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(cacheInvalidationRepository, times(1)).findByIdGreaterThanOrderByIdAsc(2L);
+    ArgumentCaptor<EntityChangedEvent> captor = ArgumentCaptor.forClass(EntityChangedEvent.class);
+    verify(applicationEventPublisher, times(1)).publishEvent(captor.capture());
+    EntityChangedEvent relayed = captor.getValue();
+    assertEquals(Article.class, relayed.getEntityType());
+    assertEquals("7", relayed.getEntityId());
+    assertEquals(EntityChangedEvent.Action.DELETED, relayed.getAction());
+    assertTrue(relayed.getRemote());
+    assertNull(relayed.getEntity());
+  }
+
+  @Test
+  public void poll_relays_a_row_that_commits_after_a_row_with_a_higher_id() {
+    ReflectionTestUtils.setField(cacheInvalidationService, "lastId", 0L);
+    when(cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(0L))
+        .thenReturn(List.of(row(3L, Article.class.getName(), "other-node")));
+    // id 1 commits late; id 2 never does, e.g. because it was rolled back
+    when(cacheInvalidationRepository.findAllById(List.of(1L, 2L)))
+        .thenReturn(List.of(row(1L, Article.class.getName(), "other-node")));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(applicationEventPublisher, times(2)).publishEvent(any(EntityChangedEvent.class));
+    verify(cacheInvalidationRepository, times(1)).findAllById(List.of(1L, 2L));
+    verify(cacheInvalidationRepository, times(1)).findAllById(List.of(2L));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void poll_gives_up_on_gaps_after_the_timeout() {
+    ReflectionTestUtils.setField(cacheInvalidationService, "lastId", 2L);
+    Map<Long, LocalDateTime> gaps =
+        (Map<Long, LocalDateTime>) ReflectionTestUtils.getField(cacheInvalidationService, "gaps");
+    gaps.put(1L, LocalDateTime.now().minusMinutes(6));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(cacheInvalidationRepository, times(1)).findAllById(any());
+    assertTrue(gaps.isEmpty());
+  }
+
+  @Test
+  public void poll_does_not_track_a_jump_in_ids_as_gaps() {
+    ReflectionTestUtils.setField(cacheInvalidationService, "lastId", 0L);
+    long id = CacheInvalidationService.MAX_TRACKED_GAP + 2;
+    when(cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(0L))
+        .thenReturn(List.of(row(id, Article.class.getName(), "other-node")));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(applicationEventPublisher, times(1)).publishEvent(any(EntityChangedEvent.class));
+    verify(cacheInvalidationRepository, times(1)).findByIdGreaterThanOrderByIdAsc(id);
+    verify(cacheInvalidationRepository, never()).findAllById(any());
+  }
+
+  @Test
+  public void poll_ignores_rows_for_unknown_entity_types() {
+    ReflectionTestUtils.setField(cacheInvalidationService, "lastId", 0L);
+    when(cacheInvalidationRepository.findByIdGreaterThanOrderByIdAsc(0L))
+        .thenReturn(List.of(row(1L, "edu.ucsb.cs156.example.entities.NoSuchEntity", "other")));
+
+    cacheInvalidationService.pollRemoteInvalidations();
+
+    verify(applicationEventPublisher, never()).publishEvent(any(EntityChangedEvent.class));
+  }
+
+  @Test
+  public void purge_deletes_rows_older_than_retention() {
+    when(cacheInvalidationRepository.deleteByCreatedAtBefore(any())).thenReturn(3L);
+
+    cacheInvalidationService.purgeOldInvalidations();
+
+    ArgumentCaptor<LocalDateTime> captor = ArgumentCaptor.forClass(LocalDateTime.class);
+    verify(cacheInvalidationRepository, times(1)).deleteByCreatedAtBefore(captor.capture());
+    assertTrue(captor.getValue().isBefore(LocalDateTime.now().minusMinutes(59)));
+  }
+}
@@ -0,0 +1,340 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+public class ResponseCacheFilterTests {
+
+  @Mock private RequestMappingHandlerMapping requestMappingHandlerMapping;
+
+  private ResponseCacheFilter responseCacheFilter;
+
+  private int calls;
+  private int status = 200;
+  private String body = "[{\"orgCode\":\"ZPR\"}]";
+  private Runnable duringCall = () -> {};
+  private final AtomicLong nanos = new AtomicLong();
+
+  /** Stand-ins for the endpoints that the requests are mapped to. */
+  static class Endpoints {
+    @CachedResponse(evictOn = UCSBOrganization.class)
+    public String organizations() {
+      return "";
+    }
+
+    @CachedResponse
+    public String systemInfo() {
+      return "";
+    }
+
+    @CachedResponse
+    public String search(@RequestParam(name = "q") String q, @RequestParam String page) {
+      return "";
+    }
+
+    public String plain() {
+      return "";
+    }
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    MockitoAnnotations.openMocks(this);
+    responseCacheFilter = new ResponseCacheFilter();
+    ReflectionTestUtils.setField(
+        responseCacheFilter, "requestMappingHandlerMapping", requestMappingHandlerMapping);
+    ReflectionTestUtils.setField(responseCacheFilter, "maxEntries", 1000);
+    ReflectionTestUtils.setField(responseCacheFilter, "gzipMinBytes", 1024);
+    ReflectionTestUtils.setField(responseCacheFilter, "ttlMinutes", 60L);
+    ReflectionTestUtils.setField(responseCacheFilter, "ticker", (Ticker) nanos::get);
+    responseCacheFilter.afterPropertiesSet();
+    when(requestMappingHandlerMapping.getHandler(any()))
+        .thenAnswer(
+            invocation -> {
+              String uri = invocation.<HttpServletRequest>getArgument(0).getRequestURI();
+              return switch (uri) {
+                case "/api/ucsborganization/all" -> handler("organizations");
+                case "/api/systemInfo" -> handler("systemInfo");
+                case "/api/search" -> handler("search", String.class, String.class);
+                case "/api/plain" -> handler("plain");
+                case "/resource" -> new HandlerExecutionChain(new Object());
+                case "/broken" -> throw new IllegalStateException("no lookup path");
+                default -> null;
+              };
+            });
+    SecurityContextHolder.getContext()
+        .setAuthentication(new TestingAuthenticationToken("user", null, "ROLE_USER"));
+  }
+
+  @AfterEach
+  public void clearSecurityContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  private static HandlerExecutionChain handler(String method, Class<?>... parameterTypes)
+      throws Exception {
+    return new HandlerExecutionChain(
+        new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(method, parameterTypes)));
+  }
+
+  private FilterChain controller() {
+    return (request, response) -> {
+      calls++;
+      duringCall.run();
+      HttpServletResponse httpResponse = (HttpServletResponse) response;
+      httpResponse.setStatus(status);
+      httpResponse.setContentType("application/json");
+      httpResponse.getOutputStream().write(body.getBytes(UTF_8));
+    };
+  }
+
+  private MockHttpServletResponse get(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    responseCacheFilter.doFilter(request, response, controller());
+    return response;
+  }
+
+  private MockHttpServletResponse get(String uri) throws Exception {
+    return get(new MockHttpServletRequest("GET", uri));
+  }
+
+  private static EntityChangedEvent changed(Class<?> entityType) {
+    return EntityChangedEvent.builder()
+        .entityType(entityType)
+        .entityId("ZPR")
+        .action(EntityChangedEvent.Action.UPDATED)
+        .build();
+  }
+
+  private static byte[] gunzip(byte[] gzipped) throws Exception {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      return in.readAllBytes();
+    }
+  }
+
+  @Test
+  public void a_repeated_request_is_served_from_the_cache() throws Exception {
+    MockHttpServletResponse first = get("/api/ucsborganization/all");
+    MockHttpServletResponse second = get("/api/ucsborganization/all");
+
+    assertEquals(1, calls);
+    assertEquals(body, first.getContentAsString());
+    assertEquals(200, second.getStatus());
+    assertEquals(body, second.getContentAsString());
+    assertEquals("application/json", second.getContentType());
+    assertEquals(body.length(), second.getContentLength());
+    assertNull(second.getHeader("Vary"));
+  }
+
+  @Test
+  public void requests_with_other_parameters_are_cached_separately() throws Exception {
+    MockHttpServletRequest qp = new MockHttpServletRequest("GET", "/api/search");
+    qp.addParameter("q", "1");
+    qp.addParameter("page", "2");
+    MockHttpServletRequest pq = new MockHttpServletRequest("GET", "/api/search");
+    pq.addParameter("page", "2");
+    pq.addParameter("q", "1");
+    MockHttpServletRequest otherQ = new MockHttpServletRequest("GET", "/api/search");
+    otherQ.addParameter("q", "2");
+    otherQ.addParameter("page", "2");
+    MockHttpServletRequest otherPage = new MockHttpServletRequest("GET", "/api/search");
+    otherPage.addParameter("q", "1");
+    otherPage.addParameter("page", "3");
+
+    get(qp);
+    get(pq);
+    assertEquals(1, calls);
+    get(otherQ);
+    get(otherPage);
+    assertEquals(3, calls);
+  }
+
+  @Test
+  public void parameters_the_handler_does_not_declare_are_ignored() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/systemInfo");
+      request.addParameter("x", Integer.toString(i));
+      get(request);
+    }
+    MockHttpServletRequest search = new MockHttpServletRequest("GET", "/api/search");
+    search.addParameter("q", "1");
+    search.addParameter("page", "1");
+    MockHttpServletRequest searchWithX = new MockHttpServletRequest("GET", "/api/search");
+    searchWithX.addParameter("q", "1");
+    searchWithX.addParameter("page", "1");
+    searchWithX.addParameter("x", "1");
+    get(search);
+    get(searchWithX);
+
+    assertEquals(2, calls);
+  }
+
+  @Test
+  public void users_with_other_roles_do_not_share_responses() throws Exception {
+    get("/api/systemInfo");
+    SecurityContextHolder.getContext()
+        .setAuthentication(
+            new TestingAuthenticationToken("admin", null, "ROLE_USER", "ROLE_ADMIN"));
+    get("/api/systemInfo");
+    SecurityContextHolder.clearContext();
+    get("/api/systemInfo");
+    get("/api/systemInfo");
+
+    assertEquals(3, calls);
+  }
+
+  @Test
+  public void unsuccessful_responses_are_not_cached() throws Exception {
+    status = 403;
+
+    MockHttpServletResponse response = get("/api/ucsborganization/all");
+    get("/api/ucsborganization/all");
+
+    assertEquals(2, calls);
+    assertEquals(403, response.getStatus());
+    assertEquals(body, response.getContentAsString());
+  }
+
+  @Test
+  public void large_responses_are_served_gzipped_to_clients_that_accept_it() throws Exception {
+    body = "[" + "{\"orgCode\":\"ZPR\"},".repeat(100) + "{}]";
+    MockHttpServletResponse first = get("/api/ucsborganization/all");
+    assertNull(first.getHeader("Content-Encoding"));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/ucsborganization/all");
+    request.addHeader("Accept-Encoding", "deflate, gzip");
+    MockHttpServletResponse gzipped = get(request);
+    MockHttpServletResponse plain = get("/api/ucsborganization/all");
+
+    assertEquals(1, calls);
+    assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", gzipped.getHeader("Vary"));
+    assertEquals(gzipped.getContentAsByteArray().length, gzipped.getContentLength());
+    assertTrue(gzipped.getContentLength() < body.length());
+    assertArrayEquals(body.getBytes(UTF_8), gunzip(gzipped.getContentAsByteArray()));
+    assertNull(plain.getHeader("Content-Encoding"));
+    assertEquals("Accept-Encoding", plain.getHeader("Vary"));
+    assertEquals(body, plain.getContentAsString());
+  }
+
+  @Test
+  public void acceptsGzip_reads_the_accept_encoding_header() {
+    assertFalse(ResponseCacheFilter.acceptsGzip(null));
+    assertFalse(ResponseCacheFilter.acceptsGzip("deflate, br"));
+    assertTrue(ResponseCacheFilter.acceptsGzip("gzip"));
+    assertTrue(ResponseCacheFilter.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+    assertFalse(ResponseCacheFilter.acceptsGzip("gzip;q=0"));
+    assertFalse(ResponseCacheFilter.acceptsGzip("br, gzip; q=0.0"));
+  }
+
+  @Test
+  public void a_change_drops_only_the_responses_that_depend_on_it() throws Exception {
+    get("/api/ucsborganization/all");
+    get("/api/systemInfo");
+
+    responseCacheFilter.onEntityChanged(changed(UCSBDiningCommons.class));
+    get("/api/ucsborganization/all");
+    assertEquals(2, calls);
+
+    responseCacheFilter.onEntityChanged(changed(UCSBOrganization.class));
+    get("/api/ucsborganization/all");
+    get("/api/systemInfo");
+    assertEquals(3, calls);
+  }
+
+  @Test
+  public void a_response_produced_across_a_change_is_not_cached() throws Exception {
+    duringCall = () -> responseCacheFilter.onEntityChanged(changed(UCSBDiningCommons.class));
+    MockHttpServletResponse response = get("/api/systemInfo");
+    duringCall = () -> {};
+    get("/api/systemInfo");
+    get("/api/systemInfo");
+
+    assertEquals(body, response.getContentAsString());
+    assertEquals(2, calls);
+  }
+
+  @Test
+  public void no_more_than_max_entries_responses_are_kept() throws Exception {
+    ReflectionTestUtils.setField(responseCacheFilter, "maxEntries", 1);
+    responseCacheFilter.afterPropertiesSet();
+
+    get("/api/systemInfo");
+    get("/api/ucsborganization/all");
+
+    Cache<?, ?> entries =
+        (Cache<?, ?>) ReflectionTestUtils.getField(responseCacheFilter, "entries");
+    entries.cleanUp();
+    assertEquals(1, entries.estimatedSize());
+  }
+
+  @Test
+  public void responses_are_dropped_after_the_ttl() throws Exception {
+    get("/api/systemInfo");
+    nanos.addAndGet(Duration.ofMinutes(59).toNanos());
+    get("/api/systemInfo");
+    assertEquals(1, calls);
+
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+    get("/api/systemInfo");
+    get("/api/systemInfo");
+    assertEquals(2, calls);
+  }
+
+  @Test
+  public void requests_for_other_handlers_are_passed_through() throws Exception {
+    for (String uri : new String[] {"/api/plain", "/resource", "/broken", "/missing"}) {
+      MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+      ServletRequestPathUtils.parseAndCache(request);
+      assertEquals(body, get(request).getContentAsString());
+      get(uri);
+    }
+
+    assertEquals(8, calls);
+  }
+
+  @Test
+  public void requests_other_than_get_are_passed_through() throws Exception {
+    get(new MockHttpServletRequest("POST", "/api/systemInfo"));
+    get(new MockHttpServletRequest("POST", "/api/systemInfo"));
+
+    assertEquals(2, calls);
+    verify(requestMappingHandlerMapping, never()).getHandler(any());
+  }
+}
@@ -0,0 +1,190 @@
+package edu.ucsb.cs156.example.services.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.SecondLevelCacheRegionStatistics;
+import edu.ucsb.cs156.example.models.SecondLevelCacheStatistics;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.Type;
+import java.util.List;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SecondLevelCacheServiceTests {
+
+  @Mock private EntityManagerFactory entityManagerFactory;
+
+  @Mock private SessionFactory sessionFactory;
+
+  @Mock private SessionFactoryOptions sessionFactoryOptions;
+
+  @Mock private Cache cache;
+
+  @Mock private Statistics statistics;
+
+  @Mock private CacheRegionStatistics restaurantsStatistics;
+
+  @Mock private Metamodel metamodel;
+
+  @Mock private EntityType<?> entityType;
+
+  @Mock private Type<?> idType;
+
+  private SecondLevelCacheService secondLevelCacheService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    secondLevelCacheService = new SecondLevelCacheService();
+    ReflectionTestUtils.setField(
+        secondLevelCacheService, "entityManagerFactory", entityManagerFactory);
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    when(entityManagerFactory.getMetamodel()).thenReturn(metamodel);
+    doReturn(entityType).when(metamodel).entity(any(Class.class));
+    doReturn(idType).when(entityType).getIdType();
+    when(sessionFactory.getCache()).thenReturn(cache);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    when(sessionFactory.getSessionFactoryOptions()).thenReturn(sessionFactoryOptions);
+  }
+
+  private EntityChangedEvent event(Class<?> type, String id, boolean remote) {
+    return EntityChangedEvent.builder()
+        .entityType(type)
+        .entityId(id)
+        .action(EntityChangedEvent.Action.UPDATED)
+        .remote(remote)
+        .build();
+  }
+
+  @Test
+  public void local_changes_are_left_to_hibernate() {
+    secondLevelCacheService.onEntityChanged(event(Restaurant.class, "7", false));
+
+    verify(cache, never()).evictEntityData(any(Class.class), any());
+    verify(cache, never()).evictDefaultQueryRegion();
+  }
+
+  @Test
+  public void remote_changes_to_an_entity_with_a_numeric_id_are_evicted() {
+    doReturn(Long.class).when(idType).getJavaType();
+
+    secondLevelCacheService.onEntityChanged(event(Restaurant.class, "7", true));
+
+    verify(cache, times(1)).evictEntityData(Restaurant.class, 7L);
+    verify(cache, times(1)).evictDefaultQueryRegion();
+  }
+
+  @Test
+  public void remote_changes_to_an_entity_with_a_string_id_are_evicted() {
+    doReturn(String.class).when(idType).getJavaType();
+
+    secondLevelCacheService.onEntityChanged(event(UCSBOrganization.class, "ZPR", true));
+
+    verify(cache, times(1)).evictEntityData(UCSBOrganization.class, "ZPR");
+    verify(cache, times(1)).evictDefaultQueryRegion();
+  }
+
+  @Test
+  public void primitive_long_ids_are_converted() {
+    doReturn(long.class).when(idType).getJavaType();
+
+    assertEquals(15L, secondLevelCacheService.toId(Restaurant.class, "15"));
+  }
+
+  @Test
+  public void getStatistics_reports_overall_and_per_region_counts() {
+    // arrange
+    when(sessionFactoryOptions.isSecondLevelCacheEnabled()).thenReturn(true);
+    when(sessionFactoryOptions.isQueryCacheEnabled()).thenReturn(false);
+    when(statistics.isStatisticsEnabled()).thenReturn(true);
+    when(statistics.getSecondLevelCacheHitCount()).thenReturn(30L);
+    when(statistics.getSecondLevelCacheMissCount()).thenReturn(10L);
+    when(statistics.getSecondLevelCachePutCount()).thenReturn(10L);
+    when(statistics.getQueryCacheHitCount()).thenReturn(4L);
+    when(statistics.getQueryCacheMissCount()).thenReturn(1L);
+    when(statistics.getQueryCachePutCount()).thenReturn(1L);
+    when(statistics.getSecondLevelCacheRegionNames())
+        .thenReturn(new String[] {"restaurants", "ucsbdates"});
+    when(statistics.getCacheRegionStatistics("restaurants")).thenReturn(restaurantsStatistics);
+    when(statistics.getCacheRegionStatistics("ucsbdates")).thenReturn(null);
+    when(restaurantsStatistics.getHitCount()).thenReturn(3L);
+    when(restaurantsStatistics.getMissCount()).thenReturn(1L);
+    when(restaurantsStatistics.getPutCount()).thenReturn(1L);
+    when(restaurantsStatistics.getElementCountInMemory()).thenReturn(1L);
+
+    // act
+    SecondLevelCacheStatistics result = secondLevelCacheService.getStatistics();
+
+    // assert
+    SecondLevelCacheStatistics expected =
+        SecondLevelCacheStatistics.builder()
+            .secondLevelCacheEnabled(true)
+            .queryCacheEnabled(false)
+            .statisticsEnabled(true)
+            .hitCount(30)
+            .missCount(10)
+            .putCount(10)
+            .hitRatio(0.75)
+            .queryCacheHitCount(4)
+            .queryCacheMissCount(1)
+            .queryCachePutCount(1)
+            .regions(
+                List.of(
+                    SecondLevelCacheRegionStatistics.builder()
+                        .region("restaurants")
+                        .hitCount(3)
+                        .missCount(1)
+                        .putCount(1)
+                        .elementCountInMemory(1)
+                        .hitRatio(0.75)
+                        .build()))
+            .build();
+    assertEquals(expected, result);
+  }
+
+  @Test
+  public void getStatistics_with_the_cache_disabled_reports_no_regions() {
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] {});
+
+    SecondLevelCacheStatistics result = secondLevelCacheService.getStatistics();
+
+    assertFalse(result.getSecondLevelCacheEnabled());
+    assertTrue(result.getRegions().isEmpty());
+    assertEquals(0.0, result.getHitRatio());
+  }
+
+  @Test
+  public void evictAll_evicts_every_region_and_clears_the_statistics() {
+    secondLevelCacheService.evictAll();
+
+    verify(cache, times(1)).evictAllRegions();
+    verify(statistics, times(1)).clear();
+  }
+
+  @Test
+  public void hitRatio_is_zero_before_the_first_lookup() {
+    assertEquals(0.0, SecondLevelCacheService.hitRatio(0, 0));
+    assertEquals(0.5, SecondLevelCacheService.hitRatio(1, 1));
+  }
+}
@@ -0,0 +1,119 @@
+package edu.ucsb.cs156.example.services.diningcommons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+public class KdTreeTests {
+
+  private record Place(int id, double latitude, double longitude) {}
+
+  private static KdTree<Place> tree(List<Place> places) {
+    return new KdTree<>(places, Place::latitude, Place::longitude);
+  }
+
+  private static List<Place> randomPlaces(Random random, int n) {
+    List<Place> places = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      places.add(new Place(i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+    }
+    return places;
+  }
+
+  // the haversine distance, computed independently of the tree
+  private static double haversineMeters(
+      double latitude1, double longitude1, double latitude2, double longitude2) {
+    double dPhi = Math.toRadians(latitude2 - latitude1);
+    double dLambda = Math.toRadians(longitude2 - longitude1);
+    double a =
+        Math.pow(Math.sin(dPhi / 2), 2)
+            + Math.cos(Math.toRadians(latitude1))
+                * Math.cos(Math.toRadians(latitude2))
+                * Math.pow(Math.sin(dLambda / 2), 2);
+    return 2 * KdTree.EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+  }
+
+  private static List<Integer> bruteForce(
+      List<Place> places, double latitude, double longitude, int k, Predicate<Place> filter) {
+    return places.stream()
+        .filter(filter)
+        .sorted(
+            Comparator.comparingDouble(
+                place -> haversineMeters(latitude, longitude, place.latitude(), place.longitude())))
+        .limit(k)
+        .map(Place::id)
+        .toList();
+  }
+
+  private static List<Integer> ids(List<KdTree.Neighbor<Place>> neighbors) {
+    return neighbors.stream().map(neighbor -> neighbor.item().id()).toList();
+  }
+
+  @Test
+  public void nearest_matches_a_brute_force_search() {
+    Random random = new Random(156);
+    List<Place> places = randomPlaces(random, 500);
+    KdTree<Place> tree = tree(places);
+
+    for (int i = 0; i < 200; i++) {
+      double latitude = random.nextDouble() * 180 - 90;
+      double longitude = random.nextDouble() * 360 - 180;
+      int k = 1 + random.nextInt(10);
+      assertEquals(
+          bruteForce(places, latitude, longitude, k, place -> true),
+          ids(tree.nearest(latitude, longitude, k, place -> true)));
+    }
+  }
+
+  @Test
+  public void nearest_only_returns_items_that_pass_the_filter() {
+    Random random = new Random(25);
+    List<Place> places = randomPlaces(random, 200);
+    KdTree<Place> tree = tree(places);
+    Predicate<Place> even = place -> place.id() % 2 == 0;
+
+    for (int i = 0; i < 50; i++) {
+      double latitude = random.nextDouble() * 180 - 90;
+      double longitude = random.nextDouble() * 360 - 180;
+      assertEquals(
+          bruteForce(places, latitude, longitude, 5, even),
+          ids(tree.nearest(latitude, longitude, 5, even)));
+    }
+  }
+
+  @Test
+  public void nearest_returns_every_item_when_k_is_larger_than_the_tree() {
+    List<Place> places = List.of(new Place(1, 0, 0), new Place(2, 0, 10), new Place(3, 0, -20));
+
+    assertEquals(List.of(1, 2, 3), ids(tree(places).nearest(0, 1, 10, place -> true)));
+  }
+
+  @Test
+  public void nearest_works_across_the_antimeridian() {
+    List<Place> places = List.of(new Place(1, 0, 179.5), new Place(2, 0, 170));
+
+    assertEquals(List.of(1), ids(tree(places).nearest(0, -179.5, 1, place -> true)));
+  }
+
+  @Test
+  public void nearest_returns_great_circle_distances() {
+    // Storke Tower and the Santa Barbara courthouse
+    List<Place> places = List.of(new Place(1, 34.41257, -119.84869));
+    double expected = haversineMeters(34.4241, -119.7027, 34.41257, -119.84869);
+
+    KdTree.Neighbor<Place> nearest = tree(places).nearest(34.4241, -119.7027, 1, p -> true).get(0);
+
+    assertEquals(expected, nearest.distanceMeters(), 1e-6);
+    assertEquals(13_455, nearest.distanceMeters(), 50);
+  }
+
+  @Test
+  public void an_empty_tree_has_no_neighbors() {
+    assertEquals(List.of(), tree(List.of()).nearest(0, 0, 3, place -> true));
+  }
+}
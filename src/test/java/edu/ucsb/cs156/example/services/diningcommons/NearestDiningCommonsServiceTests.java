@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.services.diningcommons;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class NearestDiningCommonsServiceTests {
+
+  @Mock private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  private NearestDiningCommonsService nearestDiningCommonsService;
+
+  // a point in the middle of campus
+  private static final double LATITUDE = 34.4125;
+  private static final double LONGITUDE = -119.8464;
+
+  private final UCSBDiningCommons ortega = commons("ortega", true, true, 34.410987, -119.84709);
+  private final UCSBDiningCommons carrillo =
+      commons("carrillo", false, true, 34.409953, -119.85277);
+  private final UCSBDiningCommons portola = commons("portola", true, false, 34.417723, -119.86761);
+  private final UCSBDiningCommons nowhere = commons("nowhere", true, true, null, -119.8);
+  private final UCSBDiningCommons somewhere = commons("somewhere", true, true, 34.4, null);
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    nearestDiningCommonsService = new NearestDiningCommonsService();
+    ReflectionTestUtils.setField(
+        nearestDiningCommonsService, "ucsbDiningCommonsRepository", ucsbDiningCommonsRepository);
+    when(ucsbDiningCommonsRepository.findAll())
+        .thenReturn(List.of(portola, nowhere, ortega, somewhere, carrillo));
+  }
+
+  private static UCSBDiningCommons commons(
+      String code,
+      boolean hasSackMeal,
+      boolean hasTakeOutMeal,
+      Double latitude,
+      Double longitude) {
+    return UCSBDiningCommons.builder()
+        .code(code)
+        .name(code)
+        .hasSackMeal(hasSackMeal)
+        .hasTakeOutMeal(hasTakeOutMeal)
+        .latitude(latitude)
+        .longitude(longitude)
+        .build();
+  }
+
+  private List<String> nearestCodes(int k, Boolean hasSackMeal, Boolean hasTakeOutMeal) {
+    return nearestDiningCommonsService
+        .nearest(LATITUDE, LONGITUDE, k, hasSackMeal, hasTakeOutMeal)
+        .stream()
+        .map(nearby -> nearby.getDiningCommons().getCode())
+        .toList();
+  }
+
+  @Test
+  public void nearest_returns_located_commons_nearest_first() {
+    List<NearbyDiningCommons> nearest =
+        nearestDiningCommonsService.nearest(LATITUDE, LONGITUDE, 10, null, null);
+
+    assertEquals(
+        List.of("ortega", "carrillo", "portola"),
+        nearest.stream().map(nearby -> nearby.getDiningCommons().getCode()).toList());
+    assertEquals(180, nearest.get(0).getDistanceMeters(), 5);
+  }
+
+  @Test
+  public void nearest_returns_at_most_k_commons() {
+    assertEquals(List.of("ortega", "carrillo"), nearestCodes(2, null, null));
+  }
+
+  @Test
+  public void nearest_can_be_filtered_by_meals() {
+    assertEquals(List.of("ortega", "portola"), nearestCodes(10, true, null));
+    assertEquals(List.of("carrillo"), nearestCodes(10, false, null));
+    assertEquals(List.of("ortega", "carrillo"), nearestCodes(10, null, true));
+    assertEquals(List.of("portola"), nearestCodes(10, null, false));
+    assertEquals(List.of("ortega"), nearestCodes(10, true, true));
+  }
+
+  @Test
+  public void the_tree_is_only_built_once() {
+    nearestCodes(1, null, null);
+    nearestCodes(1, null, null);
+
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void a_changed_dining_commons_rebuilds_the_tree() {
+    nearestCodes(1, null, null);
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(portola));
+
+    nearestDiningCommonsService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommons.class)
+            .entityId("ortega")
+            .action(EntityChangedEvent.Action.DELETED)
+            .remote(true)
+            .build());
+
+    verify(ucsbDiningCommonsRepository, times(2)).findAll();
+    assertEquals(List.of("portola"), nearestCodes(10, null, null));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    nearestDiningCommonsService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+
+    verify(ucsbDiningCommonsRepository, times(0)).findAll();
+  }
+}
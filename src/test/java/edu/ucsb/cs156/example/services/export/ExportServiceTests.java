@@ -0,0 +1,173 @@
+package edu.ucsb.cs156.example.services.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.ExportJob;
+import edu.ucsb.cs156.example.jobs.FileFormat;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+public class ExportServiceTests {
+
+  @TempDir Path tempDir;
+
+  @Mock private EntityManager entityManager;
+
+  @Mock private PlatformTransactionManager transactionManager;
+
+  @Mock private JobService jobService;
+
+  @Mock private Metamodel metamodel;
+
+  @Mock private EntityType<Article> articles;
+
+  private ExportService exportService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    exportService = new ExportService();
+    ReflectionTestUtils.setField(exportService, "entityManager", entityManager);
+    ReflectionTestUtils.setField(exportService, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(exportService, "jobService", jobService);
+    ReflectionTestUtils.setField(exportService, "directory", tempDir);
+    ReflectionTestUtils.setField(exportService, "retentionDays", 7L);
+    when(entityManager.getMetamodel()).thenReturn(metamodel);
+    when(metamodel.getEntities()).thenReturn(Set.of(articles));
+    when(articles.getName()).thenReturn("articles");
+    doReturn(Article.class).when(articles).getJavaType();
+  }
+
+  @Test
+  public void launchExport_runs_an_export_job_for_the_entity() {
+    // arrange
+
+    Job job = Job.builder().id(1L).status("running").build();
+    when(jobService.runAsJob(any())).thenReturn(job);
+
+    // act
+
+    Job result = exportService.launchExport("Articles", FileFormat.CSV);
+
+    // assert
+
+    assertSame(job, result);
+    ArgumentCaptor<ExportJob> captor = ArgumentCaptor.forClass(ExportJob.class);
+    verify(jobService).runAsJob(captor.capture());
+    ExportJob exportJob = captor.getValue();
+    assertEquals("articles", ReflectionTestUtils.getField(exportJob, "entityName"));
+    assertEquals(Article.class, ReflectionTestUtils.getField(exportJob, "type"));
+    assertEquals(FileFormat.CSV, ReflectionTestUtils.getField(exportJob, "format"));
+    Path file = (Path) ReflectionTestUtils.getField(exportJob, "file");
+    assertEquals(tempDir, file.getParent());
+    assertTrue(file.getFileName().toString().matches("articles-\\d{8}-\\d{6}\\.csv\\.gz"));
+  }
+
+  @Test
+  public void launchExport_rejects_an_unknown_entity() {
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> exportService.launchExport("nope", FileFormat.NDJSON));
+
+    assertEquals("Unknown entity nope", e.getMessage());
+  }
+
+  @Test
+  public void listExports_is_empty_when_the_directory_does_not_exist() throws Exception {
+    ReflectionTestUtils.setField(exportService, "directory", tempDir.resolve("missing"));
+
+    assertEquals(List.of(), exportService.listExports());
+  }
+
+  @Test
+  public void listExports_lists_only_complete_exports() throws Exception {
+    // arrange
+
+    Files.createFile(tempDir.resolve("articles-20220104-030000.ndjson.gz"));
+    Files.createFile(tempDir.resolve("articles-20220103-030000.csv.gz"));
+    Files.createFile(tempDir.resolve("articles-20220105-030000.ndjson.gz.part"));
+    Files.createFile(tempDir.resolve("notes.txt"));
+
+    // act
+
+    List<String> result = exportService.listExports();
+
+    // assert
+
+    assertEquals(
+        List.of("articles-20220103-030000.csv.gz", "articles-20220104-030000.ndjson.gz"), result);
+  }
+
+  @Test
+  public void findExport_finds_a_complete_export() throws Exception {
+    Path file = Files.createFile(tempDir.resolve("articles-20220103-030000.csv.gz"));
+
+    assertEquals(Optional.of(file), exportService.findExport("articles-20220103-030000.csv.gz"));
+  }
+
+  @Test
+  public void findExport_is_empty_for_a_missing_export() {
+    assertEquals(Optional.empty(), exportService.findExport("articles-20220103-030000.csv.gz"));
+  }
+
+  @Test
+  public void findExport_does_not_serve_other_files() throws Exception {
+    Files.createFile(tempDir.resolve("notes.txt"));
+
+    assertEquals(Optional.empty(), exportService.findExport("notes.txt"));
+    assertEquals(Optional.empty(), exportService.findExport("../articles-20220103-030000.csv.gz"));
+  }
+
+  @Test
+  public void exportNightly_deletes_old_exports_and_exports_the_nightly_entities()
+      throws Exception {
+    // arrange
+
+    ReflectionTestUtils.setField(exportService, "nightlyEntities", List.of("articles", "nope"));
+    Path oldExport = Files.createFile(tempDir.resolve("articles-20220103-030000.ndjson.gz"));
+    Files.setLastModifiedTime(oldExport, FileTime.from(Instant.now().minus(8, ChronoUnit.DAYS)));
+    Path newExport = Files.createFile(tempDir.resolve("articles-20220109-030000.ndjson.gz"));
+
+    // act
+
+    exportService.exportNightly();
+
+    // assert
+
+    assertFalse(Files.exists(oldExport));
+    assertTrue(Files.exists(newExport));
+    ArgumentCaptor<ExportJob> captor = ArgumentCaptor.forClass(ExportJob.class);
+    verify(jobService, times(1)).runAsJob(captor.capture());
+    assertEquals(FileFormat.NDJSON, ReflectionTestUtils.getField(captor.getValue(), "format"));
+  }
+}
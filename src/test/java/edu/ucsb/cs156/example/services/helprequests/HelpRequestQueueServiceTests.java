@@ -0,0 +1,125 @@
+package edu.ucsb.cs156.example.services.helprequests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HelpRequestQueueServiceTests {
+
+  @Mock private HelpRequestRepository helpRequestRepository;
+
+  private HelpRequestQueueService helpRequestQueueService;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    helpRequestQueueService = new HelpRequestQueueService();
+    ReflectionTestUtils.setField(
+        helpRequestQueueService, "helpRequestRepository", helpRequestRepository);
+    when(helpRequestRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+  }
+
+  private HelpRequest helpRequest(long id, String teamId) {
+    return HelpRequest.builder()
+        .id(id)
+        .teamId(teamId)
+        .requestTime(LocalDateTime.parse("2022-04-20T17:35:00"))
+        .build();
+  }
+
+  @Test
+  public void queue_returns_the_unsolved_requests() {
+    List<HelpRequest> unsolved = List.of(helpRequest(1, "s22-5pm-3"));
+    when(helpRequestRepository.findBySolvedFalseOrderByRequestTimeAscIdAsc(Limit.of(10)))
+        .thenReturn(unsolved);
+
+    assertEquals(unsolved, helpRequestQueueService.queue(10));
+  }
+
+  @Test
+  public void claimNext_claims_the_oldest_unclaimed_request() {
+    when(helpRequestRepository.findUnclaimedForUpdate(Limit.of(1)))
+        .thenReturn(List.of(helpRequest(1, "s22-5pm-3")));
+
+    HelpRequest claimed = helpRequestQueueService.claimNext("ta@ucsb.edu", false).get();
+
+    assertEquals(1, claimed.getId());
+    assertEquals("ta@ucsb.edu", claimed.getClaimedBy());
+    assertNotNull(claimed.getClaimedAt());
+    verify(helpRequestRepository).save(claimed);
+    verify(helpRequestRepository, never()).findUnclaimedFromWaitingTeamsForUpdate(any());
+  }
+
+  @Test
+  public void claimNext_prefers_teams_that_are_not_being_helped() {
+    when(helpRequestRepository.findUnclaimedFromWaitingTeamsForUpdate(Limit.of(1)))
+        .thenReturn(List.of(helpRequest(2, "s22-5pm-4")));
+
+    HelpRequest claimed = helpRequestQueueService.claimNext("ta@ucsb.edu", true).get();
+
+    assertEquals(2, claimed.getId());
+    verify(helpRequestRepository, never()).findUnclaimedForUpdate(any());
+  }
+
+  @Test
+  public void claimNext_falls_back_to_the_oldest_request_when_every_team_is_being_helped() {
+    when(helpRequestRepository.findUnclaimedFromWaitingTeamsForUpdate(Limit.of(1)))
+        .thenReturn(List.of());
+    when(helpRequestRepository.findUnclaimedForUpdate(Limit.of(1)))
+        .thenReturn(List.of(helpRequest(1, "s22-5pm-3")));
+
+    HelpRequest claimed = helpRequestQueueService.claimNext("ta@ucsb.edu", true).get();
+
+    assertEquals(1, claimed.getId());
+  }
+
+  @Test
+  public void claimNext_returns_empty_when_nothing_is_waiting() {
+    when(helpRequestRepository.findUnclaimedForUpdate(Limit.of(1))).thenReturn(List.of());
+
+    assertTrue(helpRequestQueueService.claimNext("ta@ucsb.edu", false).isEmpty());
+    verify(helpRequestRepository, never()).save(any());
+  }
+
+  @Test
+  public void release_clears_the_claim() {
+    HelpRequest claimed = helpRequest(1, "s22-5pm-3");
+    claimed.setClaimedBy("ta@ucsb.edu");
+    claimed.setClaimedAt(LocalDateTime.parse("2022-04-20T17:40:00"));
+    when(helpRequestRepository.findById(1L)).thenReturn(Optional.of(claimed));
+
+    HelpRequest released = helpRequestQueueService.release(1L);
+
+    assertNull(released.getClaimedBy());
+    assertNull(released.getClaimedAt());
+    verify(helpRequestRepository).save(claimed);
+  }
+
+  @Test
+  public void release_throws_for_an_unknown_request() {
+    when(helpRequestRepository.findById(7L)).thenReturn(Optional.empty());
+
+    EntityNotFoundException e =
+        assertThrows(EntityNotFoundException.class, () -> helpRequestQueueService.release(7L));
+    assertEquals("HelpRequest with id 7 not found", e.getMessage());
+  }
+}
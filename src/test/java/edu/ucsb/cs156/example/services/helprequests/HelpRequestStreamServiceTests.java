@@ -0,0 +1,277 @@
+package edu.ucsb.cs156.example.services.helprequests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.HelpRequestChange;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class HelpRequestStreamServiceTests {
+
+  @Mock private HelpRequestRepository helpRequestRepository;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+  private HelpRequestStreamService helpRequestStreamService;
+
+  // tasks given to the executor, run by the test when it chooses
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  private final HelpRequest helpRequest =
+      HelpRequest.builder()
+          .id(15)
+          .requesterEmail("cgaucho@ucsb.edu")
+          .teamId("s22-5pm-3")
+          .tableOrBreakoutRoom("7")
+          .requestTime(LocalDateTime.parse("2022-04-20T17:35:00"))
+          .explanation("Need help with Swagger-ui")
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    helpRequestStreamService = new HelpRequestStreamService();
+    ReflectionTestUtils.setField(
+        helpRequestStreamService, "helpRequestRepository", helpRequestRepository);
+    ReflectionTestUtils.setField(helpRequestStreamService, "objectMapper", objectMapper);
+    ReflectionTestUtils.setField(helpRequestStreamService, "bufferSize", 2);
+    ReflectionTestUtils.setField(helpRequestStreamService, "timeoutMs", 60000L);
+    ReflectionTestUtils.setField(
+        helpRequestStreamService, "executor", (Executor) tasks::add);
+  }
+
+  private void runTasks() {
+    while (!tasks.isEmpty()) {
+      tasks.remove(0).run();
+    }
+  }
+
+  private SseEmitter subscriber() {
+    SseEmitter emitter = mock(SseEmitter.class);
+    helpRequestStreamService.register(emitter);
+    return emitter;
+  }
+
+  private EntityChangedEvent change(EntityChangedEvent.Action action, HelpRequest entity) {
+    return EntityChangedEvent.builder()
+        .entityType(HelpRequest.class)
+        .entityId("15")
+        .action(action)
+        .entity(entity)
+        .build();
+  }
+
+  private String event(String name, HelpRequestChange change) throws Exception {
+    return "event:" + name + "\ndata:" + objectMapper.writeValueAsString(change) + "\n\n";
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> sent(SseEmitter emitter, int times) throws IOException {
+    ArgumentCaptor<Set<DataWithMediaType>> captor = ArgumentCaptor.forClass(Set.class);
+    verify(emitter, times(times)).send(captor.capture());
+    return captor.getAllValues().stream()
+        .map(
+            items ->
+                items.stream()
+                    .map(item -> item.getData().toString())
+                    .collect(Collectors.joining()))
+        .toList();
+  }
+
+  @Test
+  public void subscribe_returns_an_emitter_with_the_configured_timeout() {
+    SseEmitter emitter = helpRequestStreamService.subscribe();
+
+    assertEquals(60000L, emitter.getTimeout());
+    assertEquals(1, helpRequestStreamService.subscriberCount());
+  }
+
+  @Test
+  public void a_change_is_pushed_to_every_subscriber() throws Exception {
+    SseEmitter first = subscriber();
+    SseEmitter second = subscriber();
+
+    helpRequestStreamService.onEntityChanged(
+        change(EntityChangedEvent.Action.CREATED, helpRequest));
+    runTasks();
+
+    HelpRequestChange expected =
+        HelpRequestChange.builder()
+            .action(EntityChangedEvent.Action.CREATED)
+            .id(15)
+            .helpRequest(helpRequest)
+            .build();
+    assertEquals(List.of(event("created", expected)), sent(first, 1));
+    assertEquals(List.of(event("created", expected)), sent(second, 1));
+  }
+
+  @Test
+  public void a_deleted_help_request_is_pushed_without_its_contents() throws Exception {
+    SseEmitter emitter = subscriber();
+
+    helpRequestStreamService.onEntityChanged(
+        change(EntityChangedEvent.Action.DELETED, helpRequest));
+    runTasks();
+
+    HelpRequestChange expected =
+        HelpRequestChange.builder().action(EntityChangedEvent.Action.DELETED).id(15).build();
+    assertEquals(List.of(event("deleted", expected)), sent(emitter, 1));
+  }
+
+  @Test
+  public void a_change_on_another_instance_is_read_again() throws Exception {
+    SseEmitter emitter = subscriber();
+    when(helpRequestRepository.findById(15L)).thenReturn(Optional.of(helpRequest));
+    EntityChangedEvent remote = change(EntityChangedEvent.Action.UPDATED, null);
+    remote.setRemote(true);
+
+    helpRequestStreamService.onEntityChanged(remote);
+    runTasks();
+
+    HelpRequestChange expected =
+        HelpRequestChange.builder()
+            .action(EntityChangedEvent.Action.UPDATED)
+            .id(15)
+            .helpRequest(helpRequest)
+            .build();
+    assertEquals(List.of(event("updated", expected)), sent(emitter, 1));
+  }
+
+  @Test
+  public void nothing_is_read_or_pushed_without_subscribers() throws Exception {
+    EntityChangedEvent remote = change(EntityChangedEvent.Action.UPDATED, null);
+    remote.setRemote(true);
+
+    helpRequestStreamService.onEntityChanged(remote);
+
+    verify(helpRequestRepository, never()).findById(any());
+    assertTrue(tasks.isEmpty());
+  }
+
+  @Test
+  public void changes_to_other_entities_are_not_pushed() throws Exception {
+    SseEmitter emitter = subscriber();
+
+    helpRequestStreamService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.CREATED)
+            .entity(new Article())
+            .build());
+    runTasks();
+
+    verify(emitter, never()).send(any(Set.class));
+  }
+
+  @Test
+  public void events_are_written_in_order_by_one_writer() throws Exception {
+    SseEmitter emitter = subscriber();
+
+    helpRequestStreamService.onEntityChanged(
+        change(EntityChangedEvent.Action.CREATED, helpRequest));
+    helpRequestStreamService.onEntityChanged(
+        change(EntityChangedEvent.Action.DELETED, helpRequest));
+    assertEquals(1, tasks.size());
+    runTasks();
+
+    List<String> sent = sent(emitter, 2);
+    assertTrue(sent.get(0).startsWith("event:created"));
+    assertTrue(sent.get(1).startsWith("event:deleted"));
+  }
+
+  @Test
+  public void a_subscriber_that_falls_behind_is_dropped() throws Exception {
+    SseEmitter slow = subscriber();
+
+    helpRequestStreamService.heartbeat();
+    helpRequestStreamService.heartbeat();
+    helpRequestStreamService.heartbeat();
+
+    // the buffer holds two events; the third drops the subscriber
+    assertEquals(0, helpRequestStreamService.subscriberCount());
+    runTasks();
+    assertEquals(List.of(":heartbeat\n\n", ":heartbeat\n\n"), sent(slow, 2));
+    verify(slow).complete();
+  }
+
+  @Test
+  public void a_subscriber_whose_connection_fails_is_dropped() throws Exception {
+    SseEmitter broken = subscriber();
+    doThrow(new IOException("Broken pipe")).when(broken).send(any(Set.class));
+
+    helpRequestStreamService.heartbeat();
+    helpRequestStreamService.heartbeat();
+    runTasks();
+
+    assertEquals(0, helpRequestStreamService.subscriberCount());
+    // the writer stops at the first failure, and the emitter is completed once
+    verify(broken, times(1)).send(any(Set.class));
+    verify(broken, times(1)).complete();
+  }
+
+  @Test
+  public void a_dropped_subscriber_is_completed_once() throws Exception {
+    SseEmitter slow = subscriber();
+    doThrow(new IllegalStateException("already completed")).when(slow).send(any(Set.class));
+
+    helpRequestStreamService.heartbeat();
+    helpRequestStreamService.heartbeat();
+    helpRequestStreamService.heartbeat();
+    runTasks();
+
+    verify(slow, times(1)).complete();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void a_subscriber_is_removed_when_its_connection_ends() {
+    SseEmitter completed = subscriber();
+    SseEmitter failed = subscriber();
+    SseEmitter timedOut = subscriber();
+    assertEquals(3, helpRequestStreamService.subscriberCount());
+
+    ArgumentCaptor<Runnable> onCompletion = ArgumentCaptor.forClass(Runnable.class);
+    verify(completed).onCompletion(onCompletion.capture());
+    onCompletion.getValue().run();
+
+    ArgumentCaptor<Consumer<Throwable>> onError = ArgumentCaptor.forClass(Consumer.class);
+    verify(failed).onError(onError.capture());
+    onError.getValue().accept(new IOException("Connection reset"));
+
+    assertEquals(1, helpRequestStreamService.subscriberCount());
+
+    ArgumentCaptor<Runnable> onTimeout = ArgumentCaptor.forClass(Runnable.class);
+    verify(timedOut).onTimeout(onTimeout.capture());
+    onTimeout.getValue().run();
+    verify(timedOut).complete();
+  }
+}
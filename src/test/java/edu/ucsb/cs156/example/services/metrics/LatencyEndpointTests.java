@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.models.RouteLatency;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class LatencyEndpointTests {
+
+  @Mock private RequestMetricsService requestMetricsService;
+
+  @InjectMocks private LatencyEndpoint latencyEndpoint;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void latency_returns_the_latencies_of_the_routes() {
+    List<RouteLatency> latencies =
+        List.of(RouteLatency.builder().route("GET /api/systemInfo").count(3).build());
+    when(requestMetricsService.getLatencies()).thenReturn(latencies);
+
+    assertEquals(latencies, latencyEndpoint.latency());
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+@ExtendWith(OutputCaptureExtension.class)
+public class QueryBudgetInterceptorTests {
+
+  private static final String OVER_BUDGET =
+      "GET /api/jobs/all ran 6 SQL statements, over its budget of 1";
+
+  private final SqlStatementCounter sqlStatementCounter =
+      new SqlStatementCounter(mock(SqlTraceService.class));
+
+  private final QueryBudgetInterceptor interceptor = new QueryBudgetInterceptor();
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/jobs/all");
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private HandlerMethod budgeted;
+
+  private HandlerMethod unbudgeted;
+
+  /** Stand-in for a controller. */
+  static class JobsController {
+    @QueryBudget(1)
+    public void allJobs() {}
+
+    public void getJob() {}
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    budgeted = new HandlerMethod(new JobsController(), JobsController.class.getMethod("allJobs"));
+    unbudgeted = new HandlerMethod(new JobsController(), JobsController.class.getMethod("getJob"));
+  }
+
+  private void runStatements(int statements) {
+    for (int i = 0; i < statements; i++) {
+      sqlStatementCounter.inspect("select * from jobs");
+    }
+  }
+
+  private void handle(Object handler, int statements) {
+    runStatements(3); // before the request, so not counted
+    assertTrue(interceptor.preHandle(request, response, handler));
+    runStatements(statements);
+    interceptor.afterCompletion(request, response, handler, null);
+  }
+
+  @Test
+  public void a_request_within_its_budget_is_not_logged(CapturedOutput output) {
+    handle(budgeted, 1);
+
+    assertFalse(output.getOut().contains("over its budget"));
+    assertEquals(List.of(), interceptor.violations());
+  }
+
+  @Test
+  public void a_request_over_its_budget_is_logged_and_recorded(CapturedOutput output) {
+    handle(budgeted, 6);
+
+    assertTrue(output.getOut().contains(OVER_BUDGET));
+    assertEquals(
+        List.of(new QueryBudgetInterceptor.Violation("GET", "/api/jobs/all", 6, 1)),
+        interceptor.violations());
+
+    interceptor.clearViolations();
+    assertEquals(List.of(), interceptor.violations());
+  }
+
+  @Test
+  public void only_the_most_recent_violations_are_kept() {
+    for (int i = 0; i <= QueryBudgetInterceptor.MAX_VIOLATIONS; i++) {
+      handle(budgeted, 2 + i);
+    }
+
+    List<QueryBudgetInterceptor.Violation> violations = interceptor.violations();
+    assertEquals(QueryBudgetInterceptor.MAX_VIOLATIONS, violations.size());
+    assertEquals(3, violations.get(0).statements());
+  }
+
+  @Test
+  public void requests_without_a_budget_are_not_counted(CapturedOutput output) {
+    handle(unbudgeted, 6);
+    assertNull(request.getAttribute(QueryBudgetInterceptor.START_ATTRIBUTE));
+
+    handle(new Object(), 6);
+    assertNull(request.getAttribute(QueryBudgetInterceptor.START_ATTRIBUTE));
+    assertFalse(output.getOut().contains("over its budget"));
+  }
+}
@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class RepositoryMetricsServiceTests {
+
+  private final MockClock clock = new MockClock();
+
+  private final SimpleMeterRegistry meterRegistry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+
+  private RepositoryMetricsService repositoryMetricsService;
+
+  @BeforeEach
+  public void setup() {
+    repositoryMetricsService = new RepositoryMetricsService();
+    ReflectionTestUtils.setField(repositoryMetricsService, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(repositoryMetricsService, "slowCallMs", 100L);
+    ReflectionTestUtils.setField(repositoryMetricsService, "nPlusOneThreshold", 3);
+  }
+
+  @AfterEach
+  public void resetRequestAttributes() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private void call(String method, long millis, Object result) {
+    RepositoryMetricsService.Call call = repositoryMetricsService.start("UserRepository", method);
+    clock.add(Duration.ofMillis(millis));
+    call.stop(result, new Object[] {"phtcon@ucsb.edu"});
+  }
+
+  private double count(String meter, String method) {
+    return meterRegistry
+        .get(meter)
+        .tags("repository", "UserRepository", "method", method)
+        .counter()
+        .count();
+  }
+
+  private static void inRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/articles/all")));
+  }
+
+  @Test
+  public void calls_and_rows_are_recorded_per_method() {
+    User user = User.builder().build();
+    call("findAll", 5, List.of(user, user, user));
+    call("findAll", 15, List.of(user));
+    call("count", 1, 4L);
+
+    Timer timer =
+        meterRegistry
+            .get("app.repository.calls")
+            .tags("repository", "UserRepository", "method", "findAll")
+            .timer();
+    assertEquals(2, timer.count());
+    assertEquals(20, timer.totalTime(TimeUnit.MILLISECONDS), 1e-9);
+    assertEquals(
+        4,
+        meterRegistry
+            .get("app.repository.rows")
+            .tags("method", "findAll")
+            .summary()
+            .totalAmount());
+    assertEquals(
+        0, meterRegistry.get("app.repository.rows").tags("method", "count").summary().count());
+    assertEquals(
+        1, meterRegistry.get("app.repository.calls").tags("method", "count").timer().count());
+  }
+
+  @Test
+  public void slow_calls_are_counted() {
+    call("findByEmail", 99, Optional.empty());
+    call("findByEmail", 100, Optional.of(User.builder().build()));
+    call("deleteAll", 250, null);
+
+    assertEquals(1, count("app.repository.slow-calls", "findByEmail"));
+    assertEquals(1, count("app.repository.slow-calls", "deleteAll"));
+  }
+
+  @Test
+  public void a_method_called_many_times_in_one_request_is_reported_once() {
+    inRequest();
+    for (int i = 0; i < 5; i++) {
+      call("findById", 1, Optional.of(User.builder().build()));
+    }
+    call("findAll", 1, List.of());
+    call("findAll", 1, List.of());
+
+    assertEquals(1, count("app.repository.n-plus-one", "findById"));
+    assertEquals(0, count("app.repository.n-plus-one", "findAll"));
+
+    // the calls are counted again in the next request
+    inRequest();
+    call("findAll", 1, List.of());
+    assertEquals(0, count("app.repository.n-plus-one", "findAll"));
+  }
+
+  @Test
+  public void calls_outside_requests_are_not_counted_as_n_plus_one() {
+    for (int i = 0; i < 5; i++) {
+      call("findById", 1, Optional.empty());
+    }
+
+    assertEquals(0, count("app.repository.n-plus-one", "findById"));
+  }
+
+  @Test
+  public void calls_in_requests_other_than_servlet_requests_are_counted() {
+    ReflectionTestUtils.setField(repositoryMetricsService, "nPlusOneThreshold", 1);
+    RequestContextHolder.setRequestAttributes(mock(RequestAttributes.class));
+
+    call("findById", 1, Optional.empty());
+
+    assertEquals(1, count("app.repository.n-plus-one", "findById"));
+  }
+
+  @Test
+  public void rows_counts_the_rows_that_were_returned() {
+    User user = User.builder().build();
+    assertEquals(1, RepositoryMetricsService.rows(Optional.of(user)));
+    assertEquals(0, RepositoryMetricsService.rows(Optional.empty()));
+    assertEquals(
+        2,
+        RepositoryMetricsService.rows(
+            new PageImpl<>(List.of(user, user), PageRequest.of(0, 2), 10)));
+    assertEquals(3, RepositoryMetricsService.rows(List.of(1, 2, 3)));
+    assertEquals(1, RepositoryMetricsService.rows(user));
+    assertEquals(-1, RepositoryMetricsService.rows(7L));
+    assertEquals(-1, RepositoryMetricsService.rows(null));
+  }
+
+  @Test
+  public void summarize_hides_strings_and_shows_the_size_of_collections() {
+    Object[] args = {
+      null,
+      27L,
+      true,
+      EntityChangedEvent.Action.CREATED,
+      LocalDate.of(2022, 1, 3),
+      PageRequest.of(0, 20),
+      Sort.by("id"),
+      "phtcon@ucsb.edu",
+      new ArrayList<>(List.of(1, 2)),
+      User.builder().build()
+    };
+
+    assertEquals(
+        "null, 27, true, CREATED, 2022-01-03, Page request [number: 0, size 20, sort: UNSORTED],"
+            + " id: ASC, String(15), ArrayList[2], User",
+        RepositoryMetricsService.summarize(args));
+    assertEquals("", RepositoryMetricsService.summarize(new Object[] {}));
+  }
+}
@@ -0,0 +1,115 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.models.RouteLatency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+public class RequestMetricsInterceptorTests {
+
+  private RequestMetricsService requestMetricsService;
+
+  private RequestMetricsInterceptor requestMetricsInterceptor;
+
+  private HandlerMethod handler;
+
+  private MockHttpServletRequest request;
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  /** Stand-in for a controller. */
+  static class DatesController {
+    public void between() {}
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    requestMetricsService = new RequestMetricsService();
+    ReflectionTestUtils.setField(
+        requestMetricsService, "meterRegistry", new SimpleMeterRegistry());
+    requestMetricsInterceptor = new RequestMetricsInterceptor(requestMetricsService);
+    handler = new HandlerMethod(new DatesController(), DatesController.class.getMethod("between"));
+    request = new MockHttpServletRequest("GET", "/api/ucsbdates/between");
+    request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/ucsbdates/between");
+  }
+
+  private RouteLatency onlyRoute() {
+    List<RouteLatency> latencies = requestMetricsService.getLatencies();
+    assertEquals(1, latencies.size());
+    return latencies.get(0);
+  }
+
+  @Test
+  public void a_request_is_timed_with_its_status() {
+    assertTrue(requestMetricsInterceptor.preHandle(request, response, handler));
+    assertEquals(1, onlyRoute().getActive());
+
+    response.setStatus(404);
+    requestMetricsInterceptor.afterCompletion(request, response, handler, null);
+
+    RouteLatency latency = onlyRoute();
+    assertEquals("GET /api/ucsbdates/between", latency.getRoute());
+    assertEquals("DatesController.between", latency.getHandler());
+    assertEquals(1, latency.getCount());
+    assertEquals(Map.of("404", 1L), latency.getStatuses());
+    assertEquals(0, latency.getActive());
+    assertNull(request.getAttribute(RequestMetricsInterceptor.SAMPLE_ATTRIBUTE));
+  }
+
+  @Test
+  public void an_unresolved_exception_is_counted_as_a_500() {
+    requestMetricsInterceptor.preHandle(request, response, handler);
+    requestMetricsInterceptor.afterCompletion(
+        request, response, handler, new IllegalStateException());
+
+    assertEquals(Map.of("500", 1L), onlyRoute().getStatuses());
+  }
+
+  @Test
+  public void a_request_without_a_pattern_is_recorded_as_unknown() {
+    request.removeAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+    requestMetricsInterceptor.preHandle(request, response, handler);
+    requestMetricsInterceptor.afterCompletion(request, response, handler, null);
+
+    assertEquals("GET UNKNOWN", onlyRoute().getRoute());
+  }
+
+  @Test
+  public void an_asynchronous_request_is_active_until_the_method_returns_but_not_timed() {
+    requestMetricsInterceptor.preHandle(request, response, handler);
+    requestMetricsInterceptor.afterConcurrentHandlingStarted(request, response, handler);
+
+    // the dispatch that completes the request
+    request.setDispatcherType(DispatcherType.ASYNC);
+    requestMetricsInterceptor.preHandle(request, response, handler);
+    requestMetricsInterceptor.afterCompletion(request, response, handler, null);
+
+    RouteLatency latency = onlyRoute();
+    assertEquals(0, latency.getActive());
+    assertEquals(0, latency.getCount());
+  }
+
+  @Test
+  public void requests_to_other_handlers_are_not_recorded() {
+    Object resourceHandler = new Object();
+
+    assertTrue(requestMetricsInterceptor.preHandle(request, response, resourceHandler));
+    requestMetricsInterceptor.afterConcurrentHandlingStarted(request, response, resourceHandler);
+    requestMetricsInterceptor.afterCompletion(request, response, resourceHandler, null);
+
+    assertEquals(List.of(), requestMetricsService.getLatencies());
+  }
+}
@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.models.RouteLatency;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.method.HandlerMethod;
+
+public class RequestMetricsServiceTests {
+
+  private final MockClock clock = new MockClock();
+
+  private final SimpleMeterRegistry meterRegistry =
+      new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+
+  private RequestMetricsService requestMetricsService;
+
+  private HandlerMethod between;
+  private HandlerMethod upcoming;
+
+  /** Stand-in for a controller. */
+  static class DatesController {
+    public void between() {}
+
+    public void upcoming() {}
+  }
+
+  @BeforeEach
+  public void setup() throws Exception {
+    requestMetricsService = new RequestMetricsService();
+    ReflectionTestUtils.setField(requestMetricsService, "meterRegistry", meterRegistry);
+    between = new HandlerMethod(new DatesController(), DatesController.class.getMethod("between"));
+    upcoming =
+        new HandlerMethod(new DatesController(), DatesController.class.getMethod("upcoming"));
+  }
+
+  private void request(HandlerMethod handler, String pattern, long millis, int status) {
+    RequestMetricsService.Sample sample = requestMetricsService.start("GET", pattern, handler);
+    clock.add(Duration.ofMillis(millis));
+    sample.stop(status);
+  }
+
+  @Test
+  public void latencies_are_summarized_per_route() {
+    for (int millis = 1; millis <= 100; millis++) {
+      request(between, "/api/ucsbdates/between", millis, 200);
+    }
+
+    RouteLatency latency = requestMetricsService.getLatencies().get(0);
+
+    assertEquals("GET /api/ucsbdates/between", latency.getRoute());
+    assertEquals("DatesController.between", latency.getHandler());
+    assertEquals(100, latency.getCount());
+    assertEquals(Map.of("200", 100L), latency.getStatuses());
+    assertEquals(0, latency.getActive());
+    assertEquals(50.5, latency.getMeanMs(), 1e-9);
+    assertEquals(100, latency.getMaxMs(), 1e-9);
+    // the percentiles are kept to two significant digits
+    assertEquals(50, latency.getP50Ms(), 1.5);
+    assertEquals(95, latency.getP95Ms(), 1.5);
+    assertEquals(99, latency.getP99Ms(), 1.5);
+    assertEquals(100, latency.getP999Ms(), 1.5);
+  }
+
+  @Test
+  public void responses_are_counted_by_status() {
+    request(between, "/api/ucsbdates/between", 5, 200);
+    request(between, "/api/ucsbdates/between", 5, 400);
+    request(between, "/api/ucsbdates/between", 5, 400);
+
+    assertEquals(
+        Map.of("200", 1L, "400", 2L), requestMetricsService.getLatencies().get(0).getStatuses());
+    assertEquals(
+        2,
+        meterRegistry
+            .get("app.requests.status")
+            .tags("route", "GET /api/ucsbdates/between", "status", "400")
+            .counter()
+            .count());
+  }
+
+  @Test
+  public void requests_being_handled_are_active() {
+    RequestMetricsService.Sample first =
+        requestMetricsService.start("GET", "/api/ucsbdates/upcoming", upcoming);
+    RequestMetricsService.Sample second =
+        requestMetricsService.start("GET", "/api/ucsbdates/upcoming", upcoming);
+
+    assertEquals(2, requestMetricsService.getLatencies().get(0).getActive());
+    assertEquals(
+        2,
+        meterRegistry
+            .get("app.requests.active")
+            .tags("handler", "DatesController.upcoming")
+            .gauge()
+            .value());
+
+    first.stop(200);
+    second.abandon();
+
+    RouteLatency latency = requestMetricsService.getLatencies().get(0);
+    assertEquals(0, latency.getActive());
+    assertEquals(1, latency.getCount());
+  }
+
+  @Test
+  public void routes_are_listed_in_order() {
+    request(upcoming, "/api/ucsbdates/upcoming", 1, 200);
+    request(between, "/api/ucsbdates/between", 1, 200);
+    RequestMetricsService.Sample post =
+        requestMetricsService.start("POST", "/api/ucsbdates/between", between);
+    post.stop(403);
+
+    List<String> routes =
+        requestMetricsService.getLatencies().stream().map(RouteLatency::getRoute).toList();
+
+    assertEquals(
+        List.of(
+            "GET /api/ucsbdates/between",
+            "GET /api/ucsbdates/upcoming",
+            "POST /api/ucsbdates/between"),
+        routes);
+  }
+}
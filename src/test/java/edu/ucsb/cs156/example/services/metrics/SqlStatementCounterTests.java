@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+public class SqlStatementCounterTests {
+
+  private final SqlTraceService sqlTraceService = mock(SqlTraceService.class);
+
+  private final SqlStatementCounter sqlStatementCounter = new SqlStatementCounter(sqlTraceService);
+
+  @Test
+  public void statements_are_counted_and_not_changed() {
+    long before = SqlStatementCounter.count();
+
+    assertEquals("select 1", sqlStatementCounter.inspect("select 1"));
+    sqlStatementCounter.inspect("select 2");
+
+    assertEquals(2, SqlStatementCounter.count() - before);
+  }
+
+  @Test
+  public void statements_are_passed_to_the_trace_service() {
+    sqlStatementCounter.inspect("select 1");
+
+    verify(sqlTraceService).trace("select 1");
+  }
+
+  @Test
+  public void statements_are_counted_per_thread() throws Exception {
+    sqlStatementCounter.inspect("select 1");
+    AtomicLong onOtherThread = new AtomicLong(-1);
+
+    Thread other = new Thread(() -> onOtherThread.set(SqlStatementCounter.count()));
+    other.start();
+    other.join();
+
+    assertEquals(0, onOtherThread.get());
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.models.SqlTraceSettings;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class SqlTraceServiceTests {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  private SqlTraceService sqlTraceService;
+
+  @BeforeEach
+  public void setup() {
+    sqlTraceService = new SqlTraceService();
+    at(START);
+  }
+
+  private void at(Instant instant) {
+    ReflectionTestUtils.setField(sqlTraceService, "clock", Clock.fixed(instant, ZoneOffset.UTC));
+  }
+
+  private void trace(int statements) {
+    for (int i = 0; i < statements; i++) {
+      sqlTraceService.trace("select " + i);
+    }
+  }
+
+  @Test
+  public void nothing_is_logged_when_sampling_is_off() {
+    trace(100);
+
+    assertEquals(
+        SqlTraceSettings.builder().sampleEvery(0).maxPerSecond(0).logged(0).dropped(0).build(),
+        sqlTraceService.getSettings());
+  }
+
+  @Test
+  public void one_in_every_n_statements_is_logged() {
+    sqlTraceService.setSettings(10, 100);
+
+    trace(95);
+
+    assertEquals(9, sqlTraceService.getSettings().getLogged());
+    assertEquals(0, sqlTraceService.getSettings().getDropped());
+  }
+
+  @Test
+  public void statements_over_the_rate_limit_are_dropped_until_the_next_second() {
+    SqlTraceSettings expected =
+        SqlTraceSettings.builder().sampleEvery(1).maxPerSecond(3).logged(0).dropped(0).build();
+    assertEquals(expected, sqlTraceService.setSettings(1, 3));
+
+    trace(5);
+    assertEquals(3, sqlTraceService.getSettings().getLogged());
+    assertEquals(2, sqlTraceService.getSettings().getDropped());
+
+    at(START.plusMillis(999));
+    trace(1);
+    assertEquals(3, sqlTraceService.getSettings().getDropped());
+
+    at(START.plusSeconds(1));
+    trace(4);
+    assertEquals(6, sqlTraceService.getSettings().getLogged());
+    assertEquals(4, sqlTraceService.getSettings().getDropped());
+  }
+
+  @Test
+  public void turning_sampling_off_keeps_the_counts() {
+    sqlTraceService.setSettings(1, 10);
+    trace(2);
+
+    sqlTraceService.setSettings(0, 10);
+    trace(2);
+
+    assertEquals(2, sqlTraceService.getSettings().getLogged());
+  }
+}
@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.services.organizations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class OrganizationPrefixIndexTests {
+
+  private final OrganizationPrefixIndex index =
+      new OrganizationPrefixIndex(
+          List.of(
+              organization("CS", "Comp Sci", "Computer Science", false),
+              organization("ECE", "Elec Comp Eng", "Electrical and Computer Engineering", false),
+              organization("AS", "A.S.", "Associated Students", false),
+              organization("ZETA", "Zeta Psi", "Zeta Psi Fraternity", true),
+              organization("X1", null, null, false)));
+
+  private static UCSBOrganization organization(
+      String orgCode, String orgTranslationShort, String orgTranslation, boolean inactive) {
+    return UCSBOrganization.builder()
+        .orgCode(orgCode)
+        .orgTranslationShort(orgTranslationShort)
+        .orgTranslation(orgTranslation)
+        .inactive(inactive)
+        .build();
+  }
+
+  private List<String> codes(String prefix, int k, boolean includeInactive) {
+    return index.find(prefix, k, includeInactive).stream()
+        .map(UCSBOrganization::getOrgCode)
+        .toList();
+  }
+
+  @Test
+  public void normalize_lower_cases_and_collapses_punctuation() {
+    assertEquals("comp sci", OrganizationPrefixIndex.normalize("  Comp--Sci!! "));
+    assertEquals("", OrganizationPrefixIndex.normalize(null));
+  }
+
+  @Test
+  public void matches_on_the_code_come_first() {
+    assertEquals(List.of("CS", "ECE"), codes("c", 10, false));
+  }
+
+  @Test
+  public void matches_at_the_start_of_a_name_come_before_matches_at_a_later_word() {
+    // "Comp Sci" starts with "comp", but "Elec Comp Eng" only has a word that does
+    assertEquals(List.of("CS", "ECE"), codes("comp", 10, false));
+  }
+
+  @Test
+  public void ties_are_ordered_by_code() {
+    assertEquals(List.of("AS", "CS"), codes("s", 10, false));
+  }
+
+  @Test
+  public void prefixes_can_span_words() {
+    assertEquals(List.of("CS"), codes("Computer-Sc", 10, false));
+    assertEquals(List.of("ECE"), codes("computer eng", 10, false));
+  }
+
+  @Test
+  public void inactive_organizations_are_only_returned_when_asked_for() {
+    assertEquals(List.of(), codes("zeta", 10, false));
+    assertEquals(List.of("ZETA"), codes("zeta", 10, true));
+  }
+
+  @Test
+  public void at_most_k_organizations_are_returned() {
+    assertEquals(List.of("CS"), codes("c", 1, false));
+  }
+
+  @Test
+  public void organizations_without_names_are_found_by_code() {
+    assertEquals(List.of("X1"), codes("x", 10, false));
+  }
+
+  @Test
+  public void nothing_matches_a_blank_or_unknown_prefix() {
+    assertEquals(List.of(), codes("--", 10, true));
+    assertEquals(List.of(), codes("q", 10, true));
+    assertEquals(List.of(), codes("zzz", 10, true));
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ucsb.cs156.example.services.organizations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class OrganizationTypeaheadServiceTests {
+
+  @Mock private UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  private OrganizationTypeaheadService organizationTypeaheadService;
+
+  private final UCSBOrganization cs =
+      UCSBOrganization.builder()
+          .orgCode("CS")
+          .orgTranslationShort("Comp Sci")
+          .orgTranslation("Computer Science")
+          .build();
+  private final UCSBOrganization ece =
+      UCSBOrganization.builder()
+          .orgCode("ECE")
+          .orgTranslationShort("Elec Comp Eng")
+          .orgTranslation("Electrical and Computer Engineering")
+          .build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    organizationTypeaheadService = new OrganizationTypeaheadService();
+    ReflectionTestUtils.setField(
+        organizationTypeaheadService, "ucsbOrganizationRepository", ucsbOrganizationRepository);
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(cs, ece));
+  }
+
+  @Test
+  public void suggest_builds_the_index_once() {
+    assertEquals(List.of(cs, ece), organizationTypeaheadService.suggest("comp", 10, false));
+    assertEquals(List.of(ece), organizationTypeaheadService.suggest("elec", 10, false));
+
+    verify(ucsbOrganizationRepository, times(1)).findAll();
+  }
+
+  @Test
+  public void a_changed_organization_rebuilds_the_index() {
+    organizationTypeaheadService.suggest("comp", 10, false);
+    when(ucsbOrganizationRepository.findAll()).thenReturn(List.of(ece));
+
+    organizationTypeaheadService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBOrganization.class)
+            .entityId("CS")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(cs)
+            .build());
+
+    verify(ucsbOrganizationRepository, times(2)).findAll();
+    assertEquals(List.of(ece), organizationTypeaheadService.suggest("comp", 10, false));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    organizationTypeaheadService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+
+    verify(ucsbOrganizationRepository, times(0)).findAll();
+  }
+}
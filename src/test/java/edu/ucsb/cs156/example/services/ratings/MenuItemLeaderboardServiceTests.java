@@ -0,0 +1,235 @@
+package edu.ucsb.cs156.example.services.ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.events.MenuItemRatingsChangedEvent;
+import edu.ucsb.cs156.example.models.RankedMenuItem;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MenuItemLeaderboardServiceTests {
+
+  @Mock private UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Mock private MenuItemRatingRepository menuItemRatingRepository;
+
+  private MenuItemLeaderboardService menuItemLeaderboardService;
+
+  private final UCSBDiningCommonsMenuItem pasta = menuItem(1, "ortega", "Entrees", "Pasta");
+  private final UCSBDiningCommonsMenuItem tacos = menuItem(2, "ortega", "Grill", "Tacos");
+  private final UCSBDiningCommonsMenuItem salad = menuItem(3, "ortega", "Entrees", "Salad");
+  private final UCSBDiningCommonsMenuItem soup = menuItem(4, "portola", "Entrees", "Soup");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    menuItemLeaderboardService = new MenuItemLeaderboardService();
+    ReflectionTestUtils.setField(
+        menuItemLeaderboardService,
+        "ucsbDiningCommonsMenuItemRepository",
+        ucsbDiningCommonsMenuItemRepository);
+    ReflectionTestUtils.setField(
+        menuItemLeaderboardService, "menuItemRatingRepository", menuItemRatingRepository);
+    ReflectionTestUtils.setField(menuItemLeaderboardService, "priorMean", 3.0);
+    ReflectionTestUtils.setField(menuItemLeaderboardService, "priorWeight", 5.0);
+
+    when(ucsbDiningCommonsMenuItemRepository.findAll())
+        .thenReturn(List.of(pasta, tacos, salad, soup));
+    when(menuItemRatingRepository.findAll())
+        .thenReturn(
+            List.of(
+                rating(1, 10, 45), // 4.5 over 10 reviews
+                rating(2, 1, 5), // one five-star review
+                rating(3, 0, 0), // reviews were all deleted
+                rating(4, 2, 8),
+                rating(99, 3, 15))); // not a menu item
+    menuItemLeaderboardService.rebuild();
+  }
+
+  private static UCSBDiningCommonsMenuItem menuItem(
+      long id, String diningCommonsCode, String station, String name) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .id(id)
+        .diningCommonsCode(diningCommonsCode)
+        .station(station)
+        .name(name)
+        .build();
+  }
+
+  private static MenuItemRating rating(long itemId, long reviewCount, long starsSum) {
+    return MenuItemRating.builder()
+        .itemId(itemId)
+        .reviewCount(reviewCount)
+        .starsSum(starsSum)
+        .build();
+  }
+
+  private List<Long> topIds(String diningCommonsCode, String station, int n) {
+    return menuItemLeaderboardService.top(diningCommonsCode, station, n).stream()
+        .map(RankedMenuItem::getItemId)
+        .toList();
+  }
+
+  @Test
+  public void items_are_ranked_by_bayesian_average() {
+    List<RankedMenuItem> top = menuItemLeaderboardService.top("ortega", null, 10);
+
+    RankedMenuItem expectedPasta =
+        RankedMenuItem.builder()
+            .itemId(1)
+            .name("Pasta")
+            .diningCommonsCode("ortega")
+            .station("Entrees")
+            .reviewCount(10)
+            .average(4.5)
+            .score(4.0)
+            .build();
+    assertEquals(expectedPasta, top.get(0));
+    // (5 * 3 + 5) / (5 + 1): one five-star review does not beat ten good ones
+    assertEquals(2, top.get(1).getItemId());
+    assertEquals(20.0 / 6, top.get(1).getScore(), 1e-9);
+    assertEquals(2, top.size());
+  }
+
+  @Test
+  public void stations_are_ranked_separately() {
+    assertEquals(List.of(1L), topIds("ortega", "Entrees", 10));
+    assertEquals(List.of(2L), topIds("ortega", "Grill", 10));
+    assertEquals(List.of(4L), topIds("portola", null, 10));
+  }
+
+  @Test
+  public void top_returns_at_most_n_items() {
+    assertEquals(List.of(1L), topIds("ortega", null, 1));
+  }
+
+  @Test
+  public void top_is_empty_for_an_unknown_dining_commons() {
+    assertEquals(List.of(), topIds("carrillo", null, 10));
+  }
+
+  @Test
+  public void ties_go_to_the_item_with_more_reviews_then_the_lower_id() {
+    // all three score 3.0
+    menuItemLeaderboardService.onRatingsChanged(
+        new MenuItemRatingsChangedEvent(
+            List.of(rating(1, 5, 15), rating(2, 1, 3), rating(3, 1, 3))));
+
+    assertEquals(List.of(1L, 2L, 3L), topIds("ortega", null, 10));
+  }
+
+  @Test
+  public void a_rating_change_moves_the_item() {
+    menuItemLeaderboardService.onRatingsChanged(
+        new MenuItemRatingsChangedEvent(List.of(rating(2, 20, 100))));
+
+    assertEquals(List.of(2L, 1L), topIds("ortega", null, 10));
+    assertEquals(List.of(2L), topIds("ortega", "Grill", 10));
+  }
+
+  @Test
+  public void a_changed_menu_item_moves_to_its_new_station() {
+    UCSBDiningCommonsMenuItem moved = menuItem(1, "ortega", "Grill", "Pasta");
+
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommonsMenuItem.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .entity(moved)
+            .build());
+
+    assertEquals(List.of(), topIds("ortega", "Entrees", 10));
+    assertEquals(List.of(1L, 2L), topIds("ortega", "Grill", 10));
+  }
+
+  @Test
+  public void a_deleted_menu_item_is_removed() {
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommonsMenuItem.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(pasta)
+            .build());
+
+    assertEquals(List.of(2L), topIds("ortega", null, 10));
+  }
+
+  @Test
+  public void a_menu_item_changed_on_another_instance_is_read_again() {
+    when(ucsbDiningCommonsMenuItemRepository.findById(4L))
+        .thenReturn(Optional.of(menuItem(4, "ortega", "Soups", "Soup")));
+
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommonsMenuItem.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(ucsbDiningCommonsMenuItemRepository).findById(4L);
+    assertEquals(List.of(), topIds("portola", null, 10));
+    assertEquals(List.of(4L), topIds("ortega", "Soups", 10));
+  }
+
+  @Test
+  public void a_menu_item_deleted_on_another_instance_is_removed() {
+    when(ucsbDiningCommonsMenuItemRepository.findById(4L)).thenReturn(Optional.empty());
+
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommonsMenuItem.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    assertEquals(List.of(), topIds("portola", null, 10));
+  }
+
+  @Test
+  public void a_new_menu_item_is_ranked_once_it_has_reviews() {
+    UCSBDiningCommonsMenuItem burrito = menuItem(5, "ortega", "Grill", "Burrito");
+
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDiningCommonsMenuItem.class)
+            .entityId("5")
+            .action(EntityChangedEvent.Action.CREATED)
+            .entity(burrito)
+            .build());
+    assertEquals(List.of(2L), topIds("ortega", "Grill", 10));
+
+    menuItemLeaderboardService.onRatingsChanged(
+        new MenuItemRatingsChangedEvent(List.of(rating(5, 2, 10))));
+    assertEquals(List.of(5L, 2L), topIds("ortega", "Grill", 10));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    menuItemLeaderboardService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+
+    assertEquals(List.of(1L, 2L), topIds("ortega", null, 10));
+  }
+}
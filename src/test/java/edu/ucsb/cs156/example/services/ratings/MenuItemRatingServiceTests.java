@@ -0,0 +1,233 @@
+package edu.ucsb.cs156.example.services.ratings;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.MenuItemRating;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.events.MenuItemRatingsChangedEvent;
+import edu.ucsb.cs156.example.repositories.MenuItemRatingRepository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class MenuItemRatingServiceTests {
+
+  @Mock private MenuItemRatingRepository menuItemRatingRepository;
+
+  @Mock private ApplicationEventPublisher applicationEventPublisher;
+
+  private MenuItemRatingService menuItemRatingService;
+
+  private static final LocalDateTime JAN_3 = LocalDateTime.parse("2022-01-03T00:00:00");
+  private static final LocalDateTime JAN_4 = LocalDateTime.parse("2022-01-04T00:00:00");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    menuItemRatingService = new MenuItemRatingService();
+    ReflectionTestUtils.setField(
+        menuItemRatingService, "menuItemRatingRepository", menuItemRatingRepository);
+    ReflectionTestUtils.setField(
+        menuItemRatingService, "applicationEventPublisher", applicationEventPublisher);
+    when(menuItemRatingRepository.findWithLockByItemId(27L)).thenReturn(Optional.empty());
+    when(menuItemRatingRepository.findWithLockByItemId(28L)).thenReturn(Optional.empty());
+  }
+
+  private MenuItemReview review(long itemId, int stars, LocalDateTime dateReviewed) {
+    return MenuItemReview.builder().itemId(itemId).stars(stars).dateReviewed(dateReviewed).build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<MenuItemRating> saved() {
+    ArgumentCaptor<Collection<MenuItemRating>> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(menuItemRatingRepository).saveAll(captor.capture());
+    return captor.getValue().stream()
+        .sorted((a, b) -> Long.compare(a.getItemId(), b.getItemId()))
+        .toList();
+  }
+
+  @Test
+  public void reviewsAdded_counts_the_reviews_of_new_items() {
+    // act
+
+    menuItemRatingService.reviewsAdded(
+        List.of(
+            review(27, 0, JAN_3),
+            review(27, 1, JAN_4),
+            review(27, 2, null),
+            review(28, 3, JAN_3),
+            review(28, 4, JAN_3),
+            review(28, 5, JAN_3)));
+
+    // assert
+
+    MenuItemRating expected27 =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(3)
+            .starsSum(3)
+            .zeroStars(1)
+            .oneStar(1)
+            .twoStars(1)
+            .lastReviewed(JAN_4)
+            .build();
+    MenuItemRating expected28 =
+        MenuItemRating.builder()
+            .itemId(28)
+            .reviewCount(3)
+            .starsSum(12)
+            .threeStars(1)
+            .fourStars(1)
+            .fiveStars(1)
+            .lastReviewed(JAN_3)
+            .build();
+    assertEquals(List.of(expected27, expected28), saved());
+    assertEquals(1.0, expected27.getAverage());
+  }
+
+  @Test
+  public void rows_are_locked_in_order_of_item_id() {
+    // act
+
+    menuItemRatingService.reviewsAdded(List.of(review(28, 3, JAN_3), review(27, 4, JAN_3)));
+
+    // assert
+
+    InOrder inOrder = inOrder(menuItemRatingRepository);
+    inOrder.verify(menuItemRatingRepository).findWithLockByItemId(27L);
+    inOrder.verify(menuItemRatingRepository).findWithLockByItemId(28L);
+  }
+
+  @Test
+  public void reviewsRemoved_subtracts_the_reviews_and_keeps_the_last_review_time() {
+    // arrange
+
+    MenuItemRating existing =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(2)
+            .starsSum(9)
+            .fourStars(1)
+            .fiveStars(1)
+            .lastReviewed(JAN_4)
+            .build();
+    when(menuItemRatingRepository.findWithLockByItemId(27L)).thenReturn(Optional.of(existing));
+
+    // act
+
+    menuItemRatingService.reviewsRemoved(List.of(review(27, 5, JAN_4)));
+
+    // assert
+
+    MenuItemRating expected =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(1)
+            .starsSum(4)
+            .fourStars(1)
+            .lastReviewed(JAN_4)
+            .build();
+    assertEquals(List.of(expected), saved());
+    verify(applicationEventPublisher)
+        .publishEvent(new MenuItemRatingsChangedEvent(List.of(expected)));
+  }
+
+  @Test
+  public void reviewsChanged_moves_a_review_between_items() {
+    // arrange
+
+    MenuItemRating existing =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(1)
+            .starsSum(5)
+            .fiveStars(1)
+            .lastReviewed(JAN_4)
+            .build();
+    when(menuItemRatingRepository.findWithLockByItemId(27L)).thenReturn(Optional.of(existing));
+
+    // act
+
+    menuItemRatingService.reviewsChanged(
+        List.of(review(27, 5, JAN_4)), List.of(review(28, 2, JAN_3)));
+
+    // assert
+
+    MenuItemRating expected27 = MenuItemRating.builder().itemId(27).lastReviewed(JAN_4).build();
+    MenuItemRating expected28 =
+        MenuItemRating.builder()
+            .itemId(28)
+            .reviewCount(1)
+            .starsSum(2)
+            .twoStars(1)
+            .lastReviewed(JAN_3)
+            .build();
+    assertEquals(List.of(expected27, expected28), saved());
+    assertNull(expected27.getAverage());
+  }
+
+  @Test
+  public void an_older_review_does_not_move_the_last_review_time_back() {
+    // arrange
+
+    MenuItemRating existing =
+        MenuItemRating.builder()
+            .itemId(27)
+            .reviewCount(1)
+            .starsSum(5)
+            .fiveStars(1)
+            .lastReviewed(JAN_4)
+            .build();
+    when(menuItemRatingRepository.findWithLockByItemId(27L)).thenReturn(Optional.of(existing));
+
+    // act
+
+    menuItemRatingService.reviewsAdded(List.of(review(27, 3, JAN_3)));
+
+    // assert
+
+    assertEquals(JAN_4, saved().get(0).getLastReviewed());
+  }
+
+  @Test
+  public void getRating_returns_the_rating_of_an_item() {
+    MenuItemRating rating = MenuItemRating.builder().itemId(27).reviewCount(1).build();
+    when(menuItemRatingRepository.findById(27L)).thenReturn(Optional.of(rating));
+
+    assertSame(rating, menuItemRatingService.getRating(27L));
+  }
+
+  @Test
+  public void getRating_returns_an_empty_rating_for_an_item_without_reviews() {
+    when(menuItemRatingRepository.findById(27L)).thenReturn(Optional.empty());
+
+    assertEquals(MenuItemRating.builder().itemId(27).build(), menuItemRatingService.getRating(27L));
+  }
+
+  @Test
+  public void getRatings_returns_a_page_of_ratings() {
+    PageRequest pageRequest = PageRequest.of(0, 2);
+    Page<MenuItemRating> page =
+        new PageImpl<>(List.of(MenuItemRating.builder().itemId(27).build()), pageRequest, 1);
+    when(menuItemRatingRepository.findAll(pageRequest)).thenReturn(page);
+
+    assertSame(page, menuItemRatingService.getRatings(pageRequest));
+  }
+}
@@ -0,0 +1,186 @@
+package edu.ucsb.cs156.example.services.recommendationrequests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class OverdueRecommendationRequestServiceTests {
+
+  @Mock private RecommendationRequestRepository recommendationRequestRepository;
+
+  private OverdueRecommendationRequestService overdueRecommendationRequestService;
+
+  private static final ZonedDateTime JAN_3 = ZonedDateTime.parse("2022-01-03T00:00:00Z");
+  private static final ZonedDateTime JAN_4 = ZonedDateTime.parse("2022-01-04T00:00:00Z");
+  private static final ZonedDateTime JAN_5 = ZonedDateTime.parse("2022-01-05T00:00:00Z");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    overdueRecommendationRequestService = new OverdueRecommendationRequestService();
+    ReflectionTestUtils.setField(
+        overdueRecommendationRequestService,
+        "recommendationRequestRepository",
+        recommendationRequestRepository);
+    setNow(JAN_3);
+    when(recommendationRequestRepository.findByDoneFalseAndDateNeededLessThanEqual(JAN_3))
+        .thenReturn(
+            List.of(
+                request(1, "phill@ucsb.edu", JAN_3.minusDays(1)),
+                request(2, "phill@ucsb.edu", JAN_3),
+                request(3, "ziad@ucsb.edu", JAN_3.minusDays(2)),
+                request(4, null, JAN_3))); // a request with no professor is not counted
+    overdueRecommendationRequestService.rebuild();
+  }
+
+  private void setNow(ZonedDateTime now) {
+    ReflectionTestUtils.setField(
+        overdueRecommendationRequestService,
+        "clock",
+        Clock.fixed(now.toInstant(), ZoneOffset.UTC));
+  }
+
+  private static RecommendationRequest request(
+      long id, String professorEmail, ZonedDateTime dateNeeded) {
+    return RecommendationRequest.builder()
+        .id(id)
+        .professorEmail(professorEmail)
+        .dateNeeded(dateNeeded)
+        .build();
+  }
+
+  private void changed(EntityChangedEvent.Action action, long id, RecommendationRequest entity) {
+    overdueRecommendationRequestService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(RecommendationRequest.class)
+            .entityId(Long.toString(id))
+            .action(action)
+            .entity(entity)
+            .build());
+  }
+
+  private Map<String, Long> counts() {
+    return overdueRecommendationRequestService.overdueCounts();
+  }
+
+  @Test
+  public void the_first_check_counts_every_overdue_request() {
+    assertEquals(Map.of("phill@ucsb.edu", 2L, "ziad@ucsb.edu", 1L), counts());
+  }
+
+  @Test
+  public void later_checks_only_read_the_requests_that_became_due() {
+    setNow(JAN_4);
+    when(recommendationRequestRepository
+            .findByDoneFalseAndDateNeededGreaterThanAndDateNeededLessThanEqual(JAN_3, JAN_4))
+        .thenReturn(List.of(request(5, "ziad@ucsb.edu", JAN_4)));
+
+    overdueRecommendationRequestService.checkOverdue();
+
+    assertEquals(Map.of("phill@ucsb.edu", 2L, "ziad@ucsb.edu", 2L), counts());
+  }
+
+  @Test
+  public void a_request_that_is_done_is_no_longer_overdue() {
+    RecommendationRequest done = request(3, "ziad@ucsb.edu", JAN_3.minusDays(2));
+    done.setDone(true);
+
+    changed(EntityChangedEvent.Action.UPDATED, 3, done);
+
+    assertEquals(Map.of("phill@ucsb.edu", 2L), counts());
+  }
+
+  @Test
+  public void a_deleted_request_is_no_longer_overdue() {
+    changed(EntityChangedEvent.Action.DELETED, 1, request(1, "phill@ucsb.edu", JAN_3));
+
+    assertEquals(Map.of("phill@ucsb.edu", 1L, "ziad@ucsb.edu", 1L), counts());
+  }
+
+  @Test
+  public void a_request_moved_to_another_professor_is_counted_once() {
+    changed(EntityChangedEvent.Action.UPDATED, 1, request(1, "ziad@ucsb.edu", JAN_3));
+
+    assertEquals(Map.of("phill@ucsb.edu", 1L, "ziad@ucsb.edu", 2L), counts());
+  }
+
+  @Test
+  public void a_new_request_that_is_already_due_is_counted_at_once() {
+    changed(EntityChangedEvent.Action.CREATED, 6, request(6, "ziad@ucsb.edu", JAN_3));
+
+    assertEquals(Map.of("phill@ucsb.edu", 2L, "ziad@ucsb.edu", 2L), counts());
+  }
+
+  @Test
+  public void a_request_due_later_is_counted_by_a_later_check() {
+    changed(EntityChangedEvent.Action.CREATED, 6, request(6, "ziad@ucsb.edu", JAN_5));
+    changed(EntityChangedEvent.Action.CREATED, 7, request(7, "ziad@ucsb.edu", null));
+
+    assertEquals(Map.of("phill@ucsb.edu", 2L, "ziad@ucsb.edu", 1L), counts());
+  }
+
+  @Test
+  public void a_request_changed_on_another_instance_is_read_again() {
+    when(recommendationRequestRepository.findById(3L)).thenReturn(Optional.empty());
+
+    overdueRecommendationRequestService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(RecommendationRequest.class)
+            .entityId("3")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(recommendationRequestRepository).findById(3L);
+    assertEquals(Map.of("phill@ucsb.edu", 2L), counts());
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    overdueRecommendationRequestService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+
+    assertEquals(Map.of("phill@ucsb.edu", 2L, "ziad@ucsb.edu", 1L), counts());
+  }
+
+  @Test
+  public void changes_before_the_first_check_are_ignored() {
+    OverdueRecommendationRequestService unchecked = new OverdueRecommendationRequestService();
+    ReflectionTestUtils.setField(
+        unchecked, "recommendationRequestRepository", recommendationRequestRepository);
+
+    unchecked.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(RecommendationRequest.class)
+            .entityId("3")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(recommendationRequestRepository, never()).findById(any());
+    assertEquals(Map.of(), unchecked.overdueCounts());
+  }
+}
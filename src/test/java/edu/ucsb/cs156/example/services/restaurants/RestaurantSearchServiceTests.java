@@ -0,0 +1,188 @@
+package edu.ucsb.cs156.example.services.restaurants;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.models.RestaurantSearchResult;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class RestaurantSearchServiceTests {
+
+  @Mock private RestaurantRepository restaurantRepository;
+
+  private RestaurantSearchService restaurantSearchService;
+
+  private final Restaurant tacoBell = restaurant(1, "Taco Bell", "Fast food tacos and burritos");
+  private final Restaurant freebirds = restaurant(2, "Freebirds", "World burrito");
+  private final Restaurant cantina = restaurant(3, "Taco Bell Cantina", "Taco Bell with a bar");
+  private final Restaurant habit = restaurant(4, "Habit Burger Grill", "Charburgers");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    restaurantSearchService = new RestaurantSearchService();
+    ReflectionTestUtils.setField(
+        restaurantSearchService, "restaurantRepository", restaurantRepository);
+    ReflectionTestUtils.setField(restaurantSearchService, "minSimilarity", 0.5);
+
+    when(restaurantRepository.findAll()).thenReturn(List.of(tacoBell, freebirds, cantina, habit));
+    restaurantSearchService.rebuild();
+  }
+
+  private static Restaurant restaurant(long id, String name, String description) {
+    return Restaurant.builder().id(id).name(name).description(description).build();
+  }
+
+  private List<Long> searchIds(String query) {
+    return restaurantSearchService.search(query, 10).stream()
+        .map(result -> result.getRestaurant().getId())
+        .toList();
+  }
+
+  private void changed(Restaurant restaurant, EntityChangedEvent.Action action) {
+    restaurantSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Restaurant.class)
+            .entityId(Long.toString(restaurant.getId()))
+            .action(action)
+            .entity(restaurant)
+            .build());
+  }
+
+  @Test
+  public void trigrams_come_from_each_word_and_the_words_run_together() {
+    assertEquals(
+        Set.of(
+            "  t", " ta", "tac", "aco", "co ", "  b", " be", "bel", "ell", "ll ", "cob", "obe"),
+        RestaurantSearchService.trigrams(" Taco-Bell"));
+    assertEquals(Set.of(), RestaurantSearchService.trigrams(null));
+  }
+
+  @Test
+  public void misspelled_names_are_found() {
+    assertEquals(List.of(1L, 3L), searchIds("tacobel"));
+    assertEquals(List.of(1L, 3L), searchIds("bell taco"));
+    assertEquals(List.of(4L), searchIds("Habbit burger"));
+  }
+
+  @Test
+  public void exact_names_have_a_similarity_of_one_and_the_closest_length_first() {
+    List<RestaurantSearchResult> results = restaurantSearchService.search("Taco Bell", 10);
+
+    assertEquals(
+        List.of(
+            new RestaurantSearchResult(tacoBell, 1.0), new RestaurantSearchResult(cantina, 1.0)),
+        results);
+  }
+
+  @Test
+  public void descriptions_are_searched_but_count_for_less() {
+    List<RestaurantSearchResult> results = restaurantSearchService.search("burito", 10);
+
+    // "burito" has 7 trigrams; "burrito" shares 6 of them, "burritos" 5
+    assertEquals(List.of(2L, 1L), results.stream().map(r -> r.getRestaurant().getId()).toList());
+    assertEquals(0.8 * 6 / 7, results.get(0).getSimilarity(), 1e-9);
+    assertEquals(0.8 * 5 / 7, results.get(1).getSimilarity(), 1e-9);
+  }
+
+  @Test
+  public void ties_go_to_the_lower_id() {
+    when(restaurantRepository.findAll())
+        .thenReturn(List.of(restaurant(6, "Subway", null), restaurant(5, "Subway", null)));
+    restaurantSearchService.rebuild();
+
+    assertEquals(List.of(5L, 6L), searchIds("subway"));
+  }
+
+  @Test
+  public void search_returns_at_most_limit_restaurants() {
+    assertEquals(1, restaurantSearchService.search("tacobel", 1).size());
+  }
+
+  @Test
+  public void dissimilar_restaurants_are_left_out() {
+    assertEquals(List.of(), searchIds("xyz"));
+    // shares only 3 of its 7 trigrams with "Habit Burger Grill"
+    assertEquals(List.of(), searchIds("burpee"));
+  }
+
+  @Test
+  public void a_created_restaurant_is_indexed() {
+    changed(restaurant(5, "Panda Express", null), EntityChangedEvent.Action.CREATED);
+
+    assertEquals(List.of(5L), searchIds("panda expres"));
+  }
+
+  @Test
+  public void an_updated_restaurant_is_indexed_again() {
+    changed(restaurant(4, "In-N-Out", "Burgers"), EntityChangedEvent.Action.UPDATED);
+
+    assertEquals(List.of(), searchIds("habit"));
+    assertEquals(List.of(4L), searchIds("innout"));
+  }
+
+  @Test
+  public void a_deleted_restaurant_is_removed() {
+    changed(cantina, EntityChangedEvent.Action.DELETED);
+
+    assertEquals(List.of(), searchIds("cantina"));
+    assertEquals(List.of(1L), searchIds("taco bell"));
+  }
+
+  @Test
+  public void a_restaurant_changed_on_another_instance_is_read_again() {
+    when(restaurantRepository.findById(4L))
+        .thenReturn(Optional.of(restaurant(4, "Panda Express", null)));
+
+    restaurantSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Restaurant.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(restaurantRepository).findById(4L);
+    assertEquals(List.of(4L), searchIds("panda"));
+  }
+
+  @Test
+  public void a_restaurant_deleted_on_another_instance_is_removed() {
+    when(restaurantRepository.findById(4L)).thenReturn(Optional.empty());
+
+    restaurantSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Restaurant.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    assertEquals(List.of(), searchIds("habit burger"));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    restaurantSearchService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new UCSBDate())
+            .build());
+
+    assertEquals(List.of(1L, 3L), searchIds("tacobel"));
+  }
+}
@@ -0,0 +1,175 @@
+package edu.ucsb.cs156.example.services.ucsbdates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class AcademicCalendarServiceTests {
+
+  @Mock private UCSBDateRepository ucsbDateRepository;
+
+  private AcademicCalendarService academicCalendarService;
+
+  private final UCSBDate firstDay = date(1, "First day of classes", "2024-01-08T08:00:00");
+  private final UCSBDate addDrop = date(2, "Add/drop deadline", "2024-01-08T08:00:00");
+  private final UCSBDate mlkDay = date(3, "MLK Day", "2024-01-15T00:00:00");
+  private final UCSBDate finals = date(4, "Finals begin", "2024-03-16T08:00:00");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    academicCalendarService = new AcademicCalendarService();
+    ReflectionTestUtils.setField(academicCalendarService, "ucsbDateRepository", ucsbDateRepository);
+    ReflectionTestUtils.setField(
+        academicCalendarService,
+        "clock",
+        Clock.fixed(Instant.parse("2024-01-08T08:00:00Z"), ZoneOffset.UTC));
+
+    when(ucsbDateRepository.findByLocalDateTimeNotNullOrderByLocalDateTimeAscIdAsc())
+        .thenReturn(List.of(firstDay, addDrop, mlkDay, finals));
+    academicCalendarService.rebuild();
+  }
+
+  private static UCSBDate date(long id, String name, String localDateTime) {
+    return UCSBDate.builder()
+        .id(id)
+        .quarterYYYYQ("20241")
+        .name(name)
+        .localDateTime(localDateTime == null ? null : LocalDateTime.parse(localDateTime))
+        .build();
+  }
+
+  private void changed(UCSBDate date, EntityChangedEvent.Action action) {
+    academicCalendarService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId(Long.toString(date.getId()))
+            .action(action)
+            .entity(date)
+            .build());
+  }
+
+  @Test
+  public void between_includes_both_ends() {
+    LocalDateTime from = LocalDateTime.parse("2024-01-08T08:00:00");
+    LocalDateTime to = LocalDateTime.parse("2024-01-15T00:00:00");
+
+    assertEquals(List.of(firstDay, addDrop, mlkDay), academicCalendarService.between(from, to));
+    assertEquals(List.of(), academicCalendarService.between(to.plusDays(1), to.plusDays(30)));
+  }
+
+  @Test
+  public void upcoming_returns_the_next_n_dates_from_now() {
+    assertEquals(List.of(firstDay, addDrop), academicCalendarService.upcoming(2));
+
+    ReflectionTestUtils.setField(
+        academicCalendarService,
+        "clock",
+        Clock.fixed(Instant.parse("2024-01-09T00:00:00Z"), ZoneOffset.UTC));
+    assertEquals(List.of(mlkDay, finals), academicCalendarService.upcoming(10));
+  }
+
+  @Test
+  public void onDay_returns_the_dates_on_a_day() {
+    assertEquals(
+        List.of(firstDay, addDrop), academicCalendarService.onDay(LocalDate.parse("2024-01-08")));
+    assertEquals(List.of(mlkDay), academicCalendarService.onDay(LocalDate.parse("2024-01-15")));
+    assertEquals(List.of(), academicCalendarService.onDay(LocalDate.parse("2024-01-14")));
+  }
+
+  @Test
+  public void a_created_date_is_added() {
+    UCSBDate springBreak = date(5, "Spring break", "2024-03-25T00:00:00");
+
+    changed(springBreak, EntityChangedEvent.Action.CREATED);
+
+    assertEquals(
+        List.of(springBreak), academicCalendarService.onDay(LocalDate.parse("2024-03-25")));
+  }
+
+  @Test
+  public void an_updated_date_is_moved() {
+    UCSBDate moved = date(3, "MLK Day", "2024-01-14T00:00:00");
+
+    changed(moved, EntityChangedEvent.Action.UPDATED);
+
+    assertEquals(List.of(), academicCalendarService.onDay(LocalDate.parse("2024-01-15")));
+    assertEquals(List.of(moved), academicCalendarService.onDay(LocalDate.parse("2024-01-14")));
+  }
+
+  @Test
+  public void a_date_without_a_time_is_left_off_the_calendar() {
+    changed(date(3, "MLK Day", null), EntityChangedEvent.Action.UPDATED);
+
+    assertEquals(List.of(firstDay, addDrop, finals), academicCalendarService.upcoming(10));
+  }
+
+  @Test
+  public void a_deleted_date_is_removed() {
+    changed(addDrop, EntityChangedEvent.Action.DELETED);
+
+    assertEquals(List.of(firstDay), academicCalendarService.onDay(LocalDate.parse("2024-01-08")));
+  }
+
+  @Test
+  public void a_date_changed_on_another_instance_is_read_again() {
+    UCSBDate moved = date(4, "Finals begin", "2024-03-18T08:00:00");
+    when(ucsbDateRepository.findById(4L)).thenReturn(Optional.of(moved));
+
+    academicCalendarService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    verify(ucsbDateRepository).findById(4L);
+    assertEquals(List.of(moved), academicCalendarService.onDay(LocalDate.parse("2024-03-18")));
+  }
+
+  @Test
+  public void a_date_deleted_on_another_instance_is_removed() {
+    when(ucsbDateRepository.findById(4L)).thenReturn(Optional.empty());
+
+    academicCalendarService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId("4")
+            .action(EntityChangedEvent.Action.UPDATED)
+            .remote(true)
+            .build());
+
+    assertEquals(List.of(firstDay, addDrop, mlkDay), academicCalendarService.upcoming(10));
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() {
+    academicCalendarService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+
+    assertEquals(4, academicCalendarService.upcoming(10).size());
+  }
+}
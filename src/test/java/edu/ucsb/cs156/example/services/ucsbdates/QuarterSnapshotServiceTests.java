@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.services.ucsbdates;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.events.EntityChangedEvent;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class QuarterSnapshotServiceTests {
+
+  @Mock private UCSBDateRepository ucsbDateRepository;
+
+  private QuarterSnapshotService quarterSnapshotService;
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .findAndRegisterModules()
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private final UCSBDate firstDay = date(1, "20241", "First day of classes");
+  private final UCSBDate finals = date(2, "20241", "Finals begin");
+  private final UCSBDate springFirstDay = date(3, "20242", "First day of classes");
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    quarterSnapshotService = new QuarterSnapshotService();
+    ReflectionTestUtils.setField(quarterSnapshotService, "ucsbDateRepository", ucsbDateRepository);
+    ReflectionTestUtils.setField(quarterSnapshotService, "objectMapper", objectMapper);
+
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20241")).thenReturn(List.of(firstDay, finals));
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20242")).thenReturn(List.of(springFirstDay));
+  }
+
+  private static UCSBDate date(long id, String quarterYYYYQ, String name) {
+    return UCSBDate.builder()
+        .id(id)
+        .quarterYYYYQ(quarterYYYYQ)
+        .name(name)
+        .localDateTime(LocalDateTime.parse("2024-01-08T08:00:00"))
+        .build();
+  }
+
+  private void changed(UCSBDate date, EntityChangedEvent.Action action) {
+    quarterSnapshotService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId(Long.toString(date.getId()))
+            .action(action)
+            .entity(date)
+            .build());
+  }
+
+  @Test
+  public void quarter_returns_the_dates_as_json() throws Exception {
+    byte[] json = quarterSnapshotService.quarter("20241");
+
+    assertEquals(
+        objectMapper.writeValueAsString(List.of(firstDay, finals)),
+        new String(json, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void quarter_is_only_read_and_encoded_once() throws Exception {
+    byte[] first = quarterSnapshotService.quarter("20241");
+    byte[] second = quarterSnapshotService.quarter("20241");
+
+    assertSame(first, second);
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20241");
+  }
+
+  @Test
+  public void a_change_drops_only_the_quarter_of_the_date() throws Exception {
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    changed(finals, EntityChangedEvent.Action.UPDATED);
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20241");
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20242");
+  }
+
+  @Test
+  public void a_date_that_moves_drops_both_quarters() throws Exception {
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    changed(date(2, "20242", "Finals begin"), EntityChangedEvent.Action.UPDATED);
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20241");
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20242");
+  }
+
+  @Test
+  public void a_date_without_a_quarter_drops_the_quarter_it_was_in() throws Exception {
+    quarterSnapshotService.quarter("20241");
+
+    changed(date(2, null, "Finals begin"), EntityChangedEvent.Action.UPDATED);
+    quarterSnapshotService.quarter("20241");
+
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20241");
+  }
+
+  @Test
+  public void a_change_on_another_instance_drops_every_quarter() throws Exception {
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    quarterSnapshotService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(UCSBDate.class)
+            .entityId("99")
+            .action(EntityChangedEvent.Action.CREATED)
+            .remote(true)
+            .build());
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20241");
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20242");
+  }
+
+  @Test
+  public void saved_dates_drop_their_quarters() throws Exception {
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    quarterSnapshotService.datesSaved(List.of(date(4, "20242", "Spring break")));
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20242");
+
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20241");
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20242");
+  }
+
+  @Test
+  public void a_quarter_read_during_a_change_is_not_kept() throws Exception {
+    when(ucsbDateRepository.findAllByQuarterYYYYQ("20241"))
+        .thenAnswer(
+            invocation -> {
+              changed(finals, EntityChangedEvent.Action.UPDATED);
+              return List.of(firstDay, finals);
+            })
+        .thenReturn(List.of(firstDay, finals));
+
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20241");
+    quarterSnapshotService.quarter("20241");
+
+    verify(ucsbDateRepository, times(2)).findAllByQuarterYYYYQ("20241");
+  }
+
+  @Test
+  public void changes_to_other_entities_are_ignored() throws Exception {
+    quarterSnapshotService.quarter("20241");
+
+    quarterSnapshotService.onEntityChanged(
+        EntityChangedEvent.builder()
+            .entityType(Article.class)
+            .entityId("1")
+            .action(EntityChangedEvent.Action.DELETED)
+            .entity(new Article())
+            .build());
+    quarterSnapshotService.quarter("20241");
+
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20241");
+  }
+}